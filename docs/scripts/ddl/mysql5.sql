@@ -296,6 +296,22 @@ CREATE INDEX IX_mh_user_action_outpoint ON mh_user_action (outpoint);
 CREATE INDEX IX_mh_user_action_mediapackage_id ON mh_user_action (mediapackage);
 CREATE INDEX IX_mh_user_action_type ON mh_user_action (type);
 
+CREATE TABLE mh_user_footprint_aggregate (
+  mediapackage VARCHAR(128) NOT NULL,
+  histogram MEDIUMBLOB,
+  PRIMARY KEY (mediapackage)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE mh_user_footprint_delta (
+  id BIGINT NOT NULL,
+  mediapackage VARCHAR(128) NOT NULL,
+  inpoint INTEGER,
+  outpoint INTEGER,
+  PRIMARY KEY (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE INDEX IX_mh_user_footprint_delta_mediapackage ON mh_user_footprint_delta (mediapackage);
+
 CREATE TABLE mh_oaipmh_harvesting (
   url VARCHAR(255) NOT NULL,
   last_harvested datetime,
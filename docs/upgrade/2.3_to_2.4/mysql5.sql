@@ -0,0 +1,15 @@
+CREATE TABLE mh_user_footprint_aggregate (
+  mediapackage VARCHAR(128) NOT NULL,
+  histogram MEDIUMBLOB,
+  PRIMARY KEY (mediapackage)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE TABLE mh_user_footprint_delta (
+  id BIGINT NOT NULL,
+  mediapackage VARCHAR(128) NOT NULL,
+  inpoint INTEGER,
+  outpoint INTEGER,
+  PRIMARY KEY (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+CREATE INDEX IX_mh_user_footprint_delta_mediapackage ON mh_user_footprint_delta (mediapackage);
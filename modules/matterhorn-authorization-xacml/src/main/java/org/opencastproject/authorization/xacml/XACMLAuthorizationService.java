@@ -35,6 +35,7 @@ import static org.opencastproject.util.data.Option.some;
 import static org.opencastproject.util.data.Prelude.unexhaustiveMatch;
 import static org.opencastproject.util.data.Tuple.tuple;
 
+import org.opencastproject.authorization.xacml.jmx.XacmlPolicyCacheStatistics;
 import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageElementBuilderFactory;
@@ -59,8 +60,12 @@ import org.opencastproject.util.data.Option;
 import org.opencastproject.util.data.Option.Match;
 import org.opencastproject.util.data.Tuple;
 import org.opencastproject.util.data.functions.Options;
+import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workspace.api.Workspace;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.NotImplementedException;
@@ -74,6 +79,7 @@ import org.jboss.security.xacml.factories.RequestResponseContextFactory;
 import org.jboss.security.xacml.interfaces.PolicyDecisionPoint;
 import org.jboss.security.xacml.interfaces.RequestContext;
 import org.jboss.security.xacml.interfaces.XACMLConstants;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -84,6 +90,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 
+import javax.management.ObjectInstance;
 import javax.xml.bind.JAXBException;
 
 /**
@@ -99,6 +106,12 @@ public class XACMLAuthorizationService implements AuthorizationService {
 
   public static final String READ_PERMISSION = "read";
 
+  /** The JMX type of the policy cache statistics */
+  public static final String JMX_POLICY_CACHE_TYPE = "XacmlPolicyCache";
+
+  /** The maximum number of parsed XACML policies that are kept in memory */
+  private static final int POLICY_CACHE_SIZE = 1000;
+
   /** The workspace */
   protected Workspace workspace;
 
@@ -108,6 +121,35 @@ public class XACMLAuthorizationService implements AuthorizationService {
   /** The series service */
   protected SeriesService seriesService;
 
+  /** The parsed XACML policies by attachment URI */
+  private final Cache<URI, CachedPolicy> policyCache = CacheBuilder.newBuilder().maximumSize(POLICY_CACHE_SIZE)
+          .build();
+
+  /** The statistics of the policy cache */
+  private final XacmlPolicyCacheStatistics policyCacheStatistics = new XacmlPolicyCacheStatistics(policyCache);
+
+  /** The registered policy cache statistics */
+  private ObjectInstance registeredMXBean;
+
+  /**
+   * OSGi callback on component activation.
+   *
+   * @param cc
+   *          the component context
+   */
+  public void activate(ComponentContext cc) {
+    registeredMXBean = JmxUtil.registerMXBean(policyCacheStatistics, JMX_POLICY_CACHE_TYPE);
+  }
+
+  /**
+   * OSGi callback on component deactivation.
+   */
+  public void deactivate() {
+    if (registeredMXBean != null)
+      JmxUtil.unregisterMXBean(registeredMXBean);
+    policyCache.invalidateAll();
+  }
+
   @Override
   public Tuple<AccessControlList, AclScope> getActiveAcl(final MediaPackage mp) {
     // tuple up with episode flavor
@@ -230,6 +272,7 @@ public class XACMLAuthorizationService implements AuthorizationService {
         } finally {
           IOUtils.closeQuietly(in);
         }
+        invalidatePolicy(uri);
 
         if (attachment == null) {
           attachment = (Attachment) MediaPackageElementBuilderFactory.newInstance().newElementBuilder()
@@ -378,7 +421,7 @@ public class XACMLAuthorizationService implements AuthorizationService {
             caseA(new Function<Attachment, Option<AccessControlList>>() {
               @Override
               public Option<AccessControlList> apply(Attachment a) {
-                return loadAcl(a.getURI());
+                return loadAcl(a);
               }
             }), caseN(new Function<List<Attachment>, Option<AccessControlList>>() {
               @Override
@@ -398,7 +441,7 @@ public class XACMLAuthorizationService implements AuthorizationService {
                                 }), caseA(new Function<Attachment, Option<AccessControlList>>() {
                           @Override
                           public Option<AccessControlList> apply(Attachment a) {
-                            return loadAcl(a.getURI());
+                            return loadAcl(a);
                           }
                         }), caseN(new Function<List<Attachment>, Option<AccessControlList>>() {
                           @Override
@@ -453,11 +496,66 @@ public class XACMLAuthorizationService implements AuthorizationService {
       } catch (Exception e) {
         logger.warn("Unable to delete XACML file: {}", e);
       }
+      invalidatePolicy(a.getURI());
       mp.remove(a);
     }
     return Tuple.tuple(mp, attachment);
   }
 
+  /**
+   * Get the cache entry of an XACML attachment. Cached policies are only used as long as the attachment's checksum
+   * stays the same or, if the attachment has no checksum, as long as the XACML file in the workspace is not modified.
+   *
+   * @return the cache entry or <code>null</code> if the XACML file is not available
+   */
+  private CachedPolicy getCachedPolicy(Attachment attachment) {
+    final URI uri = attachment.getURI();
+    String version;
+    if (attachment.getChecksum() != null) {
+      version = attachment.getChecksum().toString();
+    } else {
+      final File file = fromWorkspace(uri);
+      if (file == null)
+        return null;
+      version = file.lastModified() + "/" + file.length();
+    }
+    CachedPolicy policy = policyCache.getIfPresent(uri);
+    if (policy == null || !policy.version.equals(version)) {
+      policy = new CachedPolicy(version);
+      policyCache.put(uri, policy);
+    }
+    return policy;
+  }
+
+  /** Remove the policy of the XACML file at the given URI from the cache. */
+  private void invalidatePolicy(URI uri) {
+    if (policyCache.getIfPresent(uri) != null) {
+      policyCache.invalidate(uri);
+      policyCacheStatistics.invalidated();
+    }
+  }
+
+  /** Load the ACL of an XACML attachment, parsing it only if it is not cached yet. */
+  private Option<AccessControlList> loadAcl(final Attachment attachment) {
+    final CachedPolicy policy = getCachedPolicy(attachment);
+    if (policy == null)
+      return none();
+
+    AccessControlList acl = policy.acl;
+    if (acl == null) {
+      policyCacheStatistics.miss();
+      final Option<AccessControlList> loaded = loadAcl(attachment.getURI());
+      if (loaded.isNone())
+        return none();
+      acl = loaded.get();
+      policy.acl = acl;
+    } else {
+      policyCacheStatistics.hit();
+    }
+    // hand out a copy since the entries of an ACL may be modified
+    return some(new AccessControlList(acl.getEntries()));
+  }
+
   /** Load an ACL from the given URI. */
   private Option<AccessControlList> loadAcl(final URI uri) {
     final File file = fromWorkspace(uri);
@@ -495,10 +593,20 @@ public class XACMLAuthorizationService implements AuthorizationService {
         return getXacmlAttachment(mp).map(new Function<Attachment, Boolean>() {
           @Override
           public Boolean apply(Attachment attachment) {
-            final File xacmlPolicyFile = fromWorkspace(attachment.getURI());
-            if (xacmlPolicyFile == null) {
-              logger.warn("Unable to read XACML file from {}! Prevent access permissions.", attachment);
-              return false;
+            final CachedPolicy policy = getCachedPolicy(attachment);
+            PolicyDecisionPoint pdp = policy != null ? policy.pdp : null;
+            if (pdp == null) {
+              final File xacmlPolicyFile = fromWorkspace(attachment.getURI());
+              if (xacmlPolicyFile == null) {
+                logger.warn("Unable to read XACML file from {}! Prevent access permissions.", attachment);
+                return false;
+              }
+              policyCacheStatistics.miss();
+              pdp = getPolicyDecisionPoint(xacmlPolicyFile);
+              if (policy != null)
+                policy.pdp = pdp;
+            } else {
+              policyCacheStatistics.hit();
             }
 
             final RequestContext requestCtx = RequestResponseContextFactory.createRequestCtx();
@@ -545,9 +653,10 @@ public class XACMLAuthorizationService implements AuthorizationService {
               return false;
             }
 
-            PolicyDecisionPoint pdp = getPolicyDecisionPoint(xacmlPolicyFile);
-
-            return pdp.evaluate(requestCtx).getDecision() == XACMLConstants.DECISION_PERMIT;
+            // The decision point may be shared with other threads, and is not documented to be thread safe
+            synchronized (pdp) {
+              return pdp.evaluate(requestCtx).getDecision() == XACMLConstants.DECISION_PERMIT;
+            }
           }
         }).getOrElse(true);
       }
@@ -576,6 +685,22 @@ public class XACMLAuthorizationService implements AuthorizationService {
     }
   }
 
+  /** A parsed XACML policy. Its ACL and decision point are only created when needed. */
+  private static final class CachedPolicy {
+
+    /** The checksum or modification date of the XACML file the policy has been parsed from */
+    private final String version;
+
+    private volatile AccessControlList acl;
+
+    private volatile PolicyDecisionPoint pdp;
+
+    CachedPolicy(String version) {
+      this.version = version;
+    }
+
+  }
+
   /**
    * Sets the workspace to use for retrieving XACML policies
    *
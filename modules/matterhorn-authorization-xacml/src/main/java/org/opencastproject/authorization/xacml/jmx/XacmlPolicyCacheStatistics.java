@@ -0,0 +1,90 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.authorization.xacml.jmx;
+
+import com.google.common.cache.Cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class XacmlPolicyCacheStatistics implements XacmlPolicyCacheStatisticsMXBean {
+
+  private final Cache<?, ?> cache;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /**
+   * Creates the statistics of a policy cache.
+   *
+   * @param cache
+   *          the cache
+   */
+  public XacmlPolicyCacheStatistics(Cache<?, ?> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.jmx.XacmlPolicyCacheStatisticsMXBean#getCachedPolicies()
+   */
+  @Override
+  public long getCachedPolicies() {
+    return cache.size();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.jmx.XacmlPolicyCacheStatisticsMXBean#getHits()
+   */
+  @Override
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.jmx.XacmlPolicyCacheStatisticsMXBean#getMisses()
+   */
+  @Override
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @see org.opencastproject.authorization.xacml.jmx.XacmlPolicyCacheStatisticsMXBean#getInvalidations()
+   */
+  @Override
+  public long getInvalidations() {
+    return invalidations.get();
+  }
+
+  public void hit() {
+    hits.incrementAndGet();
+  }
+
+  public void miss() {
+    misses.incrementAndGet();
+  }
+
+  public void invalidated() {
+    invalidations.incrementAndGet();
+  }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.authorization.xacml.jmx;
+
+/**
+ * JMX Bean interface exposing the statistics of the cache of parsed XACML policies.
+ */
+public interface XacmlPolicyCacheStatisticsMXBean {
+
+  /**
+   * Gets the number of policies that are currently cached
+   *
+   * @return the number of policies
+   */
+  long getCachedPolicies();
+
+  /**
+   * Gets the number of lookups that have been answered from the cache
+   *
+   * @return the number of cache hits
+   */
+  long getHits();
+
+  /**
+   * Gets the number of lookups that required a policy to be read and parsed
+   *
+   * @return the number of cache misses
+   */
+  long getMisses();
+
+  /**
+   * Gets the number of policies that have been removed from the cache because they have been changed or deleted
+   *
+   * @return the number of invalidated policies
+   */
+  long getInvalidations();
+
+}
@@ -21,6 +21,7 @@
 
 package org.opencastproject.authorization.xacml;
 
+import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.MediaPackage;
 import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
 import org.opencastproject.security.api.AccessControlEntry;
@@ -33,6 +34,8 @@ import org.opencastproject.security.api.JaxbUser;
 import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.security.api.User;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.data.Option;
 import org.opencastproject.workspace.api.Workspace;
@@ -196,6 +199,27 @@ public class XacmlSecurityTest {
     Assert.assertFalse(authzService.hasPermission(mediapackage, "comment"));
   }
 
+  @Test
+  public void testParsedAclsAreCached() throws Exception {
+    MediaPackage mediapackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    AccessControlList acl = new AccessControlList(new AccessControlEntry("admin", "read", true));
+    Attachment attachment = authzService.setAcl(mediapackage, AclScope.Episode, acl).getB();
+    File xacmlFile = new File(attachment.getURI());
+    attachment.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, xacmlFile));
+
+    // Callers must not be able to modify the cached ACL
+    authzService.getActiveAcl(mediapackage).getA().getEntries().clear();
+
+    // The parsed ACL is used as long as the checksum of the attachment does not change
+    Assert.assertTrue(xacmlFile.delete());
+    Assert.assertEquals(acl.getEntries(), authzService.getActiveAcl(mediapackage).getA().getEntries());
+
+    // A new ACL replaces the cached one
+    AccessControlList newAcl = new AccessControlList(new AccessControlEntry("student", "read", true));
+    authzService.setAcl(mediapackage, AclScope.Episode, newAcl);
+    Assert.assertEquals(newAcl.getEntries(), authzService.getActiveAcl(mediapackage).getA().getEntries());
+  }
+
   static class WorkspaceStub implements Workspace {
 
     /** The default workspace base, this is set to the target directory within the module. */
@@ -0,0 +1,130 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.benchmarks;
+
+import org.opencastproject.mediapackage.Attachment;
+import org.opencastproject.mediapackage.Catalog;
+import org.opencastproject.mediapackage.CatalogImpl;
+import org.opencastproject.mediapackage.MediaPackage;
+import org.opencastproject.mediapackage.MediaPackageBuilderFactory;
+import org.opencastproject.mediapackage.MediaPackageElementFlavor;
+import org.opencastproject.mediapackage.MediaPackageElements;
+import org.opencastproject.mediapackage.MediaPackageException;
+import org.opencastproject.mediapackage.Track;
+import org.opencastproject.mediapackage.attachment.AttachmentImpl;
+import org.opencastproject.mediapackage.track.TrackImpl;
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
+import org.opencastproject.util.MimeTypes;
+import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
+import org.opencastproject.workflow.api.WorkflowInstanceImpl;
+import org.opencastproject.workflow.api.WorkflowOperationInstance;
+import org.opencastproject.workflow.api.WorkflowOperationInstance.OperationState;
+import org.opencastproject.workflow.api.WorkflowOperationInstanceImpl;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Builds media packages and workflow instances resembling the ones processed in production.
+ */
+final class Fixtures {
+
+  /** Utility class */
+  private Fixtures() {
+  }
+
+  /**
+   * Creates a media package with the given number of tracks, catalogs and attachments each.
+   *
+   * @param elements
+   *          the number of elements per element type
+   * @return the media package
+   */
+  static MediaPackage newMediaPackage(int elements) throws MediaPackageException {
+    MediaPackage mp = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+    mp.setTitle("Benchmark lecture");
+    mp.setDate(new Date(1454288400000L));
+    mp.setDuration(3600000L);
+    mp.setSeries("benchmark-series");
+    mp.setSeriesTitle("Benchmark series");
+    mp.addCreator("Benchmark lecturer");
+    mp.addSubject("Benchmarks");
+    for (int i = 0; i < elements; i++) {
+      URI base = URI.create("http://localhost:8080/files/mediapackage/" + mp.getIdentifier() + "/" + i);
+
+      Track track = TrackImpl.fromURI(base.resolve("presenter.mp4"));
+      track.setFlavor(i % 2 == 0 ? MediaPackageElements.PRESENTER_SOURCE : MediaPackageElements.PRESENTATION_SOURCE);
+      track.setMimeType(MimeTypes.parseMimeType("video/mp4"));
+      track.setChecksum(Checksum.create(ChecksumType.DEFAULT_TYPE, "9e107d9d372bb6826bd81d3542a419d6"));
+      track.addTag("engage-download");
+      mp.add(track);
+
+      Catalog catalog = CatalogImpl.fromURI(base.resolve("segments.xml"));
+      catalog.setFlavor(MediaPackageElements.SEGMENTS);
+      catalog.setMimeType(MimeTypes.XML);
+      catalog.addTag("engage-download");
+      mp.add(catalog);
+
+      Attachment attachment = AttachmentImpl.fromURI(base.resolve("preview.jpg"));
+      attachment.setFlavor(MediaPackageElementFlavor.parseFlavor("presenter/segment+preview"));
+      attachment.setMimeType(MimeTypes.JPG);
+      mp.add(attachment);
+    }
+    return mp;
+  }
+
+  /**
+   * Creates a running workflow instance processing the given media package.
+   *
+   * @param mp
+   *          the media package
+   * @param operations
+   *          the number of operations
+   * @return the workflow instance
+   */
+  static WorkflowInstanceImpl newWorkflowInstance(MediaPackage mp, int operations) {
+    WorkflowInstanceImpl workflow = new WorkflowInstanceImpl();
+    workflow.setId(4711L);
+    workflow.setTemplate("benchmark");
+    workflow.setTitle("Benchmark workflow");
+    workflow.setState(WorkflowState.RUNNING);
+    workflow.setMediaPackage(mp);
+    workflow.setConfiguration("publishToEngage", "true");
+    workflow.setConfiguration("flagForCutting", "false");
+    List<WorkflowOperationInstance> ops = new ArrayList<WorkflowOperationInstance>();
+    for (int i = 0; i < operations; i++) {
+      WorkflowOperationInstanceImpl op = new WorkflowOperationInstanceImpl("operation-" + i,
+              i < operations / 2 ? OperationState.SUCCEEDED : OperationState.INSTANTIATED);
+      op.setConfiguration("source-flavors", "*/source");
+      op.setConfiguration("target-flavor", "*/work");
+      op.setConfiguration("encoding-profile", "mp4-preview.http");
+      ops.add(op);
+    }
+    workflow.setOperations(ops);
+    return workflow;
+  }
+
+}
@@ -0,0 +1,143 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+
+package org.opencastproject.benchmarks;
+
+import org.opencastproject.composer.api.EncoderException;
+import org.opencastproject.composer.api.EncodingProfile.MediaType;
+import org.opencastproject.composer.api.EncodingProfileImpl;
+import org.opencastproject.composer.impl.ffmpeg.FFmpegEncoderEngine;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares extracting many images from a track in batches of positions with extracting one image per encoder run.
+ * <p>
+ * Requires <code>ffmpeg</code> on the path. Unless a video is passed with <code>-p media=/path/to/video</code> along
+ * with its duration in seconds (<code>-p duration=...</code>), a test video is generated before the measurements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ImageExtractionBenchmark {
+
+  /** The number of images to extract, spread evenly over the video */
+  @Param({ "10", "100" })
+  private int images;
+
+  /** The video to extract the images from, empty to generate one */
+  @Param({ "" })
+  private String media;
+
+  /** The duration of the video in seconds */
+  @Param({ "1200" })
+  private int duration;
+
+  private FFmpegEncoderEngine engine;
+  private EncodingProfileImpl profile;
+  private File directory;
+  private File video;
+  private double[] times;
+
+  @Setup
+  public void setUp() throws Exception {
+    engine = new FFmpegEncoderEngine();
+    profile = new EncodingProfileImpl("player-slides.http", "images for the player", null);
+    profile.setApplicableType(MediaType.Visual);
+    profile.setOutputType(MediaType.Image);
+    profile.setSuffix("-slide.jpg");
+    profile.addExtension(FFmpegEncoderEngine.CMD_SUFFIX,
+            "-ss #{time} -i #{in.video.path} -r 1 -frames:v 1 -filter:v yadif,scale=160:-1 "
+                    + "#{out.dir}/#{out.name}#{out.suffix}");
+
+    directory = File.createTempFile("image-extraction", "");
+    directory.delete();
+    directory.mkdirs();
+    video = media.isEmpty() ? generateVideo(new File(directory, "source.mp4"), duration) : new File(media);
+
+    // Leave a margin at the end, positions past the last frame don't produce an image
+    times = new double[images];
+    for (int i = 0; i < images; i++) {
+      times[i] = (duration - 10) * i / images;
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    FileUtils.deleteQuietly(directory);
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteImages() {
+    for (File file : directory.listFiles()) {
+      if (!file.equals(video))
+        FileUtils.deleteQuietly(file);
+    }
+  }
+
+  @Benchmark
+  public List<File> extractAtOnce() throws EncoderException {
+    return engine.extract(video, profile, null, times);
+  }
+
+  @Benchmark
+  public List<File> extractOneByOne() throws EncoderException {
+    List<File> extracted = new ArrayList<File>();
+    for (double time : times) {
+      extracted.addAll(engine.extract(video, profile, null, time));
+    }
+    return extracted;
+  }
+
+  private static File generateVideo(File video, int duration) throws IOException, InterruptedException {
+    Process process = new ProcessBuilder("ffmpeg", "-nostats", "-loglevel", "error", "-f", "lavfi", "-i",
+            "testsrc=duration=" + duration + ":size=1280x720:rate=25", "-c:v", "libx264", "-preset",
+            "ultrafast", "-g", "250", video.getAbsolutePath()).inheritIO().start();
+    if (process.waitFor() != 0)
+      throw new IOException("Unable to generate the test video " + video);
+    return video;
+  }
+
+}
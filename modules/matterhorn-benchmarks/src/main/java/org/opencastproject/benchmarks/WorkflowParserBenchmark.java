@@ -0,0 +1,81 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.benchmarks;
+
+import org.opencastproject.workflow.api.WorkflowInstance;
+import org.opencastproject.workflow.api.WorkflowParser;
+import org.opencastproject.workflow.api.WorkflowParsingException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of serializing and parsing workflow instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkflowParserBenchmark {
+
+  /** The number of tracks, catalogs and attachments each in the media package */
+  @Param({ "5", "50" })
+  private int elements;
+
+  /** The number of workflow operations */
+  @Param({ "10", "60" })
+  private int operations;
+
+  private WorkflowInstance workflow;
+  private String xml;
+
+  @Setup
+  public void setUp() throws Exception {
+    workflow = Fixtures.newWorkflowInstance(Fixtures.newMediaPackage(elements), operations);
+    xml = WorkflowParser.toXml(workflow);
+  }
+
+  @Benchmark
+  public String serialize() throws WorkflowParsingException {
+    return WorkflowParser.toXml(workflow);
+  }
+
+  @Benchmark
+  public WorkflowInstance parse() throws WorkflowParsingException {
+    return WorkflowParser.parseWorkflowInstance(xml);
+  }
+
+}
@@ -87,6 +87,14 @@ import javax.persistence.Version;
                 + "j.status in :statuses order by j.dateCreated"),
         @NamedQuery(name = "Job.dispatchable.status.idfilter", query = "SELECT j.id FROM Job j "
                 + "WHERE j.dispatchable = true AND j.status IN :statuses AND j.id IN :jobids ORDER BY j.dateCreated"),
+        @NamedQuery(name = "Job.dispatchable.status.byIds", query = "SELECT j FROM Job j "
+                + "WHERE j.dispatchable = true AND j.status IN :statuses AND j.id IN :jobids"),
+        @NamedQuery(name = "Job.dispatchable.status.summary", query = "SELECT j.id, s.serviceType, j.operation, "
+                + "j.status, j.dateCreated FROM Job j JOIN j.creatorServiceRegistration s "
+                + "WHERE j.dispatchable = true AND j.status IN :statuses"),
+        @NamedQuery(name = "Job.load.summary", query = "SELECT j.id, h.baseUrl, s.serviceType, j.status, j.jobLoad "
+                + "FROM Job j JOIN j.processorServiceRegistration s JOIN s.hostRegistration h "
+                + "WHERE j.status IN :statuses"),
         @NamedQuery(name = "Job.undispatchable.status", query = "SELECT j FROM Job j where j.dispatchable = false and "
                 + "j.status in :statuses order by j.dateCreated"),
         @NamedQuery(name = "Job.processinghost.status", query = "SELECT j FROM Job j "
@@ -96,6 +104,10 @@ import javax.persistence.Version;
         @NamedQuery(name = "Job.root.children", query = "SELECT j FROM Job j WHERE j.rootJob.id = :id ORDER BY j.dateCreated"),
         @NamedQuery(name = "Job.children", query = "SELECT j FROM Job j WHERE j.parentJob.id = :id ORDER BY j.dateCreated"),
         @NamedQuery(name = "Job.withoutParent", query = "SELECT j FROM Job j WHERE j.parentJob IS NULL"),
+        @NamedQuery(name = "Job.parent.withStatus", query = "SELECT DISTINCT j.parentJob.id FROM Job j "
+                + "WHERE j.status = :status AND j.parentJob IS NOT NULL"),
+        @NamedQuery(name = "Job.parent.byIds", query = "SELECT DISTINCT j.parentJob.id FROM Job j "
+                + "WHERE j.id IN :ids AND j.parentJob IS NOT NULL"),
         @NamedQuery(name = "Job.avgOperation", query = "SELECT j.operation, AVG(j.runTime), AVG(j.queueTime) FROM Job j GROUP BY j.operation"),
 
         // Job count queries
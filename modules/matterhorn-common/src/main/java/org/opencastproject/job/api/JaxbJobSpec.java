@@ -0,0 +1,97 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.job.api;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+/** 1:1 serialization of a {@link JobSpec}, referring to the parent job by its identifier. */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "jobSpec", namespace = "http://job.opencastproject.org")
+@XmlRootElement(name = "jobSpec", namespace = "http://job.opencastproject.org")
+public class JaxbJobSpec {
+
+  @XmlAttribute(name = "type")
+  private String jobType;
+
+  @XmlElement
+  private String operation;
+
+  @XmlElement(name = "arg")
+  @XmlElementWrapper(name = "args")
+  private List<String> arguments;
+
+  @XmlElement
+  private String payload;
+
+  @XmlElement
+  private boolean dispatchable;
+
+  @XmlElement
+  private Long parentJobId;
+
+  @XmlElement(name = "jobLoad")
+  private Float jobLoad;
+
+  /** Default constructor needed by jaxb */
+  public JaxbJobSpec() {
+  }
+
+  public JaxbJobSpec(JobSpec jobSpec) {
+    this.jobType = jobSpec.getJobType();
+    this.operation = jobSpec.getOperation();
+    this.arguments = jobSpec.getArguments();
+    this.payload = jobSpec.getPayload();
+    this.dispatchable = jobSpec.isDispatchable();
+    if (jobSpec.getParentJob() != null)
+      this.parentJobId = jobSpec.getParentJob().getId();
+    this.jobLoad = jobSpec.getJobLoad();
+  }
+
+  /**
+   * Returns the identifier of the parent job.
+   *
+   * @return the parent job identifier, or <code>null</code> if the current job is to be used
+   */
+  public Long getParentJobId() {
+    return parentJobId;
+  }
+
+  /**
+   * Creates the job specification.
+   *
+   * @param parentJob
+   *          the parent job, as identified by {@link #getParentJobId()}
+   * @return the job specification
+   */
+  public JobSpec toJobSpec(Job parentJob) {
+    return new JobSpec(jobType, operation, arguments, payload, dispatchable, parentJob, jobLoad);
+  }
+
+}
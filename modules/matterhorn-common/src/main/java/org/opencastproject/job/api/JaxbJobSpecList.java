@@ -0,0 +1,63 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.job.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * A wrapper for job specification collections.
+ */
+@XmlAccessorType(XmlAccessType.NONE)
+@XmlType(name = "jobSpecs", namespace = "http://job.opencastproject.org")
+@XmlRootElement(name = "jobSpecs", namespace = "http://job.opencastproject.org")
+public class JaxbJobSpecList {
+  /** A list of job specifications */
+  @XmlElement(name = "jobSpec")
+  protected List<JaxbJobSpec> jobSpecs = new ArrayList<JaxbJobSpec>();
+
+  public JaxbJobSpecList() {
+  }
+
+  public JaxbJobSpecList(Collection<JobSpec> jobSpecs) {
+    if (jobSpecs != null) {
+      for (JobSpec jobSpec : jobSpecs) {
+        this.jobSpecs.add(new JaxbJobSpec(jobSpec));
+      }
+    }
+  }
+
+  /**
+   * @return the job specifications
+   */
+  public List<JaxbJobSpec> getJobSpecs() {
+    return jobSpecs;
+  }
+
+}
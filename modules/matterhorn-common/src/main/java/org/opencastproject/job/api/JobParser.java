@@ -134,4 +134,43 @@ public final class JobParser {
     }
   }
 
+  /**
+   * Serializes the job specifications into a string representation.
+   *
+   * @param jobSpecs
+   *          the job specifications
+   * @return the serialized form
+   * @throws IOException
+   *           if serializing fails
+   */
+  public static String toXml(JaxbJobSpecList jobSpecs) throws IOException {
+    try {
+      Marshaller marshaller = jaxbContext.createMarshaller();
+      Writer writer = new StringWriter();
+      marshaller.marshal(jobSpecs, writer);
+      return writer.toString();
+    } catch (JAXBException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Parses an xml string representing a {@link JaxbJobSpecList}
+   *
+   * @param serializedForm
+   *          The serialized data
+   * @return The job specification list
+   */
+  public static JaxbJobSpecList parseJobSpecList(String serializedForm) throws IOException {
+    InputStream in = IOUtils.toInputStream(serializedForm, "UTF-8");
+    try {
+      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+      return unmarshaller.unmarshal(new StreamSource(in), JaxbJobSpecList.class).getValue();
+    } catch (Exception e) {
+      throw new IOException(e);
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+  }
+
 }
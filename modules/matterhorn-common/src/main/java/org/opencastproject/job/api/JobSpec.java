@@ -0,0 +1,140 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.job.api;
+
+import static java.util.Collections.unmodifiableList;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes a job that is to be created by {@link org.opencastproject.serviceregistry.api.ServiceRegistry#createJobs}.
+ */
+public final class JobSpec {
+
+  /** The type of service responsible for the job */
+  private final String jobType;
+
+  /** The operation for the service to run */
+  private final String operation;
+
+  /** The arguments to the operation */
+  private final List<String> arguments;
+
+  /** The initial payload */
+  private final String payload;
+
+  /** Whether the job can be enqueued for dispatch */
+  private final boolean dispatchable;
+
+  /** The parent job */
+  private final Job parentJob;
+
+  /** The load caused by the job */
+  private final Float jobLoad;
+
+  /**
+   * Creates the specification of a job that will be queued for dispatch, with the current job as its parent.
+   *
+   * @param jobType
+   *          the type of service responsible for this job
+   * @param operation
+   *          the operation for this service to run
+   * @param arguments
+   *          the arguments to the operation
+   * @param jobLoad
+   *          the load caused by this job, roughly equivalent to the number of cores used this job
+   */
+  public JobSpec(String jobType, String operation, List<String> arguments, Float jobLoad) {
+    this(jobType, operation, arguments, null, true, null, jobLoad);
+  }
+
+  /**
+   * Creates the specification of a job.
+   *
+   * @param jobType
+   *          the type of service responsible for this job
+   * @param operation
+   *          the operation for this service to run
+   * @param arguments
+   *          the arguments to the operation
+   * @param payload
+   *          an optional initial payload
+   * @param dispatchable
+   *          whether the job can be enqueued for dispatch. If false, the job's initial state will be
+   *          {@link Job.Status#INSTANTIATED} and will not be dispatched.
+   * @param parentJob
+   *          the parent job, or <code>null</code> to use the service registry's current job
+   * @param jobLoad
+   *          the load caused by this job, or <code>null</code> for the default load of 1.0
+   */
+  public JobSpec(String jobType, String operation, List<String> arguments, String payload, boolean dispatchable,
+          Job parentJob, Float jobLoad) {
+    if (StringUtils.isBlank(jobType))
+      throw new IllegalArgumentException("Job type can't be null");
+    if (StringUtils.isBlank(operation))
+      throw new IllegalArgumentException("Operation can't be null");
+    this.jobType = jobType;
+    this.operation = operation;
+    this.arguments = arguments == null ? null : unmodifiableList(new ArrayList<String>(arguments));
+    this.payload = payload;
+    this.dispatchable = dispatchable;
+    this.parentJob = parentJob;
+    this.jobLoad = jobLoad;
+  }
+
+  public String getJobType() {
+    return jobType;
+  }
+
+  public String getOperation() {
+    return operation;
+  }
+
+  public List<String> getArguments() {
+    return arguments;
+  }
+
+  public String getPayload() {
+    return payload;
+  }
+
+  public boolean isDispatchable() {
+    return dispatchable;
+  }
+
+  public Job getParentJob() {
+    return parentJob;
+  }
+
+  public Float getJobLoad() {
+    return jobLoad;
+  }
+
+  @Override
+  public String toString() {
+    return "Job specification " + jobType + "@" + operation;
+  }
+
+}
@@ -23,6 +23,8 @@
 package org.opencastproject.mediapackage;
 
 import org.opencastproject.mediapackage.identifier.Id;
+import org.opencastproject.util.XmlUtil;
+import org.opencastproject.util.data.Either;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -30,13 +32,13 @@ import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
@@ -105,7 +107,10 @@ public class MediaPackageBuilderImpl implements MediaPackageBuilder {
     if (serializer != null) {
       // FIXME This code runs if *any* serializer is present, regardless of the serializer implementation
       try {
-        Document xml = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(is);
+        Either<Exception, Document> parsed = XmlUtil.parse(new InputSource(is));
+        if (parsed.isLeft())
+          throw parsed.left().value();
+        Document xml = parsed.right().value();
         rewriteUrls(xml, serializer);
         return MediaPackageImpl.valueOf(xml);
       } catch (Exception e) {
@@ -62,12 +62,13 @@ public final class MediaPackageElementParser {
     StringWriter writer = new StringWriter();
     Marshaller m = null;
     try {
-      m = MediaPackageImpl.context.createMarshaller();
-      m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+      m = MediaPackageImpl.pool.borrowMarshaller();
       m.marshal(element, writer);
       return writer.toString();
     } catch (JAXBException e) {
       throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
+    } finally {
+      MediaPackageImpl.pool.release(m);
     }
   }
 
@@ -92,10 +93,12 @@ public final class MediaPackageElementParser {
   public static MediaPackageElement getFromXml(String xml) throws MediaPackageException {
     Unmarshaller m = null;
     try {
-      m = MediaPackageImpl.context.createUnmarshaller();
+      m = MediaPackageImpl.pool.borrowUnmarshaller();
       return (MediaPackageElement) m.unmarshal(new InputSource(toInputStream(xml)));
     } catch (JAXBException e) {
       throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
+    } finally {
+      MediaPackageImpl.pool.release(m);
     }
   }
 
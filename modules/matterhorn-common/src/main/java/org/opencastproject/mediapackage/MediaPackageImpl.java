@@ -31,6 +31,7 @@ import org.opencastproject.mediapackage.identifier.IdBuilder;
 import org.opencastproject.mediapackage.identifier.UUIDIdBuilderImpl;
 import org.opencastproject.util.DateTimeSupport;
 import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.jaxb.JaxbPool;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -93,6 +94,9 @@ public final class MediaPackageImpl implements MediaPackage {
   /** Context for serializing and deserializing */
   static final JAXBContext context;
 
+  /** Pool of the marshallers and unmarshallers of the context */
+  static final JaxbPool pool;
+
   /** List of observers */
   private final List<MediaPackageObserver> observers = new ArrayList<MediaPackageObserver>();
 
@@ -156,6 +160,7 @@ public final class MediaPackageImpl implements MediaPackage {
   static {
     try {
       context = JAXBContext.newInstance("org.opencastproject.mediapackage", MediaPackageImpl.class.getClassLoader());
+      pool = new JaxbPool(context);
     } catch (JAXBException e) {
       throw new RuntimeException(e);
     }
@@ -1512,12 +1517,14 @@ public final class MediaPackageImpl implements MediaPackage {
    * @return the deserialized media package
    */
   public static MediaPackageImpl valueOf(InputStream xml) throws MediaPackageException {
+    Unmarshaller unmarshaller = null;
     try {
-      Unmarshaller unmarshaller = context.createUnmarshaller();
+      unmarshaller = pool.borrowUnmarshaller();
       return unmarshaller.unmarshal(new StreamSource(xml), MediaPackageImpl.class).getValue();
     } catch (JAXBException e) {
       throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
     } finally {
+      pool.release(unmarshaller);
       IoSupport.closeQuietly(xml);
     }
   }
@@ -1532,8 +1539,9 @@ public final class MediaPackageImpl implements MediaPackage {
   public static MediaPackageImpl valueOf(Node xml) throws MediaPackageException {
     InputStream in = null;
     ByteArrayOutputStream out = null;
+    Unmarshaller unmarshaller = null;
     try {
-      Unmarshaller unmarshaller = context.createUnmarshaller();
+      unmarshaller = pool.borrowUnmarshaller();
 
       // Serialize the media package
       DOMSource domSource = new DOMSource(xml);
@@ -1547,6 +1555,7 @@ public final class MediaPackageImpl implements MediaPackage {
     } catch (Exception e) {
       throw new MediaPackageException("Error deserializing media package node", e);
     } finally {
+      pool.release(unmarshaller);
       IoSupport.closeQuietly(in);
       IoSupport.closeQuietly(out);
     }
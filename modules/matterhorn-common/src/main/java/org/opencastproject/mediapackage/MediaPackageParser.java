@@ -24,6 +24,7 @@ package org.opencastproject.mediapackage;
 import static org.opencastproject.util.data.functions.Misc.chuck;
 
 import org.opencastproject.util.DateTimeSupport;
+import org.opencastproject.util.XmlUtil;
 
 import org.codehaus.jettison.mapped.Configuration;
 import org.codehaus.jettison.mapped.MappedNamespaceConvention;
@@ -39,9 +40,6 @@ import java.util.List;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
@@ -67,14 +65,16 @@ public final class MediaPackageParser {
   public static String getAsXml(MediaPackage mediaPackage) {
     if (mediaPackage == null)
       throw new IllegalArgumentException("Mediapackage must not be null");
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
-      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+      marshaller = MediaPackageImpl.pool.borrowMarshaller();
       StringWriter writer = new StringWriter();
       marshaller.marshal(mediaPackage, writer);
       return writer.toString();
     } catch (JAXBException e) {
       throw new IllegalStateException(e.getLinkedException() != null ? e.getLinkedException() : e);
+    } finally {
+      MediaPackageImpl.pool.release(marshaller);
     }
   }
 
@@ -89,8 +89,9 @@ public final class MediaPackageParser {
     if (mediaPackage == null) {
       throw new IllegalArgumentException("Mediapackage must not be null");
     }
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
+      marshaller = MediaPackageImpl.pool.borrowMarshaller();
 
       Configuration config = new Configuration();
       config.setSupressAtAttributes(true);
@@ -120,29 +121,23 @@ public final class MediaPackageParser {
       return writer.toString();
     } catch (JAXBException e) {
       throw new IllegalStateException(e.getLinkedException() != null ? e.getLinkedException() : e);
+    } finally {
+      MediaPackageImpl.pool.release(marshaller);
     }
   }
 
   /** Serializes a media package to a {@link Document} without any further processing. */
   public static Document getAsXmlDocument(MediaPackage mp) {
+    Marshaller marshaller = null;
     try {
-      final Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
-      final Document doc = newDocument();
+      marshaller = MediaPackageImpl.pool.borrowMarshaller();
+      final Document doc = XmlUtil.newDocument();
       marshaller.marshal(mp, doc);
       return doc;
     } catch (JAXBException e) {
       return chuck(e);
-    }
-  }
-
-  /** Create a new DOM document. */
-  private static Document newDocument() {
-    final DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-    docBuilderFactory.setNamespaceAware(true);
-    try {
-      return docBuilderFactory.newDocumentBuilder().newDocument();
-    } catch (ParserConfigurationException e) {
-      return chuck(e);
+    } finally {
+      MediaPackageImpl.pool.release(marshaller);
     }
   }
 
@@ -163,17 +158,7 @@ public final class MediaPackageParser {
    */
   public static Document getAsXml(MediaPackage mediaPackage, MediaPackageSerializer serializer)
           throws MediaPackageException {
-    DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-    docBuilderFactory.setNamespaceAware(true);
-
-    DocumentBuilder docBuilder = null;
-    try {
-      docBuilder = docBuilderFactory.newDocumentBuilder();
-    } catch (ParserConfigurationException e1) {
-      throw new MediaPackageException(e1);
-    }
-
-    Document doc = docBuilder.newDocument();
+    Document doc = XmlUtil.newDocument();
 
     // Root element "mediapackage"
     Element mpXml = doc.createElement("mediapackage");
@@ -279,12 +264,15 @@ public final class MediaPackageParser {
    *           if serializing or reading from a serialized media package fails
    */
   public static void getAsXml(MediaPackage mediaPackage, OutputStream out, boolean format) throws MediaPackageException {
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = MediaPackageImpl.context.createMarshaller();
+      marshaller = MediaPackageImpl.pool.borrowMarshaller();
       marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, format);
       marshaller.marshal(mediaPackage, out);
     } catch (JAXBException e) {
       throw new MediaPackageException(e.getLinkedException() != null ? e.getLinkedException() : e);
+    } finally {
+      MediaPackageImpl.pool.release(marshaller);
     }
   }
 
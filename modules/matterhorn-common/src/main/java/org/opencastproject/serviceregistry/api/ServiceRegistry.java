@@ -23,6 +23,7 @@ package org.opencastproject.serviceregistry.api;
 
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.job.api.JobSpec;
 import org.opencastproject.serviceregistry.api.SystemLoad.NodeLoad;
 import org.opencastproject.util.NotFoundException;
 
@@ -419,6 +420,19 @@ public interface ServiceRegistry {
                 Float jobLoad)
           throws ServiceRegistryException;
 
+  /**
+   * Create and store a batch of new jobs in a single transaction. Each job is created the same way as by
+   * {@link #createJob(String, String, List, String, boolean, Job, Float)}, using the current job as the parent of the
+   * specifications that don't name one. Either all jobs are created or none.
+   *
+   * @param jobSpecs
+   *          the specifications of the jobs to create
+   * @return the jobs, in the order of the specifications
+   * @throws ServiceRegistryException
+   *           if there is a problem creating the jobs
+   */
+  List<Job> createJobs(List<JobSpec> jobSpecs) throws ServiceRegistryException;
+
   /**
    * Update the job in the database
    *
@@ -27,6 +27,7 @@ import org.opencastproject.job.api.Job.Status;
 import org.opencastproject.job.api.JobImpl;
 import org.opencastproject.job.api.JobParser;
 import org.opencastproject.job.api.JobProducer;
+import org.opencastproject.job.api.JobSpec;
 import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.OrganizationDirectoryService;
 import org.opencastproject.security.api.SecurityService;
@@ -473,6 +474,23 @@ public class ServiceRegistryInMemoryImpl implements ServiceRegistry {
     return job;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#createJobs(java.util.List)
+   */
+  @Override
+  public List<Job> createJobs(List<JobSpec> jobSpecs) throws ServiceRegistryException {
+    List<Job> createdJobs = new ArrayList<Job>(jobSpecs.size());
+    for (JobSpec jobSpec : jobSpecs) {
+      Job parentJob = jobSpec.getParentJob() != null ? jobSpec.getParentJob() : getCurrentJob();
+      Float jobLoad = jobSpec.getJobLoad() != null ? jobSpec.getJobLoad() : 1.0f;
+      createdJobs.add(createJob(jobSpec.getJobType(), jobSpec.getOperation(), jobSpec.getArguments(),
+              jobSpec.getPayload(), jobSpec.isDispatchable(), parentJob, jobLoad));
+    }
+    return createdJobs;
+  }
+
   @Override
   public void removeJob(long id) throws NotFoundException, ServiceRegistryException {
     synchronized (jobs) {
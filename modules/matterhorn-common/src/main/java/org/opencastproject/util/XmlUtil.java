@@ -26,6 +26,7 @@ import static org.opencastproject.util.data.Either.right;
 import static org.opencastproject.util.data.functions.Misc.chuck;
 
 import org.opencastproject.util.data.Either;
+import org.opencastproject.util.jaxb.JaxbPool;
 
 import com.entwinemedia.fn.data.ImmutableIteratorBase;
 
@@ -42,6 +43,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -58,6 +61,12 @@ public final class XmlUtil {
   private static final DocumentBuilderFactory nsDbf;
   private static final DocumentBuilderFactory dbf;
 
+  /** Idle document builders of the namespace aware and of the plain factory */
+  private static final BlockingQueue<DocumentBuilder> nsBuilders = new ArrayBlockingQueue<DocumentBuilder>(
+          JaxbPool.DEFAULT_CAPACITY);
+  private static final BlockingQueue<DocumentBuilder> builders = new ArrayBlockingQueue<DocumentBuilder>(
+          JaxbPool.DEFAULT_CAPACITY);
+
   static {
     nsDbf = DocumentBuilderFactory.newInstance();
     nsDbf.setNamespaceAware(true);
@@ -71,11 +80,14 @@ public final class XmlUtil {
 
   /** Namespace aware parsing of <code>src</code>. */
   public static Either<Exception, Document> parseNs(InputSource src) {
+    DocumentBuilder docBuilder = null;
     try {
-      DocumentBuilder docBuilder = nsDbf.newDocumentBuilder();
+      docBuilder = borrowDocumentBuilder(nsDbf, nsBuilders);
       return right(docBuilder.parse(src));
     } catch (Exception e) {
       return left(e);
+    } finally {
+      releaseDocumentBuilder(docBuilder, nsBuilders);
     }
   }
 
@@ -86,12 +98,34 @@ public final class XmlUtil {
 
   /** Parsing of <code>src</code> without namespaces. */
   public static Either<Exception, Document> parse(InputSource src) {
+    DocumentBuilder docBuilder = null;
     try {
-      DocumentBuilder docBuilder = dbf.newDocumentBuilder();
+      docBuilder = borrowDocumentBuilder(dbf, builders);
       return right(docBuilder.parse(src));
     } catch (Exception e) {
       return left(e);
+    } finally {
+      releaseDocumentBuilder(docBuilder, builders);
+    }
+  }
+
+  /** Takes an idle document builder of <code>factory</code> from <code>idle</code> or creates a new one. */
+  private static DocumentBuilder borrowDocumentBuilder(DocumentBuilderFactory factory,
+          BlockingQueue<DocumentBuilder> idle) throws ParserConfigurationException {
+    DocumentBuilder docBuilder = idle.poll();
+    return docBuilder != null ? docBuilder : factory.newDocumentBuilder();
+  }
+
+  /** Resets <code>docBuilder</code> and keeps it in <code>idle</code> unless there are enough idle builders. */
+  private static void releaseDocumentBuilder(DocumentBuilder docBuilder, BlockingQueue<DocumentBuilder> idle) {
+    if (docBuilder == null)
+      return;
+    try {
+      docBuilder.reset();
+    } catch (UnsupportedOperationException e) {
+      return;
     }
+    idle.offer(docBuilder);
   }
 
   /**
@@ -166,10 +200,14 @@ public final class XmlUtil {
    * @return the document
    */
   public static Document newDocument() {
+    DocumentBuilder docBuilder = null;
     try {
-      return nsDbf.newDocumentBuilder().newDocument();
+      docBuilder = borrowDocumentBuilder(nsDbf, nsBuilders);
+      return docBuilder.newDocument();
     } catch (ParserConfigurationException e) {
       return chuck(e);
+    } finally {
+      releaseDocumentBuilder(docBuilder, nsBuilders);
     }
   }
 
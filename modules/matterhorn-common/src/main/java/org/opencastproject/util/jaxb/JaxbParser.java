@@ -39,6 +39,7 @@ import javax.xml.transform.stream.StreamSource;
 /** Base class for JAXB parser classes. */
 public abstract class JaxbParser {
   private final JAXBContext ctx;
+  private final JaxbPool pool;
 
   /**
    * Create a new parser.
@@ -47,6 +48,7 @@ public abstract class JaxbParser {
    */
   protected JaxbParser(String contextPath) {
     this.ctx = init(contextPath);
+    this.pool = new JaxbPool(ctx);
   }
 
   private JAXBContext init(String contextPath) {
@@ -63,12 +65,14 @@ public abstract class JaxbParser {
 
   /** Unmarshal an instance of class <code>dtoClass</code> from <code>source</code> and close it. */
   public <A> A unmarshal(Class<A> dtoClass, InputStream source) throws IOException {
+    Unmarshaller unmarshaller = null;
     try {
-      final Unmarshaller unmarshaller = ctx.createUnmarshaller();
+      unmarshaller = pool.borrowUnmarshaller();
       return unmarshaller.unmarshal(new StreamSource(source), dtoClass).getValue();
     } catch (Exception e) {
       throw new IOException(e);
     } finally {
+      pool.release(unmarshaller);
       IOUtils.closeQuietly(source);
     }
   }
@@ -77,13 +81,16 @@ public abstract class JaxbParser {
    * Marshal an object into a string.
    */
   public String marshal(Object o) throws IOException {
+    Marshaller marshaller = null;
     try {
-      final Marshaller marshaller = ctx.createMarshaller();
+      marshaller = pool.borrowMarshaller();
       final Writer writer = new StringWriter();
       marshaller.marshal(o, writer);
       return writer.toString();
     } catch (JAXBException e) {
       throw new IOException(e);
+    } finally {
+      pool.release(marshaller);
     }
   }
 }
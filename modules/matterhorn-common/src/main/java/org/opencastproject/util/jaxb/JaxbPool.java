@@ -0,0 +1,135 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.util.jaxb;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * Thread-safe pool of the marshallers and unmarshallers of a {@link JAXBContext}.
+ * <p>
+ * Creating marshallers and unmarshallers is expensive compared to (un)marshalling small documents, but the instances
+ * themselves are not thread-safe. Borrowed instances must be handed back using one of the <code>release</code> methods
+ * once they are no longer used, which is best done in a <code>finally</code> block. Instances that are not handed back
+ * are simply garbage collected, and the pool never blocks: it creates a new instance whenever it is empty and discards
+ * released instances once it is full.
+ */
+public final class JaxbPool {
+
+  /** The default number of idle instances kept per type */
+  public static final int DEFAULT_CAPACITY = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+  /** The JAXB context */
+  private final JAXBContext ctx;
+
+  /** The idle marshallers */
+  private final BlockingQueue<Marshaller> marshallers;
+
+  /** The idle unmarshallers */
+  private final BlockingQueue<Unmarshaller> unmarshallers;
+
+  /**
+   * Creates a pool keeping up to {@link #DEFAULT_CAPACITY} idle instances per type.
+   *
+   * @param ctx
+   *          the JAXB context
+   */
+  public JaxbPool(JAXBContext ctx) {
+    this(ctx, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a pool.
+   *
+   * @param ctx
+   *          the JAXB context
+   * @param capacity
+   *          the maximum number of idle instances kept per type
+   */
+  public JaxbPool(JAXBContext ctx, int capacity) {
+    this.ctx = ctx;
+    this.marshallers = new ArrayBlockingQueue<Marshaller>(capacity);
+    this.unmarshallers = new ArrayBlockingQueue<Unmarshaller>(capacity);
+  }
+
+  public JAXBContext getCtx() {
+    return ctx;
+  }
+
+  /**
+   * Borrows a marshaller from the pool. The marshaller does not produce formatted output unless
+   * {@link Marshaller#JAXB_FORMATTED_OUTPUT} is set again by the caller. Other properties must not be changed.
+   *
+   * @return the marshaller
+   * @throws JAXBException
+   *           if a new marshaller can't be created
+   */
+  public Marshaller borrowMarshaller() throws JAXBException {
+    Marshaller marshaller = marshallers.poll();
+    if (marshaller == null)
+      return ctx.createMarshaller();
+    marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+    return marshaller;
+  }
+
+  /**
+   * Hands a marshaller back to the pool.
+   *
+   * @param marshaller
+   *          the marshaller, may be <code>null</code>
+   */
+  public void release(Marshaller marshaller) {
+    if (marshaller != null)
+      marshallers.offer(marshaller);
+  }
+
+  /**
+   * Borrows an unmarshaller from the pool. Properties, event handlers and schemas of the unmarshaller must not be
+   * changed.
+   *
+   * @return the unmarshaller
+   * @throws JAXBException
+   *           if a new unmarshaller can't be created
+   */
+  public Unmarshaller borrowUnmarshaller() throws JAXBException {
+    Unmarshaller unmarshaller = unmarshallers.poll();
+    return unmarshaller != null ? unmarshaller : ctx.createUnmarshaller();
+  }
+
+  /**
+   * Hands an unmarshaller back to the pool.
+   *
+   * @param unmarshaller
+   *          the unmarshaller, may be <code>null</code>
+   */
+  public void release(Unmarshaller unmarshaller) {
+    if (unmarshaller != null)
+      unmarshallers.offer(unmarshaller);
+  }
+
+}
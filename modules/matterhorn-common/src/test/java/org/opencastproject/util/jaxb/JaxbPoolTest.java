@@ -0,0 +1,106 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.util.jaxb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+
+public class JaxbPoolTest {
+
+  private JaxbPool pool;
+
+  @Before
+  public void setUp() throws Exception {
+    pool = new JaxbPool(JAXBContext.newInstance(Dto.class), 1);
+  }
+
+  @Test
+  public void testReleasedInstancesAreReused() throws Exception {
+    Marshaller marshaller = pool.borrowMarshaller();
+    assertNotSame(marshaller, pool.borrowMarshaller());
+    pool.release(marshaller);
+    assertSame(marshaller, pool.borrowMarshaller());
+
+    Unmarshaller unmarshaller = pool.borrowUnmarshaller();
+    pool.release(unmarshaller);
+    assertSame(unmarshaller, pool.borrowUnmarshaller());
+  }
+
+  @Test
+  public void testCapacity() throws Exception {
+    Marshaller first = pool.borrowMarshaller();
+    Marshaller second = pool.borrowMarshaller();
+    pool.release(first);
+    pool.release(second);
+    assertSame(first, pool.borrowMarshaller());
+    assertNotSame(second, pool.borrowMarshaller());
+  }
+
+  @Test
+  public void testFormattedOutputIsReset() throws Exception {
+    Marshaller marshaller = pool.borrowMarshaller();
+    marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+    pool.release(marshaller);
+    assertEquals(false, pool.borrowMarshaller().getProperty(Marshaller.JAXB_FORMATTED_OUTPUT));
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Marshaller marshaller = pool.borrowMarshaller();
+    StringWriter writer = new StringWriter();
+    marshaller.marshal(new Dto("value"), writer);
+    pool.release(marshaller);
+
+    Unmarshaller unmarshaller = pool.borrowUnmarshaller();
+    Dto dto = (Dto) unmarshaller.unmarshal(new StringReader(writer.toString()));
+    pool.release(unmarshaller);
+    assertEquals("value", dto.value);
+  }
+
+  @XmlRootElement(name = "dto")
+  public static class Dto {
+    @XmlAttribute
+    private String value;
+
+    public Dto() {
+    }
+
+    public Dto(String value) {
+      this.value = value;
+    }
+  }
+
+}
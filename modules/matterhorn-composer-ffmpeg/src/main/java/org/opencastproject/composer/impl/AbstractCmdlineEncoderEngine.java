@@ -40,11 +40,15 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -65,14 +69,20 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
   /** If true STDERR and STDOUT of the spawned process will be mixed so that both can be read via STDIN */
   private static final boolean REDIRECT_ERROR_STREAM = true;
 
+  /** The maximum number of images extracted by a single encoder run */
+  static final int MAX_EXTRACTIONS_PER_RUN = 16;
+
   /** the encoder binary */
   private String binary = null;
 
   /** the command line options */
   private String cmdlineOptions = "";
 
-  /** parameters substituted in the command line options string */
-  private Map<String, String> params = new HashMap<String, String>();
+  /** default parameters substituted in the command line options string */
+  private final Map<String, String> params = new HashMap<String, String>();
+
+  /** parameters of the most recent encoder invocation */
+  private volatile Map<String, String> lastParams = null;
 
   /** the logging facility provided by log4j */
   private static final Logger logger = LoggerFactory.getLogger(AbstractCmdlineEncoderEngine.class.getName());
@@ -144,6 +154,12 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
   public List<File> extract(File mediaSource, EncodingProfile format, Map<String, String> properties, double... times)
           throws EncoderException {
 
+    if (times != null && times.length > 1) {
+      List<File> images = extractInBatches(mediaSource, format, properties, times);
+      if (images != null)
+        return images;
+    }
+
     List<File> extractedImages = new LinkedList<File>();
     try {
       if (times != null && times.length > 0) {
@@ -179,6 +195,119 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
     return extractedImages;
   }
 
+  /**
+   * Extracts the images at the given positions using as few encoder runs as possible, see
+   * {@link #combineExtractionCommands(List)}. The positions are processed in ascending order, and each encoder run
+   * extracts at most {@link #MAX_EXTRACTIONS_PER_RUN} images.
+   *
+   * @param mediaSource
+   *          the media file
+   * @param format
+   *          the encoding profile
+   * @param properties
+   *          the encoding properties
+   * @param times
+   *          the positions in seconds
+   * @return the images in the order of the positions, or <code>null</code> if the commands can't be combined
+   * @throws EncoderException
+   *           if extracting the images fails
+   */
+  private List<File> extractInBatches(File mediaSource, EncodingProfile format, Map<String, String> properties,
+          final double... times) throws EncoderException {
+    // Handle the positions in ascending order, so that each run reads a part of the media only
+    final Integer[] order = new Integer[times.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        return Double.compare(times[a], times[b]);
+      }
+    });
+
+    DecimalFormatSymbols ffmpegFormat = new DecimalFormatSymbols();
+    ffmpegFormat.setDecimalSeparator('.');
+    final DecimalFormat df = new DecimalFormat("0.000", ffmpegFormat);
+    final String mediaInput = FilenameUtils.normalize(mediaSource.getAbsolutePath());
+    final String outDir = mediaSource.getAbsoluteFile().getParent();
+
+    final File[] images = new File[times.length];
+    final List<File> extracted = new ArrayList<File>();
+    String commandStr = null;
+    try {
+      for (int start = 0; start < order.length; start += MAX_EXTRACTIONS_PER_RUN) {
+        final int end = Math.min(order.length, start + MAX_EXTRACTIONS_PER_RUN);
+        final List<List<String>> commands = new ArrayList<List<String>>();
+        final List<File> outputs = new ArrayList<File>();
+        Map<String, String> params = null;
+        for (int i = start; i < end; i++) {
+          params = newParameters(properties);
+          params.put("time", df.format(times[order[i]]));
+          params.put("in.video.path", mediaInput);
+          params.put("in.video.name", FilenameUtils.getBaseName(mediaInput));
+          params.put("in.video.suffix", FilenameUtils.getExtension(mediaInput));
+          params.put("in.video.filename", FilenameUtils.getName(mediaInput));
+          params.put("in.video.mimetype", MimetypesFileTypeMap.getDefaultFileTypeMap().getContentType(mediaInput));
+          final String outSuffix = processParameters(format.getSuffix(), params);
+          // generate random name if multiple jobs are producing file with identical name (MH-7673)
+          final String outFileName = FilenameUtils.getBaseName(mediaSource.getName()) + "_"
+                  + params.get("time").replace('.', '_') + "_" + UUID.randomUUID().toString();
+          params.put("out.dir", outDir);
+          params.put("out.name", outFileName);
+          params.put("out.suffix", outSuffix);
+          commands.add(buildCommand(format, params));
+          outputs.add(new File(outDir, outFileName + outSuffix));
+        }
+
+        final List<String> command = combineExtractionCommands(commands);
+        if (command == null) {
+          if (start > 0)
+            throw new EncoderException(this, "Extraction commands of profile '" + format.getIdentifier()
+                    + "' can't be combined");
+          logger.debug("Extraction commands of profile '{}' can't be combined", format.getIdentifier());
+          return null;
+        }
+
+        commandStr = mlist(command).mkString(" ");
+        logger.info("Executing extraction command: {}", commandStr);
+        extracted.addAll(outputs);
+        int exitCode = execute(command, newOutputHandler(format, params, mediaSource));
+        if (exitCode != 0)
+          throw new CmdlineEncoderException(this, "Encoder exited abnormally with status " + exitCode, commandStr);
+        for (int i = start; i < end; i++) {
+          images[order[i]] = outputs.get(i - start);
+        }
+      }
+      logger.info("Extracted {} images from {} using profile '{}'",
+              new Object[] { times.length, mediaSource.getName(), format.getIdentifier() });
+      fireEncoded(this, format, mediaSource);
+      return Arrays.asList(images);
+    } catch (Exception e) {
+      logger.warn("Error while extracting images from {} using '{}': {}",
+              new Object[] { mediaSource.getName(), format.getIdentifier(), e.getMessage() });
+      cleanup(extracted);
+      fireEncodingFailed(this, format, e, mediaSource);
+      if (e instanceof EncoderException)
+        throw (EncoderException) e;
+      throw new CmdlineEncoderException(this, e.getMessage(), commandStr, e);
+    }
+  }
+
+  /**
+   * Combines the commands extracting images at several positions into a single command, so that the images can be
+   * extracted by one encoder run.
+   * <p>
+   * The default implementation returns <code>null</code>, meaning that the commands can't be combined.
+   *
+   * @param commands
+   *          the commands, including the binary, which only differ in the extraction position and the output file
+   * @return the combined command, or <code>null</code> if the commands can't be combined
+   */
+  protected List<String> combineExtractionCommands(List<List<String>> commands) {
+    return null;
+  }
+
   /**
    * Executes the command line encoder with the given set of files and properties and using the provided encoding
    * profile.
@@ -197,13 +326,12 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
    */
   protected Option<File> process(File audioSource, File videoSource, EncodingProfile profile,
           Map<String, String> properties) throws EncoderException {
-    // Fist, update the parameters
-    if (properties != null)
-      params.putAll(properties);
     // build command
     if (videoSource == null && audioSource == null) {
       throw new IllegalArgumentException("At least one track must be specified.");
     }
+    // Each invocation works on its own copy of the parameters
+    final Map<String, String> params = newParameters(properties);
     // Set encoding parameters
     if (audioSource != null) {
       final String audioInput = FilenameUtils.normalize(audioSource.getAbsolutePath());
@@ -224,40 +352,21 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
     final File parentFile = videoSource != null ? videoSource : audioSource;
 
     final String outDir = parentFile.getAbsoluteFile().getParent();
-    final String outSuffix = processParameters(profile.getSuffix());
+    final String outSuffix = processParameters(profile.getSuffix(), params);
     final String outFileName = FilenameUtils.getBaseName(parentFile.getName())
-            + (params.containsKey("time") ? "_" + properties.get("time").replace('.', '_') : "")
+            + (params.containsKey("time") ? "_" + params.get("time").replace('.', '_') : "")
             // generate random name if multiple jobs are producing file with identical name (MH-7673)
             + "_" + UUID.randomUUID().toString();
     params.put("out.dir", outDir);
     params.put("out.name", outFileName);
     params.put("out.suffix", outSuffix);
 
-    // create encoder process.
-    // no special working dir is set which means the working dir of the
-    // current java process is used.
-    // TODO: Parallelisation (threading)
-    final List<String> command = buildCommand(profile);
+    final List<String> command = buildCommand(profile, params);
     final String commandStr = mlist(command).mkString(" ");
     logger.info("Executing encoding command: {}", commandStr);
 
-    BufferedReader in = null;
-    Process encoderProcess = null;
     try {
-      ProcessBuilder pbuilder = new ProcessBuilder(command);
-      pbuilder.redirectErrorStream(REDIRECT_ERROR_STREAM);
-      encoderProcess = pbuilder.start();
-
-      // tell encoder listeners about output
-      in = new BufferedReader(new InputStreamReader(encoderProcess.getInputStream()));
-      String line;
-      while ((line = in.readLine()) != null) {
-        handleEncoderOutput(profile, line, audioSource, videoSource);
-      }
-
-      // wait until the task is finished
-      encoderProcess.waitFor();
-      int exitCode = encoderProcess.exitValue();
+      int exitCode = execute(command, newOutputHandler(profile, params, audioSource, videoSource));
       if (exitCode != 0) {
         throw new CmdlineEncoderException(this, "Encoder exited abnormally with status " + exitCode, commandStr);
       }
@@ -293,12 +402,62 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
                       (videoSource == null ? "N/A" : videoSource.getName()), profile.getName(), e.getMessage() });
       fireEncodingFailed(this, profile, e, audioSource, videoSource);
       throw new CmdlineEncoderException(this, e.getMessage(), commandStr, e);
+    }
+  }
+
+  /**
+   * Runs the encoder and passes its output to the given handler.
+   * <p>
+   * No special working directory is set which means the working directory of the current java process is used.
+   *
+   * @param command
+   *          the command to run
+   * @param handler
+   *          the handler for the encoder output
+   * @return the exit code of the encoder
+   * @throws IOException
+   *           if the encoder can't be started or its output can't be read
+   * @throws InterruptedException
+   *           if the thread is interrupted while waiting for the encoder
+   */
+  private int execute(List<String> command, EncoderOutputHandler handler) throws IOException, InterruptedException {
+    BufferedReader in = null;
+    Process encoderProcess = null;
+    try {
+      ProcessBuilder pbuilder = new ProcessBuilder(command);
+      pbuilder.redirectErrorStream(REDIRECT_ERROR_STREAM);
+      encoderProcess = pbuilder.start();
+
+      // tell encoder listeners about output
+      in = new BufferedReader(new InputStreamReader(encoderProcess.getInputStream()));
+      String line;
+      while ((line = in.readLine()) != null) {
+        handler.handle(line);
+      }
+
+      // wait until the task is finished
+      return encoderProcess.waitFor();
     } finally {
       IoSupport.closeQuietly(in);
       IoSupport.closeQuietly(encoderProcess);
     }
   }
 
+  /**
+   * Creates the parameters for a single encoder invocation from the default parameters and the given properties.
+   *
+   * @param properties
+   *          the encoding properties, may be <code>null</code>
+   * @return the parameters
+   */
+  private Map<String, String> newParameters(Map<String, String> properties) {
+    Map<String, String> invocationParams = new HashMap<String, String>(params);
+    if (properties != null)
+      invocationParams.putAll(properties);
+    lastParams = invocationParams;
+    return invocationParams;
+  }
+
   /**
    * Deletes all valid files found in a list
    *
@@ -333,6 +492,28 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
     fireEncoderMessage(format, message, sourceFiles);
   }
 
+  /**
+   * Creates the handler for the output of a single encoder invocation. The default handler passes each line to
+   * {@link #handleEncoderOutput(EncodingProfile, String, File...)}.
+   *
+   * @param format
+   *          the target media format
+   * @param params
+   *          the parameters of the invocation
+   * @param sourceFiles
+   *          the source files that are being encoded
+   * @return the output handler
+   */
+  protected EncoderOutputHandler newOutputHandler(final EncodingProfile format, Map<String, String> params,
+          final File... sourceFiles) {
+    return new EncoderOutputHandler() {
+      @Override
+      public void handle(String line) {
+        handleEncoderOutput(format, line, sourceFiles);
+      }
+    };
+  }
+
   /**
    * Specifies the encoder binary.
    *
@@ -346,26 +527,43 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
   }
 
   /**
-   * Returns the parameters that will replace the variable placeholders on the commandline, such as
-   * <code>in.video.name</code> etc.
+   * Returns the parameters that replaced the variable placeholders on the commandline of the most recent encoder
+   * invocation, such as <code>in.video.name</code> etc., or the default parameters if the encoder has not been run yet.
    *
    * @return the parameters
    */
   protected Map<String, String> getCommandlineParameters() {
-    return params;
+    Map<String, String> invocationParams = lastParams;
+    return invocationParams != null ? invocationParams : params;
   }
 
   /**
-   * Creates the command that is sent to the commandline encoder.
+   * Creates the command that is sent to the commandline encoder, using the parameters returned by
+   * {@link #getCommandlineParameters()}.
    *
    * @return the commandline
    * @throws EncoderException
    *           in case of any error
    */
   protected List<String> buildCommand(EncodingProfile profile) throws EncoderException {
+    return buildCommand(profile, getCommandlineParameters());
+  }
+
+  /**
+   * Creates the command that is sent to the commandline encoder.
+   *
+   * @param profile
+   *          the encoding profile
+   * @param params
+   *          the parameters of the invocation
+   * @return the commandline
+   * @throws EncoderException
+   *           in case of any error
+   */
+  protected List<String> buildCommand(EncodingProfile profile, Map<String, String> params) throws EncoderException {
     List<String> command = new ArrayList<String>();
     command.add(binary);
-    List<String> arguments = buildArgumentList(profile);
+    List<String> arguments = buildArgumentList(profile, params);
     for (String arg : arguments) {
       String result = arg;
       // TODO Handle several passes of embedded parameters in case a substitution results in another variable.
@@ -385,7 +583,7 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
   }
 
   /**
-   * Creates the arguments for the commandline.
+   * Creates the arguments for the commandline, using the parameters returned by {@link #getCommandlineParameters()}.
    *
    * @param format
    *          the encoding profile
@@ -394,7 +592,23 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
    *           in case of any error
    */
   protected List<String> buildArgumentList(final EncodingProfile format) throws EncoderException {
-    final String optionString = processParameters(cmdlineOptions);
+    return buildArgumentList(format, getCommandlineParameters());
+  }
+
+  /**
+   * Creates the arguments for the commandline.
+   *
+   * @param format
+   *          the encoding profile
+   * @param params
+   *          the parameters of the invocation
+   * @return the argument list
+   * @throws EncoderException
+   *           in case of any error
+   */
+  protected List<String> buildArgumentList(final EncodingProfile format, Map<String, String> params)
+          throws EncoderException {
+    final String optionString = processParameters(cmdlineOptions, params);
     return splitCommandArgsWithCare(optionString);
   }
 
@@ -422,11 +636,25 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
   }
 
   /**
-   * Processes the command options by replacing the templates with their actual values.
+   * Processes the command options by replacing the templates with the values returned by
+   * {@link #getCommandlineParameters()}.
    *
    * @return the commandline
    */
   protected String processParameters(String cmd) {
+    return processParameters(cmd, getCommandlineParameters());
+  }
+
+  /**
+   * Processes the command options by replacing the templates with their actual values.
+   *
+   * @param cmd
+   *          the command options
+   * @param params
+   *          the parameters of the invocation
+   * @return the commandline
+   */
+  protected String processParameters(String cmd, Map<String, String> params) {
     String r = cmd;
     for (Map.Entry<String, String> e : params.entrySet()) {
       r = r.replace("#{" + e.getKey() + "}", e.getValue());
@@ -478,6 +706,28 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
     }
   }
 
+  /**
+   * Tells the registered listeners about the progress of the encoder.
+   *
+   * @param format
+   *          the used format
+   * @param progress
+   *          the encoder progress
+   * @param sourceFiles
+   *          the original files
+   */
+  protected void fireEncoderProgress(EncodingProfile format, EncoderProgress progress, File... sourceFiles) {
+    for (EncoderListener l : this.listeners) {
+      if (l instanceof CmdlineEncoderListener) {
+        try {
+          ((CmdlineEncoderListener) l).notifyEncoderProgress(format, progress, sourceFiles);
+        } catch (Throwable th) {
+          logger.error("EncoderListener " + l + " threw exception while processing callback", th);
+        }
+      }
+    }
+  }
+
   /**
    * Executes the command line encoder with the given set of files and properties and using the provided encoding
    * profile.
@@ -497,12 +747,8 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
     if (mediaSource == null) {
       throw new IllegalArgumentException("At least one track must be specified.");
     }
-    // Fist, update the parameters
-    if (properties != null)
-      params.putAll(properties);
-    // build command
-    BufferedReader in = null;
-    Process encoderProcess = null;
+    // Each invocation works on its own copy of the parameters
+    final Map<String, String> params = newParameters(properties);
     try {
       // Set encoding parameters
       if (mediaSource != null) {
@@ -517,7 +763,7 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
 
 
       if (params.containsKey("time")) {
-        outFileName += "_" + properties.get("time");
+        outFileName += "_" + params.get("time");
       }
 
       // generate random name if multiple jobs are producing file with identical name (MH-7673)
@@ -529,35 +775,19 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
       ArrayList<String> suffixes = new ArrayList<String>();
 
       for (String tag : profile.getTags()) {
-        String outSuffix = processParameters(profile.getSuffix(tag));
+        String outSuffix = processParameters(profile.getSuffix(tag), params);
         params.put("out.suffix" + "." + tag, outSuffix);
         suffixes.add(outSuffix);
       }
 
-      // create encoder process.
-      // no special working dir is set which means the working dir of the
-      // current java process is used.
-      List<String> command = buildCommand(profile);
+      List<String> command = buildCommand(profile, params);
       StringBuilder sb = new StringBuilder();
       for (String cmd : command) {
         sb.append(cmd);
         sb.append(" ");
       }
       logger.info("Executing encoding command: {}", sb);
-      ProcessBuilder pbuilder = new ProcessBuilder(command);
-      pbuilder.redirectErrorStream(REDIRECT_ERROR_STREAM);
-      encoderProcess = pbuilder.start();
-
-      // tell encoder listeners about output
-      in = new BufferedReader(new InputStreamReader(encoderProcess.getInputStream()));
-      String line;
-      while ((line = in.readLine()) != null) {
-        handleEncoderOutput(profile, line, mediaSource);
-      }
-
-      // wait until the task is finished
-      encoderProcess.waitFor();
-      int exitCode = encoderProcess.exitValue();
+      int exitCode = execute(command, newOutputHandler(profile, params, mediaSource));
       if (exitCode != 0) {
         throw new EncoderException(this, "Encoder exited abnormally with status " + exitCode);
       }
@@ -580,16 +810,130 @@ public abstract class AbstractCmdlineEncoderEngine extends AbstractEncoderEngine
               new Object[] { (mediaSource == null ? "N/A" : mediaSource.getName()), profile.getName(), e.getMessage() });
       fireEncodingFailed(this, profile, e, mediaSource);
       throw new EncoderException(this, e.getMessage(), e);
-    } finally {
-      IoSupport.closeQuietly(in);
-      IoSupport.closeQuietly(encoderProcess);
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * Runs a single encoder for all profiles if their commands can be combined, see
+   * {@link #combineEncodingCommands(List)}, and one encoder per profile otherwise. Profiles with tags produce one file
+   * per tag, as in {@link #parallelEncode(File, EncodingProfile, Map)}.
+   *
+   * @see org.opencastproject.composer.api.EncoderEngine#multiEncode(java.io.File, java.util.List, java.util.Map)
+   */
+  @Override
+  public Map<EncodingProfile, List<File>> multiEncode(File mediaSource, List<EncodingProfile> profiles,
+          Map<String, String> properties) throws EncoderException {
+    if (mediaSource == null)
+      throw new IllegalArgumentException("At least one track must be specified.");
+    if (profiles == null || profiles.isEmpty())
+      throw new IllegalArgumentException("At least one encoding profile must be specified.");
+
+    // Each invocation works on its own copy of the parameters
+    final Map<String, String> params = newParameters(properties);
+    final String mediaInput = FilenameUtils.normalize(mediaSource.getAbsolutePath());
+    params.put("in.video.path", mediaInput);
+    params.put("in.video.name", FilenameUtils.getBaseName(mediaInput));
+    params.put("in.video.suffix", FilenameUtils.getExtension(mediaInput));
+    params.put("in.video.filename", FilenameUtils.getName(mediaInput));
+    params.put("in.video.mimetype", MimetypesFileTypeMap.getDefaultFileTypeMap().getContentType(mediaInput));
+    final String outDir = mediaSource.getAbsoluteFile().getParent();
+    params.put("out.dir", outDir);
+    // generate random name if multiple jobs are producing file with identical name (MH-7673)
+    final String outFileName = FilenameUtils.getBaseName(mediaSource.getName()) + "_" + UUID.randomUUID().toString();
+
+    final List<List<String>> commands = new ArrayList<List<String>>();
+    final Map<EncodingProfile, List<File>> outputs = new LinkedHashMap<EncodingProfile, List<File>>();
+    final List<File> outputFiles = new ArrayList<File>();
+    for (int i = 0; i < profiles.size(); i++) {
+      final EncodingProfile profile = profiles.get(i);
+      final Map<String, String> profileParams = new HashMap<String, String>(params);
+      final String profileOutName = outFileName + "_" + i;
+      profileParams.put("out.name", profileOutName);
+      final List<File> profileOutputs = new ArrayList<File>();
+      if (profile.getTags().isEmpty()) {
+        String outSuffix = processParameters(profile.getSuffix(), profileParams);
+        profileParams.put("out.suffix", outSuffix);
+        if (profile.getOutputType() != EncodingProfile.MediaType.Nothing)
+          profileOutputs.add(new File(outDir, profileOutName + outSuffix));
+      } else {
+        for (String tag : profile.getTags()) {
+          String outSuffix = processParameters(profile.getSuffix(tag), profileParams);
+          profileParams.put("out.suffix" + "." + tag, outSuffix);
+          profileOutputs.add(new File(outDir, profileOutName + outSuffix));
+        }
+      }
+      commands.add(buildCommand(profile, profileParams));
+      outputs.put(profile, profileOutputs);
+      outputFiles.addAll(profileOutputs);
+    }
+
+    final List<String> command = combineEncodingCommands(commands);
+    if (command == null) {
+      logger.info("Commands of encoding profiles {} can't be combined, encoding one profile after the other",
+              profiles);
+      return super.multiEncode(mediaSource, profiles, properties);
+    }
+
+    final String commandStr = mlist(command).mkString(" ");
+    logger.info("Executing encoding command: {}", commandStr);
+    try {
+      int exitCode = execute(command, newOutputHandler(profiles.get(0), params, mediaSource));
+      if (exitCode != 0) {
+        throw new CmdlineEncoderException(this, "Encoder exited abnormally with status " + exitCode, commandStr);
+      }
+      logger.info("Media track {} successfully encoded using profiles {}", mediaSource.getName(), profiles);
+      for (EncodingProfile profile : profiles) {
+        fireEncoded(this, profile, mediaSource);
+      }
+      return outputs;
+    } catch (Exception e) {
+      logger.warn("Error while encoding media {} using {}: {}",
+              new Object[] { mediaSource.getName(), profiles, e.getMessage() });
+      cleanup(outputFiles);
+      for (EncodingProfile profile : profiles) {
+        fireEncodingFailed(this, profile, e, mediaSource);
+      }
+      if (e instanceof EncoderException)
+        throw (EncoderException) e;
+      throw new CmdlineEncoderException(this, e.getMessage(), commandStr, e);
+    }
+  }
+
+  /**
+   * Combines the commands encoding the same input with several profiles into a single command with one output per
+   * profile, so that the input is decoded once.
+   * <p>
+   * The default implementation returns <code>null</code>, meaning that the commands can't be combined.
+   *
+   * @param commands
+   *          the commands, including the binary
+   * @return the combined command, or <code>null</code> if the commands can't be combined
+   */
+  protected List<String> combineEncodingCommands(List<List<String>> commands) {
+    return null;
+  }
+
   protected List<String> getTags(EncodingProfile profile) {
     ArrayList<String> tags = new ArrayList<String>();
 
     return tags;
   }
 
+  /**
+   * Handler for the output of a single encoder invocation.
+   */
+  protected interface EncoderOutputHandler {
+
+    /**
+     * Handles a line of encoder output.
+     *
+     * @param line
+     *          the line as returned by the encoder
+     */
+    void handle(String line);
+
+  }
+
 }
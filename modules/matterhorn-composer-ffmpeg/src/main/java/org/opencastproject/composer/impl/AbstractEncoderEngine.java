@@ -23,11 +23,13 @@
 package org.opencastproject.composer.impl;
 
 import org.opencastproject.composer.api.EncoderEngine;
+import org.opencastproject.composer.api.EncoderException;
 import org.opencastproject.composer.api.EncoderListener;
 import org.opencastproject.composer.api.EncodingProfile;
 import org.opencastproject.composer.api.EncodingProfile.MediaType;
 import org.opencastproject.mediapackage.Track;
 
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,7 +37,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -172,6 +176,41 @@ public abstract class AbstractEncoderEngine implements EncoderEngine {
     return f;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * This implementation encodes the file once per profile, using {@link #encode(File, EncodingProfile, Map)} for
+   * profiles with a single output and {@link #parallelEncode(File, EncodingProfile, Map)} for profiles with tags.
+   *
+   * @see org.opencastproject.composer.api.EncoderEngine#multiEncode(java.io.File, java.util.List, java.util.Map)
+   */
+  @Override
+  public Map<EncodingProfile, List<File>> multiEncode(File mediaSource, List<EncodingProfile> profiles,
+          Map<String, String> properties) throws EncoderException {
+    Map<EncodingProfile, List<File>> outputs = new LinkedHashMap<EncodingProfile, List<File>>();
+    try {
+      for (EncodingProfile profile : profiles) {
+        List<File> profileOutputs = new ArrayList<File>();
+        if (profile.getTags().isEmpty()) {
+          for (File output : encode(mediaSource, profile, properties)) {
+            profileOutputs.add(output);
+          }
+        } else {
+          profileOutputs.addAll(parallelEncode(mediaSource, profile, properties));
+        }
+        outputs.put(profile, profileOutputs);
+      }
+    } catch (EncoderException e) {
+      for (List<File> profileOutputs : outputs.values()) {
+        for (File output : profileOutputs) {
+          FileUtils.deleteQuietly(output);
+        }
+      }
+      throw e;
+    }
+    return outputs;
+  }
+
   /**
    * This method is called to send the <code>formatEncoded</code> event to registered encoding listeners.
    *
@@ -44,4 +44,16 @@ public interface CmdlineEncoderListener extends EncoderListener {
    */
   void notifyEncoderOutput(EncodingProfile format, String message, File... file);
 
+  /**
+   * Notifies the listener of the progress reported by the encoder.
+   *
+   * @param format
+   *          the encoder format in use
+   * @param progress
+   *          the encoder progress
+   * @param file
+   *          the files that are being encoded
+   */
+  void notifyEncoderProgress(EncodingProfile format, EncoderProgress progress, File... file);
+
 }
@@ -37,6 +37,7 @@ import org.opencastproject.composer.api.EncoderEngineFactory;
 import org.opencastproject.composer.api.EncoderException;
 import org.opencastproject.composer.api.EncodingProfile;
 import org.opencastproject.composer.api.LaidOutElement;
+import org.opencastproject.composer.impl.jmx.EncoderStatistics;
 import org.opencastproject.composer.layout.Dimension;
 import org.opencastproject.composer.layout.Layout;
 import org.opencastproject.composer.layout.Serializer;
@@ -46,6 +47,7 @@ import org.opencastproject.inspection.api.MediaInspectionService;
 import org.opencastproject.job.api.AbstractJobProducer;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.JobBarrier;
+import org.opencastproject.job.api.JobSpec;
 import org.opencastproject.mediapackage.Attachment;
 import org.opencastproject.mediapackage.Catalog;
 import org.opencastproject.mediapackage.MediaPackageElement;
@@ -59,21 +61,28 @@ import org.opencastproject.mediapackage.Track;
 import org.opencastproject.mediapackage.VideoStream;
 import org.opencastproject.mediapackage.identifier.IdBuilder;
 import org.opencastproject.mediapackage.identifier.IdBuilderFactory;
+import org.opencastproject.security.api.Organization;
 import org.opencastproject.security.api.OrganizationDirectoryService;
 import org.opencastproject.security.api.SecurityService;
+import org.opencastproject.security.api.User;
 import org.opencastproject.security.api.UserDirectoryService;
+import org.opencastproject.security.util.SecurityUtil;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.serviceregistry.api.UndispatchableJobException;
 import org.opencastproject.util.IoSupport;
 import org.opencastproject.util.JsonObj;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.MimeTypes;
 import org.opencastproject.util.NotFoundException;
 import org.opencastproject.util.data.Collections;
+import org.opencastproject.util.data.Function0;
 import org.opencastproject.util.data.Option;
 import org.opencastproject.util.data.Tuple;
+import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workspace.api.Workspace;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -86,6 +95,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -96,12 +106,20 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.management.ObjectInstance;
 
 /** FFMPEG based implementation of the composer service api. */
 public class ComposerServiceImpl extends AbstractJobProducer implements ComposerService, ManagedService {
@@ -162,9 +180,58 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   /** The load introduced on the system by creating a caption job */
   private float captionJobLoad = DEFAULT_CAPTION_JOB_LOAD;
 
+  /** The key to look for in the service configuration file to limit the number of concurrent jobs on this node */
+  public static final String MAX_CONCURRENT_JOBS_KEY = "encoder.concurrency.max";
+
+  /** The key to look for in the service configuration file to set the minimum speed of the running encoders */
+  public static final String MIN_ENCODER_SPEED_KEY = "encoder.concurrency.min.speed";
+
+  /** By default, the number of concurrent jobs is limited by the job load only */
+  public static final int DEFAULT_MAX_CONCURRENT_JOBS = 0;
+
+  /** By default, no more jobs are accepted once an encoder runs slower than real time */
+  public static final float DEFAULT_MIN_ENCODER_SPEED = 1.0f;
+
+  /** The key to look for in the service configuration file to set the duration of segments in segmented encoding */
+  public static final String SEGMENT_DURATION_KEY = "encoder.segment.duration";
+
+  /** The default duration of segments in segmented encoding, in seconds */
+  public static final int DEFAULT_SEGMENT_DURATION = 300;
+
+  /** The maximum number of extracted images that are put into the workspace at the same time */
+  private static final int MAX_PARALLEL_IMAGE_COPIES = 4;
+
+  /** The encoding profile used to cut a track into segments */
+  public static final String SEGMENT_PROFILE = "segment.work";
+
+  /** The encoding profile used to join encoded segments */
+  public static final String SEGMENT_CONCAT_PROFILE = "concat-segments.work";
+
+  /** The encoding profile used to join encoded segments and add the separately encoded audio */
+  public static final String SEGMENT_CONCAT_AV_PROFILE = "concat-segments-av.work";
+
+  /** The encoding profile used to extract the audio of a track that is encoded in segments */
+  public static final String SEGMENT_AUDIO_PROFILE = "audio-only.work";
+
+  /** The maximum number of concurrent jobs on this node, or <code>0</code> to use the job load */
+  private volatile int maxConcurrentJobs = DEFAULT_MAX_CONCURRENT_JOBS;
+
+  /** The speed below which a running encoder prevents further jobs from being accepted */
+  private volatile float minEncoderSpeed = DEFAULT_MIN_ENCODER_SPEED;
+
+  /** The duration of segments in segmented encoding, in seconds */
+  private volatile int segmentDuration = DEFAULT_SEGMENT_DURATION;
+
+  /** The encoder statistics, also used to limit the number of concurrent jobs */
+  private final EncoderStatistics encoderStatistics = new EncoderStatistics();
+
+  /** The registered encoder statistics bean */
+  private ObjectInstance encoderStatisticsMXBean;
+
   /** List of available operations on jobs */
   private enum Operation {
-    Caption, Encode, Image, ImageConversion, Mux, Trim, Watermark, Composite, Concat, ImageToVideo, ParallelEncode
+    Caption, Encode, Image, ImageConversion, Mux, Trim, Watermark, Composite, Concat, ImageToVideo, ParallelEncode,
+    MultiEncode, SegmentedEncode
   }
 
   /** Encoding profile manager */
@@ -212,6 +279,15 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   public void activate(ComponentContext cc) {
     super.activate(cc);
     logger.info("Activating composer service");
+    encoderStatisticsMXBean = JmxUtil.registerMXBean(encoderStatistics, "EncoderStatistics");
+  }
+
+  /**
+   * OSGi callback on component deactivation.
+   */
+  public void deactivate() {
+    if (encoderStatisticsMXBean != null)
+      JmxUtil.unregisterMXBean(encoderStatisticsMXBean);
   }
 
   /**
@@ -402,6 +478,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
       if (encoderEngine == null) {
         throw new EncoderException(null, "No encoder engine available for profile '" + profileId + "'");
       }
+      encoderEngine.addEncoderListener(new EncoderMonitor(job.getId()));
 
       // List of encoded tracks
       LinkedList<Track> encodedTracks = new LinkedList<Track>();
@@ -488,6 +565,471 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.composer.api.ComposerService#multiEncode(org.opencastproject.mediapackage.Track,
+   *      java.util.List)
+   */
+  @Override
+  public Job multiEncode(Track sourceTrack, List<String> profileIds) throws EncoderException, MediaPackageException {
+    if (profileIds == null || profileIds.isEmpty())
+      throw new IllegalArgumentException("At least one encoding profile must be specified");
+    try {
+      List<String> arguments = new ArrayList<String>();
+      arguments.add(MediaPackageElementParser.getAsXml(sourceTrack));
+      arguments.addAll(profileIds);
+      return serviceRegistry.createJob(JOB_TYPE, Operation.MultiEncode.toString(), arguments);
+    } catch (ServiceRegistryException e) {
+      throw new EncoderException("Unable to create a job", e);
+    }
+  }
+
+  /**
+   * Encodes a track using several encoding profiles, decoding the track only once.
+   *
+   * @param job
+   *          the associated job
+   * @param mediaTrack
+   *          the track to encode
+   * @param profileIds
+   *          the encoding profiles
+   * @return the encoded tracks, in the order of the profiles
+   * @throws EncoderException
+   *           if encoding fails
+   */
+  protected List<Track> multiEncode(Job job, Track mediaTrack, List<String> profileIds) throws EncoderException,
+          MediaPackageException {
+    if (job == null)
+      throw new IllegalArgumentException("The Job parameter must not be null");
+
+    try {
+      final File mediaFile;
+      try {
+        mediaFile = workspace.get(mediaTrack.getURI());
+      } catch (NotFoundException e) {
+        incident().recordFailure(job, WORKSPACE_GET_NOT_FOUND, e,
+                getWorkspaceMediapackageParams("source", Type.Track, mediaTrack.getURI()), NO_DETAILS);
+        throw new EncoderException("Requested media track " + mediaTrack + " is not found");
+      } catch (IOException e) {
+        incident().recordFailure(job, WORKSPACE_GET_IO_EXCEPTION, e,
+                getWorkspaceMediapackageParams("source", Type.Track, mediaTrack.getURI()), NO_DETAILS);
+        throw new EncoderException("Unable to access media track " + mediaTrack);
+      }
+
+      // A profile that is listed twice is encoded once
+      final List<EncodingProfile> profiles = new ArrayList<EncodingProfile>();
+      for (String profileId : new LinkedHashSet<String>(profileIds)) {
+        profiles.add(getProfile(job, profileId));
+      }
+      final EncoderEngine encoderEngine = getEncoderEngine(job, profiles.get(0));
+
+      logger.info("Encoding track {} using encoding profiles {}", mediaTrack.getIdentifier(), profileIds);
+
+      final Map<EncodingProfile, List<File>> outputs;
+      try {
+        outputs = encoderEngine.multiEncode(mediaFile, profiles, null);
+      } catch (EncoderException e) {
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("video", mediaTrack.getURI().toString());
+        params.put("profiles", StringUtils.join(profileIds, ","));
+        incident().recordFailure(job, ENCODING_FAILED, e, params, detailsFor(e, encoderEngine));
+        throw e;
+      }
+
+      List<Track> encodedTracks = new ArrayList<Track>();
+      for (EncodingProfile profile : profiles) {
+        List<File> profileOutputs = outputs.get(profile);
+        if (profileOutputs == null)
+          continue;
+        for (File output : profileOutputs) {
+          if (!output.exists() || output.length() == 0) {
+            logger.debug("Encoder did not produce {}", output);
+            continue;
+          }
+
+          // Put the file in the workspace and have it inspected
+          URI workspaceURI = putToCollection(job, output, "encoded file",
+                  job.getId() + "-" + encodedTracks.size() + "." + FilenameUtils.getExtension(output.getName()));
+          Job inspectionJob = inspect(job, workspaceURI);
+          Track inspectedTrack = (Track) MediaPackageElementParser.getFromXml(inspectionJob.getPayload());
+          inspectedTrack.setIdentifier(idBuilder.createNew().toString());
+
+          // Tag the outputs of a profile with several outputs, and set the mime type of a profile with a single output
+          for (String tag : profile.getTags()) {
+            if (output.getName().endsWith(profile.getSuffix(tag)))
+              inspectedTrack.addTag(tag);
+          }
+          if (profile.getTags().isEmpty() && profile.getMimeType() != null)
+            inspectedTrack.setMimeType(MimeTypes.parseMimeType(profile.getMimeType()));
+          encodedTracks.add(inspectedTrack);
+        }
+      }
+      return encodedTracks;
+    } catch (Exception e) {
+      logger.warn("Error encoding " + mediaTrack + " using profiles " + profileIds, e);
+      if (e instanceof EncoderException) {
+        throw (EncoderException) e;
+      } else {
+        throw new EncoderException(e);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.composer.api.ComposerService#segmentedEncode(org.opencastproject.mediapackage.Track,
+   *      java.lang.String)
+   */
+  @Override
+  public Job segmentedEncode(Track sourceTrack, String profileId) throws EncoderException, MediaPackageException {
+    try {
+      return serviceRegistry.createJob(JOB_TYPE, Operation.SegmentedEncode.toString(),
+              Arrays.asList(MediaPackageElementParser.getAsXml(sourceTrack), profileId));
+    } catch (ServiceRegistryException e) {
+      throw new EncoderException("Unable to create a job", e);
+    }
+  }
+
+  /**
+   * Encodes a track in segments. The video of the track is cut into segments at keyframes, each segment is encoded by a
+   * separate encoding job, and the encoded segments are joined again without being encoded a second time. The audio is
+   * encoded in one piece by another job and added to the joined segments, since audio segments that are encoded on
+   * their own leave gaps at the joins. Tracks that are too short to be split into at least two segments are encoded in
+   * one piece.
+   *
+   * @param job
+   *          the associated job
+   * @param mediaTrack
+   *          the track to encode
+   * @param profileId
+   *          the encoding profile
+   * @return the encoded track or none if the encoding profile does not produce a track
+   * @throws EncoderException
+   *           if encoding fails
+   */
+  protected Option<Track> segmentedEncode(Job job, Track mediaTrack, String profileId) throws EncoderException,
+          MediaPackageException {
+    if (job == null)
+      throw new IllegalArgumentException("The Job parameter must not be null");
+
+    final int segmentSeconds = segmentDuration;
+    final Long trackDuration = mediaTrack.getDuration();
+    if (trackDuration == null || trackDuration < 2000L * segmentSeconds) {
+      logger.info("Encoding track {} in one piece, since it is shorter than two segments of {} seconds",
+              mediaTrack.getIdentifier(), segmentSeconds);
+      return encode(job, mediaTrack, null, profileId, null);
+    }
+
+    final List<URI> segmentURIs = new ArrayList<URI>();
+    final List<URI> encodedURIs = new ArrayList<URI>();
+    try {
+      final File mediaFile;
+      try {
+        mediaFile = workspace.get(mediaTrack.getURI());
+      } catch (NotFoundException e) {
+        incident().recordFailure(job, WORKSPACE_GET_NOT_FOUND, e,
+                getWorkspaceMediapackageParams("source", Type.Track, mediaTrack.getURI()), NO_DETAILS);
+        throw new EncoderException("Requested media track " + mediaTrack + " is not found");
+      } catch (IOException e) {
+        incident().recordFailure(job, WORKSPACE_GET_IO_EXCEPTION, e,
+                getWorkspaceMediapackageParams("source", Type.Track, mediaTrack.getURI()), NO_DETAILS);
+        throw new EncoderException("Unable to access media track " + mediaTrack);
+      }
+
+      // Make sure the profile exists before the track is cut
+      final EncodingProfile profile = getProfile(job, profileId);
+
+      final List<File> segments = cutIntoSegments(job, mediaTrack, mediaFile, segmentSeconds);
+      if (segments.size() < 2) {
+        logger.info("Encoding track {} in one piece, since it could not be cut into several segments",
+                mediaTrack.getIdentifier());
+        cleanup(segments.toArray(new File[segments.size()]));
+        return encode(job, mediaTrack, null, profileId, null);
+      }
+
+      // Put the segments into the workspace, each of them is encoded by a separate job
+      final MediaPackageElementBuilder builder = MediaPackageElementBuilderFactory.newInstance().newElementBuilder();
+      final List<JobSpec> jobSpecs = new ArrayList<JobSpec>();
+      for (int i = 0; i < segments.size(); i++) {
+        File segment = segments.get(i);
+        URI segmentURI = putToCollection(job, segment, "track segment",
+                job.getId() + "-segment-" + i + "." + FilenameUtils.getExtension(segment.getName()));
+        segmentURIs.add(segmentURI);
+        Track segmentTrack = (Track) builder.elementFromURI(segmentURI, Type.Track, mediaTrack.getFlavor());
+        segmentTrack.setIdentifier(idBuilder.createNew().toString());
+        jobSpecs.add(createEncodeJobSpec(segmentTrack, profileId));
+      }
+
+      // The audio of the whole track is encoded at the same time by another job
+      if (mediaTrack.hasAudio()) {
+        File audio = extractAudio(job, mediaTrack, mediaFile);
+        URI audioURI = putToCollection(job, audio, "track audio",
+                job.getId() + "-audio." + FilenameUtils.getExtension(audio.getName()));
+        segmentURIs.add(audioURI);
+        Track audioTrack = (Track) builder.elementFromURI(audioURI, Type.Track, mediaTrack.getFlavor());
+        audioTrack.setIdentifier(idBuilder.createNew().toString());
+        jobSpecs.add(createEncodeJobSpec(audioTrack, profileId));
+      }
+
+      final List<Job> jobs;
+      try {
+        jobs = serviceRegistry.createJobs(jobSpecs);
+      } catch (ServiceRegistryException e) {
+        throw new EncoderException("Unable to create the segment encoding jobs", e);
+      }
+      final List<Job> segmentJobs = jobs.subList(0, segments.size());
+      final Job audioJob = jobs.size() > segments.size() ? jobs.get(segments.size()) : null;
+      logger.info("Encoding track {} in {} segments of {} seconds using profile '{}'",
+              new Object[] { mediaTrack.getIdentifier(), segmentJobs.size(), segmentSeconds, profileId });
+
+      // Release the encoder slot while waiting, this node may have to encode some of the segments itself
+      final JobBarrier.Result result;
+      encoderStatistics.jobFinished(job.getId());
+      try {
+        result = new JobBarrier(job, serviceRegistry, jobs.toArray(new Job[jobs.size()])).waitForJobs();
+      } finally {
+        encoderStatistics.jobAccepted(job.getId());
+      }
+      if (!result.isSuccess()) {
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("video", mediaTrack.getURI().toString());
+        params.put("profile", profileId);
+        params.put("segments", Integer.toString(segmentJobs.size()));
+        incident().recordFailure(job, ENCODING_FAILED, params);
+        throw new EncoderException("Encoding the segments of track " + mediaTrack + " failed");
+      }
+
+      final List<File> encodedSegments = new ArrayList<File>();
+      for (Job segmentJob : segmentJobs) {
+        encodedSegments.add(getEncodedFile(job, segmentJob, profileId, encodedURIs));
+      }
+      final File encodedAudio = audioJob == null ? null : getEncodedFile(job, audioJob, profileId, encodedURIs);
+
+      // Join the encoded segments, put the result into the workspace and have it inspected
+      final File output = joinSegments(job, encodedSegments, encodedAudio);
+      URI workspaceURI = putToCollection(job, output, "encoded file");
+      Job inspectionJob = inspect(job, workspaceURI);
+
+      Track inspectedTrack = (Track) MediaPackageElementParser.getFromXml(inspectionJob.getPayload());
+      inspectedTrack.setIdentifier(idBuilder.createNew().toString());
+
+      if (profile.getMimeType() != null)
+        inspectedTrack.setMimeType(MimeTypes.parseMimeType(profile.getMimeType()));
+
+      return some(inspectedTrack);
+    } catch (Exception e) {
+      logger.warn("Error encoding " + mediaTrack + " in segments using profile " + profileId, e);
+      if (e instanceof EncoderException) {
+        throw (EncoderException) e;
+      } else {
+        throw new EncoderException(e);
+      }
+    } finally {
+      segmentURIs.addAll(encodedURIs);
+      cleanupWorkspace(segmentURIs.toArray(new URI[segmentURIs.size()]));
+    }
+  }
+
+  /**
+   * Returns the specification of a job encoding a track, as created by {@link #encode(Track, String)}.
+   *
+   * @param sourceTrack
+   *          the track to encode
+   * @param profileId
+   *          the encoding profile
+   * @return the job specification
+   * @throws MediaPackageException
+   *           if the track cannot be serialized
+   */
+  private JobSpec createEncodeJobSpec(Track sourceTrack, String profileId) throws MediaPackageException {
+    return new JobSpec(JOB_TYPE, Operation.Encode.toString(),
+            Arrays.asList(MediaPackageElementParser.getAsXml(sourceTrack), profileId), null, true, null, null);
+  }
+
+  /**
+   * Cuts a track into segments without encoding it. The cuts are made at the first keyframe after each multiple of the
+   * segment duration.
+   *
+   * @param job
+   *          the associated job
+   * @param mediaTrack
+   *          the track
+   * @param mediaFile
+   *          the track's file
+   * @param segmentSeconds
+   *          the segment duration in seconds
+   * @return the segments in playback order
+   * @throws EncoderException
+   *           if cutting the track fails
+   */
+  private List<File> cutIntoSegments(Job job, Track mediaTrack, File mediaFile, int segmentSeconds)
+          throws EncoderException {
+    final EncodingProfile profile = getProfile(job, SEGMENT_PROFILE);
+    final EncoderEngine encoderEngine = getEncoderEngine(job, profile);
+    final String segmentName = FilenameUtils.getBaseName(mediaFile.getName()) + "_" + idBuilder.createNew();
+
+    Map<String, String> properties = new HashMap<String, String>();
+    properties.put("segmentName", segmentName);
+    properties.put("segmentDuration", Integer.toString(segmentSeconds));
+    try {
+      encoderEngine.encode(mediaFile, profile, properties);
+    } catch (EncoderException e) {
+      Map<String, String> params = new HashMap<String, String>();
+      params.put("video", mediaTrack.getURI().toString());
+      params.put("profile", profile.getIdentifier());
+      params.put("properties", properties.toString());
+      incident().recordFailure(job, ENCODING_FAILED, e, params, detailsFor(e, encoderEngine));
+      cleanup(listSegments(mediaFile.getParentFile(), segmentName));
+      throw e;
+    }
+
+    return Arrays.asList(listSegments(mediaFile.getParentFile(), segmentName));
+  }
+
+  /**
+   * Extracts the audio of a track without encoding it.
+   *
+   * @param job
+   *          the associated job
+   * @param mediaTrack
+   *          the track
+   * @param mediaFile
+   *          the track's file
+   * @return the audio file
+   * @throws EncoderException
+   *           if extracting the audio fails
+   */
+  private File extractAudio(Job job, Track mediaTrack, File mediaFile) throws EncoderException {
+    final EncodingProfile profile = getProfile(job, SEGMENT_AUDIO_PROFILE);
+    final EncoderEngine encoderEngine = getEncoderEngine(job, profile);
+    try {
+      Option<File> audio = encoderEngine.encode(mediaFile, profile, null);
+      if (audio.isNone() || !audio.get().exists() || audio.get().length() == 0)
+        throw new EncoderException("Extracting the audio of track " + mediaTrack + " did not produce a file");
+      return audio.get();
+    } catch (EncoderException e) {
+      Map<String, String> params = new HashMap<String, String>();
+      params.put("video", mediaTrack.getURI().toString());
+      params.put("profile", profile.getIdentifier());
+      incident().recordFailure(job, ENCODING_FAILED, e, params, detailsFor(e, encoderEngine));
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the local file of the track encoded by a child job.
+   *
+   * @param job
+   *          the associated job
+   * @param encodingJob
+   *          the finished encoding job
+   * @param profileId
+   *          the encoding profile
+   * @param encodedURIs
+   *          the workspace URIs of the encoded tracks, which the URI of the track is added to
+   * @return the file
+   * @throws EncoderException
+   *           if the job did not produce a track or the track is not accessible
+   */
+  private File getEncodedFile(Job job, Job encodingJob, String profileId, List<URI> encodedURIs)
+          throws EncoderException, MediaPackageException, NotFoundException, ServiceRegistryException {
+    String payload = serviceRegistry.getJob(encodingJob.getId()).getPayload();
+    if (StringUtils.isBlank(payload))
+      throw new EncoderException("Encoding profile '" + profileId + "' did not produce a track for job "
+              + encodingJob.getId());
+    Track encodedTrack = (Track) MediaPackageElementParser.getFromXml(payload);
+    encodedURIs.add(encodedTrack.getURI());
+    try {
+      return workspace.get(encodedTrack.getURI());
+    } catch (NotFoundException e) {
+      incident().recordFailure(job, WORKSPACE_GET_NOT_FOUND, e,
+              getWorkspaceMediapackageParams("encoded", Type.Track, encodedTrack.getURI()), NO_DETAILS);
+      throw new EncoderException("Encoded track " + encodedTrack + " is not found");
+    } catch (IOException e) {
+      incident().recordFailure(job, WORKSPACE_GET_IO_EXCEPTION, e,
+              getWorkspaceMediapackageParams("encoded", Type.Track, encodedTrack.getURI()), NO_DETAILS);
+      throw new EncoderException("Unable to access encoded track " + encodedTrack);
+    }
+  }
+
+  /**
+   * Returns the segment files with the given name prefix in playback order.
+   *
+   * @param directory
+   *          the directory that the segments have been written to
+   * @param segmentName
+   *          the name prefix of the segments, which are numbered with zero padding
+   * @return the segments
+   */
+  static File[] listSegments(File directory, final String segmentName) {
+    File[] segments = directory.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.startsWith(segmentName + "-");
+      }
+    });
+    if (segments == null)
+      return new File[0];
+    // The segment numbers are zero padded
+    Arrays.sort(segments);
+    return segments;
+  }
+
+  /**
+   * Joins encoded segments without encoding them again.
+   *
+   * @param job
+   *          the associated job
+   * @param segments
+   *          the encoded segments in playback order
+   * @param audio
+   *          the encoded audio to add to the joined segments, may be <code>null</code>
+   * @return the joined file
+   * @throws EncoderException
+   *           if joining the segments fails
+   */
+  File joinSegments(Job job, List<File> segments, File audio) throws EncoderException {
+    final EncodingProfile profile = getProfile(job, audio == null ? SEGMENT_CONCAT_PROFILE : SEGMENT_CONCAT_AV_PROFILE);
+    final EncoderEngine encoderEngine = getEncoderEngine(job, profile);
+
+    // The concat demuxer reads the segments from a list file
+    final File segmentList = new File(segments.get(0).getParentFile(), job.getId() + "_" + idBuilder.createNew()
+            + "-segments.txt");
+    StringBuilder sb = new StringBuilder();
+    for (File segment : segments) {
+      sb.append("file '").append(segment.getAbsolutePath().replace("'", "'\\''")).append("'\n");
+    }
+
+    Map<String, String> properties = new HashMap<String, String>();
+    properties.put("segmentSuffix", "." + FilenameUtils.getExtension(segments.get(0).getName()));
+    try {
+      FileUtils.writeStringToFile(segmentList, sb.toString(), "UTF-8");
+      Option<File> output;
+      if (audio == null)
+        output = encoderEngine.encode(segmentList, profile, properties);
+      else
+        output = encoderEngine.mux(audio, segmentList, profile, properties);
+      if (output.isNone() || !output.get().exists() || output.get().length() == 0)
+        throw new EncoderException("Joining " + segments.size() + " segments did not produce a file");
+      return output.get();
+    } catch (IOException e) {
+      throw new EncoderException("Unable to write the list of segments to " + segmentList, e);
+    } catch (EncoderException e) {
+      Map<String, String> params = new HashMap<String, String>();
+      params.put("segments", StringUtils.join(segments, ","));
+      if (audio != null)
+        params.put("audio", audio.getAbsolutePath());
+      params.put("profile", profile.getIdentifier());
+      params.put("properties", properties.toString());
+      incident().recordFailure(job, CONCAT_FAILED, e, params, detailsFor(e, encoderEngine));
+      throw e;
+    } finally {
+      cleanup(segmentList);
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -1243,36 +1785,21 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
         throw e;
       }
 
-      int i = 0;
-      List<URI> workspaceURIs = new LinkedList<URI>();
       for (File output : encodingOutput) {
-
         if (!output.exists() || output.length() == 0) {
           logger.warn("Extracted image {} is empty!", output);
-          throw new NotFoundException("Extracted image " + output.toString() + " is empty!");
-        }
-
-        // Put the file in the workspace
-        InputStream in = null;
-        try {
-          in = new FileInputStream(output);
-          URI returnURL = workspace.putInCollection(COLLECTION,
-                  job.getId() + "_" + i++ + "." + FilenameUtils.getExtension(output.getAbsolutePath()), in);
-          logger.debug("Copied image file to the workspace at {}", returnURL);
-          workspaceURIs.add(returnURL);
-        } catch (Exception e) {
           cleanup(encodingOutput.toArray(new File[encodingOutput.size()]));
-          cleanupWorkspace(workspaceURIs.toArray(new URI[workspaceURIs.size()]));
-          incident().recordFailure(job, WORKSPACE_PUT_COLLECTION_IO_EXCEPTION, e,
-                  getWorkspaceCollectionParams("extracted image file", COLLECTION, output.toURI()), NO_DETAILS);
-          throw new EncoderException("Unable to put image file into the workspace", e);
-        } finally {
-          IOUtils.closeQuietly(in);
+          throw new NotFoundException("Extracted image " + output.toString() + " is empty!");
         }
       }
 
-      // cleanup
-      cleanup(encodingOutput.toArray(new File[encodingOutput.size()]));
+      // Put the files in the workspace
+      List<URI> workspaceURIs;
+      try {
+        workspaceURIs = putImagesToCollection(job, encodingOutput);
+      } finally {
+        cleanup(encodingOutput.toArray(new File[encodingOutput.size()]));
+      }
 
       MediaPackageElementBuilder builder = MediaPackageElementBuilderFactory.newInstance().newElementBuilder();
       List<Attachment> imageAttachments = new LinkedList<Attachment>();
@@ -1292,6 +1819,76 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
     }
   }
 
+  /**
+   * Puts extracted images into the workspace collection, copying several images at the same time.
+   *
+   * @param job
+   *          the associated job
+   * @param images
+   *          the image files
+   * @return the workspace URIs in the order of the images
+   * @throws EncoderException
+   *           if an image can't be put into the workspace, in which case the images already copied are removed
+   */
+  private List<URI> putImagesToCollection(final Job job, List<File> images) throws EncoderException {
+    // The copies are made in the security context of the job
+    final Organization organization = securityService.getOrganization();
+    final User user = securityService.getUser();
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(images.size(), MAX_PARALLEL_IMAGE_COPIES));
+    try {
+      final List<Future<URI>> copies = new ArrayList<Future<URI>>();
+      for (int i = 0; i < images.size(); i++) {
+        final File image = images.get(i);
+        final String fileName = job.getId() + "_" + i + "." + FilenameUtils.getExtension(image.getAbsolutePath());
+        copies.add(executor.submit(new Callable<URI>() {
+          @Override
+          public URI call() {
+            return SecurityUtil.runAs(securityService, organization, user, new Function0.X<URI>() {
+              @Override
+              public URI xapply() throws Exception {
+                InputStream in = null;
+                try {
+                  in = new FileInputStream(image);
+                  URI returnURL = workspace.putInCollection(COLLECTION, fileName, in);
+                  logger.debug("Copied image file to the workspace at {}", returnURL);
+                  return returnURL;
+                } finally {
+                  IOUtils.closeQuietly(in);
+                }
+              }
+            });
+          }
+        }));
+      }
+
+      // Wait for all copies, so that the successful ones can be removed if one of them failed
+      final List<URI> workspaceURIs = new ArrayList<URI>();
+      Throwable failure = null;
+      File failedImage = null;
+      for (int i = 0; i < copies.size(); i++) {
+        try {
+          workspaceURIs.add(copies.get(i).get());
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+            failedImage = images.get(i);
+          }
+        }
+      }
+      if (failure != null) {
+        cleanupWorkspace(workspaceURIs.toArray(new URI[workspaceURIs.size()]));
+        incident().recordFailure(job, WORKSPACE_PUT_COLLECTION_IO_EXCEPTION, failure,
+                getWorkspaceCollectionParams("extracted image file", COLLECTION, failedImage.toURI()), NO_DETAILS);
+        throw new EncoderException("Unable to put image file into the workspace", failure);
+      }
+      return workspaceURIs;
+    } catch (InterruptedException e) {
+      throw new EncoderException("Interrupted while putting image files into the workspace", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private void validateVideoStream(Job job, Track sourceTrack) throws EncoderException {
     // make sure there is a video stream in the track
     if (sourceTrack != null && !sourceTrack.hasVideo()) {
@@ -1648,6 +2245,17 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
           encodingProfile = arguments.get(1);
           serialized = MediaPackageElementParser.getArrayAsXml(parralelEncode(job, firstTrack, encodingProfile, null));
           break;
+        case MultiEncode:
+          firstTrack = (Track) MediaPackageElementParser.getFromXml(arguments.get(0));
+          serialized = MediaPackageElementParser.getArrayAsXml(multiEncode(job, firstTrack,
+                  arguments.subList(1, arguments.size())));
+          break;
+        case SegmentedEncode:
+          firstTrack = (Track) MediaPackageElementParser.getFromXml(arguments.get(0));
+          encodingProfile = arguments.get(1);
+          serialized = segmentedEncode(job, firstTrack, encodingProfile).map(
+                  MediaPackageElementParser.<Track> getAsXml()).getOrElse("");
+          break;
         case Image:
           firstTrack = (Track) MediaPackageElementParser.getFromXml(arguments.get(0));
           encodingProfile = arguments.get(1);
@@ -1753,7 +2361,60 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
       throw new ServiceRegistryException("This argument list for operation '" + op + "' does not meet expectations", e);
     } catch (Exception e) {
       throw new ServiceRegistryException("Error handling operation '" + op + "'", e);
+    } finally {
+      encoderStatistics.jobFinished(job.getId());
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.job.api.AbstractJobProducer#acceptJob(org.opencastproject.job.api.Job)
+   */
+  @Override
+  public void acceptJob(Job job) throws ServiceRegistryException {
+    // Count the job right away, the dispatcher may offer more jobs before this one starts processing
+    encoderStatistics.jobAccepted(job.getId());
+    try {
+      super.acceptJob(job);
+    } catch (ServiceRegistryException e) {
+      encoderStatistics.jobFinished(job.getId());
+      throw e;
+    } catch (RuntimeException e) {
+      encoderStatistics.jobFinished(job.getId());
+      throw e;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * If a maximum number of concurrent jobs is configured, that limit and the speed of the running encoders decide
+   * whether another job is accepted rather than the job load.
+   *
+   * @see org.opencastproject.job.api.AbstractJobProducer#isReadyToAccept(org.opencastproject.job.api.Job)
+   */
+  @Override
+  public boolean isReadyToAccept(Job job) throws ServiceRegistryException, UndispatchableJobException {
+    int maxJobs = maxConcurrentJobs;
+    if (maxJobs <= 0)
+      return super.isReadyToAccept(job);
+
+    int activeJobs = encoderStatistics.getActiveJobs();
+    if (activeJobs >= maxJobs) {
+      logger.debug("Declining job {} because {} of {} encoder slots are in use",
+              new Object[] { job.getId(), activeJobs, maxJobs });
+      return false;
+    }
+    float slowest = encoderStatistics.getSlowestSpeed();
+    if (activeJobs > 0 && slowest > 0 && slowest < minEncoderSpeed) {
+      logger.debug("Declining job {} because the slowest running encoder is at {}x, below {}x",
+              new Object[] { job.getId(), slowest, minEncoderSpeed });
+      return false;
     }
+    logger.debug("Accepting job {} with {} of {} encoder slots in use",
+            new Object[] { job.getId(), activeJobs, maxJobs });
+    return true;
   }
 
   /**
@@ -1848,6 +2509,7 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
               Collections.map(tuple("profile", profile.getIdentifier()), tuple("profile-name", profile.getName())));
       throw new EncoderException(msg);
     }
+    encoderEngine.addEncoderListener(new EncoderMonitor(job.getId()));
     return encoderEngine;
   }
 
@@ -2047,12 +2709,16 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   }
 
   private URI putToCollection(Job job, File output, String description) throws EncoderException {
+    return putToCollection(job, output, description,
+            job.getId() + "." + FilenameUtils.getExtension(output.getAbsolutePath()));
+  }
+
+  private URI putToCollection(Job job, File output, String description, String fileName) throws EncoderException {
     URI returnURL = null;
     InputStream in = null;
     try {
       in = new FileInputStream(output);
-      returnURL = workspace.putInCollection(COLLECTION,
-              job.getId() + "." + FilenameUtils.getExtension(output.getAbsolutePath()), in);
+      returnURL = workspace.putInCollection(COLLECTION, fileName, in);
       logger.info("Copied the {} to the workspace at {}", description, returnURL);
       return returnURL;
     } catch (Exception e) {
@@ -2235,6 +2901,81 @@ public class ComposerServiceImpl extends AbstractJobProducer implements Composer
   @Override
   public void updated(Dictionary properties) throws ConfigurationException {
     captionJobLoad = LoadUtil.getConfiguredLoadValue(properties, CAPTION_JOB_LOAD_KEY, DEFAULT_CAPTION_JOB_LOAD, serviceRegistry);
+
+    int maxJobs = DEFAULT_MAX_CONCURRENT_JOBS;
+    float minSpeed = DEFAULT_MIN_ENCODER_SPEED;
+    int segmentSeconds = DEFAULT_SEGMENT_DURATION;
+    if (properties != null) {
+      String maxJobsValue = StringUtils.trimToNull((String) properties.get(MAX_CONCURRENT_JOBS_KEY));
+      String minSpeedValue = StringUtils.trimToNull((String) properties.get(MIN_ENCODER_SPEED_KEY));
+      String segmentDurationValue = StringUtils.trimToNull((String) properties.get(SEGMENT_DURATION_KEY));
+      try {
+        if (maxJobsValue != null)
+          maxJobs = Integer.parseInt(maxJobsValue);
+      } catch (NumberFormatException e) {
+        throw new ConfigurationException(MAX_CONCURRENT_JOBS_KEY, "Not a number: " + maxJobsValue);
+      }
+      try {
+        if (minSpeedValue != null)
+          minSpeed = Float.parseFloat(minSpeedValue);
+      } catch (NumberFormatException e) {
+        throw new ConfigurationException(MIN_ENCODER_SPEED_KEY, "Not a number: " + minSpeedValue);
+      }
+      try {
+        if (segmentDurationValue != null)
+          segmentSeconds = Integer.parseInt(segmentDurationValue);
+      } catch (NumberFormatException e) {
+        throw new ConfigurationException(SEGMENT_DURATION_KEY, "Not a number: " + segmentDurationValue);
+      }
+      if (segmentSeconds <= 0)
+        throw new ConfigurationException(SEGMENT_DURATION_KEY, "Must be positive: " + segmentDurationValue);
+    }
+    maxConcurrentJobs = maxJobs;
+    minEncoderSpeed = minSpeed;
+    segmentDuration = segmentSeconds;
+    if (maxJobs > 0)
+      logger.info("Running at most {} composer jobs at once, while encoders run at {}x or faster", maxJobs, minSpeed);
+  }
+
+  /**
+   * Feeds the encoder statistics with the progress of the encoders of a job.
+   */
+  private final class EncoderMonitor implements CmdlineEncoderListener {
+
+    /** The job running the encoder */
+    private final long jobId;
+
+    EncoderMonitor(long jobId) {
+      this.jobId = jobId;
+    }
+
+    @Override
+    public void fileEncoded(EncoderEngine engine, EncodingProfile profile, File... sourceFiles) {
+      encoderStatistics.encodingCompleted(jobId, true);
+    }
+
+    @Override
+    public void fileEncodingFailed(EncoderEngine engine, EncodingProfile profile, Throwable cause,
+            File... sourceFiles) {
+      encoderStatistics.encodingCompleted(jobId, false);
+    }
+
+    @Override
+    public void fileEncodingProgressed(EncoderEngine engine, File sourceFile, EncodingProfile profile, int progress) {
+      logger.trace("Job {} encoding {} with profile '{}': {}%",
+              new Object[] { jobId, sourceFile, profile.getIdentifier(), progress });
+    }
+
+    @Override
+    public void notifyEncoderOutput(EncodingProfile format, String message, File... file) {
+      // The output is logged by the encoder engine
+    }
+
+    @Override
+    public void notifyEncoderProgress(EncodingProfile format, EncoderProgress progress, File... file) {
+      encoderStatistics.progress(jobId, progress);
+    }
+
   }
 
 }
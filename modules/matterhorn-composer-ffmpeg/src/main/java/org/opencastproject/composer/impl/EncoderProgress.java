@@ -0,0 +1,110 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.composer.impl;
+
+/**
+ * Snapshot of the progress of a running encoder, as reported by the encoder itself.
+ */
+public final class EncoderProgress {
+
+  private final long frame;
+  private final float fps;
+  private final float speed;
+  private final long processed;
+  private final long duration;
+
+  /**
+   * Creates a progress snapshot.
+   *
+   * @param frame
+   *          the number of frames encoded so far
+   * @param fps
+   *          the number of frames encoded per second
+   * @param speed
+   *          the encoding speed relative to the playback speed, <code>0</code> if unknown
+   * @param processed
+   *          the media time that has been encoded so far, in milliseconds
+   * @param duration
+   *          the media time to be encoded in total, in milliseconds, <code>0</code> if unknown
+   */
+  public EncoderProgress(long frame, float fps, float speed, long processed, long duration) {
+    this.frame = frame;
+    this.fps = fps;
+    this.speed = speed;
+    this.processed = processed;
+    this.duration = duration;
+  }
+
+  public long getFrame() {
+    return frame;
+  }
+
+  public float getFps() {
+    return fps;
+  }
+
+  /**
+   * Returns the encoding speed relative to the playback speed, e.g. <code>2.0</code> if one second of media is
+   * encoded in half a second.
+   *
+   * @return the speed, <code>0</code> if unknown
+   */
+  public float getSpeed() {
+    return speed;
+  }
+
+  /**
+   * Returns the media time that has been encoded so far.
+   *
+   * @return the encoded time in milliseconds
+   */
+  public long getProcessed() {
+    return processed;
+  }
+
+  /**
+   * Returns the media time to be encoded in total.
+   *
+   * @return the duration in milliseconds, <code>0</code> if unknown
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  /**
+   * Returns the progress in percent.
+   *
+   * @return the progress between <code>0</code> and <code>100</code>, <code>-1</code> if the duration is unknown
+   */
+  public int getPercentage() {
+    if (duration <= 0)
+      return -1;
+    return (int) Math.max(0, Math.min(100, processed * 100 / duration));
+  }
+
+  @Override
+  public String toString() {
+    return "frame=" + frame + " fps=" + fps + " speed=" + speed + "x time=" + processed + "ms/" + duration + "ms";
+  }
+
+}
@@ -213,6 +213,88 @@ public class ComposerRestService extends AbstractJobProducerEndpoint {
     return Response.ok().entity(new JaxbJob(job)).build();
   }
 
+  /**
+   * Encodes a track using several encoding profiles at once.
+   *
+   * @param sourceTrackAsXml
+   *          The source track
+   * @param profileIds
+   *          The comma separated profiles to use in encoding this track
+   * @return A response containing the job for this encoding job in the response body.
+   * @throws Exception
+   */
+  @POST
+  @Path("multiencode")
+  @Produces(MediaType.TEXT_XML)
+  @RestQuery(name = "multiencode", description = "Starts an encoding process that reads the track once and encodes it using all of the specified encoding profiles", pathParameters = { }, restParameters = {
+          @RestParameter(description = "The track containing the stream", isRequired = true, name = "sourceTrack", type = Type.TEXT, defaultValue = "${this.videoTrackDefault}"),
+          @RestParameter(description = "The comma separated encoding profiles to use", isRequired = true, name = "profileIds", type = Type.STRING, defaultValue = "mp4-medium.http,mp4-hd.http") }, reponses = {
+          @RestResponse(description = "Results in an xml document containing the job for the encoding task", responseCode = HttpServletResponse.SC_OK),
+          @RestResponse(description = "If required parameters aren't set or if sourceTrack isn't from the type Track", responseCode = HttpServletResponse.SC_BAD_REQUEST) }, returnDescription = "")
+  public Response multiEncode(@FormParam("sourceTrack") String sourceTrackAsXml,
+          @FormParam("profileIds") String profileIds) throws Exception {
+    // Ensure that the POST parameters are present
+    if (StringUtils.isBlank(sourceTrackAsXml) || StringUtils.isBlank(profileIds)) {
+      return Response.status(Response.Status.BAD_REQUEST).entity("sourceTrack and profileIds must not be null").build();
+    }
+
+    // Deserialize the track
+    MediaPackageElement sourceTrack = MediaPackageElementParser.getFromXml(sourceTrackAsXml);
+    if (!Track.TYPE.equals(sourceTrack.getElementType())) {
+      return Response.status(Response.Status.BAD_REQUEST).entity("sourceTrack element must be of type track").build();
+    }
+
+    List<String> profiles = new ArrayList<String>();
+    for (String profileId : StringUtils.split(profileIds, ",")) {
+      if (StringUtils.isNotBlank(profileId))
+        profiles.add(profileId.trim());
+    }
+
+    // Asynchronously encode the specified tracks
+    Job job = composerService.multiEncode((Track) sourceTrack, profiles);
+    if (job == null)
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("Encoding failed").build();
+    return Response.ok().entity(new JaxbJob(job)).build();
+  }
+
+  /**
+   * Encodes a track in segments that may be encoded on different nodes.
+   *
+   * @param sourceTrackAsXml
+   *          The source track
+   * @param profileId
+   *          The profile to use in encoding the segments
+   * @return A response containing the job for this encoding job in the response body.
+   * @throws Exception
+   */
+  @POST
+  @Path("segmentedencode")
+  @Produces(MediaType.TEXT_XML)
+  @RestQuery(name = "segmentedencode", description = "Starts an encoding process that cuts the track into segments at keyframes, encodes the segments in separate jobs and joins the encoded segments", pathParameters = { }, restParameters = {
+          @RestParameter(description = "The track containing the stream", isRequired = true, name = "sourceTrack", type = Type.TEXT, defaultValue = "${this.videoTrackDefault}"),
+          @RestParameter(description = "The encoding profile to use", isRequired = true, name = "profileId", type = Type.STRING, defaultValue = "mp4-medium.http") }, reponses = {
+          @RestResponse(description = "Results in an xml document containing the job for the encoding task", responseCode = HttpServletResponse.SC_OK),
+          @RestResponse(description = "If required parameters aren't set or if sourceTrack isn't from the type Track", responseCode = HttpServletResponse.SC_BAD_REQUEST) }, returnDescription = "")
+  public Response segmentedEncode(@FormParam("sourceTrack") String sourceTrackAsXml,
+          @FormParam("profileId") String profileId) throws Exception {
+    // Ensure that the POST parameters are present
+    if (StringUtils.isBlank(sourceTrackAsXml) || StringUtils.isBlank(profileId)) {
+      return Response.status(Response.Status.BAD_REQUEST).entity("sourceTrack and profileId must not be null").build();
+    }
+
+    // Deserialize the track
+    MediaPackageElement sourceTrack = MediaPackageElementParser.getFromXml(sourceTrackAsXml);
+    if (!Track.TYPE.equals(sourceTrack.getElementType())) {
+      return Response.status(Response.Status.BAD_REQUEST).entity("sourceTrack element must be of type track").build();
+    }
+
+    // Asynchronously encode the specified track
+    Job job = composerService.segmentedEncode((Track) sourceTrack, profileId);
+    if (job == null)
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("Encoding failed").build();
+    return Response.ok().entity(new JaxbJob(job)).build();
+  }
+
   /**
    * Trims a track to a new length.
    *
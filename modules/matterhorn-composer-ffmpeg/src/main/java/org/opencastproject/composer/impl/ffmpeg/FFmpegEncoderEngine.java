@@ -27,6 +27,7 @@ import static org.apache.commons.lang3.StringUtils.startsWithAny;
 import org.opencastproject.composer.api.EncoderException;
 import org.opencastproject.composer.api.EncodingProfile;
 import org.opencastproject.composer.impl.AbstractCmdlineEncoderEngine;
+import org.opencastproject.composer.impl.EncoderProgress;
 import org.opencastproject.util.data.Option;
 
 import org.osgi.service.component.ComponentContext;
@@ -37,6 +38,7 @@ import java.io.File;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +65,20 @@ public class FFmpegEncoderEngine extends AbstractCmdlineEncoderEngine {
   /** The trimming duration property name */
   public static final String PROP_TRIMMING_DURATION = "trim.duration";
 
+  /** Where ffmpeg writes its progress report to. Standard error is read along with the rest of the output. */
+  private static final String PROGRESS_OUTPUT = "pipe:2";
+
+  /** Options that prevent a command from being combined with the commands of other profiles */
+  private static final List<String> NOT_COMBINABLE_OPTIONS = Arrays.asList("-filter_complex", "-lavfi", "-pass",
+          "-passlogfile");
+
+  /** Global options without a value, which may be given once for all inputs and outputs */
+  private static final List<String> GLOBAL_FLAGS = Arrays.asList("-y", "-n", "-nostats", "-stats", "-hide_banner",
+          "-nostdin");
+
+  /** Global options followed by a value, which may be given once for all inputs and outputs */
+  private static final List<String> GLOBAL_OPTIONS = Arrays.asList("-progress", "-loglevel", "-v");
+
   /** the logging facility provided by log4j */
   private static final Logger logger = LoggerFactory.getLogger(FFmpegEncoderEngine.class);
 
@@ -116,10 +132,13 @@ public class FFmpegEncoderEngine extends AbstractCmdlineEncoderEngine {
    *
    * @param format
    *          the format
+   * @param params
+   *          the parameters of the invocation
    * @return the argument list
    */
   @Override
-  protected List<String> buildArgumentList(EncodingProfile format) throws EncoderException {
+  protected List<String> buildArgumentList(EncodingProfile format, Map<String, String> params)
+          throws EncoderException {
     String commandline = format.getExtension(CMD_SUFFIX);
     if (commandline == null)
       throw new EncoderException(this, "No commandline configured for " + format);
@@ -130,7 +149,7 @@ public class FFmpegEncoderEngine extends AbstractCmdlineEncoderEngine {
     for (Map.Entry<String, String> entry : format.getExtensions().entrySet()) {
       String key = entry.getKey();
       if (key.startsWith(CMD_SUFFIX) && key.length() > CMD_SUFFIX.length()) {
-        String value = processParameters(entry.getValue());
+        String value = processParameters(entry.getValue(), params);
         String partName = "#\\{" + key.substring(CMD_SUFFIX.length() + 1) + "\\}";
         if (!value.matches(".*#\\{.*\\}.*"))
           commandline = commandline.replaceAll(partName, value);
@@ -138,11 +157,13 @@ public class FFmpegEncoderEngine extends AbstractCmdlineEncoderEngine {
     }
 
     // Replace the commandline parameters passed in at compile time
-    commandline = processParameters(commandline);
+    commandline = processParameters(commandline, params);
 
     List<String> argumentList = new ArrayList<String>();
-    // Disable the print of encoding progress/statistics.
+    // Replace the human readable statistics with the machine readable progress report
     argumentList.add("-nostats");
+    argumentList.add("-progress");
+    argumentList.add(PROGRESS_OUTPUT);
     String[] args = commandline.split(" ");
     for (String a : args)
       if (!"".equals(a.trim()))
@@ -151,6 +172,48 @@ public class FFmpegEncoderEngine extends AbstractCmdlineEncoderEngine {
     return argumentList;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * Separates the progress report from the rest of the output and tells the listeners about the progress.
+   *
+   * @see org.opencastproject.composer.impl.AbstractCmdlineEncoderEngine#newOutputHandler(org.opencastproject.composer.api.EncodingProfile,
+   *      java.util.Map, java.io.File[])
+   */
+  @Override
+  protected EncoderOutputHandler newOutputHandler(final EncodingProfile format, Map<String, String> params,
+          final File... sourceFiles) {
+    // When trimming, only the trimmed part is encoded
+    final FFmpegProgressParser parser = new FFmpegProgressParser(FFmpegProgressParser.parseTime(params
+            .get(PROP_TRIMMING_DURATION)));
+    File source = null;
+    for (File sourceFile : sourceFiles) {
+      if (sourceFile != null)
+        source = sourceFile;
+    }
+    final File progressSource = source;
+    return new EncoderOutputHandler() {
+      private int percentage = -1;
+
+      @Override
+      public void handle(String line) {
+        if (!parser.parse(line.trim())) {
+          handleEncoderOutput(format, line, sourceFiles);
+          return;
+        }
+        EncoderProgress progress = parser.poll();
+        if (progress == null)
+          return;
+        logger.trace("Encoding progress: {}", progress);
+        fireEncoderProgress(format, progress, sourceFiles);
+        if (progress.getPercentage() > percentage) {
+          percentage = progress.getPercentage();
+          fireEncodingProgressed(FFmpegEncoderEngine.this, progressSource, format, percentage);
+        }
+      }
+    };
+  }
+
   /**
    * Handles the encoder output by analyzing it first and then firing it off to the registered listeners.
    *
@@ -190,6 +253,133 @@ public class FFmpegEncoderEngine extends AbstractCmdlineEncoderEngine {
     }
   }
 
+  /**
+   * Returns the position in the given command where the arguments specific to the output start. The output arguments
+   * of an ffmpeg command follow its single input. Commands that read several inputs or use options that affect all
+   * outputs can't be combined.
+   *
+   * @param command
+   *          the command, including the binary
+   * @return the index of the first output argument, or <code>-1</code> if the command can't be combined with others
+   */
+  protected int getOutputArgumentsIndex(List<String> command) {
+    int outputIndex = -1;
+    for (int i = 0; i < command.size(); i++) {
+      String argument = command.get(i);
+      if ("-i".equals(argument)) {
+        if (outputIndex >= 0)
+          return -1;
+        outputIndex = i + 2;
+      } else if (NOT_COMBINABLE_OPTIONS.contains(argument)) {
+        return -1;
+      }
+    }
+    return outputIndex < command.size() ? outputIndex : -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Commands whose arguments up to their outputs, see {@link #getOutputArgumentsIndex(List)}, are identical share
+   * these arguments and are followed by the output arguments of each command.
+   *
+   * @see org.opencastproject.composer.impl.AbstractCmdlineEncoderEngine#combineEncodingCommands(java.util.List)
+   */
+  @Override
+  protected List<String> combineEncodingCommands(List<List<String>> commands) {
+    List<String> combined = null;
+    List<String> inputArguments = null;
+    for (List<String> command : commands) {
+      final int outputIndex = getOutputArgumentsIndex(command);
+      if (outputIndex < 0)
+        return null;
+      if (inputArguments == null) {
+        inputArguments = command.subList(0, outputIndex);
+        combined = new ArrayList<String>(inputArguments);
+      } else if (!inputArguments.equals(command.subList(0, outputIndex))) {
+        return null;
+      }
+      combined.addAll(command.subList(outputIndex, command.size()));
+    }
+    return combined;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Commands that read their input the same way are combined into one run with an output per command, so the input is
+   * decoded once in a single pass. Commands that differ in the options of their input, usually the position given by
+   * <code>-ss</code>, are combined into one run that opens the input once per command, each time with all of the input
+   * options of that command, and writes the first video stream of each input to the output of that command. Only the
+   * global options are shared.
+   *
+   * @see org.opencastproject.composer.impl.AbstractCmdlineEncoderEngine#combineExtractionCommands(java.util.List)
+   */
+  @Override
+  protected List<String> combineExtractionCommands(List<List<String>> commands) {
+    final List<String> first = commands.get(0);
+    final int inputIndex = getInputArgumentsIndex(first);
+    final List<String> globalArguments = first.subList(0, inputIndex);
+
+    // Split each command into its global, input and output arguments
+    final List<List<String>> inputs = new ArrayList<List<String>>();
+    final List<List<String>> outputs = new ArrayList<List<String>>();
+    boolean sameInput = true;
+    for (List<String> command : commands) {
+      final int outputIndex = getOutputArgumentsIndex(command);
+      if (outputIndex < inputIndex || !globalArguments.equals(command.subList(0, inputIndex)))
+        return null;
+      inputs.add(command.subList(inputIndex, outputIndex));
+      outputs.add(command.subList(outputIndex, command.size()));
+      sameInput &= inputs.get(0).equals(inputs.get(inputs.size() - 1));
+    }
+
+    final List<String> combined = new ArrayList<String>(globalArguments);
+    if (sameInput) {
+      // All commands read the same input, let them share it
+      combined.addAll(inputs.get(0));
+      for (List<String> output : outputs) {
+        combined.addAll(output);
+      }
+      return combined;
+    }
+
+    // The commands differ in the options of their input, open the input once per command with all of its options
+    for (int i = 0; i < commands.size(); i++) {
+      if (outputs.get(i).contains("-map"))
+        return null;
+      combined.addAll(inputs.get(i));
+    }
+    for (int i = 0; i < commands.size(); i++) {
+      combined.add("-map");
+      combined.add(i + ":v:0");
+      combined.addAll(outputs.get(i));
+    }
+    return combined;
+  }
+
+  /**
+   * Returns the index of the first argument of a command that belongs to its input, which is the first argument after
+   * the binary and the global options.
+   *
+   * @param command
+   *          the command, including the binary
+   * @return the index of the first input argument
+   */
+  protected int getInputArgumentsIndex(List<String> command) {
+    int i = 1;
+    while (i < command.size()) {
+      String argument = command.get(i);
+      if (GLOBAL_FLAGS.contains(argument))
+        i++;
+      else if (GLOBAL_OPTIONS.contains(argument))
+        i += 2;
+      else
+        break;
+    }
+    return Math.min(i, command.size());
+  }
+
   /**
    * @see java.lang.Object#toString()
    */
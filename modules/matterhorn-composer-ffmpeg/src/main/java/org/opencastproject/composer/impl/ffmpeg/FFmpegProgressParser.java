@@ -0,0 +1,142 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.composer.impl.ffmpeg;
+
+import org.opencastproject.composer.impl.EncoderProgress;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the progress that ffmpeg writes when started with <code>-progress</code>. The report consists of blocks of
+ * <code>key=value</code> lines, each block being terminated by a <code>progress=continue</code> or
+ * <code>progress=end</code> line.
+ * <p>
+ * Unless the duration to be encoded is known upfront, it is taken from the first <code>Duration:</code> line that
+ * ffmpeg logs about its inputs.
+ */
+public final class FFmpegProgressParser {
+
+  /** Time in the format used by ffmpeg, <code>HH:MM:SS.fraction</code> */
+  private static final Pattern TIME = Pattern.compile("(\\d+):(\\d{1,2}):(\\d{1,2}(?:\\.\\d+)?)");
+
+  /** Key of a progress line */
+  private static final Pattern KEY = Pattern.compile("[a-z0-9_]+");
+
+  private long duration;
+  private long frame = 0;
+  private float fps = 0;
+  private float speed = 0;
+  private long processed = 0;
+  private boolean complete = false;
+
+  /**
+   * Creates a parser.
+   *
+   * @param duration
+   *          the media time to be encoded in milliseconds, <code>0</code> if it should be taken from the ffmpeg output
+   */
+  public FFmpegProgressParser(long duration) {
+    this.duration = duration;
+  }
+
+  /**
+   * Parses a line of ffmpeg output.
+   *
+   * @param line
+   *          the trimmed line
+   * @return <code>true</code> if the line is part of the progress report
+   */
+  public boolean parse(String line) {
+    if (duration <= 0 && line.startsWith("Duration:")) {
+      Matcher m = TIME.matcher(line);
+      if (m.find())
+        duration = toMillis(m);
+      return false;
+    }
+
+    int separator = line.indexOf('=');
+    if (separator <= 0 || !KEY.matcher(line.substring(0, separator)).matches())
+      return false;
+    String key = line.substring(0, separator);
+    String value = line.substring(separator + 1).trim();
+    try {
+      switch (key) {
+        case "frame":
+          frame = Long.parseLong(value);
+          break;
+        case "fps":
+          fps = Float.parseFloat(value);
+          break;
+        case "out_time_us":
+        case "out_time_ms":
+          // Both are reported in microseconds
+          processed = Long.parseLong(value) / 1000;
+          break;
+        case "speed":
+          speed = value.endsWith("x") ? Float.parseFloat(value.substring(0, value.length() - 1)) : 0;
+          break;
+        case "progress":
+          complete = true;
+          break;
+        default:
+          break;
+      }
+    } catch (NumberFormatException e) {
+      // ffmpeg reports N/A for values that are not known yet
+    }
+    return true;
+  }
+
+  /**
+   * Returns the progress once a complete block of progress lines has been parsed.
+   *
+   * @return the progress, or <code>null</code> if no block has been completed since the last call
+   */
+  public EncoderProgress poll() {
+    if (!complete)
+      return null;
+    complete = false;
+    return new EncoderProgress(frame, fps, speed, processed, duration);
+  }
+
+  /**
+   * Parses a time in the format used by ffmpeg.
+   *
+   * @param time
+   *          the time, e.g. <code>01:02:03.456</code>
+   * @return the time in milliseconds, <code>0</code> if the time could not be parsed
+   */
+  public static long parseTime(String time) {
+    if (time == null)
+      return 0;
+    Matcher m = TIME.matcher(time.trim());
+    return m.matches() ? toMillis(m) : 0;
+  }
+
+  private static long toMillis(Matcher m) {
+    return (Long.parseLong(m.group(1)) * 3600 + Long.parseLong(m.group(2)) * 60) * 1000
+            + Math.round(Double.parseDouble(m.group(3)) * 1000);
+  }
+
+}
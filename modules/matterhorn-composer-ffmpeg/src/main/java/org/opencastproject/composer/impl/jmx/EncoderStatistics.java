@@ -0,0 +1,168 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.composer.impl.jmx;
+
+import org.opencastproject.composer.impl.EncoderProgress;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the composer jobs running on this node and the progress reported by their encoders.
+ */
+public class EncoderStatistics implements EncoderStatisticsMXBean {
+
+  /** The accepted jobs that are not yet finished */
+  private final Set<Long> activeJobs = new HashSet<Long>();
+
+  /** The most recent progress reported by the encoder of each job */
+  private final Map<Long, EncoderProgress> running = new HashMap<Long, EncoderProgress>();
+
+  private long completed = 0L;
+  private long measured = 0L;
+  private double speedSum = 0.0;
+
+  /**
+   * @see org.opencastproject.composer.impl.jmx.EncoderStatisticsMXBean#getActiveJobs()
+   */
+  @Override
+  public synchronized int getActiveJobs() {
+    return activeJobs.size();
+  }
+
+  /**
+   * @see org.opencastproject.composer.impl.jmx.EncoderStatisticsMXBean#getRunningEncoders()
+   */
+  @Override
+  public synchronized int getRunningEncoders() {
+    return running.size();
+  }
+
+  /**
+   * @see org.opencastproject.composer.impl.jmx.EncoderStatisticsMXBean#getCompletedEncodings()
+   */
+  @Override
+  public synchronized long getCompletedEncodings() {
+    return completed;
+  }
+
+  /**
+   * @see org.opencastproject.composer.impl.jmx.EncoderStatisticsMXBean#getCurrentThroughput()
+   */
+  @Override
+  public synchronized float getCurrentThroughput() {
+    float throughput = 0.0f;
+    for (EncoderProgress progress : running.values()) {
+      throughput += progress.getSpeed();
+    }
+    return throughput;
+  }
+
+  /**
+   * @see org.opencastproject.composer.impl.jmx.EncoderStatisticsMXBean#getSlowestSpeed()
+   */
+  @Override
+  public synchronized float getSlowestSpeed() {
+    float slowest = 0.0f;
+    for (EncoderProgress progress : running.values()) {
+      if (progress.getSpeed() > 0 && (slowest == 0 || progress.getSpeed() < slowest))
+        slowest = progress.getSpeed();
+    }
+    return slowest;
+  }
+
+  /**
+   * @see org.opencastproject.composer.impl.jmx.EncoderStatisticsMXBean#getAverageSpeed()
+   */
+  @Override
+  public synchronized float getAverageSpeed() {
+    return measured == 0 ? 0.0f : (float) (speedSum / measured);
+  }
+
+  /**
+   * @see org.opencastproject.composer.impl.jmx.EncoderStatisticsMXBean#getFramesPerSecond()
+   */
+  @Override
+  public synchronized float getFramesPerSecond() {
+    float fps = 0.0f;
+    for (EncoderProgress progress : running.values()) {
+      fps += progress.getFps();
+    }
+    return fps;
+  }
+
+  /**
+   * Records that a job has been accepted.
+   *
+   * @param jobId
+   *          the job identifier
+   */
+  public synchronized void jobAccepted(long jobId) {
+    activeJobs.add(jobId);
+  }
+
+  /**
+   * Records that a job has finished, whether successfully or not.
+   *
+   * @param jobId
+   *          the job identifier
+   */
+  public synchronized void jobFinished(long jobId) {
+    activeJobs.remove(jobId);
+    running.remove(jobId);
+  }
+
+  /**
+   * Records the progress reported by the encoder of a job.
+   *
+   * @param jobId
+   *          the job identifier
+   * @param progress
+   *          the encoder progress
+   */
+  public synchronized void progress(long jobId, EncoderProgress progress) {
+    running.put(jobId, progress);
+  }
+
+  /**
+   * Records that an encoder of a job has completed. Jobs may run several encoders one after the other.
+   *
+   * @param jobId
+   *          the job identifier
+   * @param successful
+   *          whether the encoding was successful
+   */
+  public synchronized void encodingCompleted(long jobId, boolean successful) {
+    EncoderProgress progress = running.remove(jobId);
+    if (!successful)
+      return;
+    completed++;
+    if (progress != null && progress.getSpeed() > 0) {
+      measured++;
+      speedSum += progress.getSpeed();
+    }
+  }
+
+}
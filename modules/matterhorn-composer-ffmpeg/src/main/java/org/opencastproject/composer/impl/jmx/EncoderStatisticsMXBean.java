@@ -0,0 +1,79 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.composer.impl.jmx;
+
+/**
+ * JMX Bean interface exposing encoder statistics.
+ */
+public interface EncoderStatisticsMXBean {
+
+  /**
+   * Gets the number of composer jobs that have been accepted and are not yet finished
+   *
+   * @return the number of jobs
+   */
+  int getActiveJobs();
+
+  /**
+   * Gets the number of encoders that are currently reporting progress
+   *
+   * @return the number of encoders
+   */
+  int getRunningEncoders();
+
+  /**
+   * Gets the number of encodings that have completed successfully
+   *
+   * @return the number of encodings
+   */
+  long getCompletedEncodings();
+
+  /**
+   * Gets the sum of the speeds of the running encoders, relative to the playback speed
+   *
+   * @return the throughput
+   */
+  float getCurrentThroughput();
+
+  /**
+   * Gets the speed of the slowest running encoder, relative to the playback speed
+   *
+   * @return the speed, <code>0</code> if no encoder is reporting its speed
+   */
+  float getSlowestSpeed();
+
+  /**
+   * Gets the average speed of the completed encodings, relative to the playback speed
+   *
+   * @return the speed, <code>0</code> if no encoding has completed yet
+   */
+  float getAverageSpeed();
+
+  /**
+   * Gets the frames encoded per second by all running encoders
+   *
+   * @return the number of frames
+   */
+  float getFramesPerSecond();
+
+}
@@ -79,6 +79,7 @@ import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 
@@ -450,6 +451,57 @@ public class ComposerServiceTest {
     Assert.assertEquals(inspectedTrack, concatTrack);
   }
 
+  /**
+   * Test method for {@link ComposerServiceImpl#listSegments(File, String)}
+   */
+  @Test
+  public void testListSegmentsInPlaybackOrder() throws Exception {
+    File directory = new File(testDir, "segments-" + System.currentTimeMillis());
+    try {
+      for (String name : new String[] { "track-00010.mkv", "track-00002.mkv", "track-00000.mkv", "track-00001.mkv",
+              "other-00000.mkv", "track.mkv" }) {
+        FileUtils.touch(new File(directory, name));
+      }
+      List<String> names = new ArrayList<String>();
+      for (File segment : ComposerServiceImpl.listSegments(directory, "track")) {
+        names.add(segment.getName());
+      }
+      assertEquals(Arrays.asList("track-00000.mkv", "track-00001.mkv", "track-00002.mkv", "track-00010.mkv"), names);
+      assertEquals(0, ComposerServiceImpl.listSegments(new File(directory, "missing"), "track").length);
+    } finally {
+      FileUtils.deleteQuietly(directory);
+    }
+  }
+
+  /**
+   * Test method for {@link ComposerServiceImpl#joinSegments(Job, List, File)}
+   */
+  @Test
+  public void testJoinSegments() throws Exception {
+    if (!ffmpegInstalledGreaterVersion2)
+      return;
+
+    Job job = EasyMock.createNiceMock(Job.class);
+    EasyMock.replay(job);
+    List<File> segments = Arrays.asList(sourceVideoOnly, sourceVideoOnly);
+
+    File joined = composerService.joinSegments(job, segments, null);
+    try {
+      assertTrue(joined.isFile());
+      assertEquals("mp4", FilenameUtils.getExtension(joined.getName()));
+    } finally {
+      FileUtils.deleteQuietly(joined);
+    }
+
+    File joinedWithAudio = composerService.joinSegments(job, segments, sourceAudioOnly);
+    try {
+      assertTrue(joinedWithAudio.isFile());
+      assertTrue(joinedWithAudio.length() > sourceVideoOnly.length());
+    } finally {
+      FileUtils.deleteQuietly(joinedWithAudio);
+    }
+  }
+
   /**
    * Test method for
    * {@link org.opencastproject.composer.impl.ComposerServiceImpl#imageToVideo(org.opencastproject.mediapackage.Attachment, String, Long)}
@@ -0,0 +1,77 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.composer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.composer.impl.ffmpeg.FFmpegProgressParser;
+
+import org.junit.Test;
+
+/**
+ * Tests the parsing of the ffmpeg progress report.
+ */
+public class FFmpegProgressParserTest {
+
+  @Test
+  public void testProgressBlocks() {
+    FFmpegProgressParser parser = new FFmpegProgressParser(0);
+    assertFalse(parser.parse("Duration: 00:01:40.00, start: 0.000000, bitrate: 1205 kb/s"));
+    assertFalse(parser.parse("Stream #0:0(und): Video: h264 (High) (avc1 / 0x31637661), yuv420p, 1280x720"));
+
+    assertTrue(parser.parse("frame=250"));
+    assertTrue(parser.parse("fps=49.50"));
+    assertTrue(parser.parse("stream_0_0_q=28.0"));
+    assertTrue(parser.parse("out_time_ms=10000000"));
+    assertTrue(parser.parse("out_time=00:00:10.000000"));
+    assertTrue(parser.parse("speed=1.98x"));
+    assertNull("The block is not complete yet", parser.poll());
+    assertTrue(parser.parse("progress=continue"));
+
+    EncoderProgress progress = parser.poll();
+    assertEquals(250, progress.getFrame());
+    assertEquals(49.5f, progress.getFps(), 0.001f);
+    assertEquals(1.98f, progress.getSpeed(), 0.001f);
+    assertEquals(10000, progress.getProcessed());
+    assertEquals(100000, progress.getDuration());
+    assertEquals(10, progress.getPercentage());
+    assertNull(parser.poll());
+  }
+
+  @Test
+  public void testUnknownValues() {
+    FFmpegProgressParser parser = new FFmpegProgressParser(FFmpegProgressParser.parseTime("00:00:10.321"));
+    assertTrue(parser.parse("fps=N/A"));
+    assertTrue(parser.parse("speed=N/A"));
+    assertTrue(parser.parse("progress=end"));
+
+    EncoderProgress progress = parser.poll();
+    assertEquals(0f, progress.getSpeed(), 0.0f);
+    assertEquals(10321, progress.getDuration());
+    assertEquals(-1, new EncoderProgress(0, 0, 0, 0, 0).getPercentage());
+  }
+
+}
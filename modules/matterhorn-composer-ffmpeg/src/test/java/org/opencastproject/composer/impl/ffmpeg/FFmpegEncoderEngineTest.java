@@ -0,0 +1,126 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.composer.impl.ffmpeg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FFmpegEncoderEngineTest {
+
+  private FFmpegEncoderEngine engine;
+
+  @Before
+  public void setUp() {
+    engine = new FFmpegEncoderEngine();
+  }
+
+  @Test
+  public void testCombineSeekingExtractions() {
+    List<List<String>> commands = new ArrayList<List<String>>();
+    commands.add(command("ffmpeg -nostats -ss 1.000 -i in.mp4 -frames:v 1 -filter:v scale=160:-1 out_1.jpg"));
+    commands.add(command("ffmpeg -nostats -ss 2.000 -i in.mp4 -frames:v 1 -filter:v scale=160:-1 out_2.jpg"));
+    assertEquals(command("ffmpeg -nostats -ss 1.000 -i in.mp4 -ss 2.000 -i in.mp4 -map 0:v:0 -frames:v 1 "
+            + "-filter:v scale=160:-1 out_1.jpg -map 1:v:0 -frames:v 1 -filter:v scale=160:-1 out_2.jpg"),
+            engine.combineExtractionCommands(commands));
+  }
+
+  @Test
+  public void testCombineSeekingExtractionsRepeatsInputOptions() {
+    List<List<String>> commands = new ArrayList<List<String>>();
+    commands.add(command("ffmpeg -nostats -progress pipe:2 -t 5 -ss 1.000 -i in.mp4 -frames:v 1 out_1.jpg"));
+    commands.add(command("ffmpeg -nostats -progress pipe:2 -t 5 -ss 2.000 -i in.mp4 -frames:v 1 out_2.jpg"));
+    assertEquals(command("ffmpeg -nostats -progress pipe:2 -t 5 -ss 1.000 -i in.mp4 -t 5 -ss 2.000 -i in.mp4 "
+            + "-map 0:v:0 -frames:v 1 out_1.jpg -map 1:v:0 -frames:v 1 out_2.jpg"),
+            engine.combineExtractionCommands(commands));
+  }
+
+  @Test
+  public void testGetInputArgumentsIndex() {
+    assertEquals(4, engine.getInputArgumentsIndex(command("ffmpeg -nostats -progress pipe:2 -ss 1 -i in.mp4 out.jpg")));
+    assertEquals(1, engine.getInputArgumentsIndex(command("ffmpeg -i in.mp4 out.jpg")));
+  }
+
+  @Test
+  public void testCombineSequentialExtractions() {
+    List<List<String>> commands = new ArrayList<List<String>>();
+    commands.add(command("ffmpeg -nostats -i in.mp4 -ss 1.000 -frames:v 1 out_1.jpg"));
+    commands.add(command("ffmpeg -nostats -i in.mp4 -ss 2.000 -frames:v 1 out_2.jpg"));
+    assertEquals(command("ffmpeg -nostats -i in.mp4 -ss 1.000 -frames:v 1 out_1.jpg -ss 2.000 -frames:v 1 out_2.jpg"),
+            engine.combineExtractionCommands(commands));
+  }
+
+  @Test
+  public void testExtractionsNotCombinable() {
+    List<List<String>> commands = new ArrayList<List<String>>();
+    commands.add(command("ffmpeg -ss 1.000 -i in.mp4 -map 0:v -frames:v 1 out_1.jpg"));
+    commands.add(command("ffmpeg -ss 2.000 -i in.mp4 -map 0:v -frames:v 1 out_2.jpg"));
+    assertNull(engine.combineExtractionCommands(commands));
+
+    commands.clear();
+    commands.add(command("ffmpeg -ss 1.000 -i in.mp4 -i logo.png -filter_complex overlay -frames:v 1 out_1.jpg"));
+    commands.add(command("ffmpeg -ss 2.000 -i in.mp4 -i logo.png -filter_complex overlay -frames:v 1 out_2.jpg"));
+    assertNull(engine.combineExtractionCommands(commands));
+  }
+
+  @Test
+  public void testGetOutputArgumentsIndex() {
+    assertEquals(4, engine.getOutputArgumentsIndex(command("ffmpeg -nostats -i in.mp4 -c:v libx264 out.mp4")));
+    assertEquals(-1, engine.getOutputArgumentsIndex(command("ffmpeg -i in.mp4 -i audio.mp4 -c copy out.mp4")));
+    assertEquals(-1, engine.getOutputArgumentsIndex(command("ffmpeg -i in.mp4 -filter_complex overlay out.mp4")));
+    assertEquals(-1, engine.getOutputArgumentsIndex(command("ffmpeg -nostats -i in.mp4")));
+  }
+
+  @Test
+  public void testCombineEncodingCommands() {
+    List<List<String>> commands = new ArrayList<List<String>>();
+    commands.add(command("ffmpeg -nostats -i in.mp4 -c:v libx264 -s 1280x720 out_0.mp4"));
+    commands.add(command("ffmpeg -nostats -i in.mp4 -vn -c:a libvorbis out_1.ogg"));
+    assertEquals(command("ffmpeg -nostats -i in.mp4 -c:v libx264 -s 1280x720 out_0.mp4 -vn -c:a libvorbis out_1.ogg"),
+            engine.combineEncodingCommands(commands));
+  }
+
+  @Test
+  public void testEncodingCommandsNotCombinable() {
+    List<List<String>> commands = new ArrayList<List<String>>();
+    commands.add(command("ffmpeg -nostats -i in.mp4 -c:v libx264 out_0.mp4"));
+    commands.add(command("ffmpeg -nostats -ss 10 -i in.mp4 -c:v libx264 out_1.mp4"));
+    assertNull(engine.combineEncodingCommands(commands));
+
+    commands.clear();
+    commands.add(command("ffmpeg -nostats -i in.mp4 -c:v libx264 out_0.mp4"));
+    commands.add(command("ffmpeg -nostats -i in.mp4 -i logo.png -filter_complex overlay out_1.mp4"));
+    assertNull(engine.combineEncodingCommands(commands));
+  }
+
+  private static List<String> command(String command) {
+    return Arrays.asList(command.split(" "));
+  }
+
+}
@@ -29,6 +29,7 @@ import org.opencastproject.mediapackage.MediaPackageException;
 import org.opencastproject.mediapackage.Track;
 import org.opencastproject.util.data.Option;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -279,5 +280,34 @@ public interface ComposerService {
    */
   Job parallelEncode(Track sourceTrack, String profileId) throws EncoderException, MediaPackageException;
 
+  /**
+   * Encode one track using several encoding profiles in one encoding operation, so that the track is read and decoded
+   * only once. The job payload contains the encoded tracks in the order of the profiles.
+   *
+   * @param sourceTrack
+   *          The source track
+   * @param profileIds
+   *          The profiles to use for encoding
+   * @return The receipt for this encoding job
+   * @throws EncoderException
+   * @throws MediaPackageException
+   */
+  Job multiEncode(Track sourceTrack, List<String> profileIds) throws EncoderException, MediaPackageException;
+
+  /**
+   * Encode one track by cutting it into segments at keyframes, encoding the segments as separate jobs that may run on
+   * different nodes, and joining the encoded segments without encoding them again. Tracks that are too short to be
+   * split are encoded in one piece.
+   *
+   * @param sourceTrack
+   *          The source track
+   * @param profileId
+   *          The profile to use for encoding the segments
+   * @return The receipt for this encoding job
+   * @throws EncoderException
+   * @throws MediaPackageException
+   */
+  Job segmentedEncode(Track sourceTrack, String profileId) throws EncoderException, MediaPackageException;
+
 
 }
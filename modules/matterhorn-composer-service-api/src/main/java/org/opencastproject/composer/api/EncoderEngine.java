@@ -80,6 +80,23 @@ public interface EncoderEngine {
    */
   List<File> parallelEncode(File mediaSource, EncodingProfile format, Map<String, String> properties) throws EncoderException;
 
+  /**
+   * Encodes a file into several formats, decoding the source only once where the engine supports it.
+   *
+   * @param mediaSource
+   *          the media file to use in encoding
+   * @param formats
+   *          the media format definitions
+   * @param properties
+   *          the encoding properties
+   * @return the encoded files of each format, in the order of the formats. Formats with tags have one file per tag in
+   *         the order of the tags, formats that don't produce a file have none.
+   * @throws EncoderException
+   *           if an error occurs during encoding
+   */
+  Map<EncodingProfile, List<File>> multiEncode(File mediaSource, List<EncodingProfile> formats,
+          Map<String, String> properties) throws EncoderException;
+
 
   /**
    * Encodes a file into the specified format.
@@ -50,6 +50,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +75,10 @@ public class ComposeWorkflowOperationHandler extends AbstractWorkflowOperationHa
     CONFIG_OPTIONS.put("encoding-profiles", "The encoding profile(s) to use");
     CONFIG_OPTIONS.put("target-flavor", "The flavor to apply to the encoded file");
     CONFIG_OPTIONS.put("target-tags", "The tags to apply to the encoded file");
+    CONFIG_OPTIONS.put("multi-encode",
+            "Set to 'true' to encode each track with all profiles in one job that reads and decodes the track once");
+    CONFIG_OPTIONS.put("segmented",
+            "Set to 'true' to cut long tracks into segments that are encoded in separate jobs, possibly on several nodes");
     CONFIG_OPTIONS.put("audio-only", "Set to 'true' to process tracks containing only audio streams");
     CONFIG_OPTIONS.put("video-only", "Set to 'true' to process tracks containing only video streams");
   }
@@ -225,6 +230,12 @@ public class ComposeWorkflowOperationHandler extends AbstractWorkflowOperationHa
     boolean audioOnly = audioOnlyConfig != null && Boolean.parseBoolean(audioOnlyConfig);
     boolean videoOnly = videoOnlyConfig != null && Boolean.parseBoolean(videoOnlyConfig);
 
+    // Encode using all profiles at once?
+    boolean multiEncode = Boolean.parseBoolean(StringUtils.trimToNull(operation.getConfiguration("multi-encode")));
+
+    // Encode long tracks in segments?
+    boolean segmented = Boolean.parseBoolean(StringUtils.trimToNull(operation.getConfiguration("segmented")));
+
     // Target tags
     List<String> targetTags = asList(targetTagsOption);
 
@@ -256,6 +267,7 @@ public class ComposeWorkflowOperationHandler extends AbstractWorkflowOperationHa
       }
 
       // Encode the track with all profiles
+      List<EncodingProfile> trackProfiles = new ArrayList<EncodingProfile>();
       for (EncodingProfile profile : profiles) {
 
         // Check if the track supports the output type of the profile
@@ -268,10 +280,26 @@ public class ComposeWorkflowOperationHandler extends AbstractWorkflowOperationHa
           continue;
         }
 
+        trackProfiles.add(profile);
+      }
+
+      if (multiEncode && trackProfiles.size() > 1) {
+        List<String> profileIds = new ArrayList<String>();
+        for (EncodingProfile profile : trackProfiles) {
+          profileIds.add(profile.getIdentifier());
+        }
+        logger.info("Encoding track {} using encoding profiles {}", track, profileIds);
+        encodingJobs.put(composerService.multiEncode(track, profileIds), new JobInformation(track, trackProfiles));
+        continue;
+      }
+
+      for (EncodingProfile profile : trackProfiles) {
         logger.info("Encoding track {} using encoding profile '{}'", track, profile);
 
         // Start encoding and wait for the result
-        encodingJobs.put(composerService.encode(track, profile.getIdentifier()), new JobInformation(track, profile));
+        Job job = segmented ? composerService.segmentedEncode(track, profile.getIdentifier()) : composerService
+                .encode(track, profile.getIdentifier());
+        encodingJobs.put(job, new JobInformation(track, Collections.singletonList(profile)));
       }
     }
 
@@ -294,31 +322,37 @@ public class ComposeWorkflowOperationHandler extends AbstractWorkflowOperationHa
       totalTimeInQueue += job.getQueueTime();
       // it is allowed for compose jobs to return an empty payload. See the EncodeEngine interface
       if (job.getPayload().length() > 0) {
-        Track composedTrack = (Track) MediaPackageElementParser.getFromXml(job.getPayload());
-
-        // Adjust the target tags
-        for (String tag : targetTags) {
-          logger.trace("Tagging composed track with '{}'", tag);
-          composedTrack.addTag(tag);
+        List<Track> composedTracks;
+        if (entry.getValue().getProfiles().size() > 1)
+          composedTracks = (List<Track>) MediaPackageElementParser.getArrayFromXml(job.getPayload());
+        else
+          composedTracks = Collections.singletonList((Track) MediaPackageElementParser.getFromXml(job.getPayload()));
+
+        for (Track composedTrack : composedTracks) {
+          // Adjust the target tags
+          for (String tag : targetTags) {
+            logger.trace("Tagging composed track with '{}'", tag);
+            composedTrack.addTag(tag);
+          }
+
+          // Adjust the target flavor. Make sure to account for partial updates
+          if (targetFlavor != null) {
+            String flavorType = targetFlavor.getType();
+            String flavorSubtype = targetFlavor.getSubtype();
+            if ("*".equals(flavorType))
+              flavorType = track.getFlavor().getType();
+            if ("*".equals(flavorSubtype))
+              flavorSubtype = track.getFlavor().getSubtype();
+            composedTrack.setFlavor(new MediaPackageElementFlavor(flavorType, flavorSubtype));
+            logger.debug("Composed track has flavor '{}'", composedTrack.getFlavor());
+          }
+
+          // store new tracks to mediaPackage
+          mediaPackage.addDerived(composedTrack, track);
+          String fileName = getFileNameFromElements(track, composedTrack);
+          composedTrack.setURI(workspace.moveTo(composedTrack.getURI(), mediaPackage.getIdentifier().toString(),
+                                                composedTrack.getIdentifier(), fileName));
         }
-
-        // Adjust the target flavor. Make sure to account for partial updates
-        if (targetFlavor != null) {
-          String flavorType = targetFlavor.getType();
-          String flavorSubtype = targetFlavor.getSubtype();
-          if ("*".equals(flavorType))
-            flavorType = track.getFlavor().getType();
-          if ("*".equals(flavorSubtype))
-            flavorSubtype = track.getFlavor().getSubtype();
-          composedTrack.setFlavor(new MediaPackageElementFlavor(flavorType, flavorSubtype));
-          logger.debug("Composed track has flavor '{}'", composedTrack.getFlavor());
-        }
-
-        // store new tracks to mediaPackage
-        mediaPackage.addDerived(composedTrack, track);
-        String fileName = getFileNameFromElements(track, composedTrack);
-        composedTrack.setURI(workspace.moveTo(composedTrack.getURI(), mediaPackage.getIdentifier().toString(),
-                                              composedTrack.getIdentifier(), fileName));
       }
     }
 
@@ -333,11 +367,11 @@ public class ComposeWorkflowOperationHandler extends AbstractWorkflowOperationHa
   private static final class JobInformation {
 
     private Track track = null;
-    private EncodingProfile profile = null;
+    private List<EncodingProfile> profiles = null;
 
-    JobInformation(Track track, EncodingProfile profile) {
+    JobInformation(Track track, List<EncodingProfile> profiles) {
       this.track = track;
-      this.profile = profile;
+      this.profiles = profiles;
     }
 
     /**
@@ -350,12 +384,12 @@ public class ComposeWorkflowOperationHandler extends AbstractWorkflowOperationHa
     }
 
     /**
-     * Returns the profile.
+     * Returns the profiles.
      *
-     * @return the profile
+     * @return the profiles
      */
-    public EncodingProfile getProfile() {
-      return profile;
+    public List<EncodingProfile> getProfiles() {
+      return profiles;
     }
 
   }
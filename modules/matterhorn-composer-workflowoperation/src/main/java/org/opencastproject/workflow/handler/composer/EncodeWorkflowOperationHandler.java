@@ -50,6 +50,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +75,8 @@ public class EncodeWorkflowOperationHandler extends AbstractWorkflowOperationHan
     CONFIG_OPTIONS.put("encoding-profiles", "The encoding profile(s) to use");
     CONFIG_OPTIONS.put("target-flavor", "The flavor to apply to the encoded file");
     CONFIG_OPTIONS.put("target-tags", "The tags to apply to the encoded file");
+    CONFIG_OPTIONS.put("multi-encode",
+            "Set to 'true' to encode each track with all profiles in one job that reads and decodes the track once");
   }
 
   /** The composer service */
@@ -215,6 +218,9 @@ public class EncodeWorkflowOperationHandler extends AbstractWorkflowOperationHan
     if (profiles.isEmpty())
       throw new WorkflowOperationException("No encoding profile was specified");
 
+    // Encode using all profiles at once?
+    boolean multiEncode = Boolean.parseBoolean(StringUtils.trimToNull(operation.getConfiguration("multi-encode")));
+
     // Target tags
     List<String> targetTags = asList(targetTagsOption);
 
@@ -237,6 +243,7 @@ public class EncodeWorkflowOperationHandler extends AbstractWorkflowOperationHan
     for (Track track : elements) {
 
       // Encode the track with all profiles
+      List<EncodingProfile> trackProfiles = new ArrayList<EncodingProfile>();
       for (EncodingProfile profile : profiles) {
 
         // Check if the track supports the output type of the profile
@@ -249,10 +256,25 @@ public class EncodeWorkflowOperationHandler extends AbstractWorkflowOperationHan
           continue;
         }
 
+        trackProfiles.add(profile);
+      }
+
+      if (multiEncode && trackProfiles.size() > 1) {
+        List<String> profileIds = new ArrayList<String>();
+        for (EncodingProfile profile : trackProfiles) {
+          profileIds.add(profile.getIdentifier());
+        }
+        logger.info("Encoding track {} using encoding profiles {}", track, profileIds);
+        encodingJobs.put(composerService.multiEncode(track, profileIds), new JobInformation(track, trackProfiles));
+        continue;
+      }
+
+      for (EncodingProfile profile : trackProfiles) {
         logger.info("Encoding track {} using encoding profile '{}'", track, profile);
 
         // Start encoding and wait for the result
-        encodingJobs.put(composerService.parallelEncode(track, profile.getIdentifier()), new JobInformation(track, profile));
+        encodingJobs.put(composerService.parallelEncode(track, profile.getIdentifier()),
+                new JobInformation(track, Collections.singletonList(profile)));
       }
     }
 
@@ -320,11 +342,11 @@ public class EncodeWorkflowOperationHandler extends AbstractWorkflowOperationHan
   private static final class JobInformation {
 
     private Track track = null;
-    private EncodingProfile profile = null;
+    private List<EncodingProfile> profiles = null;
 
-    JobInformation(Track track, EncodingProfile profile) {
+    JobInformation(Track track, List<EncodingProfile> profiles) {
       this.track = track;
-      this.profile = profile;
+      this.profiles = profiles;
     }
 
     /**
@@ -337,12 +359,12 @@ public class EncodeWorkflowOperationHandler extends AbstractWorkflowOperationHan
     }
 
     /**
-     * Returns the profile.
+     * Returns the profiles.
      *
-     * @return the profile
+     * @return the profiles
      */
-    public EncodingProfile getProfile() {
-      return profile;
+    public List<EncodingProfile> getProfiles() {
+      return profiles;
     }
 
   }
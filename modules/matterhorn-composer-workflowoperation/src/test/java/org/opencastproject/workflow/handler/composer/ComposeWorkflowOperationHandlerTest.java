@@ -49,6 +49,7 @@ import org.junit.Test;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -150,6 +151,54 @@ public class ComposeWorkflowOperationHandlerTest {
     Assert.assertEquals(SOURCE_TRACK_ID, trackEncoded.getReference().getIdentifier());
   }
 
+  @Test
+  public void testMultiEncode() throws Exception {
+    // set up mock profiles
+    EncodingProfile secondProfile = EasyMock.createNiceMock(EncodingProfile.class);
+    profile = EasyMock.createNiceMock(EncodingProfile.class);
+    EasyMock.expect(profile.getIdentifier()).andReturn(PROFILE_ID).anyTimes();
+    EasyMock.expect(profile.getOutputType()).andReturn(MediaType.AudioVisual).anyTimes();
+    EasyMock.expect(secondProfile.getIdentifier()).andReturn("mp4.http").anyTimes();
+    EasyMock.expect(secondProfile.getOutputType()).andReturn(MediaType.AudioVisual).anyTimes();
+    EasyMock.replay(profile, secondProfile);
+
+    // set up mock receipt returning both tracks
+    Job multiJob = EasyMock.createNiceMock(Job.class);
+    EasyMock.expect(multiJob.getPayload())
+            .andReturn(MediaPackageElementParser.getArrayAsXml(Arrays.asList(encodedTracks[0], encodedTracks[1])))
+            .anyTimes();
+    EasyMock.expect(multiJob.getStatus()).andReturn(Job.Status.FINISHED).anyTimes();
+    EasyMock.expect(multiJob.getQueueTime()).andReturn(new Long(0)).anyTimes();
+    EasyMock.replay(multiJob);
+
+    // set up mock composer service, which must only be asked for a single job
+    composerService = EasyMock.createMock(ComposerService.class);
+    EasyMock.expect(composerService.getProfile(PROFILE_ID)).andReturn(profile);
+    EasyMock.expect(composerService.getProfile("mp4.http")).andReturn(secondProfile);
+    EasyMock.expect(composerService.multiEncode((Track) EasyMock.anyObject(), EasyMock.eq(Arrays.asList(PROFILE_ID,
+            "mp4.http")))).andReturn(multiJob).once();
+    EasyMock.replay(composerService);
+    operationHandler.setComposerService(composerService);
+
+    // operation configuration
+    Map<String, String> configurations = new HashMap<String, String>();
+    configurations.put("source-flavors", "presentation/source");
+    configurations.put("target-flavor", "presenter/delivery");
+    configurations.put("encoding-profiles", PROFILE_ID + ",mp4.http");
+    configurations.put("multi-encode", "true");
+
+    // run the operation handler
+    MediaPackage mpNew = getWorkflowOperationResult(mp, configurations).getMediaPackage();
+    EasyMock.verify(composerService);
+
+    // check both tracks have been added
+    for (Track encodedTrack : new Track[] { encodedTracks[0], encodedTracks[1] }) {
+      Track trackEncoded = mpNew.getTrack(encodedTrack.getIdentifier());
+      Assert.assertEquals("presenter/delivery", trackEncoded.getFlavor().toString());
+      Assert.assertEquals(SOURCE_TRACK_ID, trackEncoded.getReference().getIdentifier());
+    }
+  }
+
   @Test
   public void testComposeMissingData() throws Exception {
     // set up mock profile
@@ -180,6 +229,38 @@ public class ComposeWorkflowOperationHandlerTest {
 
   }
 
+  @Test
+  public void testSegmentedEncode() throws Exception {
+    // set up mock profile
+    profile = EasyMock.createNiceMock(EncodingProfile.class);
+    EasyMock.expect(profile.getIdentifier()).andReturn(PROFILE_ID).anyTimes();
+    EasyMock.expect(profile.getOutputType()).andReturn(MediaType.AudioVisual).anyTimes();
+    EasyMock.replay(profile);
+
+    // set up mock composer service, which must be asked for a segmented encoding job
+    composerService = EasyMock.createMock(ComposerService.class);
+    EasyMock.expect(composerService.getProfile(PROFILE_ID)).andReturn(profile);
+    EasyMock.expect(composerService.segmentedEncode((Track) EasyMock.anyObject(), EasyMock.eq(PROFILE_ID)))
+            .andReturn(job).once();
+    EasyMock.replay(composerService);
+    operationHandler.setComposerService(composerService);
+
+    // operation configuration
+    Map<String, String> configurations = new HashMap<String, String>();
+    configurations.put("source-flavors", "presentation/source");
+    configurations.put("target-flavor", "presenter/delivery");
+    configurations.put("encoding-profiles", PROFILE_ID);
+    configurations.put("segmented", "true");
+
+    // run the operation handler
+    MediaPackage mpNew = getWorkflowOperationResult(mp, configurations).getMediaPackage();
+    EasyMock.verify(composerService);
+
+    Track trackEncoded = mpNew.getTrack(ENCODED_TRACK_ID);
+    Assert.assertEquals("presenter/delivery", trackEncoded.getFlavor().toString());
+    Assert.assertEquals(SOURCE_TRACK_ID, trackEncoded.getReference().getIdentifier());
+  }
+
   private WorkflowOperationResult getWorkflowOperationResult(MediaPackage mp, Map<String, String> configurations)
           throws WorkflowOperationException {
     // Add the mediapackage to a workflow instance
@@ -0,0 +1,322 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.distribution.download;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
+import org.opencastproject.util.FileSupport;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Content addressed store of the files that have been distributed for download.
+ * <p>
+ * Every distributed file is hard linked into the store under the checksum that its media package element carries, so
+ * that a file with the same checksum can later be distributed by linking the stored file instead of searching the
+ * distribution directories for an identical file. A stored file is removed once no distributed file links to it
+ * anymore.
+ * <p>
+ * The store has to be on the same file system as the distribution directory, otherwise the files are copied.
+ */
+final class DistributionContentStore {
+
+  /** Logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(DistributionContentStore.class);
+
+  /** The file marking that the distribution directory has been scanned into the store */
+  static final String SCAN_MARKER = ".scanned";
+
+  /** The file locked while the distribution directory is being scanned into the store */
+  static final String SCAN_LOCK = ".scanning";
+
+  /** Checksum types and values that can safely be used as file names */
+  private static final Pattern SAFE_NAME = Pattern.compile("[a-zA-Z0-9-]+");
+
+  /** The root directory of the store */
+  private final File root;
+
+  /**
+   * Creates a store in the given directory.
+   *
+   * @param root
+   *          the root directory of the store
+   */
+  DistributionContentStore(File root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns the root directory of the store.
+   *
+   * @return the root directory
+   */
+  File getRoot() {
+    return root;
+  }
+
+  /**
+   * Links the file with the given checksum and size from the store to a destination, replacing an existing file.
+   *
+   * @param checksum
+   *          the checksum of the file
+   * @param size
+   *          the size of the file in bytes
+   * @param destination
+   *          the destination file
+   * @return <code>true</code> if the file has been linked, <code>false</code> if the store does not contain it
+   * @throws IOException
+   *           if linking the file fails
+   */
+  synchronized boolean link(Checksum checksum, long size, File destination) throws IOException {
+    File stored = getFile(checksum);
+    if (stored == null || !stored.isFile() || stored.length() != size)
+      return false;
+    FileSupport.link(stored, destination, true);
+    return true;
+  }
+
+  /**
+   * Adds a file to the store unless the store already contains a file with the same checksum. The checksum is verified
+   * before the file is added, so that the file can later be linked in place of any file with this checksum.
+   *
+   * @param checksum
+   *          the checksum of the file
+   * @param file
+   *          the file
+   * @throws IOException
+   *           if the file does not match the checksum or if adding the file fails
+   */
+  synchronized void add(Checksum checksum, File file) throws IOException {
+    File stored = getFile(checksum);
+    if (stored == null || stored.exists())
+      return;
+    Checksum actual = Checksum.create(checksum.getType(), file);
+    if (!actual.getValue().equalsIgnoreCase(checksum.getValue()))
+      throw new IOException("File " + file + " does not match checksum " + checksum);
+    store(stored, file);
+  }
+
+  /**
+   * Links a file into the store.
+   *
+   * @param stored
+   *          the location of the file in the store
+   * @param file
+   *          the file
+   * @throws IOException
+   *           if linking the file fails
+   */
+  private void store(File stored, File file) throws IOException {
+    Files.createDirectories(stored.getParentFile().toPath());
+    // Link to a temporary name first so that the store never contains an incomplete copy
+    File temp = new File(stored.getParentFile(), stored.getName() + "." + UUID.randomUUID() + ".tmp");
+    try {
+      FileSupport.link(file, temp, true);
+      Files.move(temp.toPath(), stored.toPath(), ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp.toPath());
+    }
+  }
+
+  /**
+   * Removes the file with the given checksum from the store if no distributed file links to it anymore.
+   *
+   * @param checksum
+   *          the checksum of the file
+   * @throws IOException
+   *           if removing the file fails
+   */
+  synchronized void release(Checksum checksum) throws IOException {
+    File stored = getFile(checksum);
+    if (stored != null && stored.isFile() && getLinkCount(stored.toPath()) == 1)
+      Files.delete(stored.toPath());
+  }
+
+  /**
+   * Adds all files below a directory to the store, computing their checksums. Files with the same checksum and size as
+   * a file that has already been stored are replaced by a link to the stored file. Afterwards, stored files that no
+   * distributed file links to are removed, and the store is marked as scanned.
+   * <p>
+   * The store is locked while it is being scanned, so that only one scan runs at a time even if several store instances
+   * share the same directory. The scan stops if the calling thread is interrupted, without marking the store as
+   * scanned.
+   *
+   * @param directory
+   *          the distribution directory
+   * @return the number of bytes that have been freed by linking identical files
+   * @throws IOException
+   *           if the store is being scanned already, if walking the directory fails or if the scan has been interrupted
+   */
+  long scan(File directory) throws IOException {
+    final Path rootPath = root.getAbsoluteFile().toPath();
+    Files.createDirectories(rootPath);
+    try (FileChannel channel = FileChannel.open(rootPath.resolve(SCAN_LOCK), CREATE, WRITE)) {
+      FileLock lock;
+      try {
+        lock = channel.tryLock();
+      } catch (OverlappingFileLockException e) {
+        lock = null;
+      }
+      if (lock == null)
+        throw new IOException("Content store " + root + " is being scanned already");
+      try {
+        return scanLocked(directory, rootPath);
+      } finally {
+        lock.release();
+      }
+    }
+  }
+
+  /**
+   * Scans a directory into the store while holding the scan lock.
+   *
+   * @see #scan(File)
+   */
+  private long scanLocked(File directory, final Path rootPath) throws IOException {
+    final long[] freed = new long[] { 0L };
+    Files.walkFileTree(directory.getAbsoluteFile().toPath(), new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        return dir.equals(rootPath) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (Thread.currentThread().isInterrupted())
+          throw new InterruptedIOException("Scanning " + rootPath + " has been interrupted");
+        if (!attrs.isRegularFile())
+          return FileVisitResult.CONTINUE;
+        try {
+          freed[0] += addOrDeduplicate(Checksum.create(ChecksumType.DEFAULT_TYPE, file.toFile()), file);
+        } catch (IOException e) {
+          logger.warn("Unable to add distributed file {} to the content store: {}", file, ExceptionUtils.getMessage(e));
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+        // Files may be retracted while the directory is being scanned
+        logger.debug("Skipping distributed file {}: {}", file, ExceptionUtils.getMessage(e));
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    collectGarbage();
+    Files.write(rootPath.resolve(SCAN_MARKER), new byte[0]);
+    return freed[0];
+  }
+
+  /**
+   * Returns whether the distribution directory has been scanned into the store.
+   *
+   * @return <code>true</code> if the store has been populated by a scan
+   */
+  boolean isScanned() {
+    return new File(root, SCAN_MARKER).isFile();
+  }
+
+  /**
+   * Returns the location of the file with the given checksum in the store.
+   *
+   * @param checksum
+   *          the checksum
+   * @return the file, or <code>null</code> if the checksum cannot be used to address a file
+   */
+  File getFile(Checksum checksum) {
+    if (checksum == null || checksum.getType() == null || checksum.getValue() == null)
+      return null;
+    String type = checksum.getType().getName().toLowerCase();
+    String value = checksum.getValue().toLowerCase();
+    if (value.length() < 3 || !SAFE_NAME.matcher(type).matches() || !SAFE_NAME.matcher(value).matches())
+      return null;
+    return new File(new File(new File(root, type), value.substring(0, 2)), value);
+  }
+
+  private synchronized long addOrDeduplicate(Checksum checksum, Path file) throws IOException {
+    File stored = getFile(checksum);
+    if (!stored.isFile()) {
+      store(stored, file.toFile());
+      return 0L;
+    }
+    if (stored.length() != Files.size(file) || Files.isSameFile(stored.toPath(), file))
+      return 0L;
+    // Replace the file with a link to the stored one
+    Path temp = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    try {
+      Files.createLink(temp, stored.toPath());
+      Files.move(temp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (UnsupportedOperationException e) {
+      return 0L;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return stored.length();
+  }
+
+  private synchronized void collectGarbage() throws IOException {
+    if (!root.isDirectory())
+      return;
+    Files.walkFileTree(root.toPath(), new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        String name = file.getFileName().toString();
+        if (attrs.isRegularFile() && !name.equals(SCAN_MARKER) && !name.equals(SCAN_LOCK) && getLinkCount(file) == 1)
+          Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Returns the number of hard links to a file, or <code>-1</code> if the file system does not tell.
+   */
+  private static int getLinkCount(Path file) throws IOException {
+    try {
+      return (Integer) Files.getAttribute(file, "unix:nlink");
+    } catch (UnsupportedOperationException | IllegalArgumentException e) {
+      return -1;
+    }
+  }
+
+}
@@ -42,6 +42,7 @@ import org.opencastproject.security.api.TrustedHttpClient;
 import org.opencastproject.security.api.UserDirectoryService;
 import org.opencastproject.serviceregistry.api.ServiceRegistry;
 import org.opencastproject.serviceregistry.api.ServiceRegistryException;
+import org.opencastproject.util.Checksum;
 import org.opencastproject.util.FileSupport;
 import org.opencastproject.util.LoadUtil;
 import org.opencastproject.util.NotFoundException;
@@ -66,6 +67,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.DirectoryStream;
@@ -128,9 +130,21 @@ public class DownloadDistributionServiceImpl extends AbstractJobProducer
   /** Interval time in millis for checking distributed file request */
   private static final long INTERVAL = 300L;
 
+  /** The bundle context key of the content store directory */
+  public static final String CONTENT_DIRECTORY_KEY = "org.opencastproject.download.content.directory";
+
+  /** How long to wait for the content store scan to stop on deactivation, in milliseconds */
+  private static final long SCANNER_STOP_TIMEOUT = 10000L;
+
   /** Path to the distribution directory */
   protected File distributionDirectory = null;
 
+  /** The store of distributed files by checksum, <code>null</code> if files are not deduplicated by checksum */
+  private DistributionContentStore contentStore = null;
+
+  /** The thread scanning the distributed files into the content store, if any */
+  private Thread contentStoreScanner = null;
+
   /** this media download service's base URL */
   protected String serviceUrl = null;
 
@@ -180,6 +194,75 @@ public class DownloadDistributionServiceImpl extends AbstractJobProducer
       throw new IllegalStateException("Distribution directory must be set (org.opencastproject.download.directory)");
     this.distributionDirectory = new File(ccDistributionDirectory);
     logger.info("Download distribution directory is {}", distributionDirectory);
+
+    String ccContentDirectory = cc.getBundleContext().getProperty(CONTENT_DIRECTORY_KEY);
+    File contentDirectory = ccContentDirectory != null ? new File(ccContentDirectory) : new File(
+            distributionDirectory.getAbsoluteFile().getParentFile(), distributionDirectory.getName() + "-content");
+    activateContentStore(contentDirectory);
+  }
+
+  /**
+   * Deactivate method for this OSGi service implementation. Stops scanning the distributed files into the content
+   * store, the scan starts over with the next activation.
+   */
+  public void deactivate() {
+    Thread scanner = contentStoreScanner;
+    if (scanner == null)
+      return;
+    scanner.interrupt();
+    try {
+      scanner.join(SCANNER_STOP_TIMEOUT);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (scanner.isAlive())
+      logger.warn("Scanning the distributed files into the content store has not stopped yet");
+    contentStoreScanner = null;
+  }
+
+  /**
+   * Sets up the content store used to find identical files by checksum. Existing distribution directories are scanned
+   * into the store in the background the first time the store is used.
+   *
+   * @param contentDirectory
+   *          the root directory of the content store
+   */
+  private void activateContentStore(File contentDirectory) {
+    try {
+      FileUtils.forceMkdir(distributionDirectory);
+      FileUtils.forceMkdir(contentDirectory);
+      if (!Files.getFileStore(contentDirectory.toPath()).equals(Files.getFileStore(distributionDirectory.toPath()))) {
+        logger.warn("Content store {} is not on the same file system as the distribution directory, files will not "
+                + "be deduplicated by checksum", contentDirectory);
+        return;
+      }
+    } catch (IOException e) {
+      logger.warn("Unable to set up the content store {}: {}", contentDirectory, ExceptionUtils.getMessage(e));
+      return;
+    }
+    logger.info("Download distribution content store is {}", contentDirectory);
+
+    final DistributionContentStore store = new DistributionContentStore(contentDirectory);
+    if (!store.isScanned()) {
+      contentStoreScanner = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          logger.info("Adding the files in {} to the content store", distributionDirectory);
+          try {
+            long freed = store.scan(distributionDirectory);
+            logger.info("Finished adding the distributed files to the content store, freed {} bytes by linking "
+                    + "identical files", freed);
+          } catch (InterruptedIOException e) {
+            logger.info("Stopped adding the distributed files to the content store");
+          } catch (IOException e) {
+            logger.warn("Unable to add the distributed files to the content store: {}", ExceptionUtils.getMessage(e));
+          }
+        }
+      }, "download-content-store-scan");
+      contentStoreScanner.setDaemon(true);
+      contentStoreScanner.start();
+    }
+    contentStore = store;
   }
 
   @Override
@@ -277,11 +360,16 @@ public class DownloadDistributionServiceImpl extends AbstractJobProducer
         throw new DistributionException("Error loading " + element.getURI() + " from the workspace", e);
       }
 
-      // Try to find a duplicated element source
-      try {
-        source = findDuplicatedElementSource(source, mediapackageId);
-      } catch (IOException e) {
-        logger.warn("Unable to find duplicated source {}: {}", source, ExceptionUtils.getMessage(e));
+      final Checksum checksum = element.getChecksum();
+      final boolean useContentStore = contentStore != null && contentStore.getFile(checksum) != null;
+
+      // Try to find a duplicated element source, elements with a checksum are looked up in the content store instead
+      if (!useContentStore) {
+        try {
+          source = findDuplicatedElementSource(source, mediapackageId);
+        } catch (IOException e) {
+          logger.warn("Unable to find duplicated source {}: {}", source, ExceptionUtils.getMessage(e));
+        }
       }
 
       File destination = getDistributionFile(channelId, mediapackage, element);
@@ -296,10 +384,19 @@ public class DownloadDistributionServiceImpl extends AbstractJobProducer
             mediapackageId, channelId, destination);
 
         try {
-          FileSupport.link(source, destination, true);
+          if (!useContentStore || !contentStore.link(checksum, source.length(), destination))
+            FileSupport.link(source, destination, true);
         } catch (IOException e) {
           throw new DistributionException(format("Unable to copy %s to %s", source, destination), e);
         }
+
+        if (useContentStore) {
+          try {
+            contentStore.add(checksum, destination);
+          } catch (IOException e) {
+            logger.warn("Unable to add {} to the content store: {}", destination, ExceptionUtils.getMessage(e));
+          }
+        }
       }
       // Create a media package element representation of the distributed file
       MediaPackageElement distributedElement = (MediaPackageElement) element.clone();
@@ -431,6 +528,15 @@ public class DownloadDistributionServiceImpl extends AbstractJobProducer
       if (mediapackageDir.isDirectory() && mediapackageDir.list().length == 0)
         FileSupport.delete(mediapackageDir);
 
+      // Drop the stored content if this was the last distributed copy
+      if (contentStore != null) {
+        try {
+          contentStore.release(element.getChecksum());
+        } catch (IOException e) {
+          logger.warn("Unable to release the stored content of {}: {}", elementFile, ExceptionUtils.getMessage(e));
+        }
+      }
+
       logger.debug("Finished retracting element {} of media package {} from publication channel {}", elementId,
           mediapackageId, channelId);
       return element;
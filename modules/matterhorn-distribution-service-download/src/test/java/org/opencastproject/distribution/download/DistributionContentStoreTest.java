@@ -0,0 +1,176 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.distribution.download;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.util.Checksum;
+import org.opencastproject.util.ChecksumType;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+public class DistributionContentStoreTest {
+
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
+  private File distributionRoot;
+  private File contentRoot;
+  private DistributionContentStore store;
+
+  @Before
+  public void setUp() throws Exception {
+    distributionRoot = testFolder.newFolder("downloads");
+    contentRoot = testFolder.newFolder("downloads-content");
+    store = new DistributionContentStore(contentRoot);
+  }
+
+  private File createFile(String path, String content) throws Exception {
+    File file = new File(distributionRoot, path);
+    FileUtils.writeStringToFile(file, content, "UTF-8");
+    return file;
+  }
+
+  private static Checksum checksumOf(File file) throws Exception {
+    return Checksum.create(ChecksumType.DEFAULT_TYPE, file);
+  }
+
+  @Test
+  public void testLinkStoredFile() throws Exception {
+    File distributed = createFile("org/engage-player/mp/track/video.mp4", "video");
+    Checksum checksum = checksumOf(distributed);
+    File destination = new File(distributionRoot, "org/oaipmh/mp/track/video.mp4");
+    destination.getParentFile().mkdirs();
+
+    assertFalse(store.link(checksum, distributed.length(), destination));
+    store.add(checksum, distributed);
+    assertFalse(store.link(checksum, distributed.length() + 1, destination));
+    assertTrue(store.link(checksum, distributed.length(), destination));
+    assertTrue(Files.isSameFile(distributed.toPath(), destination.toPath()));
+  }
+
+  @Test
+  public void testAddVerifiesChecksum() throws Exception {
+    File distributed = createFile("org/engage-player/mp/track/video.mp4", "video");
+    Checksum checksum = Checksum.create(ChecksumType.DEFAULT_TYPE, "0123456789abcdef0123456789abcdef");
+    try {
+      store.add(checksum, distributed);
+      fail("A file not matching its checksum has been added to the content store");
+    } catch (IOException e) {
+      assertFalse(store.getFile(checksum).exists());
+    }
+  }
+
+  @Test
+  public void testReleaseLastCopy() throws Exception {
+    File distributed = createFile("org/engage-player/mp/track/video.mp4", "video");
+    Checksum checksum = checksumOf(distributed);
+    store.add(checksum, distributed);
+    File stored = store.getFile(checksum);
+    assertTrue(stored.isFile());
+
+    store.release(checksum);
+    assertTrue(stored.isFile());
+
+    FileUtils.forceDelete(distributed);
+    store.release(checksum);
+    assertFalse(stored.exists());
+  }
+
+  @Test
+  public void testScanLinksIdenticalFiles() throws Exception {
+    File first = createFile("org/engage-player/mp/track/video.mp4", "identical content");
+    File second = createFile("org/oaipmh/mp/track/video.mp4", "identical content");
+    File other = createFile("org/oaipmh/mp/catalog/episode.xml", "other content");
+    assertFalse(store.isScanned());
+
+    assertEquals(first.length(), store.scan(distributionRoot));
+    assertTrue(store.isScanned());
+    assertTrue(Files.isSameFile(first.toPath(), second.toPath()));
+    assertEquals("identical content", FileUtils.readFileToString(second, "UTF-8"));
+    assertTrue(store.getFile(checksumOf(first)).isFile());
+    assertTrue(store.getFile(checksumOf(other)).isFile());
+  }
+
+  @Test
+  public void testScanRemovesUnreferencedContent() throws Exception {
+    File distributed = createFile("org/engage-player/mp/track/video.mp4", "video");
+    Checksum checksum = checksumOf(distributed);
+    store.add(checksum, distributed);
+    FileUtils.forceDelete(distributed);
+
+    store.scan(distributionRoot);
+    assertFalse(store.getFile(checksum).exists());
+  }
+
+  @Test
+  public void testInterruptedScanIsNotFinished() throws Exception {
+    createFile("org/engage-player/mp/track/video.mp4", "video");
+    Thread.currentThread().interrupt();
+    try {
+      store.scan(distributionRoot);
+      fail("The scan has not been interrupted");
+    } catch (InterruptedIOException e) {
+      assertFalse(store.isScanned());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void testConcurrentScanIsRejected() throws Exception {
+    createFile("org/engage-player/mp/track/video.mp4", "video");
+    try (FileChannel channel = FileChannel.open(new File(contentRoot, DistributionContentStore.SCAN_LOCK).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+      store.scan(distributionRoot);
+      fail("A second scan of the content store has been started");
+    } catch (IOException e) {
+      assertFalse(store.isScanned());
+    }
+    store.scan(distributionRoot);
+    assertTrue(store.isScanned());
+  }
+
+  @Test
+  public void testUnsafeChecksumIsNotStored() throws Exception {
+    assertNull(store.getFile(null));
+    assertNull(store.getFile(Checksum.create(ChecksumType.DEFAULT_TYPE, "../../etc")));
+  }
+
+}
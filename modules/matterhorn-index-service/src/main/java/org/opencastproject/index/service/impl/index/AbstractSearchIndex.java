@@ -59,36 +59,91 @@ import org.opencastproject.message.broker.api.MessageSender;
 import org.opencastproject.message.broker.api.index.IndexRecreateObject;
 import org.opencastproject.security.api.User;
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.OsgiUtil;
+import org.opencastproject.util.PathSupport;
 import org.opencastproject.util.data.Function;
 import org.opencastproject.util.data.Option;
 
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHitField;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms.Bucket;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsBuilder;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.component.ComponentException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Base class for the search indices of the admin UI and the external API.
+ * <p>
+ * Updated documents are buffered for a short time (see {@link #WRITE_WINDOW_KEY}) so that several updates to the same
+ * document are merged, and are then posted to the index in a single bulk request that refreshes the index once.
+ * Looking up a single document by its identifier returns the buffered version of the document, if there is one, so
+ * that a sequence of read-modify-write updates is merged as well. Any other query flushes the buffer first, so readers
+ * always see the preceding writes. Callers that need a document to be searchable right away, without querying, can ask
+ * for it when adding or updating the document.
+ */
 public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
 
   private static final Logger logger = LoggerFactory.getLogger(AbstractSearchIndex.class);
 
+  /** Bundle context key for the time in milliseconds that updated documents are buffered, 0 to disable buffering */
+  public static final String WRITE_WINDOW_KEY = "org.opencastproject.index.write.window";
+
+  /** The default time in milliseconds that updated documents are buffered */
+  public static final long DEFAULT_WRITE_WINDOW = 200L;
+
+  /** The number of buffered documents that are flushed without waiting for the write window to pass */
+  static final int MAX_BUFFERED_DOCUMENTS = 500;
+
+  /** Bundle context key for the storage directory, which holds the progress of index rebuilds */
+  private static final String STORAGE_DIR_KEY = "org.opencastproject.storage.dir";
+
+  /** The time in minutes to wait for a service to report progress while rebuilding the index */
+  private static final long REBUILD_TIMEOUT = 120L;
+
+  /**
+   * The services to re-send their data when rebuilding the index. The services within a phase are independent of each
+   * other and run at the same time, while each phase depends on the data of the previous ones.
+   */
+  private static final IndexRecreateObject.Service[][] REBUILD_PHASES = new IndexRecreateObject.Service[][] {
+          { IndexRecreateObject.Service.Groups, IndexRecreateObject.Service.Acl, IndexRecreateObject.Service.Themes },
+          { IndexRecreateObject.Service.Series },
+          { IndexRecreateObject.Service.Scheduler, IndexRecreateObject.Service.Workflow,
+                  IndexRecreateObject.Service.Archive },
+          { IndexRecreateObject.Service.Comments } };
+
   /** The message sender */
   private MessageSender messageSender;
 
@@ -98,9 +153,99 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
   /** An Executor to get messages */
   private ExecutorService executor = Executors.newSingleThreadExecutor();
 
+  /** The documents waiting to be written, by target index, document type and identifier */
+  private final Map<String, PendingWrite> pendingWrites = new LinkedHashMap<String, PendingWrite>();
+
+  /** Lock serializing the flushes, so that a document is never overtaken by an older version of itself */
+  private final Object flushLock = new Object();
+
+  /** The scheduler flushing the buffered documents, <code>null</code> if documents are written immediately */
+  private ScheduledExecutorService flushScheduler = null;
+
+  /** The next scheduled flush, if any */
+  private ScheduledFuture<?> scheduledFlush = null;
+
+  /** The time in milliseconds that updated documents are buffered */
+  private long writeWindow = DEFAULT_WRITE_WINDOW;
+
+  /** The storage directory, <code>null</code> if index rebuilds can't be resumed */
+  private String storageDir = null;
+
   @Override
   public abstract String getIndexName();
 
+  /**
+   * OSGi callback to activate this component instance.
+   *
+   * @param ctx
+   *          the component context
+   * @throws ComponentException
+   *           if the search index cannot be initialized
+   */
+  @Override
+  public void activate(ComponentContext ctx) throws ComponentException {
+    super.activate(ctx);
+    Option<String> writeWindowOption = OsgiUtil.getOptContextProperty(ctx, WRITE_WINDOW_KEY);
+    if (writeWindowOption.isSome()) {
+      try {
+        writeWindow = Long.parseLong(writeWindowOption.get());
+      } catch (NumberFormatException e) {
+        throw new ComponentException("Configuration for key '" + WRITE_WINDOW_KEY + "' is not a number");
+      }
+    }
+    storageDir = OsgiUtil.getOptContextProperty(ctx, STORAGE_DIR_KEY).getOrElseNull();
+    if (writeWindow > 0) {
+      logger.info("Buffering updates to index '{}' for {} ms", getIndexName(), writeWindow);
+      flushScheduler = Executors.newSingleThreadScheduledExecutor();
+    } else {
+      logger.info("Writing updates to index '{}' immediately", getIndexName());
+    }
+  }
+
+  /**
+   * Initializes the index and, if a previous rebuild has not been finished, continues to write a copy of every update
+   * to the index that is being rebuilt, so that the rebuild can be resumed without missing any updates.
+   *
+   * @param index
+   *          the index identifier
+   * @param version
+   *          the index version
+   * @throws SearchIndexException
+   *           if the index configuration cannot be loaded
+   * @throws IOException
+   *           if loading of settings fails
+   */
+  @Override
+  protected void init(String index, int version) throws IOException, IllegalArgumentException, SearchIndexException {
+    super.init(index, version);
+    RebuildCheckpoint checkpoint = RebuildCheckpoint.load(getCheckpointFile());
+    if (checkpoint.getIndex() != null) {
+      logger.info("Found unfinished rebuild of index '{}' into '{}'", index, checkpoint.getIndex());
+      checkpoint.start(startRebuild(checkpoint.getIndex()));
+    }
+  }
+
+  /**
+   * Writes the buffered documents and closes the index.
+   *
+   * @throws IOException
+   *           if stopping the Elasticsearch node fails
+   */
+  @Override
+  protected void close() throws IOException {
+    if (flushScheduler != null) {
+      flushScheduler.shutdown();
+      try {
+        flush();
+      } catch (SearchIndexException e) {
+        logger.error("Unable to write buffered documents to index '{}': {}", getIndexName(), e.getMessage());
+      }
+      // Drop the retries that are still scheduled
+      flushScheduler.shutdownNow();
+    }
+    super.close();
+  }
+
   /** OSGi DI. */
   public void setMessageSender(MessageSender messageSender) {
     this.messageSender = messageSender;
@@ -113,6 +258,11 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
 
   /**
    * Recreate the index from all of the services that provide data.
+   * <p>
+   * The data is written to a new physical index while the current one keeps answering queries. Services that don't
+   * depend on each other re-send their data at the same time, and once all of them are done, the index alias is
+   * switched to the new index. Completed services are recorded in a checkpoint, so that a rebuild that has been
+   * interrupted continues where it stopped the next time this method is called.
    *
    * @throws InterruptedException
    *           Thrown if the process is interupted.
@@ -121,80 +271,130 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    * @throws ExecutionException
    *           Thrown if there is a problem executing the process.
    * @throws IOException
-   *           Thrown if the index cannot be cleared.
+   *           Thrown if the new index cannot be created or activated.
    * @throws IndexServiceException
    *           Thrown if there was a problem adding some of the data back into the index.
    */
   public synchronized void recreateIndex()
           throws InterruptedException, CancellationException, ExecutionException, IOException, IndexServiceException {
-    // Clear index first
-    clear();
-    recreateService(IndexRecreateObject.Service.Groups);
-    recreateService(IndexRecreateObject.Service.Acl);
-    recreateService(IndexRecreateObject.Service.Themes);
-    recreateService(IndexRecreateObject.Service.Series);
-    recreateService(IndexRecreateObject.Service.Scheduler);
-    recreateService(IndexRecreateObject.Service.Workflow);
-    recreateService(IndexRecreateObject.Service.Archive);
-    recreateService(IndexRecreateObject.Service.Comments);
+    RebuildCheckpoint checkpoint = RebuildCheckpoint.load(getCheckpointFile());
+    try {
+      checkpoint.start(startRebuild(checkpoint.getIndex()));
+    } catch (SearchIndexException e) {
+      throw new IOException("Unable to create a new index to rebuild '" + getIndexName() + "'", e);
+    }
+
+    for (IndexRecreateObject.Service[] phase : REBUILD_PHASES) {
+      Set<IndexRecreateObject.Service> services = EnumSet.noneOf(IndexRecreateObject.Service.class);
+      for (IndexRecreateObject.Service service : phase) {
+        if (checkpoint.isCompleted(service)) {
+          logger.info("Skipping service {} which has already re-sent its data to index '{}'", service,
+                  checkpoint.getIndex());
+        } else {
+          services.add(service);
+        }
+      }
+      if (!services.isEmpty())
+        recreateServices(services, checkpoint);
+    }
+
+    try {
+      flush();
+      finishRebuild();
+    } catch (SearchIndexException e) {
+      throw new IOException("Unable to switch to the rebuilt index '" + checkpoint.getIndex() + "'", e);
+    }
+    checkpoint.delete();
   }
 
   /**
-   * Ask for data to be rebuilt from a service.
+   * Ask for data to be rebuilt from a set of services that don't depend on each other, and wait until all of them are
+   * done.
    *
-   * @param service
-   *          The {@link IndexRecreateObject.Service} representing the service to start re-sending the data from.
+   * @param services
+   *          The {@link IndexRecreateObject.Service}s representing the services to start re-sending the data from.
+   * @param checkpoint
+   *          The checkpoint to record the services that are done in.
    * @throws IndexServiceException
-   *           Thrown if there is a problem re-sending the data from the service.
+   *           Thrown if there is a problem re-sending the data from the services, or if they stop responding.
    * @throws InterruptedException
    *           Thrown if the process of re-sending the data is interupted.
    * @throws CancellationException
    *           Thrown if listening to messages has been canceled.
    * @throws ExecutionException
    *           Thrown if the process of re-sending the data has an error.
+   * @throws IOException
+   *           Thrown if the checkpoint cannot be stored.
    */
-  private void recreateService(IndexRecreateObject.Service service)
-          throws IndexServiceException, InterruptedException, CancellationException, ExecutionException {
-    logger.info("Starting to recreate index for service {}", service);
-    messageSender.sendObjectMessage(IndexProducer.RECEIVER_QUEUE + "." + service, MessageSender.DestinationType.Queue,
-            IndexRecreateObject.start(getIndexName(), service));
-    boolean done = false;
-    // TODO Add a timeout for services that are not going to respond.
-    while (!done) {
+  private void recreateServices(Set<IndexRecreateObject.Service> services, RebuildCheckpoint checkpoint)
+          throws IndexServiceException, InterruptedException, CancellationException, ExecutionException,
+          IOException {
+    for (IndexRecreateObject.Service service : services) {
+      logger.info("Starting to recreate index for service {}", service);
+      messageSender.sendObjectMessage(IndexProducer.RECEIVER_QUEUE + "." + service,
+              MessageSender.DestinationType.Queue, IndexRecreateObject.start(getIndexName(), service));
+    }
+
+    Set<IndexRecreateObject.Service> pending = EnumSet.copyOf(services);
+    while (!pending.isEmpty()) {
       FutureTask<Serializable> future = messageReceiver.receiveSerializable(IndexProducer.RESPONSE_QUEUE,
               MessageSender.DestinationType.Queue);
       executor.execute(future);
-      BaseMessage message = (BaseMessage) future.get();
-      if (message.getObject() instanceof IndexRecreateObject) {
-        IndexRecreateObject indexRecreateObject = (IndexRecreateObject) message.getObject();
-        switch (indexRecreateObject.getStatus()) {
-          case Update:
-            logger.info("Updating service: '{}' with {}/{} finished.", new Object[] { indexRecreateObject.getService(),
-                    indexRecreateObject.getCurrent(), indexRecreateObject.getTotal() });
-            break;
-          case End:
-            done = true;
-            logger.info("Finished re-creating data for service '{}'", new Object[] { indexRecreateObject.getService(),
-                    +indexRecreateObject.getCurrent(), indexRecreateObject.getTotal() });
-            break;
-          case Error:
-            logger.error("Error updating service '{}' with {}/{} finished.",
-                    new Object[] { indexRecreateObject.getService(), indexRecreateObject.getCurrent(),
-                            indexRecreateObject.getTotal() });
-            throw new IndexServiceException(
-                    format("Error updating service '%s' with %s/%s finished.", indexRecreateObject.getService(),
-                            indexRecreateObject.getCurrent(), indexRecreateObject.getTotal()));
-          default:
-            logger.error("Unable to handle the status '{}' for service '{}'", indexRecreateObject.getStatus(),
-                    indexRecreateObject.getService());
-            throw new IllegalArgumentException(format("Unable to handle the status '%s' for service '%s'",
-                    indexRecreateObject.getStatus(), indexRecreateObject.getService()));
+      BaseMessage message;
+      try {
+        message = (BaseMessage) future.get(REBUILD_TIMEOUT, TimeUnit.MINUTES);
+      } catch (TimeoutException e) {
+        future.cancel(true);
+        throw new IndexServiceException(format("Services %s did not report any progress for %d minutes", pending,
+                REBUILD_TIMEOUT));
+      }
+      if (message == null || !(message.getObject() instanceof IndexRecreateObject))
+        continue;
 
-        }
+      IndexRecreateObject indexRecreateObject = (IndexRecreateObject) message.getObject();
+      if (!getIndexName().equals(indexRecreateObject.getIndexName())
+              || !pending.contains(indexRecreateObject.getService())) {
+        logger.debug("Ignoring {} message of service '{}' for index '{}'", new Object[] {
+                indexRecreateObject.getStatus(), indexRecreateObject.getService(), indexRecreateObject.getIndexName() });
+        continue;
+      }
+      switch (indexRecreateObject.getStatus()) {
+        case Update:
+          logger.info("Updating service: '{}' with {}/{} finished.", new Object[] { indexRecreateObject.getService(),
+                  indexRecreateObject.getCurrent(), indexRecreateObject.getTotal() });
+          break;
+        case End:
+          pending.remove(indexRecreateObject.getService());
+          checkpoint.complete(indexRecreateObject.getService());
+          logger.info("Finished re-creating data for service '{}'", indexRecreateObject.getService());
+          break;
+        case Error:
+          logger.error("Error updating service '{}' with {}/{} finished.",
+                  new Object[] { indexRecreateObject.getService(), indexRecreateObject.getCurrent(),
+                          indexRecreateObject.getTotal() });
+          throw new IndexServiceException(
+                  format("Error updating service '%s' with %s/%s finished.", indexRecreateObject.getService(),
+                          indexRecreateObject.getCurrent(), indexRecreateObject.getTotal()));
+        default:
+          logger.error("Unable to handle the status '{}' for service '{}'", indexRecreateObject.getStatus(),
+                  indexRecreateObject.getService());
+          throw new IllegalArgumentException(format("Unable to handle the status '%s' for service '%s'",
+                  indexRecreateObject.getStatus(), indexRecreateObject.getService()));
       }
     }
   }
 
+  /**
+   * Returns the file that the progress of an index rebuild is recorded in.
+   *
+   * @return the checkpoint file, or <code>null</code> if there is no storage directory to keep it in
+   */
+  private File getCheckpointFile() {
+    if (storageDir == null)
+      return null;
+    return new File(PathSupport.concat(new String[] { storageDir, "index", getIndexName() + "-rebuild.properties" }));
+  }
+
   /**
    * Adds the recording event to the search index or updates it accordingly if it is there.
    *
@@ -204,6 +404,21 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    *           if the event cannot be added or updated
    */
   public void addOrUpdate(Event event) throws SearchIndexException {
+    addOrUpdate(event, false);
+  }
+
+  /**
+   * Adds or updates the event in the search index. Unless it is requested to be searchable right away, the
+   * update may be buffered for a short time and merged with further updates.
+   *
+   * @param event
+   *          the recording event
+   * @param refresh
+   *          whether the event needs to be searchable once this method returns
+   * @throws SearchIndexException
+   *           if the event cannot be added or updated
+   */
+  public void addOrUpdate(Event event, boolean refresh) throws SearchIndexException {
     logger.debug("Adding resource {} to search index", event);
 
     // if (!preparedIndices.contains(resource.getURI().getSite().getIdentifier())) {
@@ -220,7 +435,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
             inputDocument.getDocumentType(), resourceMetadata);
     try {
-      update(doc);
+      write(doc, refresh);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write resource " + event + " to index", t);
     }
@@ -235,6 +450,21 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    *           Thrown if unable to add or update the group.
    */
   public void addOrUpdate(Group group) throws SearchIndexException {
+    addOrUpdate(group, false);
+  }
+
+  /**
+   * Adds or updates the group in the search index. Unless it is requested to be searchable right away, the
+   * update may be buffered for a short time and merged with further updates.
+   *
+   * @param group
+   *          The group to add
+   * @param refresh
+   *          whether the group needs to be searchable once this method returns
+   * @throws SearchIndexException
+   *           Thrown if unable to add or update the group.
+   */
+  public void addOrUpdate(Group group, boolean refresh) throws SearchIndexException {
     logger.debug("Adding resource {} to search index", group);
 
     // if (!preparedIndices.contains(resource.getURI().getSite().getIdentifier())) {
@@ -251,7 +481,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
             inputDocument.getDocumentType(), resourceMetadata);
     try {
-      update(doc);
+      write(doc, refresh);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write resource " + group + " to index", t);
     }
@@ -264,6 +494,21 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    * @throws SearchIndexException
    */
   public void addOrUpdate(Series series) throws SearchIndexException {
+    addOrUpdate(series, false);
+  }
+
+  /**
+   * Adds or updates the series in the search index. Unless it is requested to be searchable right away, the
+   * update may be buffered for a short time and merged with further updates.
+   *
+   * @param series
+   *          the series
+   * @param refresh
+   *          whether the series needs to be searchable once this method returns
+   * @throws SearchIndexException
+   *           if the series cannot be added or updated
+   */
+  public void addOrUpdate(Series series, boolean refresh) throws SearchIndexException {
     logger.debug("Adding resource {} to search index", series);
 
     // if (!preparedIndices.contains(resource.getURI().getSite().getIdentifier())) {
@@ -280,7 +525,7 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
             inputDocument.getDocumentType(), resourceMetadata);
     try {
-      update(doc);
+      write(doc, refresh);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write resource " + series + " to index", t);
     }
@@ -295,6 +540,21 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    *           Thrown if unable to add or update the theme.
    */
   public void addOrUpdate(Theme theme) throws SearchIndexException {
+    addOrUpdate(theme, false);
+  }
+
+  /**
+   * Adds or updates the theme in the search index. Unless it is requested to be searchable right away, the
+   * update may be buffered for a short time and merged with further updates.
+   *
+   * @param theme
+   *          The theme to add
+   * @param refresh
+   *          whether the theme needs to be searchable once this method returns
+   * @throws SearchIndexException
+   *           Thrown if unable to add or update the theme.
+   */
+  public void addOrUpdate(Theme theme, boolean refresh) throws SearchIndexException {
     logger.debug("Adding resource {} to search index", theme);
 
     // if (!preparedIndices.contains(resource.getURI().getSite().getIdentifier())) {
@@ -311,27 +571,231 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     ElasticsearchDocument doc = new ElasticsearchDocument(inputDocument.getIdentifier(),
             inputDocument.getDocumentType(), resourceMetadata);
     try {
-      update(doc);
+      write(doc, refresh);
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot write resource " + theme + " to index", t);
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Buffered updates of the document are dropped for the indices that it is deleted from.
+   */
   @Override
   public boolean delete(String documentType, String uid) throws SearchIndexException {
-    logger.debug("Removing element with id '{}' from searching index '{}'", uid, getIndexName());
+    logger.debug("Removing element with id '{}' from searching index '{}'", uid, getQueryIndex());
+
+    synchronized (flushLock) {
+      // A buffered update must not recreate the document later on
+      boolean pending = false;
+      String restriction = getRestrictedIndex();
+      synchronized (pendingWrites) {
+        for (Iterator<PendingWrite> i = pendingWrites.values().iterator(); i.hasNext();) {
+          PendingWrite write = i.next();
+          if (!documentType.equals(write.document.getType()) || !uid.equals(write.document.getUID()))
+            continue;
+          if (restriction == null || write.target == null || restriction.equals(write.target)) {
+            i.remove();
+            pending = true;
+          }
+        }
+      }
 
-    DeleteRequestBuilder deleteRequest = getSearchClient().prepareDelete(getIndexName(), documentType, uid);
-    deleteRequest.setRefresh(true);
-    DeleteResponse delete = deleteRequest.execute().actionGet();
-    if (!delete.isFound()) {
-      logger.trace("Document {} to delete was not found on index '{}'", uid, getIndexName());
-      return false;
+      DeleteRequestBuilder deleteRequest = getSearchClient().prepareDelete(getQueryIndex(), documentType, uid);
+      deleteRequest.setRefresh(true);
+      DeleteResponse delete = deleteRequest.execute().actionGet();
+      deleteFromRebuildIndex(documentType, uid);
+      if (!delete.isFound() && !pending) {
+        logger.trace("Document {} to delete was not found on index '{}'", uid, getQueryIndex());
+        return false;
+      }
     }
 
     return true;
   }
 
+  /**
+   * Writes the documents that have been buffered so far to the index and refreshes it, so that they are searchable
+   * once this method returns. Documents that could not be written because of a temporary failure are kept in the
+   * buffer and written with the next flush, documents that have been rejected by the index are dropped.
+   *
+   * @throws SearchIndexException
+   *           if some of the documents could not be written
+   */
+  public void flush() throws SearchIndexException {
+    synchronized (flushLock) {
+      List<PendingWrite> writes;
+      synchronized (pendingWrites) {
+        if (scheduledFlush != null) {
+          scheduledFlush.cancel(false);
+          scheduledFlush = null;
+        }
+        if (pendingWrites.isEmpty())
+          return;
+        writes = new ArrayList<PendingWrite>(pendingWrites.values());
+      }
+      logger.debug("Writing {} buffered documents to index '{}'", writes.size(), getIndexName());
+
+      // Documents written by restricted updates go to their index only
+      Map<String, List<ElasticsearchDocument>> documentsByTarget;
+      documentsByTarget = new LinkedHashMap<String, List<ElasticsearchDocument>>();
+      for (PendingWrite write : writes) {
+        List<ElasticsearchDocument> documents = documentsByTarget.get(write.target);
+        if (documents == null) {
+          documents = new ArrayList<ElasticsearchDocument>();
+          documentsByTarget.put(write.target, documents);
+        }
+        documents.add(write.document);
+      }
+
+      // Keep the documents that may be written later on
+      Set<String> retry = new HashSet<String>();
+      int rejected = 0;
+      SearchIndexException failure = null;
+      for (Map.Entry<String, List<ElasticsearchDocument>> entry : documentsByTarget.entrySet()) {
+        String target = entry.getKey();
+        List<ElasticsearchDocument> documents = entry.getValue();
+        BulkResponse response;
+        try {
+          response = post(target, true, documents.toArray(new ElasticsearchDocument[documents.size()]));
+        } catch (SearchIndexException e) {
+          for (ElasticsearchDocument document : documents) {
+            retry.add(getPendingWriteKey(target, document.getType(), document.getUID()));
+          }
+          failure = e;
+          continue;
+        }
+        for (BulkItemResponse item : response.getItems()) {
+          if (!item.isFailed())
+            continue;
+          RestStatus status = item.getFailure().getStatus();
+          if (status == RestStatus.TOO_MANY_REQUESTS || status.getStatus() >= 500) {
+            retry.add(getPendingWriteKey(target, item.getType(), item.getId()));
+          } else {
+            logger.error("Document {} has been rejected by index '{}': {}", item.getId(), item.getIndex(),
+                    item.getFailureMessage());
+            rejected++;
+          }
+        }
+      }
+
+      synchronized (pendingWrites) {
+        for (PendingWrite write : writes) {
+          String key = getPendingWriteKey(write.target, write.document.getType(), write.document.getUID());
+          // A document that has been updated in the meantime must be written again
+          if (!retry.contains(key) && pendingWrites.get(key) == write)
+            pendingWrites.remove(key);
+        }
+        if (!retry.isEmpty())
+          scheduleFlush();
+      }
+
+      if (!retry.isEmpty() || rejected > 0)
+        throw new SearchIndexException("Unable to write " + (retry.size() + rejected) + " of " + writes.size()
+                + " buffered documents to index '" + getIndexName() + "', " + retry.size() + " will be retried",
+                failure);
+    }
+  }
+
+  /**
+   * Writes a document to the index, either immediately or by adding it to the write buffer. A buffered document
+   * replaces any previous version of itself that has not been written yet. If the current thread is restricted to a
+   * single index, the document is only written to that one.
+   *
+   * @param document
+   *          the document
+   * @param refresh
+   *          whether the document needs to be searchable once this method returns, which writes it along with the
+   *          rest of the buffer right away
+   * @throws SearchIndexException
+   *           if the document is written immediately and writing fails
+   */
+  private void write(ElasticsearchDocument document, boolean refresh) throws SearchIndexException {
+    if (flushScheduler == null) {
+      update(document);
+      return;
+    }
+
+    PendingWrite write = new PendingWrite(getRestrictedIndex(), document);
+    String key = getPendingWriteKey(write.target, document.getType(), document.getUID());
+    PendingWrite previous;
+    boolean flushNow;
+    synchronized (pendingWrites) {
+      previous = pendingWrites.put(key, write);
+      flushNow = refresh || pendingWrites.size() >= MAX_BUFFERED_DOCUMENTS;
+      if (!flushNow)
+        scheduleFlush();
+    }
+    if (!flushNow)
+      return;
+
+    try {
+      flush();
+    } catch (SearchIndexException e) {
+      // Don't let the buffer grow while the index is failing, the caller learns that the document has not been written
+      synchronized (pendingWrites) {
+        if (pendingWrites.get(key) == write) {
+          if (previous != null)
+            pendingWrites.put(key, previous);
+          else
+            pendingWrites.remove(key);
+        }
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Schedules a flush of the buffered documents once the write window has passed, unless there is one scheduled
+   * already. Must be called while holding the lock on {@link #pendingWrites}.
+   */
+  private void scheduleFlush() {
+    if (scheduledFlush != null || flushScheduler == null || flushScheduler.isShutdown())
+      return;
+    scheduledFlush = flushScheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        flushQuietly();
+      }
+    }, writeWindow, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Flushes the buffered documents, logging instead of throwing errors. This is used where a failure to write a
+   * document is not the caller's concern, e.g. when the write window has passed. Documents that could not be written
+   * because of a temporary failure stay in the buffer and are retried once the write window has passed again.
+   */
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (SearchIndexException e) {
+      logger.error(e.getMessage(), e.getCause());
+    }
+  }
+
+  private static String getPendingWriteKey(String target, String documentType, String uid) {
+    return (target == null ? "" : target) + "/" + documentType + "/" + uid;
+  }
+
+  /**
+   * A buffered document along with the index it is going to be written to.
+   */
+  private static final class PendingWrite {
+
+    /** The index to write to, <code>null</code> for this index and the one that is being rebuilt */
+    private final String target;
+
+    /** The document */
+    private final ElasticsearchDocument document;
+
+    PendingWrite(String target, ElasticsearchDocument document) {
+      this.target = target;
+      this.document = document;
+    }
+
+  }
+
   /**
    * @param event
    *          The event to check if it
@@ -446,6 +910,20 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    *           Thrown if there is an error getting the results.
    */
   public SearchResult<Event> getByQuery(EventSearchQuery query) throws SearchIndexException {
+    flush();
+    return executeSearch(query);
+  }
+
+  /**
+   * Searches the events without writing the buffered documents first.
+   *
+   * @param query
+   *          the query
+   * @return the events matching the query
+   * @throws SearchIndexException
+   *           if querying the index fails
+   */
+  private SearchResult<Event> executeSearch(EventSearchQuery query) throws SearchIndexException {
     logger.debug("Searching index using event query '{}'", query);
     // Create the request builder
     SearchRequestBuilder requestBuilder = getSearchRequestBuilder(query, new EventQueryBuilder(query));
@@ -474,7 +952,20 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    *           Thrown if there is an error getting the results.
    */
   public SearchResult<Group> getByQuery(GroupSearchQuery query) throws SearchIndexException {
+    flush();
+    return executeSearch(query);
+  }
 
+  /**
+   * Searches the groups without writing the buffered documents first.
+   *
+   * @param query
+   *          the query
+   * @return the groups matching the query
+   * @throws SearchIndexException
+   *           if querying the index fails
+   */
+  private SearchResult<Group> executeSearch(GroupSearchQuery query) throws SearchIndexException {
     logger.debug("Searching index using group query '{}'", query);
 
     // Create the request builder
@@ -504,6 +995,20 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    *           Thrown if there is an error getting the results.
    */
   public SearchResult<Series> getByQuery(SeriesSearchQuery query) throws SearchIndexException {
+    flush();
+    return executeSearch(query);
+  }
+
+  /**
+   * Searches the series without writing the buffered documents first.
+   *
+   * @param query
+   *          the query
+   * @return the series matching the query
+   * @throws SearchIndexException
+   *           if querying the index fails
+   */
+  private SearchResult<Series> executeSearch(SeriesSearchQuery query) throws SearchIndexException {
     logger.debug("Searching index using series query '{}'", query);
     // Create the request builder
     SearchRequestBuilder requestBuilder = getSearchRequestBuilder(query, new SeriesQueryBuilder(query));
@@ -531,6 +1036,20 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    *           Thrown if there is an error getting the results.
    */
   public SearchResult<Theme> getByQuery(ThemeSearchQuery query) throws SearchIndexException {
+    flush();
+    return executeSearch(query);
+  }
+
+  /**
+   * Searches the themes without writing the buffered documents first.
+   *
+   * @param query
+   *          the query
+   * @return the themes matching the query
+   * @throws SearchIndexException
+   *           if querying the index fails
+   */
+  private SearchResult<Theme> executeSearch(ThemeSearchQuery query) throws SearchIndexException {
     logger.debug("Searching index using theme query '{}'", query);
     // Create the request builder
     SearchRequestBuilder requestBuilder = getSearchRequestBuilder(query, new ThemeQueryBuilder(query));
@@ -551,6 +1070,196 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
     }
   }
 
+  /**
+   * Loads a recording event by its identifier. If an update of the event has been buffered, the buffered version is
+   * returned without writing it to the index.
+   *
+   * @param mediapackageId
+   *          the mediapackage identifier
+   * @param organization
+   *          the organization
+   * @param user
+   *          the user
+   * @return the recording event or <code>null</code> if not found
+   * @throws SearchIndexException
+   *           if querying the search index fails
+   * @throws IllegalStateException
+   *           if multiple recording events with the same identifier are found
+   */
+  public Event getEvent(String mediapackageId, String organization, User user) throws SearchIndexException {
+    ElasticsearchDocument buffered = getBufferedDocument(Event.DOCUMENT_TYPE, mediapackageId.concat(organization));
+    try {
+      if (buffered != null)
+        return EventIndexUtils.toRecordingEvent(toSearchMetadata(buffered));
+    } catch (IOException e) {
+      throw new SearchIndexException("Unable to read buffered event " + mediapackageId, e);
+    }
+    EventSearchQuery query = new EventSearchQuery(organization, user).withoutActions().withIdentifier(mediapackageId);
+    return getSingle(executeSearch(query), "recording events", mediapackageId);
+  }
+
+  /**
+   * Loads a series by its identifier. If an update of the series has been buffered, the buffered version is returned
+   * without writing it to the index.
+   *
+   * @param seriesId
+   *          the series identifier
+   * @param organization
+   *          the organization
+   * @param user
+   *          the user
+   * @return the series or <code>null</code> if not found
+   * @throws SearchIndexException
+   *           if querying the search index fails
+   * @throws IllegalStateException
+   *           if multiple series with the same identifier are found
+   */
+  public Series getSeries(String seriesId, String organization, User user) throws SearchIndexException {
+    ElasticsearchDocument buffered = getBufferedDocument(Series.DOCUMENT_TYPE, seriesId.concat(organization));
+    try {
+      if (buffered != null)
+        return SeriesIndexUtils.toSeries(toSearchMetadata(buffered));
+    } catch (IOException e) {
+      throw new SearchIndexException("Unable to read buffered series " + seriesId, e);
+    }
+    SeriesSearchQuery query = new SeriesSearchQuery(organization, user).withoutActions().withIdentifier(seriesId);
+    return getSingle(executeSearch(query), "series", seriesId);
+  }
+
+  /**
+   * Loads a group by its identifier. If an update of the group has been buffered, the buffered version is returned
+   * without writing it to the index.
+   *
+   * @param groupId
+   *          the group identifier
+   * @param organization
+   *          the organization
+   * @param user
+   *          the user
+   * @return the group or <code>null</code> if not found
+   * @throws SearchIndexException
+   *           if querying the search index fails
+   * @throws IllegalStateException
+   *           if multiple groups with the same identifier are found
+   */
+  public Group getGroup(String groupId, String organization, User user) throws SearchIndexException {
+    ElasticsearchDocument buffered = getBufferedDocument(Group.DOCUMENT_TYPE, groupId.concat(organization));
+    try {
+      if (buffered != null)
+        return GroupIndexUtils.toGroup(toSearchMetadata(buffered));
+    } catch (IOException e) {
+      throw new SearchIndexException("Unable to read buffered group " + groupId, e);
+    }
+    GroupSearchQuery query = new GroupSearchQuery(organization, user).withoutActions().withIdentifier(groupId);
+    return getSingle(executeSearch(query), "groups", groupId);
+  }
+
+  /**
+   * Loads a theme by its identifier. If an update of the theme has been buffered, the buffered version is returned
+   * without writing it to the index.
+   *
+   * @param themeId
+   *          the theme identifier
+   * @param organization
+   *          the organization
+   * @param user
+   *          the user
+   * @return the theme or <code>null</code> if not found
+   * @throws SearchIndexException
+   *           if querying the search index fails
+   * @throws IllegalStateException
+   *           if multiple themes with the same identifier are found
+   */
+  public Theme getTheme(long themeId, String organization, User user) throws SearchIndexException {
+    ElasticsearchDocument buffered = getBufferedDocument(Theme.DOCUMENT_TYPE, Long.toString(themeId).concat(
+            organization));
+    try {
+      if (buffered != null)
+        return ThemeIndexUtils.toTheme(toSearchMetadata(buffered));
+    } catch (IOException e) {
+      throw new SearchIndexException("Unable to read buffered theme " + themeId, e);
+    }
+    ThemeSearchQuery query = new ThemeSearchQuery(organization, user).withIdentifier(themeId);
+    return getSingle(executeSearch(query), "themes", themeId);
+  }
+
+  /**
+   * Returns the buffered version of a document as seen by the current thread, so that it can be read without writing
+   * it to the index first. If the document has not been buffered, it has been written and is searchable already. If
+   * it has only been buffered for another index than the one the current thread reads from, the buffer is written
+   * so that the document can be searched.
+   *
+   * @param documentType
+   *          the document type
+   * @param uid
+   *          the document identifier
+   * @return the buffered document or <code>null</code> if the document needs to be searched
+   * @throws SearchIndexException
+   *           if writing the buffer fails
+   */
+  private ElasticsearchDocument getBufferedDocument(String documentType, String uid) throws SearchIndexException {
+    String key = getPendingWriteKey(getRestrictedIndex(), documentType, uid);
+    synchronized (pendingWrites) {
+      PendingWrite buffered = pendingWrites.get(key);
+      boolean other = false;
+      for (PendingWrite write : pendingWrites.values()) {
+        if (write != buffered && documentType.equals(write.document.getType()) && uid.equals(write.document.getUID())) {
+          other = true;
+          break;
+        }
+      }
+      if (!other)
+        return buffered == null ? null : buffered.document;
+    }
+    flush();
+    return null;
+  }
+
+  /**
+   * Converts a document back into the metadata it has been created from.
+   *
+   * @param document
+   *          the document
+   * @return the metadata
+   */
+  private static SearchMetadataCollection toSearchMetadata(ElasticsearchDocument document) {
+    SearchMetadataCollection metadata = new SearchMetadataCollection(document.getUID(), document.getType());
+    for (Map.Entry<String, Object> field : document.entrySet()) {
+      SearchMetadata<Object> m = new SearchMetadataImpl<Object>(field.getKey());
+      if (field.getValue() instanceof Collection) {
+        for (Object v : (Collection<?>) field.getValue()) {
+          m.addValue(v);
+        }
+      } else {
+        m.addValue(field.getValue());
+      }
+      metadata.add(m);
+    }
+    return metadata;
+  }
+
+  /**
+   * Returns the only item of a search result.
+   *
+   * @param result
+   *          the search result
+   * @param description
+   *          the kind of items, used in the error message
+   * @param identifier
+   *          the identifier that has been searched for, used in the error message
+   * @return the item or <code>null</code> if the result is empty
+   * @throws IllegalStateException
+   *           if the result contains multiple items
+   */
+  private static <T> T getSingle(SearchResult<T> result, String description, Object identifier) {
+    if (result.getDocumentCount() == 0)
+      return null;
+    if (result.getDocumentCount() == 1)
+      return result.getItems()[0].getSource();
+    throw new IllegalStateException("Multiple " + description + " with identifier " + identifier
+            + " found in search index");
+  }
+
   /**
    * Returns all the known terms for a field (aka facets).
    *
@@ -561,9 +1270,14 @@ public abstract class AbstractSearchIndex extends AbstractElasticsearchIndex {
    * @return the list of terms
    */
   public List<String> getTermsForField(String field, Option<String[]> types) {
+    try {
+      flush();
+    } catch (SearchIndexException e) {
+      chuck(e);
+    }
     final String facetName = "terms";
     TermsBuilder aggBuilder = AggregationBuilders.terms(facetName).field(field);
-    SearchRequestBuilder search = getSearchClient().prepareSearch(getIndexName()).addAggregation(aggBuilder);
+    SearchRequestBuilder search = getSearchClient().prepareSearch(getQueryIndex()).addAggregation(aggBuilder);
 
     if (types.isSome())
       search = search.setTypes(types.get());
@@ -0,0 +1,176 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.index.service.impl.index;
+
+import org.opencastproject.message.broker.api.index.IndexRecreateObject.Service;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The progress of an index rebuild, persisted to a file so that an interrupted rebuild can be resumed. It records the
+ * physical index that is being rebuilt and the services that have finished to re-send their data to it.
+ */
+final class RebuildCheckpoint {
+
+  private static final String INDEX_KEY = "index";
+  private static final String COMPLETED_KEY = "completed";
+
+  /** The file the checkpoint is stored in, <code>null</code> if it is kept in memory only */
+  private final File file;
+
+  /** The physical index that is being rebuilt */
+  private String index;
+
+  /** The services that have finished to re-send their data */
+  private final Set<Service> completed = EnumSet.noneOf(Service.class);
+
+  private RebuildCheckpoint(File file) {
+    this.file = file;
+  }
+
+  /**
+   * Loads the checkpoint from the given file. If there is no such file, an empty checkpoint is returned.
+   *
+   * @param file
+   *          the checkpoint file, or <code>null</code> to keep the checkpoint in memory only
+   * @return the checkpoint
+   * @throws IOException
+   *           if the file cannot be read
+   */
+  static RebuildCheckpoint load(File file) throws IOException {
+    RebuildCheckpoint checkpoint = new RebuildCheckpoint(file);
+    if (file == null || !file.isFile())
+      return checkpoint;
+
+    Properties properties = new Properties();
+    InputStream in = null;
+    try {
+      in = new FileInputStream(file);
+      properties.load(in);
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+    checkpoint.index = StringUtils.trimToNull(properties.getProperty(INDEX_KEY));
+    for (String service : StringUtils.split(properties.getProperty(COMPLETED_KEY, ""), ',')) {
+      try {
+        checkpoint.completed.add(Service.valueOf(service.trim()));
+      } catch (IllegalArgumentException e) {
+        // Ignore services that do not exist anymore
+      }
+    }
+    return checkpoint;
+  }
+
+  /**
+   * Returns the physical index that is being rebuilt.
+   *
+   * @return the index name, or <code>null</code> if there is no rebuild in progress
+   */
+  String getIndex() {
+    return index;
+  }
+
+  /**
+   * Starts to record the progress of rebuilding the given physical index. The completed services are forgotten if they
+   * have been recorded for a different index.
+   *
+   * @param index
+   *          the physical index that is being rebuilt
+   * @throws IOException
+   *           if the checkpoint cannot be stored
+   */
+  void start(String index) throws IOException {
+    if (!index.equals(this.index))
+      completed.clear();
+    this.index = index;
+    save();
+  }
+
+  /**
+   * Returns <code>true</code> if the service has already re-sent its data to the index being rebuilt.
+   *
+   * @param service
+   *          the service
+   * @return whether the service is done
+   */
+  boolean isCompleted(Service service) {
+    return completed.contains(service);
+  }
+
+  /**
+   * Records that a service has re-sent all of its data.
+   *
+   * @param service
+   *          the service
+   * @throws IOException
+   *           if the checkpoint cannot be stored
+   */
+  void complete(Service service) throws IOException {
+    completed.add(service);
+    save();
+  }
+
+  /**
+   * Removes the checkpoint once the rebuild is finished.
+   */
+  void delete() {
+    index = null;
+    completed.clear();
+    FileUtils.deleteQuietly(file);
+  }
+
+  private void save() throws IOException {
+    if (file == null)
+      return;
+
+    Properties properties = new Properties();
+    properties.setProperty(INDEX_KEY, index);
+    properties.setProperty(COMPLETED_KEY, StringUtils.join(completed, ','));
+    FileUtils.forceMkdir(file.getParentFile());
+    File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+    OutputStream out = null;
+    try {
+      out = new FileOutputStream(tmp);
+      properties.store(out, "Progress of the index rebuild");
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+    if (!tmp.renameTo(file)) {
+      FileUtils.deleteQuietly(file);
+      FileUtils.moveFile(tmp, file);
+    }
+  }
+
+}
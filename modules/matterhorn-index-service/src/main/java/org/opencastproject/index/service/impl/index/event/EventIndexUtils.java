@@ -25,7 +25,6 @@ import static org.opencastproject.index.service.util.ListProviderUtil.splitStrin
 
 import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
 import org.opencastproject.index.service.impl.index.series.Series;
-import org.opencastproject.index.service.impl.index.series.SeriesSearchQuery;
 import org.opencastproject.matterhorn.search.SearchIndexException;
 import org.opencastproject.matterhorn.search.SearchMetadata;
 import org.opencastproject.matterhorn.search.SearchResult;
@@ -385,16 +384,8 @@ public final class EventIndexUtils {
    */
   public static Event getOrCreateEvent(String mediapackageId, String organization, User user,
           AbstractSearchIndex searchIndex) throws SearchIndexException {
-    EventSearchQuery query = new EventSearchQuery(organization, user).withoutActions().withIdentifier(mediapackageId);
-    SearchResult<Event> searchResult = searchIndex.getByQuery(query);
-    if (searchResult.getDocumentCount() == 0) {
-      return new Event(mediapackageId, organization);
-    } else if (searchResult.getDocumentCount() == 1) {
-      return searchResult.getItems()[0].getSource();
-    } else {
-      throw new IllegalStateException(
-              "Multiple recording events with identifier " + mediapackageId + " found in search index");
-    }
+    Event event = searchIndex.getEvent(mediapackageId, organization, user);
+    return event != null ? event : new Event(mediapackageId, organization);
   }
 
   /**
@@ -416,16 +407,7 @@ public final class EventIndexUtils {
    */
   public static Event getEvent(String mediapackageId, String organization, User user, AbstractSearchIndex searchIndex)
           throws SearchIndexException {
-    EventSearchQuery query = new EventSearchQuery(organization, user).withoutActions().withIdentifier(mediapackageId);
-    SearchResult<Event> searchResult = searchIndex.getByQuery(query);
-    if (searchResult.getDocumentCount() == 0) {
-      return null;
-    } else if (searchResult.getDocumentCount() == 1) {
-      return searchResult.getItems()[0].getSource();
-    } else {
-      throw new IllegalStateException(
-              "Multiple recording events with identifier " + mediapackageId + " found in search index");
-    }
+    return searchIndex.getEvent(mediapackageId, organization, user);
   }
 
   /**
@@ -586,10 +568,9 @@ public final class EventIndexUtils {
           int tries, long sleep) throws SearchIndexException {
     if (event.getSeriesId() != null) {
       for (int i = 1; i <= tries; i++) {
-        SearchResult<Series> result = searchIndex.getByQuery(
-                new SeriesSearchQuery(organization, user).withoutActions().withIdentifier(event.getSeriesId()));
-        if (result.getHitCount() > 0) {
-          event.setSeriesName(result.getItems()[0].getSource().getTitle());
+        Series series = searchIndex.getSeries(event.getSeriesId(), organization, user);
+        if (series != null) {
+          event.setSeriesName(series.getTitle());
           break;
         } else {
           Integer triesLeft = new Integer(tries - i);
@@ -25,7 +25,6 @@ package org.opencastproject.index.service.impl.index.group;
 import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
 import org.opencastproject.matterhorn.search.SearchIndexException;
 import org.opencastproject.matterhorn.search.SearchMetadata;
-import org.opencastproject.matterhorn.search.SearchResult;
 import org.opencastproject.matterhorn.search.impl.SearchMetadataCollection;
 import org.opencastproject.security.api.User;
 
@@ -113,14 +112,7 @@ public final class GroupIndexUtils {
    */
   public static Group getOrCreate(String groupId, String organization, User user, AbstractSearchIndex searchIndex)
           throws SearchIndexException {
-    GroupSearchQuery query = new GroupSearchQuery(organization, user).withoutActions().withIdentifier(groupId);
-    SearchResult<Group> searchResult = searchIndex.getByQuery(query);
-    if (searchResult.getDocumentCount() == 0) {
-      return new Group(groupId, organization);
-    } else if (searchResult.getDocumentCount() == 1) {
-      return searchResult.getItems()[0].getSource();
-    } else {
-      throw new IllegalStateException("Multiple groups with identifier " + groupId + " found in search index");
-    }
+    Group group = searchIndex.getGroup(groupId, organization, user);
+    return group != null ? group : new Group(groupId, organization);
   }
 }
@@ -200,15 +200,8 @@ public final class SeriesIndexUtils {
    */
   public static Series getOrCreate(String seriesId, String organization, User user, AbstractSearchIndex searchIndex)
           throws SearchIndexException {
-    SeriesSearchQuery query = new SeriesSearchQuery(organization, user).withoutActions().withIdentifier(seriesId);
-    SearchResult<Series> searchResult = searchIndex.getByQuery(query);
-    if (searchResult.getDocumentCount() == 0) {
-      return new Series(seriesId, organization);
-    } else if (searchResult.getDocumentCount() == 1) {
-      return searchResult.getItems()[0].getSource();
-    } else {
-      throw new IllegalStateException("Multiple series with identifier " + seriesId + " found in search index");
-    }
+    Series series = searchIndex.getSeries(seriesId, organization, user);
+    return series != null ? series : new Series(seriesId, organization);
   }
 
   /**
@@ -25,7 +25,6 @@ package org.opencastproject.index.service.impl.index.theme;
 import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
 import org.opencastproject.matterhorn.search.SearchIndexException;
 import org.opencastproject.matterhorn.search.SearchMetadata;
-import org.opencastproject.matterhorn.search.SearchResult;
 import org.opencastproject.matterhorn.search.impl.SearchMetadataCollection;
 import org.opencastproject.security.api.User;
 
@@ -162,15 +161,8 @@ public final class ThemeIndexUtils {
    */
   public static Theme getOrCreate(long themeId, String organization, User user, AbstractSearchIndex searchIndex)
           throws SearchIndexException {
-    ThemeSearchQuery query = new ThemeSearchQuery(organization, user).withIdentifier(themeId);
-    SearchResult<Theme> searchResult = searchIndex.getByQuery(query);
-    if (searchResult.getDocumentCount() == 0) {
-      return new Theme(themeId, organization);
-    } else if (searchResult.getDocumentCount() == 1) {
-      return searchResult.getItems()[0].getSource();
-    } else {
-      throw new IllegalStateException("Multiple themes with identifier " + themeId + " found in search index");
-    }
+    Theme theme = searchIndex.getTheme(themeId, organization, user);
+    return theme != null ? theme : new Theme(themeId, organization);
   }
 
 }
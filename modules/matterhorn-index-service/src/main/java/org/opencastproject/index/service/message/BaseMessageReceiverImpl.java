@@ -23,6 +23,7 @@ package org.opencastproject.index.service.message;
 
 import org.opencastproject.index.IndexProducer;
 import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
+import org.opencastproject.index.service.message.jmx.MessageReceiverStatistics;
 import org.opencastproject.message.broker.api.BaseMessage;
 import org.opencastproject.message.broker.api.MessageReceiver;
 import org.opencastproject.message.broker.api.MessageSender;
@@ -32,6 +33,7 @@ import org.opencastproject.message.broker.api.index.IndexRecreateObject.Status;
 import org.opencastproject.security.api.SecurityService;
 import org.opencastproject.util.OsgiUtil;
 import org.opencastproject.util.data.Effect2;
+import org.opencastproject.util.jmx.JmxUtil;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.osgi.service.component.ComponentContext;
@@ -39,15 +41,38 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
+import javax.management.ObjectInstance;
+
+/**
+ * Base class for the receivers that update the search index from the messages of a message broker destination.
+ * <p>
+ * Messages are received by a single thread and handed to a configurable number of workers (component property
+ * <code>workers</code>, default 1). Messages are partitioned by the identifier of the entity that they refer to, so
+ * messages about the same entity are always processed by the same worker, in the order they have been received.
+ * Statistics about the queue depth and about the lag between a message being sent to the broker and being processed
+ * are exposed via JMX.
+ */
 public abstract class BaseMessageReceiverImpl<T extends Serializable> {
 
   private static final String DESTINATION_ID_KEY = "destinationId";
+  private static final String WORKERS_KEY = "workers";
+  private static final String JMX_MESSAGE_RECEIVER_STATISTICS_TYPE = "MessageReceiverStatistics";
+
+  /** The number of messages that may wait for a worker before receiving further messages blocks */
+  private static final int WORKER_QUEUE_CAPACITY = 100;
+
   private static final Logger logger = LoggerFactory.getLogger(BaseMessageReceiverImpl.class);
   private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
 
@@ -59,6 +84,10 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
   private MessageReceiverLockService lockService;
   private String destinationId;
   private MessageSender.DestinationType destinationType;
+  private List<Worker> workers;
+  private ExecutorService workerExecutor;
+  private MessageReceiverStatistics statistics;
+  private ObjectInstance registeredMXBean;
 
   public BaseMessageReceiverImpl(MessageSender.DestinationType destinationType) {
     this.destinationType = destinationType;
@@ -68,6 +97,25 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
     logger.info("Activating {}", this.getClass().getName());
     destinationId = OsgiUtil.getComponentContextProperty(cc, DESTINATION_ID_KEY);
     logger.info("The {} for this message receiver is '{}'", DESTINATION_ID_KEY, destinationId);
+    int workerCount = OsgiUtil.getOptCfgAsInt(cc.getProperties(), WORKERS_KEY).getOrElse(1);
+    if (workerCount < 1) {
+      logger.warn("Invalid number of workers {} for message receiver '{}', using a single worker", workerCount,
+              destinationId);
+      workerCount = 1;
+    }
+    logger.info("Processing messages of '{}' with {} workers", destinationId, workerCount);
+
+    statistics = new MessageReceiverStatistics(workerCount);
+    registeredMXBean = JmxUtil.registerMXBean(statistics, JMX_MESSAGE_RECEIVER_STATISTICS_TYPE + ",destination="
+            + destinationId);
+    workers = new ArrayList<Worker>(workerCount);
+    workerExecutor = Executors.newFixedThreadPool(workerCount);
+    for (int i = 0; i < workerCount; i++) {
+      Worker worker = new Worker();
+      workers.add(worker);
+      workerExecutor.execute(worker);
+    }
+
     messageWatcher = new MessageWatcher(lockService);
     singleThreadExecutor.execute(messageWatcher);
   }
@@ -77,7 +125,16 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
     if (messageWatcher != null)
       messageWatcher.stopListening();
 
-    singleThreadExecutor.shutdown();
+    // Interrupt the watcher as well, it may be waiting for a worker that is not going to take any more messages
+    singleThreadExecutor.shutdownNow();
+
+    if (workerExecutor != null)
+      workerExecutor.shutdownNow();
+    if (statistics != null && statistics.getQueueDepth() > 0)
+      logger.warn("Dropped {} unprocessed messages of '{}'", statistics.getQueueDepth(), destinationId);
+
+    if (registeredMXBean != null)
+      JmxUtil.unregisterMXBean(registeredMXBean);
   }
 
   protected abstract void execute(T messageContent);
@@ -102,8 +159,8 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
 
     private final Logger logger = LoggerFactory.getLogger(MessageWatcher.class);
 
-    private boolean listening = true;
-    private FutureTask<Serializable> future;
+    private volatile boolean listening = true;
+    private volatile FutureTask<Serializable> future;
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private final String clazzName = BaseMessageReceiverImpl.this.getClass().getName();
     private final MessageReceiverLockService lockService;
@@ -114,7 +171,9 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
 
     public void stopListening() {
       this.listening = false;
-      future.cancel(true);
+      if (future != null)
+        future.cancel(true);
+      executor.shutdownNow();
     }
 
     @Override
@@ -132,13 +191,20 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
           securityService.setUser(baseMessage.getUser());
           if (baseMessage.getObject() instanceof IndexRecreateObject) {
             IndexRecreateObject obj = (IndexRecreateObject) baseMessage.getObject();
-            if (Status.End.equals(obj.getStatus()))
+            if (Status.End.equals(obj.getStatus())) {
+              // Only report the end of the index recreation once all of its messages have been processed
+              awaitWorkers();
               messageSender.sendObjectMessage(IndexProducer.RESPONSE_QUEUE, MessageSender.DestinationType.Queue,
                       IndexRecreateObject.end(obj.getIndexName(), obj.getService()));
+            }
           } else {
-            lockService.synchronize(baseMessage.getId().get(), execute.curry(baseMessage.getObject()).toFn());
+            dispatch(baseMessage);
           }
         } catch (InterruptedException e) {
+          if (!listening) {
+            logger.trace("Listening for messages {} has been interrupted.", clazzName);
+            break;
+          }
           logger.error("Problem while getting {} message events {}", clazzName, ExceptionUtils.getStackTrace(e));
         } catch (ExecutionException e) {
           logger.error("Problem while getting {} message events {}", clazzName, ExceptionUtils.getStackTrace(e));
@@ -155,6 +221,118 @@ public abstract class BaseMessageReceiverImpl<T extends Serializable> {
     }
   }
 
+  /**
+   * Hands a message to the worker that is responsible for the entity it refers to, blocking while the worker's queue is
+   * full.
+   */
+  private void dispatch(BaseMessage message) throws InterruptedException {
+    int partition = 0;
+    if (message.getId().isSome())
+      partition = (message.getId().get().hashCode() & Integer.MAX_VALUE) % workers.size();
+    statistics.queued();
+    try {
+      long sent = message.getTimestamp() > 0 ? message.getTimestamp() : System.currentTimeMillis();
+      workers.get(partition).put(new MessageTask(message, sent));
+    } catch (InterruptedException e) {
+      statistics.dropped();
+      throw e;
+    }
+  }
+
+  /**
+   * Waits until all workers have processed the messages that have been handed to them so far.
+   */
+  private void awaitWorkers() throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(workers.size());
+    for (Worker worker : workers) {
+      worker.put(new Runnable() {
+        @Override
+        public void run() {
+          latch.countDown();
+        }
+      });
+    }
+    latch.await();
+  }
+
+  /** A worker processing the messages of one partition in the order they have been received. */
+  private static final class Worker implements Runnable {
+
+    private final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<Runnable>(WORKER_QUEUE_CAPACITY);
+
+    void put(Runnable task) throws InterruptedException {
+      queue.put(task);
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          queue.take().run();
+        }
+      } catch (InterruptedException e) {
+        logger.trace("Message receiver worker has been interrupted");
+      }
+    }
+
+  }
+
+  /** Processes a single message within the security context of its sender. */
+  private final class MessageTask implements Runnable {
+
+    private final BaseMessage message;
+    private final long sent;
+
+    MessageTask(BaseMessage message, long sent) {
+      this.message = message;
+      this.sent = sent;
+    }
+
+    @Override
+    public void run() {
+      long started = System.nanoTime();
+      boolean success = false;
+      try {
+        securityService.setOrganization(message.getOrganization());
+        securityService.setUser(message.getUser());
+        String rebuildIndex = index == null ? null : index.getRebuildIndex();
+        if (rebuildIndex == null) {
+          lockService.synchronize(message.getId().get(), execute.curry(message.getObject()).toFn());
+        } else {
+          // Updates are based on the documents found in the index, so apply them to each index on its own
+          executeRestrictedTo(index.getIndexName());
+          executeRestrictedTo(rebuildIndex);
+        }
+        success = true;
+      } catch (Throwable t) {
+        logger.error("Problem while processing {} message {}", BaseMessageReceiverImpl.this.getClass().getName(),
+                ExceptionUtils.getStackTrace(t));
+      } finally {
+        securityService.setOrganization(null);
+        securityService.setUser(null);
+        long processingTime = System.nanoTime() - started;
+        long lag = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, System.currentTimeMillis() - sent));
+        statistics.processed(success, lag, processingTime);
+      }
+    }
+
+    /**
+     * Processes the message with all reads and writes of the search index restricted to a single index.
+     *
+     * @param idx
+     *          the index
+     */
+    private void executeRestrictedTo(String idx) {
+      index.restrictTo(idx);
+      try {
+        lockService.synchronize(message.getId().get(), execute.curry(message.getObject()).toFn());
+      } finally {
+        index.restrictTo(null);
+      }
+    }
+
+  }
+
   private final Effect2<Serializable, String> execute = new Effect2<Serializable, String>() {
     @Override
     @SuppressWarnings("unchecked")
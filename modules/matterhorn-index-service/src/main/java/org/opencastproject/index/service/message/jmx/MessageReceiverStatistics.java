@@ -0,0 +1,137 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.index.service.message.jmx;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MessageReceiverStatistics implements MessageReceiverStatisticsMXBean {
+
+  private final int workers;
+  private final AtomicInteger queueDepth = new AtomicInteger();
+  private final AtomicLong processed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong lastLag = new AtomicLong();
+  private final AtomicLong totalLag = new AtomicLong();
+  private final AtomicLong totalProcessingTime = new AtomicLong();
+
+  public MessageReceiverStatistics(int workers) {
+    this.workers = workers;
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.jmx.MessageReceiverStatisticsMXBean#getWorkers()
+   */
+  @Override
+  public int getWorkers() {
+    return workers;
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.jmx.MessageReceiverStatisticsMXBean#getQueueDepth()
+   */
+  @Override
+  public int getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.jmx.MessageReceiverStatisticsMXBean#getProcessedMessages()
+   */
+  @Override
+  public long getProcessedMessages() {
+    return processed.get();
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.jmx.MessageReceiverStatisticsMXBean#getFailedMessages()
+   */
+  @Override
+  public long getFailedMessages() {
+    return failed.get();
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.jmx.MessageReceiverStatisticsMXBean#getLastProcessingLag()
+   */
+  @Override
+  public long getLastProcessingLag() {
+    return TimeUnit.NANOSECONDS.toMillis(lastLag.get());
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.jmx.MessageReceiverStatisticsMXBean#getAverageProcessingLag()
+   */
+  @Override
+  public long getAverageProcessingLag() {
+    long count = processed.get() + failed.get();
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLag.get() / count);
+  }
+
+  /**
+   * @see org.opencastproject.index.service.message.jmx.MessageReceiverStatisticsMXBean#getAverageProcessingTime()
+   */
+  @Override
+  public long getAverageProcessingTime() {
+    long count = processed.get() + failed.get();
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalProcessingTime.get() / count);
+  }
+
+  /**
+   * Records a message that has been handed to a worker.
+   */
+  public void queued() {
+    queueDepth.incrementAndGet();
+  }
+
+  /**
+   * Records a message that has been dropped before being processed.
+   */
+  public void dropped() {
+    queueDepth.decrementAndGet();
+  }
+
+  /**
+   * Records a message that has been processed.
+   *
+   * @param success
+   *          whether processing the message succeeded
+   * @param lag
+   *          the time between the message being sent to the broker and processing it finished, in nanoseconds
+   * @param processingTime
+   *          the time it took to process the message, in nanoseconds
+   */
+  public void processed(boolean success, long lag, long processingTime) {
+    queueDepth.decrementAndGet();
+    lastLag.set(lag);
+    totalLag.addAndGet(lag);
+    totalProcessingTime.addAndGet(processingTime);
+    if (success) {
+      processed.incrementAndGet();
+    } else {
+      failed.incrementAndGet();
+    }
+  }
+
+}
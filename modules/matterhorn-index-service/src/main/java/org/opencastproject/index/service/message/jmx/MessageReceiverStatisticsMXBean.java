@@ -0,0 +1,79 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.index.service.message.jmx;
+
+/**
+ * JMX Bean interface exposing the statistics of an index message receiver.
+ */
+public interface MessageReceiverStatisticsMXBean {
+
+  /**
+   * Gets the number of workers processing messages in parallel
+   *
+   * @return the number of workers
+   */
+  int getWorkers();
+
+  /**
+   * Gets the number of messages that have been received but not yet processed
+   *
+   * @return the number of waiting messages
+   */
+  int getQueueDepth();
+
+  /**
+   * Gets the number of successfully processed messages
+   *
+   * @return the number of messages
+   */
+  long getProcessedMessages();
+
+  /**
+   * Gets the number of messages that failed to be processed
+   *
+   * @return the number of messages
+   */
+  long getFailedMessages();
+
+  /**
+   * Gets the time between sending the last message to the broker and finishing to process it in milliseconds
+   *
+   * @return the processing lag
+   */
+  long getLastProcessingLag();
+
+  /**
+   * Gets the average time between sending a message to the broker and finishing to process it in milliseconds
+   *
+   * @return the average processing lag
+   */
+  long getAverageProcessingLag();
+
+  /**
+   * Gets the average time that it took to process a message once a worker picked it up in milliseconds
+   *
+   * @return the average processing time
+   */
+  long getAverageProcessingTime();
+
+}
@@ -25,10 +25,7 @@ import org.opencastproject.index.service.impl.index.AbstractSearchIndex;
 import org.opencastproject.index.service.impl.index.event.Event;
 import org.opencastproject.index.service.impl.index.event.EventIndexUtils;
 import org.opencastproject.index.service.impl.index.series.Series;
-import org.opencastproject.index.service.impl.index.series.SeriesSearchQuery;
 import org.opencastproject.matterhorn.search.SearchIndexException;
-import org.opencastproject.matterhorn.search.SearchResult;
-import org.opencastproject.matterhorn.search.SearchResultItem;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
@@ -39,8 +36,6 @@ import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.ArrayList;
-
 public class EventIndexUtilsTest {
 
   private User user;
@@ -59,27 +54,20 @@ public class EventIndexUtilsTest {
     String eventId = "my_event";
 
     // Mocks
-    @SuppressWarnings("unchecked")
-    SearchResult<Series> emptyResult = EasyMock.createMock(SearchResult.class);
-    EasyMock.expect(emptyResult.getHitCount()).andReturn(0L).anyTimes();
-
     Event event = EasyMock.createMock(Event.class);
     EasyMock.expect(event.getSeriesId()).andReturn(seriesId).anyTimes();
     EasyMock.expect(event.getSeriesName()).andReturn(null).anyTimes();
     EasyMock.expect(event.getIdentifier()).andReturn(eventId).anyTimes();
 
     AbstractSearchIndex searchIndex = EasyMock.createMock(AbstractSearchIndex.class);
-    EasyMock.expect(searchIndex.getByQuery(EasyMock.anyObject(SeriesSearchQuery.class))).andReturn(emptyResult);
-    EasyMock.expect(searchIndex.getByQuery(EasyMock.anyObject(SeriesSearchQuery.class))).andReturn(emptyResult);
-    EasyMock.expect(searchIndex.getByQuery(EasyMock.anyObject(SeriesSearchQuery.class))).andReturn(emptyResult);
+    EasyMock.expect(searchIndex.getSeries(seriesId, defaultOrganization.getId(), user)).andReturn(null).times(3);
 
-    EasyMock.replay(emptyResult, event, searchIndex);
+    EasyMock.replay(event, searchIndex);
     // Run test
     EventIndexUtils.updateSeriesName(event, defaultOrganization.getId(), user, searchIndex, 3, 50L);
   }
 
   @Test
-  @SuppressWarnings("unchecked")
   public void testUpdateSeriesNameInputSeriesEventuallyAddedToIndexExpectsSetsName() throws SearchIndexException {
     // Input data
     String seriesId = "my_series";
@@ -88,16 +76,6 @@ public class EventIndexUtilsTest {
     // Mocks
     Series series = EasyMock.createMock(Series.class);
     EasyMock.expect(series.getTitle()).andReturn(seriesId);
-    SearchResultItem<Series> seriesResult = EasyMock.createMock(SearchResultItem.class);
-    EasyMock.expect(seriesResult.getSource()).andReturn(series);
-    ArrayList<SearchResultItem<Series>> seriesCollection = new ArrayList<SearchResultItem<Series>>();
-    seriesCollection.add(seriesResult);
-
-    SearchResult<Series> eventuallyResult = EasyMock.createMock(SearchResult.class);
-    EasyMock.expect(eventuallyResult.getHitCount()).andReturn(0L);
-    EasyMock.expect(eventuallyResult.getHitCount()).andReturn(0L);
-    EasyMock.expect(eventuallyResult.getHitCount()).andReturn(1L);
-    EasyMock.expect(eventuallyResult.getItems()).andReturn(seriesCollection.toArray(new SearchResultItem[1]));
 
     Event event = EasyMock.createMock(Event.class);
     EasyMock.expect(event.getSeriesId()).andReturn(seriesId).anyTimes();
@@ -107,11 +85,10 @@ public class EventIndexUtilsTest {
     EasyMock.expectLastCall();
 
     AbstractSearchIndex searchIndex = EasyMock.createMock(AbstractSearchIndex.class);
-    EasyMock.expect(searchIndex.getByQuery(EasyMock.anyObject(SeriesSearchQuery.class))).andReturn(eventuallyResult);
-    EasyMock.expect(searchIndex.getByQuery(EasyMock.anyObject(SeriesSearchQuery.class))).andReturn(eventuallyResult);
-    EasyMock.expect(searchIndex.getByQuery(EasyMock.anyObject(SeriesSearchQuery.class))).andReturn(eventuallyResult);
+    EasyMock.expect(searchIndex.getSeries(seriesId, defaultOrganization.getId(), user)).andReturn(null).times(2);
+    EasyMock.expect(searchIndex.getSeries(seriesId, defaultOrganization.getId(), user)).andReturn(series);
 
-    EasyMock.replay(eventuallyResult, event, searchIndex, series, seriesResult);
+    EasyMock.replay(event, searchIndex, series);
     // Run test
     EventIndexUtils.updateSeriesName(event, defaultOrganization.getId(), user, searchIndex, 3, 50L);
   }
@@ -0,0 +1,385 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.index.service.impl.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.opencastproject.index.service.impl.index.group.Group;
+import org.opencastproject.index.service.impl.index.group.GroupIndexSchema;
+import org.opencastproject.index.service.impl.index.group.GroupIndexUtils;
+import org.opencastproject.index.service.impl.index.group.GroupSearchQuery;
+import org.opencastproject.matterhorn.search.SearchIndexException;
+import org.opencastproject.matterhorn.search.SearchQuery;
+import org.opencastproject.matterhorn.search.impl.AbstractElasticsearchIndex;
+import org.opencastproject.matterhorn.search.impl.ElasticsearchDocument;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbUser;
+
+import org.easymock.EasyMock;
+import org.elasticsearch.action.ListenableActionFuture;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse.Failure;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequestBuilder;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.After;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AbstractSearchIndexTest {
+
+  private static final String ORGANIZATION = DefaultOrganization.DEFAULT_ORGANIZATION_ID;
+
+  /** A write window that does not pass while a test is running */
+  private static final long LONG_WRITE_WINDOW = 60000L;
+
+  private TestSearchIndex idx;
+
+  @After
+  public void tearDown() throws Exception {
+    if (idx != null)
+      idx.close();
+  }
+
+  @Test
+  public void testUpdatesOfADocumentAreMerged() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    idx.addOrUpdate(newGroup("group1", "first"));
+    idx.addOrUpdate(newGroup("group2", "other"));
+    idx.addOrUpdate(newGroup("group1", "second"));
+    assertEquals(0, idx.getBulks().size());
+
+    idx.flush();
+    assertEquals(1, idx.getBulks().size());
+    List<ElasticsearchDocument> documents = idx.getBulks().get(0);
+    assertEquals(2, documents.size());
+    assertEquals(Arrays.asList("second"), documents.get(0).get(GroupIndexSchema.NAME));
+    assertEquals(Arrays.asList("other"), documents.get(1).get(GroupIndexSchema.NAME));
+
+    // Nothing is left to be written
+    idx.flush();
+    assertEquals(1, idx.getBulks().size());
+  }
+
+  @Test
+  public void testPendingWritesAreFlushedAfterWriteWindow() throws Exception {
+    idx = new TestSearchIndex(50L);
+    idx.addOrUpdate(newGroup("group1", "first"));
+    idx.addOrUpdate(newGroup("group1", "second"));
+
+    long timeout = System.currentTimeMillis() + 10000L;
+    while (idx.getBulks().isEmpty() && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10L);
+    }
+    assertEquals(1, idx.getBulks().size());
+    assertEquals(1, idx.getBulks().get(0).size());
+  }
+
+  @Test
+  public void testRefreshWritesImmediately() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    idx.addOrUpdate(newGroup("group1", "first"));
+    idx.addOrUpdate(newGroup("group2", "second"), true);
+    assertEquals(1, idx.getBulks().size());
+    assertEquals(2, idx.getBulks().get(0).size());
+  }
+
+  @Test
+  public void testQueryFlushesPendingWrites() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    idx.addOrUpdate(newGroup("group1", "first"));
+    try {
+      idx.getByQuery(new GroupSearchQuery(ORGANIZATION, new JaxbUser("admin", "test", new DefaultOrganization())));
+      fail("The test index does not search");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+    assertEquals(Integer.valueOf(1), idx.getBulksBeforeQuery());
+  }
+
+  @Test
+  public void testQueryFailsIfPendingWritesCannotBeFlushed() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    idx.addOrUpdate(newGroup("group1", "first"));
+    idx.setFailing(true);
+    try {
+      idx.getByQuery(new GroupSearchQuery(ORGANIZATION, new JaxbUser("admin", "test", new DefaultOrganization())));
+      fail("The failed flush has not been reported");
+    } catch (SearchIndexException e) {
+      // Expected
+    }
+    assertNull(idx.getBulksBeforeQuery());
+  }
+
+  @Test
+  public void testReadModifyWriteUpdatesAreMerged() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    JaxbUser user = new JaxbUser("admin", "test", new DefaultOrganization());
+    idx.addOrUpdate(newGroup("group1", "update"));
+    for (int i = 0; i < 5; i++) {
+      Group group = GroupIndexUtils.getOrCreate("group1", ORGANIZATION, user, idx);
+      group.setName(group.getName() + i);
+      idx.addOrUpdate(group);
+    }
+    assertEquals(0, idx.getBulks().size());
+    assertNull(idx.getBulksBeforeQuery());
+
+    idx.flush();
+    assertEquals(1, idx.getBulks().size());
+    assertEquals(1, idx.getBulks().get(0).size());
+    assertEquals(Arrays.asList("update01234"), idx.getBulks().get(0).get(0).get(GroupIndexSchema.NAME));
+  }
+
+  @Test
+  public void testReadingUnbufferedDocumentDoesNotFlush() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    idx.addOrUpdate(newGroup("group1", "first"));
+    try {
+      idx.getGroup("group2", ORGANIZATION, new JaxbUser("admin", "test", new DefaultOrganization()));
+      fail("The test index does not search");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+    assertEquals(Integer.valueOf(0), idx.getBulksBeforeQuery());
+  }
+
+  @Test
+  public void testDeleteDropsPendingWrite() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    Group group = newGroup("group1", "first");
+    idx.addOrUpdate(group);
+    assertTrue(idx.delete(Group.DOCUMENT_TYPE, group.getIdentifier().concat(ORGANIZATION)));
+
+    idx.flush();
+    assertEquals(0, idx.getBulks().size());
+  }
+
+  @Test
+  public void testFullBufferIsFlushed() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    for (int i = 0; i < AbstractSearchIndex.MAX_BUFFERED_DOCUMENTS - 1; i++) {
+      idx.addOrUpdate(newGroup("group" + i, "name"));
+    }
+    // Updating a buffered document does not grow the buffer
+    idx.addOrUpdate(newGroup("group0", "other name"));
+    assertEquals(0, idx.getBulks().size());
+
+    idx.addOrUpdate(newGroup("last", "name"));
+    assertEquals(1, idx.getBulks().size());
+    assertEquals(AbstractSearchIndex.MAX_BUFFERED_DOCUMENTS, idx.getBulks().get(0).size());
+  }
+
+  @Test
+  public void testFailedWritesAreKept() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    idx.addOrUpdate(newGroup("group1", "first"));
+    idx.addOrUpdate(newGroup("group2", "second"));
+    idx.addOrUpdate(newGroup("group3", "third"));
+
+    idx.setFailing(true);
+    try {
+      idx.flush();
+      fail("The failed flush has not been reported");
+    } catch (SearchIndexException e) {
+      // Expected
+    }
+
+    // A temporary failure of a single document keeps it, a rejected document is dropped
+    idx.setFailing(false);
+    idx.setStatus("group2" + ORGANIZATION, RestStatus.TOO_MANY_REQUESTS);
+    idx.setStatus("group3" + ORGANIZATION, RestStatus.BAD_REQUEST);
+    try {
+      idx.flush();
+      fail("The failed documents have not been reported");
+    } catch (SearchIndexException e) {
+      // Expected
+    }
+    assertEquals(3, idx.getBulks().get(0).size());
+
+    idx.setStatus("group2" + ORGANIZATION, null);
+    idx.flush();
+    assertEquals(2, idx.getBulks().size());
+    assertEquals(1, idx.getBulks().get(1).size());
+    assertEquals("group2" + ORGANIZATION, idx.getBulks().get(1).get(0).getUID());
+  }
+
+  @Test
+  public void testRestrictedUpdatesAreWrittenToTheirIndex() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    idx.addOrUpdate(newGroup("group1", "unrestricted"));
+    idx.restrictTo("test");
+    idx.addOrUpdate(newGroup("group1", "live"));
+    idx.restrictTo("test_rebuilt");
+    idx.addOrUpdate(newGroup("group1", "rebuilt"));
+    idx.restrictTo(null);
+
+    idx.flush();
+    assertEquals(Arrays.asList(null, "test", "test_rebuilt"), idx.getTargets());
+    assertEquals(Arrays.asList("unrestricted"), idx.getBulks().get(0).get(0).get(GroupIndexSchema.NAME));
+    assertEquals(Arrays.asList("live"), idx.getBulks().get(1).get(0).get(GroupIndexSchema.NAME));
+    assertEquals(Arrays.asList("rebuilt"), idx.getBulks().get(2).get(0).get(GroupIndexSchema.NAME));
+  }
+
+  @Test
+  public void testRestrictedDeleteKeepsPendingWritesOfOtherIndex() throws Exception {
+    idx = new TestSearchIndex(LONG_WRITE_WINDOW);
+    Group group = newGroup("group1", "first");
+    idx.restrictTo("test");
+    idx.addOrUpdate(group);
+    idx.restrictTo("test_rebuilt");
+    idx.addOrUpdate(group);
+    assertTrue(idx.delete(Group.DOCUMENT_TYPE, group.getIdentifier().concat(ORGANIZATION)));
+    idx.restrictTo(null);
+
+    idx.flush();
+    assertEquals(Arrays.asList("test"), idx.getTargets());
+  }
+
+  private static Group newGroup(String identifier, String name) {
+    Group group = new Group(identifier, ORGANIZATION);
+    group.setName(name);
+    return group;
+  }
+
+  /**
+   * A search index recording the bulk requests instead of sending them to Elasticsearch.
+   */
+  private static final class TestSearchIndex extends AbstractSearchIndex {
+
+    private final List<List<ElasticsearchDocument>> bulks = new ArrayList<List<ElasticsearchDocument>>();
+    private final List<String> targets = new ArrayList<String>();
+    private final Map<String, RestStatus> statuses = new HashMap<String, RestStatus>();
+    private final Client client;
+    private boolean failing = false;
+    private Integer bulksBeforeQuery = null;
+
+    TestSearchIndex(long writeWindow) throws Exception {
+      BundleContext bundleContext = EasyMock.createNiceMock(BundleContext.class);
+      EasyMock.expect(bundleContext.getProperty(AbstractElasticsearchIndex.ELASTICSEARCH_CONFIG_DIR_KEY))
+              .andReturn("target/elasticsearch").anyTimes();
+      EasyMock.expect(bundleContext.getProperty(WRITE_WINDOW_KEY)).andReturn(Long.toString(writeWindow)).anyTimes();
+      ComponentContext cc = EasyMock.createNiceMock(ComponentContext.class);
+      EasyMock.expect(cc.getBundleContext()).andReturn(bundleContext).anyTimes();
+      EasyMock.replay(bundleContext, cc);
+      activate(cc);
+
+      // Nothing is found on the index itself
+      DeleteRequestBuilder deleteRequest = EasyMock.createNiceMock(DeleteRequestBuilder.class);
+      @SuppressWarnings("unchecked")
+      ListenableActionFuture<DeleteResponse> deleteFuture = EasyMock.createNiceMock(ListenableActionFuture.class);
+      EasyMock.expect(deleteRequest.setRefresh(EasyMock.anyBoolean())).andReturn(deleteRequest).anyTimes();
+      EasyMock.expect(deleteRequest.execute()).andReturn(deleteFuture).anyTimes();
+      EasyMock.expect(deleteFuture.actionGet()).andReturn(new DeleteResponse(getIndexName(), "", "", 1L, false))
+              .anyTimes();
+      client = EasyMock.createNiceMock(Client.class);
+      EasyMock.expect(client.prepareDelete((String) EasyMock.anyObject(), (String) EasyMock.anyObject(),
+              (String) EasyMock.anyObject())).andReturn(deleteRequest).anyTimes();
+      EasyMock.replay(deleteRequest, deleteFuture, client);
+    }
+
+    @Override
+    public String getIndexName() {
+      return "test";
+    }
+
+    @Override
+    public String[] getDocumenTypes() {
+      return new String[] { Group.DOCUMENT_TYPE };
+    }
+
+    @Override
+    public void close() throws IOException {
+      super.close();
+    }
+
+    @Override
+    protected Client getSearchClient() {
+      return client;
+    }
+
+    @Override
+    protected synchronized SearchRequestBuilder getSearchRequestBuilder(SearchQuery query, QueryBuilder queryBuilder) {
+      bulksBeforeQuery = bulks.size();
+      throw new IllegalStateException("Not searching in this test");
+    }
+
+    @Override
+    protected synchronized BulkResponse post(String target, boolean refresh, ElasticsearchDocument... documents)
+            throws SearchIndexException {
+      if (failing)
+        throw new SearchIndexException("Index is not available");
+      bulks.add(Arrays.asList(documents));
+      targets.add(target);
+      BulkItemResponse[] items = new BulkItemResponse[documents.length];
+      for (int i = 0; i < documents.length; i++) {
+        ElasticsearchDocument document = documents[i];
+        RestStatus status = statuses.get(document.getUID());
+        if (status == null) {
+          items[i] = new BulkItemResponse(i, "index", new IndexResponse(getIndexName(), document.getType(),
+                  document.getUID(), 1L, true));
+        } else {
+          items[i] = new BulkItemResponse(i, "index", new Failure(getIndexName(), document.getType(),
+                  document.getUID(), status.name(), status));
+        }
+      }
+      return new BulkResponse(items, 1L);
+    }
+
+    synchronized List<List<ElasticsearchDocument>> getBulks() {
+      return new ArrayList<List<ElasticsearchDocument>>(bulks);
+    }
+
+    synchronized List<String> getTargets() {
+      return new ArrayList<String>(targets);
+    }
+
+    synchronized Integer getBulksBeforeQuery() {
+      return bulksBeforeQuery;
+    }
+
+    synchronized void setFailing(boolean failing) {
+      this.failing = failing;
+    }
+
+    synchronized void setStatus(String uid, RestStatus status) {
+      statuses.put(uid, status);
+    }
+
+  }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.index.service.impl.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.message.broker.api.index.IndexRecreateObject.Service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class RebuildCheckpointTest {
+
+  @Rule
+  public TemporaryFolder testFolder = new TemporaryFolder();
+
+  @Test
+  public void testResume() throws Exception {
+    File file = new File(testFolder.getRoot(), "index/adminui-rebuild.properties");
+    RebuildCheckpoint checkpoint = RebuildCheckpoint.load(file);
+    assertNull(checkpoint.getIndex());
+
+    checkpoint.start("adminui_1");
+    checkpoint.complete(Service.Groups);
+    checkpoint.complete(Service.Acl);
+
+    RebuildCheckpoint resumed = RebuildCheckpoint.load(file);
+    assertEquals("adminui_1", resumed.getIndex());
+    assertTrue(resumed.isCompleted(Service.Groups));
+    assertTrue(resumed.isCompleted(Service.Acl));
+    assertFalse(resumed.isCompleted(Service.Themes));
+
+    resumed.delete();
+    assertFalse(file.exists());
+    assertNull(RebuildCheckpoint.load(file).getIndex());
+  }
+
+  @Test
+  public void testNewIndexForgetsCompletedServices() throws Exception {
+    File file = new File(testFolder.getRoot(), "adminui-rebuild.properties");
+    RebuildCheckpoint checkpoint = RebuildCheckpoint.load(file);
+    checkpoint.start("adminui_1");
+    checkpoint.complete(Service.Series);
+
+    // The index of the previous rebuild is gone, so the rebuild starts over
+    RebuildCheckpoint restarted = RebuildCheckpoint.load(file);
+    restarted.start("adminui_2");
+    assertFalse(restarted.isCompleted(Service.Series));
+    assertFalse(RebuildCheckpoint.load(file).isCompleted(Service.Series));
+  }
+
+}
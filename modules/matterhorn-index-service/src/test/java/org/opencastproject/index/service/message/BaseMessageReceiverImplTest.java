@@ -0,0 +1,248 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.index.service.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.message.broker.api.BaseMessage;
+import org.opencastproject.message.broker.api.MessageItem;
+import org.opencastproject.message.broker.api.MessageReceiver;
+import org.opencastproject.message.broker.api.MessageSender;
+import org.opencastproject.message.broker.api.MessageSender.DestinationType;
+import org.opencastproject.message.broker.api.index.IndexRecreateObject;
+import org.opencastproject.message.broker.api.index.IndexRecreateObject.Service;
+import org.opencastproject.security.api.DefaultOrganization;
+import org.opencastproject.security.api.JaxbUser;
+import org.opencastproject.security.api.SecurityService;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.component.ComponentContext;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class BaseMessageReceiverImplTest {
+
+  private static final int WORKERS = 4;
+  private static final int ITEMS = 20;
+  private static final int MESSAGES_PER_ITEM = 10;
+
+  private final DefaultOrganization organization = new DefaultOrganization();
+  private final JaxbUser user = new JaxbUser("admin", "test", organization);
+
+  /** The messages that the broker is going to deliver */
+  private final BlockingQueue<BaseMessage> broker = new LinkedBlockingQueue<BaseMessage>();
+
+  /** The index recreation responses that have been sent, with the number of messages processed by then */
+  private final BlockingQueue<Integer> responses = new LinkedBlockingQueue<Integer>();
+
+  private TestReceiver receiver;
+
+  @Before
+  public void setUp() throws Exception {
+    Hashtable<String, String> properties = new Hashtable<String, String>();
+    properties.put("destinationId", "BaseMessageReceiverImplTest");
+    properties.put("workers", Integer.toString(WORKERS));
+    ComponentContext cc = EasyMock.createNiceMock(ComponentContext.class);
+    EasyMock.expect(cc.getProperties()).andReturn(properties).anyTimes();
+    EasyMock.replay(cc);
+
+    MessageReceiver messageReceiver = EasyMock.createNiceMock(MessageReceiver.class);
+    EasyMock.expect(
+            messageReceiver.receiveSerializable((String) EasyMock.anyObject(), (DestinationType) EasyMock.anyObject()))
+            .andAnswer(new IAnswer<FutureTask<Serializable>>() {
+              @Override
+              public FutureTask<Serializable> answer() throws Throwable {
+                return new FutureTask<Serializable>(new Callable<Serializable>() {
+                  @Override
+                  public Serializable call() throws Exception {
+                    return broker.take();
+                  }
+                });
+              }
+            }).anyTimes();
+    EasyMock.replay(messageReceiver);
+
+    receiver = new TestReceiver();
+    MessageSender messageSender = EasyMock.createNiceMock(MessageSender.class);
+    messageSender.sendObjectMessage((String) EasyMock.anyObject(), (DestinationType) EasyMock.anyObject(),
+            (Serializable) EasyMock.anyObject());
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() throws Throwable {
+        responses.add(receiver.getProcessed().size());
+        return null;
+      }
+    }).anyTimes();
+    EasyMock.replay(messageSender);
+
+    receiver.setSecurityService(EasyMock.createNiceMock(SecurityService.class));
+    receiver.setMessageReceiver(messageReceiver);
+    receiver.setMessageSender(messageSender);
+    receiver.setMessageReceiverLockService(new MessageReceiverLockService());
+    receiver.activate(cc);
+  }
+
+  @After
+  public void tearDown() {
+    receiver.deactivate(null);
+  }
+
+  @Test
+  public void testMessagesArePartitionedByItem() throws Exception {
+    sendItemsAndAwait();
+
+    Map<String, String> threads = new HashMap<String, String>();
+    for (Processed processed : receiver.getProcessed()) {
+      String thread = threads.get(processed.item.getId());
+      if (thread == null)
+        threads.put(processed.item.getId(), processed.thread);
+      else
+        assertEquals("Item " + processed.item.getId() + " has been processed by several workers", thread,
+                processed.thread);
+    }
+    assertEquals(ITEMS, threads.size());
+    assertTrue("Messages have not been processed in parallel", new HashSet<String>(threads.values()).size() > 1);
+  }
+
+  @Test
+  public void testMessagesOfAnItemAreProcessedInOrder() throws Exception {
+    sendItemsAndAwait();
+
+    Map<String, Integer> sequences = new HashMap<String, Integer>();
+    for (Processed processed : receiver.getProcessed()) {
+      Integer previous = sequences.get(processed.item.getId());
+      int expected = previous == null ? 0 : previous + 1;
+      assertEquals("Messages of item " + processed.item.getId() + " have been reordered", expected,
+              processed.item.getSequence());
+      sequences.put(processed.item.getId(), processed.item.getSequence());
+    }
+  }
+
+  @Test
+  public void testIndexRecreationEndsAfterAllMessagesHaveBeenProcessed() throws Exception {
+    receiver.setProcessingTime(5L);
+    sendItemsAndAwait();
+  }
+
+  /**
+   * Sends the messages of all items followed by the end of an index recreation, and waits for the response to it.
+   */
+  private void sendItemsAndAwait() throws Exception {
+    for (int sequence = 0; sequence < MESSAGES_PER_ITEM; sequence++) {
+      for (int item = 0; item < ITEMS; item++) {
+        broker.add(new BaseMessage(organization, user, new TestItem("item-" + item, sequence)));
+      }
+    }
+    broker.add(new BaseMessage(organization, user, IndexRecreateObject.end("index", Service.Series)));
+
+    Integer processed = responses.poll(30, TimeUnit.SECONDS);
+    assertEquals("The end of the index recreation has been reported too early", Integer.valueOf(ITEMS
+            * MESSAGES_PER_ITEM), processed);
+  }
+
+  private static final class TestItem implements MessageItem {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+    private final int sequence;
+
+    TestItem(String id, int sequence) {
+      this.id = id;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+
+    int getSequence() {
+      return sequence;
+    }
+
+  }
+
+  private static final class Processed {
+
+    private final TestItem item;
+    private final String thread;
+
+    Processed(TestItem item, String thread) {
+      this.item = item;
+      this.thread = thread;
+    }
+
+  }
+
+  private static final class TestReceiver extends BaseMessageReceiverImpl<TestItem> {
+
+    private final List<Processed> processed = new ArrayList<Processed>();
+    private volatile long processingTime = 0L;
+
+    TestReceiver() {
+      super(DestinationType.Queue);
+    }
+
+    @Override
+    protected void execute(TestItem item) {
+      if (processingTime > 0) {
+        try {
+          Thread.sleep(processingTime);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      synchronized (processed) {
+        processed.add(new Processed(item, Thread.currentThread().getName()));
+      }
+    }
+
+    void setProcessingTime(long processingTime) {
+      this.processingTime = processingTime;
+    }
+
+    List<Processed> getProcessed() {
+      synchronized (processed) {
+        return new ArrayList<Processed>(processed);
+      }
+    }
+
+  }
+
+}
@@ -21,10 +21,12 @@
 
 package org.opencastproject.kernel.http.impl;
 
-
-
 import org.opencastproject.kernel.http.api.HttpClient;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.osgi.service.component.ComponentContext;
@@ -32,12 +34,58 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Dictionary;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-/** Creates HttpClients that can be used for making requests such as GET, POST etc.*/
+/**
+ * Creates HttpClients that can be used for making requests such as GET, POST etc. All clients lease their connections
+ * from a shared pool, so that connections to the other nodes are kept alive and reused across requests.
+ */
 public class HttpClientFactory implements ManagedService {
   /** The logger */
   private static final Logger logger = LoggerFactory.getLogger(HttpClientFactory.class);
 
+  /** The configuration property specifying the maximum number of pooled connections */
+  public static final String MAX_CONNECTIONS_KEY = "org.opencastproject.http.connections.max";
+
+  /** The configuration property specifying the maximum number of pooled connections to a single host */
+  public static final String MAX_CONNECTIONS_PER_ROUTE_KEY = "org.opencastproject.http.connections.max.per.route";
+
+  /** The configuration property specifying the number of seconds after which idle pooled connections are closed */
+  public static final String IDLE_TIMEOUT_KEY = "org.opencastproject.http.connections.idle.timeout";
+
+  /**
+   * The configuration property specifying the number of seconds to wait for a pooled connection before a request fails
+   */
+  public static final String LEASE_TIMEOUT_KEY = "org.opencastproject.http.connections.lease.timeout";
+
+  /** The default maximum number of pooled connections */
+  public static final int DEFAULT_MAX_CONNECTIONS = 200;
+
+  /** The default maximum number of pooled connections to a single host */
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+
+  /** The default number of seconds after which idle pooled connections are closed */
+  public static final int DEFAULT_IDLE_TIMEOUT = 30;
+
+  /** The default number of seconds to wait for a pooled connection */
+  public static final int DEFAULT_LEASE_TIMEOUT = 60;
+
+  /** The connection manager shared by all clients */
+  private final PoolingClientConnectionManager connectionManager = HttpClientImpl.makePoolingConnectionManager();
+
+  /** Closes expired and idle connections */
+  private ScheduledExecutorService connectionEvictor = null;
+
+  /** The number of seconds to wait for a pooled connection */
+  private volatile int leaseTimeout = DEFAULT_LEASE_TIMEOUT;
+
+  /** Creates a factory with the default pool settings. */
+  public HttpClientFactory() {
+    connectionManager.setMaxTotal(DEFAULT_MAX_CONNECTIONS);
+    connectionManager.setDefaultMaxPerRoute(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+  }
 
   /**
    * Callback from the OSGi container once this service is started. This is where we register our shell commands.
@@ -47,6 +95,25 @@ public class HttpClientFactory implements ManagedService {
    */
   public void activate(ComponentContext componentContext) {
     logger.debug("Starting up");
+    int maxConnections = getIntProperty(componentContext, MAX_CONNECTIONS_KEY, DEFAULT_MAX_CONNECTIONS);
+    int maxConnectionsPerRoute = getIntProperty(componentContext, MAX_CONNECTIONS_PER_ROUTE_KEY,
+            DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    final int idleTimeout = getIntProperty(componentContext, IDLE_TIMEOUT_KEY, DEFAULT_IDLE_TIMEOUT);
+    leaseTimeout = getIntProperty(componentContext, LEASE_TIMEOUT_KEY, DEFAULT_LEASE_TIMEOUT);
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(Math.min(maxConnectionsPerRoute, maxConnections));
+    logger.info("Pooling up to {} http connections, {} per host, closing them after {} idle seconds",
+            new Object[] { maxConnections, connectionManager.getDefaultMaxPerRoute(), idleTimeout });
+    logger.info("Requests fail if no pooled http connection becomes available within {} seconds", leaseTimeout);
+
+    connectionEvictor = Executors.newSingleThreadScheduledExecutor();
+    connectionEvictor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTimeout, TimeUnit.SECONDS);
+      }
+    }, idleTimeout, idleTimeout, TimeUnit.SECONDS);
   }
 
   /**
@@ -54,6 +121,9 @@ public class HttpClientFactory implements ManagedService {
    */
   public void deactivate() {
     logger.debug("Shutting down");
+    if (connectionEvictor != null)
+      connectionEvictor.shutdownNow();
+    connectionManager.shutdown();
   }
 
   /** Updates the properties for this service. */
@@ -63,8 +133,46 @@ public class HttpClientFactory implements ManagedService {
 
   }
 
-  /** Creates a new HttpClient to make requests.*/
+  /**
+   * Creates a new HttpClient to make requests. The client's connections are taken from the shared pool, and a request
+   * fails with a {@link org.apache.http.conn.ConnectionPoolTimeoutException} if the pool has no connection to spare
+   * within the lease timeout.
+   */
   public HttpClient makeHttpClient() {
-    return new HttpClientImpl();
+    HttpClient client = new HttpClientImpl(connectionManager);
+    client.getParams().setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, TimeUnit.SECONDS.toMillis(leaseTimeout));
+    return client;
+  }
+
+  /** Returns the current statistics of the shared connection pool. */
+  public PoolStats getPoolStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  /**
+   * Gets a positive integer from the bundle context, falling back to a default value if it is missing or malformed.
+   *
+   * @param cc
+   *          the component context
+   * @param key
+   *          the property key
+   * @param defaultValue
+   *          the default value
+   * @return the property value or the default value
+   */
+  private int getIntProperty(ComponentContext cc, String key, int defaultValue) {
+    String value = StringUtils.trimToNull(cc.getBundleContext().getProperty(key));
+    if (value == null)
+      return defaultValue;
+    try {
+      int result = Integer.parseInt(value);
+      if (result > 0)
+        return result;
+    } catch (NumberFormatException e) {
+      logger.debug("Malformed value of {}: {}", key, value);
+    }
+    logger.warn("Property {} must be a positive integer but is '{}', using default of {}",
+            new Object[] { key, value, defaultValue });
+    return defaultValue;
   }
 }
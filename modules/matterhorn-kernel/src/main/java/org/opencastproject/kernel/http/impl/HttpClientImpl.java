@@ -32,6 +32,8 @@ import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.conn.ssl.X509HostnameVerifier;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
 import org.apache.http.params.HttpParams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,7 +59,22 @@ public class HttpClientImpl implements HttpClient {
   private static final Logger logger = LoggerFactory.getLogger(HttpClientImpl.class);
 
   /** client used for all http requests. */
-  private DefaultHttpClient defaultHttpClient = makeHttpClient();
+  private final DefaultHttpClient defaultHttpClient;
+
+  /** Creates a client with a connection manager of its own. */
+  public HttpClientImpl() {
+    defaultHttpClient = makeHttpClient();
+  }
+
+  /**
+   * Creates a client that leases its connections from a connection manager which may be shared with other clients.
+   *
+   * @param connectionManager
+   *          the connection manager, see {@link #makePoolingConnectionManager()}
+   */
+  public HttpClientImpl(ClientConnectionManager connectionManager) {
+    defaultHttpClient = new DefaultHttpClient(connectionManager);
+  }
 
   /** See org.opencastproject.kernel.http.api.HttpClient */
   @Override
@@ -91,6 +108,29 @@ public class HttpClientImpl implements HttpClient {
   private DefaultHttpClient makeHttpClient() {
 
     DefaultHttpClient defaultHttpClient = new DefaultHttpClient();
+    registerHttpsScheme(defaultHttpClient.getConnectionManager().getSchemeRegistry());
+    return defaultHttpClient;
+  }
+
+  /**
+   * Creates a connection manager that keeps connections alive and hands them out to all clients created with it. The
+   * connection manager deals with the same http/https oddities as the clients created by {@link #HttpClientImpl()}.
+   *
+   * @return the connection manager
+   */
+  static PoolingClientConnectionManager makePoolingConnectionManager() {
+    SchemeRegistry sr = SchemeRegistryFactory.createDefault();
+    registerHttpsScheme(sr);
+    return new PoolingClientConnectionManager(sr);
+  }
+
+  /**
+   * Registers the https scheme with a forgiving hostname verifier and trust manager.
+   *
+   * @param sr
+   *          the scheme registry
+   */
+  private static void registerHttpsScheme(SchemeRegistry sr) {
     try {
       logger.debug("Installing forgiving hostname verifier and trust managers");
       X509TrustManager trustManager = createTrustManager();
@@ -98,16 +138,12 @@ public class HttpClientImpl implements HttpClient {
       SSLContext sslContext = SSLContext.getInstance("TLS");
       sslContext.init(null, new TrustManager[] { trustManager }, new SecureRandom());
       SSLSocketFactory ssf = new SSLSocketFactory(sslContext, hostNameVerifier);
-      ClientConnectionManager ccm = defaultHttpClient.getConnectionManager();
-      SchemeRegistry sr = ccm.getSchemeRegistry();
       sr.register(new Scheme("https", 443, ssf));
     } catch (NoSuchAlgorithmException e) {
       logger.error("Error creating context to handle TLS connections: {}", e.getMessage());
     } catch (KeyManagementException e) {
       logger.error("Error creating context to handle TLS connections: {}", e.getMessage());
     }
-
-    return defaultHttpClient;
   }
 
   /**
@@ -116,7 +152,7 @@ public class HttpClientImpl implements HttpClient {
    *
    * @return the trust manager
    */
-  private X509TrustManager createTrustManager() {
+  private static X509TrustManager createTrustManager() {
     X509TrustManager trustManager = new X509TrustManager() {
 
       /**
@@ -157,7 +193,7 @@ public class HttpClientImpl implements HttpClient {
    *
    * @return the host name verifier
    */
-  private X509HostnameVerifier createHostNameVerifier() {
+  private static X509HostnameVerifier createHostNameVerifier() {
     X509HostnameVerifier verifier = new X509HostnameVerifier() {
 
       /**
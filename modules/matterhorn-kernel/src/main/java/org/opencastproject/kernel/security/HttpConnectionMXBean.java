@@ -22,9 +22,31 @@
 package org.opencastproject.kernel.security;
 
 /**
- * An MxBean that exposes the number of open http connections to a JXM agent
+ * An MxBean that exposes the number of open http connections, the state of the connection pool and the digest
+ * authentication handshakes to a JXM agent
  */
 public interface HttpConnectionMXBean {
   /** Gets the number of open http connections */
   int getOpenConnections();
+
+  /** Gets the number of pooled connections that are currently in use */
+  int getLeasedConnections();
+
+  /** Gets the number of pooled connections that are idle and kept alive */
+  int getAvailableConnections();
+
+  /** Gets the number of requests waiting for a pooled connection */
+  int getPendingConnectionRequests();
+
+  /** Gets the maximum number of pooled connections */
+  int getMaxConnections();
+
+  /** Gets the number of digest challenges that have been requested from other hosts */
+  long getDigestHandshakes();
+
+  /** Gets the number of requests that have been authenticated using a cached digest challenge */
+  long getDigestChallengeReuses();
+
+  /** Gets the number of cached digest challenges that have been rejected by other hosts */
+  long getRejectedDigestChallenges();
 }
@@ -49,8 +49,12 @@ import com.entwinemedia.fn.data.Opt;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.AuthenticationException;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.ResponseHandler;
@@ -58,8 +62,11 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIUtils;
 import org.apache.http.impl.auth.DigestScheme;
 import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +76,8 @@ import java.lang.management.ManagementFactory;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -109,6 +118,15 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   public static final String NONCE_TIMEOUT_RETRY_MAXIMUM_VARIABLE_TIME_KEY =
     "org.opencastproject.security.digest.nonce.variable.time";
 
+  /**
+   * The configuration property specifying the number of seconds a digest challenge received from a host is reused for
+   * further requests to that host. A value of 0 requests a new challenge for every request.
+   */
+  public static final String DIGEST_CHALLENGE_CACHE_TIME_KEY = "org.opencastproject.security.digest.nonce.cache.time";
+
+  /** The name under which this client is registered with jmx */
+  private static final String JMX_OBJECT_NAME = "org.opencastproject.security.api.TrustedHttpClient:type=HttpConnections";
+
   /** The default time until a connection attempt fails */
   public static final int DEFAULT_CONNECTION_TIMEOUT = 60 * 1000;
 
@@ -127,6 +145,12 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   /** Default maximum amount of time in a random range between 0 and this value to add to the base time. */
   public static final int DEFAULT_RETRY_MAXIMUM_VARIABLE_TIME = 300;
 
+  /**
+   * The default number of seconds a digest challenge is reused. This is a bit less than the validity of the nonces
+   * handed out by the default security configuration.
+   */
+  public static final int DEFAULT_DIGEST_CHALLENGE_CACHE_TIME = 240;
+
   /**
    * The default time before a piece of signed content expires. 1 Minute. These are internal calls to another server, if
    * we can't make the request in under a minute something has gone horribly wrong.
@@ -160,6 +184,21 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   /** The duration a signed url will remain valid for. */
   private long signedUrlExpiresDuration = DEFAULT_URL_SIGNING_EXPIRES_DURATION;
 
+  /** The number of seconds a digest challenge is reused. */
+  private int digestChallengeCacheTime = DEFAULT_DIGEST_CHALLENGE_CACHE_TIME;
+
+  /** The last digest challenge received from each host */
+  private final Map<HttpHost, DigestChallenge> digestChallenges = new ConcurrentHashMap<HttpHost, DigestChallenge>();
+
+  /** The number of digest challenges that have been requested from other hosts */
+  private final AtomicLong digestHandshakes = new AtomicLong();
+
+  /** The number of requests that have been authenticated using a cached digest challenge */
+  private final AtomicLong digestChallengeReuses = new AtomicLong();
+
+  /** The number of cached digest challenges that have been rejected by other hosts */
+  private final AtomicLong rejectedDigestChallenges = new AtomicLong();
+
   /** The service registry */
   private ServiceRegistry serviceRegistry = null;
 
@@ -179,12 +218,14 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     getRetryNumber(cc);
     getRetryBaseTime(cc);
     getRetryMaximumVariableTime(cc);
+    digestChallengeCacheTime = getIntFromComponentContext(cc, DIGEST_CHALLENGE_CACHE_TIME_KEY,
+                                                          DEFAULT_DIGEST_CHALLENGE_CACHE_TIME);
 
     // register with jmx
     try {
       MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
       ObjectName name;
-      name = new ObjectName("org.opencastproject.security.api.TrustedHttpClient:type=HttpConnections");
+      name = new ObjectName(JMX_OBJECT_NAME);
       Object mbean = this;
       mbs.registerMBean(mbean, name);
     } catch (Exception e) {
@@ -298,6 +339,15 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
 
   public void deactivate() {
     logger.debug("deactivate");
+    digestChallenges.clear();
+    try {
+      MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(JMX_OBJECT_NAME);
+      if (mbs.isRegistered(name))
+        mbs.unregisterMBean(name);
+    } catch (Exception e) {
+      logger.warn("Unable to unregister {} as an mbean: {}", this, e);
+    }
   }
 
   public void setHttpClientFactory(HttpClientFactory httpClientFactory) {
@@ -371,42 +421,57 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
       // Run the request (the http client handles the multiple back-and-forth requests)
       try {
         Opt<HttpUriRequest> optSignedHttpUriRequest = getSignedUrl(httpUriRequest);
-        HttpResponse response;
+        HttpUriRequest request;
         if (optSignedHttpUriRequest.isSome()) {
           logger.debug("Adding url signing to request {} so that it is {}", httpUriRequest.getURI().toString(),
                   optSignedHttpUriRequest.get().getURI().toString());
-          response = new HttpResponseWrapper(httpClient.execute(optSignedHttpUriRequest.get()));
+          request = optSignedHttpUriRequest.get();
         } else {
           logger.debug("Not adding url signing to request {}", httpUriRequest.getURI().toString());
-          response = new HttpResponseWrapper(httpClient.execute(httpUriRequest));
+          request = httpUriRequest;
+        }
+        // Skip the challenge if we already have one for this host
+        boolean preemptive = authenticateWithCachedChallenge(request);
+        HttpResponse response = new HttpResponseWrapper(httpClient.execute(request));
+        if (preemptive && isUnauthorized(response)) {
+          // The client only answers the challenge itself if the request does not carry a stale authorization
+          evictDigestChallenge(request);
+          release(response);
+          request.removeHeaders(AUTHORIZATION_HEADER_NAME);
+          response = new HttpResponseWrapper(httpClient.execute(request));
         }
         responseMap.put(response, httpClient);
         return response;
       } catch (IOException e) {
-        // close the http connection(s)
-        httpClient.getConnectionManager().shutdown();
         throw new TrustedHttpClientException(e);
       }
     } else {
       // HttpClient doesn't handle the request dynamics for other verbs (especially when sending a streamed multipart
       // request), so we need to handle the details of the digest auth back-and-forth manually
-      manuallyHandleDigestAuthentication(httpUriRequest, httpClient);
+      boolean cachedChallenge = manuallyHandleDigestAuthentication(httpUriRequest);
       HttpResponse response = null;
       try {
         response = new HttpResponseWrapper(httpClient.execute(httpUriRequest));
+        if (cachedChallenge && isUnauthorized(response)) {
+          // The cached nonce is no longer accepted, so get a fresh one right away
+          evictDigestChallenge(httpUriRequest);
+          release(response);
+          httpUriRequest.removeHeaders(AUTHORIZATION_HEADER_NAME);
+          manuallyHandleDigestAuthentication(httpUriRequest);
+          response = new HttpResponseWrapper(httpClient.execute(httpUriRequest));
+        }
         if (nonceTimeoutRetries > 0 && hadNonceTimeoutResponse(response)) {
-          httpClient.getConnectionManager().shutdown();
+          release(response);
           response = retryAuthAndRequestAfterNonceTimeout(httpUriRequest, response);
         }
         responseMap.put(response, httpClient);
         return response;
       } catch (Exception e) {
-        // if we have a response, remove it from the map
+        // if we have a response, remove it from the map and release its connection
         if (response != null) {
           responseMap.remove(response);
+          release(response);
         }
-        // close the http connection(s)
-        httpClient.getConnectionManager().shutdown();
         throw new TrustedHttpClientException(e);
       }
     }
@@ -487,13 +552,14 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
           logger.error("Suffered InteruptedException while trying to sleep until next retry.", e);
         }
       }
-      manuallyHandleDigestAuthentication(httpUriRequest, httpClient);
+      evictDigestChallenge(httpUriRequest);
+      manuallyHandleDigestAuthentication(httpUriRequest);
       response = new HttpResponseWrapper(httpClient.execute(httpUriRequest));
       if (!hadNonceTimeoutResponse(response)) {
         responseMap.put(response, httpClient);
         break;
       }
-      httpClient.getConnectionManager().shutdown();
+      release(response);
     }
     return response;
   }
@@ -511,17 +577,36 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
   }
 
   /**
-   * Handles the necessary handshake for digest authenticaion in the case where it isn't a GET operation.
+   * Determines if a request has been rejected for lack of valid credentials.
+   *
+   * @param response
+   *         The response to test.
+   * @return true if the response status is 401
+   */
+  private boolean isUnauthorized(HttpResponse response) {
+    return 401 == response.getStatusLine().getStatusCode();
+  }
+
+  /**
+   * Handles the necessary handshake for digest authenticaion in the case where it isn't a GET operation. The challenge
+   * that has last been received from the same host is reused if possible, so that the handshake is only needed once
+   * per nonce.
    *
    * @param httpUriRequest
    *         The request location to get the digest authentication for.
-   * @param httpClient
-   *         The client to send the request through.
+   * @return true if the request has been authenticated using a cached challenge
    * @throws TrustedHttpClientException
-   *         Thrown if the client cannot be shutdown.
+   *         Thrown if the challenge cannot be obtained or the request cannot be authenticated.
    */
-  private void manuallyHandleDigestAuthentication(HttpUriRequest httpUriRequest, HttpClient httpClient)
+  private boolean manuallyHandleDigestAuthentication(HttpUriRequest httpUriRequest)
           throws TrustedHttpClientException {
+    // Streamed request bodies can't be sent a second time if the cached nonce turns out to be stale
+    HttpEntity entity = null;
+    if (httpUriRequest instanceof HttpEntityEnclosingRequest)
+      entity = ((HttpEntityEnclosingRequest) httpUriRequest).getEntity();
+    if ((entity == null || entity.isRepeatable()) && authenticateWithCachedChallenge(httpUriRequest))
+      return true;
+
     HttpRequestBase digestRequest;
     try {
       digestRequest = (HttpRequestBase) httpUriRequest.getClass().newInstance();
@@ -533,23 +618,72 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     String[] realmAndNonce = getRealmAndNonce(digestRequest);
 
     if (realmAndNonce != null) {
-      // Set the user/pass
-      UsernamePasswordCredentials creds = new UsernamePasswordCredentials(user, pass);
-
-      // Set up the digest authentication with the required values
-      DigestScheme digestAuth = new DigestScheme();
-      digestAuth.overrideParamter("realm", realmAndNonce[0]);
-      digestAuth.overrideParamter("nonce", realmAndNonce[1]);
+      DigestChallenge challenge = new DigestChallenge(realmAndNonce[0], realmAndNonce[1]);
+      HttpHost host = URIUtils.extractHost(httpUriRequest.getURI());
+      if (digestChallengeCacheTime > 0 && host != null)
+        digestChallenges.put(host, challenge);
 
       // Add the authentication header
       try {
-        httpUriRequest.setHeader(digestAuth.authenticate(creds, httpUriRequest));
-      } catch (Exception e) {
-        // close the http connection(s)
-        httpClient.getConnectionManager().shutdown();
+        httpUriRequest.setHeader(challenge.authenticate(user, pass, httpUriRequest));
+      } catch (AuthenticationException e) {
         throw new TrustedHttpClientException(e);
       }
     }
+    return false;
+  }
+
+  /**
+   * Adds a digest authentication header to a request if a challenge that is still considered valid has been received
+   * from the target host before.
+   *
+   * @param httpUriRequest
+   *         The request to authenticate.
+   * @return true if the request has been authenticated
+   */
+  private boolean authenticateWithCachedChallenge(HttpUriRequest httpUriRequest) {
+    HttpHost host = URIUtils.extractHost(httpUriRequest.getURI());
+    if (host == null)
+      return false;
+    DigestChallenge challenge = digestChallenges.get(host);
+    if (challenge == null)
+      return false;
+    if (challenge.getAge() >= TimeUnit.SECONDS.toMillis(digestChallengeCacheTime)) {
+      digestChallenges.remove(host);
+      return false;
+    }
+    try {
+      httpUriRequest.setHeader(challenge.authenticate(user, pass, httpUriRequest));
+    } catch (AuthenticationException e) {
+      logger.debug("Unable to authenticate request {} using the cached challenge: {}", httpUriRequest.getURI(), e);
+      return false;
+    }
+    digestChallengeReuses.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Forgets the digest challenge received from the target host of a request.
+   *
+   * @param httpUriRequest
+   *         The request whose authentication has been rejected.
+   */
+  private void evictDigestChallenge(HttpUriRequest httpUriRequest) {
+    HttpHost host = URIUtils.extractHost(httpUriRequest.getURI());
+    if (host != null && digestChallenges.remove(host) != null) {
+      rejectedDigestChallenges.incrementAndGet();
+      logger.debug("Digest challenge of {} is no longer accepted", host);
+    }
+  }
+
+  /**
+   * Consumes what is left of a response, so that its connection can be reused by other requests.
+   *
+   * @param response
+   *         The response to release.
+   */
+  private void release(HttpResponse response) {
+    EntityUtils.consumeQuietly(response.getEntity());
   }
 
   @Override
@@ -572,7 +706,8 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     if (response != null) {
       HttpClient httpClient = responseMap.remove(response);
       if (httpClient != null) {
-        httpClient.getConnectionManager().shutdown();
+        // Hand the connection back to the pool
+        release(response);
       }
     } else {
       logger.debug("Can not close a null response");
@@ -604,13 +739,13 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     try {
       response = new HttpResponseWrapper(httpClient.execute(request));
     } catch (IOException e) {
-      httpClient.getConnectionManager().shutdown();
       throw new TrustedHttpClientException(e);
     }
+    digestHandshakes.incrementAndGet();
+    release(response);
     Header[] headers = response.getHeaders("WWW-Authenticate");
     if (headers == null || headers.length == 0) {
       logger.warn("URI {} does not support digest authentication", request.getURI());
-      httpClient.getConnectionManager().shutdown();
       return null;
     }
     Header authRequiredResponseHeader = headers[0];
@@ -623,7 +758,6 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
         realm = element.getValue();
       }
     }
-    httpClient.getConnectionManager().shutdown();
     return new String[]{realm, nonce};
   }
 
@@ -632,6 +766,48 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     return responseMap.size();
   }
 
+  @Override
+  public int getLeasedConnections() {
+    return getPoolStats().getLeased();
+  }
+
+  @Override
+  public int getAvailableConnections() {
+    return getPoolStats().getAvailable();
+  }
+
+  @Override
+  public int getPendingConnectionRequests() {
+    return getPoolStats().getPending();
+  }
+
+  @Override
+  public int getMaxConnections() {
+    return getPoolStats().getMax();
+  }
+
+  @Override
+  public long getDigestHandshakes() {
+    return digestHandshakes.get();
+  }
+
+  @Override
+  public long getDigestChallengeReuses() {
+    return digestChallengeReuses.get();
+  }
+
+  @Override
+  public long getRejectedDigestChallenges() {
+    return rejectedDigestChallenges.get();
+  }
+
+  /** Returns the statistics of the connection pool, or empty statistics if there is no pool. */
+  private PoolStats getPoolStats() {
+    if (httpClientFactory == null)
+      return new PoolStats(0, 0, 0, 0);
+    return httpClientFactory.getPoolStats();
+  }
+
   /**
    * @return Returns the number of times the TrustedHttpClient will retry a request if nonce timeouts are occuring.
    */
@@ -653,4 +829,39 @@ public class TrustedHttpClientImpl implements TrustedHttpClient, HttpConnectionM
     return retryMaximumVariableTime;
   }
 
+  /**
+   * @return The number of seconds a digest challenge is reused for further requests to the same host.
+   */
+  public int getDigestChallengeCacheTime() {
+    return digestChallengeCacheTime;
+  }
+
+  /** The realm and nonce that a host has sent to challenge a request. */
+  private static final class DigestChallenge {
+
+    private final String realm;
+    private final String nonce;
+    private final long received = System.currentTimeMillis();
+
+    DigestChallenge(String realm, String nonce) {
+      this.realm = realm;
+      this.nonce = nonce;
+    }
+
+    /** Returns the number of milliseconds since the challenge has been received. */
+    long getAge() {
+      return System.currentTimeMillis() - received;
+    }
+
+    /** Creates the authorization header answering this challenge for a request. */
+    Header authenticate(String user, String pass, HttpUriRequest request) throws AuthenticationException {
+      // Set up the digest authentication with the required values
+      DigestScheme digestAuth = new DigestScheme();
+      digestAuth.overrideParamter("realm", realm);
+      digestAuth.overrideParamter("nonce", nonce);
+      return digestAuth.authenticate(new UsernamePasswordCredentials(user, pass), request);
+    }
+
+  }
+
 }
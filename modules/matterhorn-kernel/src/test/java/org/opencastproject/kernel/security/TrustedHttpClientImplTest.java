@@ -52,7 +52,6 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.message.BasicStatusLine;
 import org.apache.http.params.HttpParams;
@@ -301,12 +300,10 @@ public class TrustedHttpClientImplTest {
   public void successfullRequestResultsInNoRetries() throws ClientProtocolException, IOException {
     HttpPost httpPost = new HttpPost("http://localhost:8080/fake");
     HttpParams httpParams = createNiceMock(HttpParams.class);
-    ClientConnectionManager clientConnectionManager = createMock(ClientConnectionManager.class);
 
     // Setup DefaultHttpClients
     HttpClient securityDefaultHttpClient = createMock("Digest", HttpClient.class);
     expect(securityDefaultHttpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(securityDefaultHttpClient.getConnectionManager()).andReturn(clientConnectionManager);
     replay(securityDefaultHttpClient);
 
     HttpClient requestDefaultHttpClient = createMock("Request", HttpClient.class);
@@ -346,13 +343,11 @@ public class TrustedHttpClientImplTest {
 
     HttpPost httpPost = new HttpPost("http://localhost:8080/fake");
     HttpParams httpParams = createNiceMock(HttpParams.class);
-    ClientConnectionManager clientConnectionManager = createMock(ClientConnectionManager.class);
 
     HttpClient requestDefaultHttpClient = createMock("Request", HttpClient.class);
     expect(requestDefaultHttpClient.getParams()).andReturn(httpParams);
     // Digest authentication and close
     expect(requestDefaultHttpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(requestDefaultHttpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // Try request and close.
     expect(requestDefaultHttpClient.execute(isA(HttpUriRequest.class))).andReturn(nonceResponse);
     replay(requestDefaultHttpClient);
@@ -392,22 +387,17 @@ public class TrustedHttpClientImplTest {
 
     HttpPost httpPost = new HttpPost("http://localhost:8080/fake");
     HttpParams httpParams = createNiceMock(HttpParams.class);
-    ClientConnectionManager clientConnectionManager = createMock(ClientConnectionManager.class);
 
     HttpClient httpClient = createMock("Request", HttpClient.class);
     expect(httpClient.getParams()).andReturn(httpParams);
     // Security Handshake and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // First request and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(nonceResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // Second Security Handshake and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // Retry request and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(nonceResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     replay(httpClient);
 
     // Setup DefaultHttpClientFactory
@@ -444,19 +434,15 @@ public class TrustedHttpClientImplTest {
 
     HttpPost httpPost = new HttpPost("http://localhost:8080/fake");
     HttpParams httpParams = createNiceMock(HttpParams.class);
-    ClientConnectionManager clientConnectionManager = createMock(ClientConnectionManager.class);
 
     HttpClient httpClient = createMock("Request", HttpClient.class);
     expect(httpClient.getParams()).andReturn(httpParams);
     // Security Handshake and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // First request and close
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(nonceResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // Nonce retry and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // Final request with success.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
     replay(httpClient);
@@ -495,7 +481,6 @@ public class TrustedHttpClientImplTest {
 
     HttpPost httpPost = new HttpPost("http://localhost:8080/fake");
     HttpParams httpParams = createNiceMock(HttpParams.class);
-    ClientConnectionManager clientConnectionManager = createMock(ClientConnectionManager.class);
 
     IMocksControl ctrl = EasyMock.createNiceControl();
     ctrl.checkOrder(false);
@@ -504,13 +489,10 @@ public class TrustedHttpClientImplTest {
     expect(httpClient.getParams()).andReturn(httpParams);
     // First Digest handshake and close
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // First request and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(nonceResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // Second Digest handshake and close
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // First request retry.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
     replay(httpClient);
@@ -549,34 +531,26 @@ public class TrustedHttpClientImplTest {
 
     HttpPost httpPost = new HttpPost("http://localhost:8080/fake");
     HttpParams httpParams = createNiceMock(HttpParams.class);
-    ClientConnectionManager clientConnectionManager = createMock(ClientConnectionManager.class);
 
     HttpClient httpClient = createMock("Request", HttpClient.class);
     expect(httpClient.getParams()).andReturn(httpParams);
     // First Digest handshake and close
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // First request with a nonce timeout and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(nonceResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
 
     // First retry getting nonce and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // First retry request and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(nonceResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
 
     // Second retry getting nonce and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // Second retry request and close
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(nonceResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
 
     // Third retry getting nonce and close.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
-    expect(httpClient.getConnectionManager()).andReturn(clientConnectionManager);
     // Third retry with successful request.
     expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
     replay(httpClient);
@@ -592,6 +566,63 @@ public class TrustedHttpClientImplTest {
     Assert.assertEquals(200, response.getStatusLine().getStatusCode());
   }
 
+  @Test
+  public void digestChallengeIsReusedForSameHost() throws ClientProtocolException, IOException {
+    HttpParams httpParams = createNiceMock(HttpParams.class);
+
+    HttpClient httpClient = createMock("Request", HttpClient.class);
+    expect(httpClient.getParams()).andReturn(httpParams).times(2);
+    // Digest handshake for the first request only
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse).times(2);
+    replay(httpClient);
+
+    // Setup DefaultHttpClientFactory
+    HttpClientFactory httpClientFactory = createMock(HttpClientFactory.class);
+    expect(httpClientFactory.makeHttpClient()).andReturn(httpClient).atLeastOnce();
+    replay(httpClientFactory);
+
+    client.setHttpClientFactory(httpClientFactory);
+
+    Assert.assertEquals(200, client.execute(new HttpPost("http://localhost:8080/fake")).getStatusLine().getStatusCode());
+    HttpPost secondPost = new HttpPost("http://localhost:8080/other");
+    Assert.assertEquals(200, client.execute(secondPost).getStatusLine().getStatusCode());
+    Assert.assertNotNull(secondPost.getFirstHeader(TrustedHttpClientImpl.AUTHORIZATION_HEADER_NAME));
+    Assert.assertEquals(1, client.getDigestHandshakes());
+    Assert.assertEquals(1, client.getDigestChallengeReuses());
+    verify(httpClient);
+  }
+
+  @Test
+  public void rejectedDigestChallengeIsRenewedWithoutDelay() throws ClientProtocolException, IOException {
+    HttpParams httpParams = createNiceMock(HttpParams.class);
+
+    HttpClient httpClient = createMock("Request", HttpClient.class);
+    expect(httpClient.getParams()).andReturn(httpParams).times(2);
+    // First request with a fresh challenge
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
+    // Second request with the cached challenge, which has expired in the meantime
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(nonceResponse);
+    // New handshake and successful request
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(digestResponse);
+    expect(httpClient.execute(isA(HttpUriRequest.class))).andReturn(okResponse);
+    replay(httpClient);
+
+    // Setup DefaultHttpClientFactory
+    HttpClientFactory httpClientFactory = createMock(HttpClientFactory.class);
+    expect(httpClientFactory.makeHttpClient()).andReturn(httpClient).atLeastOnce();
+    replay(httpClientFactory);
+
+    client.setHttpClientFactory(httpClientFactory);
+
+    Assert.assertEquals(200, client.execute(new HttpPost("http://localhost:8080/fake")).getStatusLine().getStatusCode());
+    Assert.assertEquals(200, client.execute(new HttpPost("http://localhost:8080/fake")).getStatusLine().getStatusCode());
+    Assert.assertEquals(2, client.getDigestHandshakes());
+    Assert.assertEquals(1, client.getRejectedDigestChallenges());
+    verify(httpClient);
+  }
+
   @Test
   public void testNotAcceptsUrlSigningService() throws IOException {
     String notAcceptsUrl = "http://notaccepts.com";
@@ -39,6 +39,7 @@ public class BaseMessage implements Serializable {
   private final String organization;
   private final String user;
   private final Serializable object;
+  private long timestamp;
 
   public BaseMessage(Organization organization, User user, Serializable object) {
     this.organization = OrganizationParser.toXml(JaxbOrganization.fromOrganization(organization));
@@ -65,4 +66,23 @@ public class BaseMessage implements Serializable {
     return object;
   }
 
+  /**
+   * Returns the time the message has been handed to the message broker.
+   *
+   * @return the time in milliseconds since the epoch, or <code>0</code> if it is unknown
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Sets the time the message has been handed to the message broker.
+   *
+   * @param timestamp
+   *          the time in milliseconds since the epoch
+   */
+  public void setTimestamp(long timestamp) {
+    this.timestamp = timestamp;
+  }
+
 }
@@ -21,6 +21,7 @@
 
 package org.opencastproject.message.broker.impl;
 
+import org.opencastproject.message.broker.api.BaseMessage;
 import org.opencastproject.message.broker.api.MessageReceiver;
 import org.opencastproject.message.broker.api.MessageSender.DestinationType;
 
@@ -109,7 +110,10 @@ public class MessageReceiverImpl extends MessageBaseFacility implements MessageR
       if (message != null && message instanceof ObjectMessage) {
         ObjectMessage objectMessage = (ObjectMessage) message;
         try {
-          return objectMessage.getObject();
+          Serializable object = objectMessage.getObject();
+          if (object instanceof BaseMessage)
+            ((BaseMessage) object).setTimestamp(objectMessage.getJMSTimestamp());
+          return object;
         } catch (JMSException e) {
           logger.error("Unable to get message {}", message, e);
         }
@@ -0,0 +1,218 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.scheduler.impl;
+
+import net.fortuna.ical4j.model.Period;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * In-memory index of the time intervals that are booked on each capture agent.
+ * <p>
+ * The scheduler reports every event that it adds, updates or removes, so that conflicts with a recurring schedule can
+ * be found by sweeping over the sorted intervals of a single capture agent instead of searching the event index once
+ * for every recurrence.
+ */
+final class ScheduleIntervals {
+
+  /** The booked intervals per capture agent */
+  private final Map<String, AgentIntervals> agents = new HashMap<String, AgentIntervals>();
+
+  /** The interval of each indexed event, by event identifier */
+  private final Map<Long, Interval> events = new HashMap<Long, Interval>();
+
+  /**
+   * Records the interval of an event, replacing any interval that has been recorded for it before. Events without a
+   * capture agent are removed from the index.
+   *
+   * @param eventId
+   *          the event identifier
+   * @param agentId
+   *          the capture agent, may be <code>null</code>
+   * @param start
+   *          the start date in milliseconds
+   * @param end
+   *          the end date in milliseconds
+   */
+  synchronized void put(long eventId, String agentId, long start, long end) {
+    remove(eventId);
+    if (agentId == null)
+      return;
+    Interval interval = new Interval(eventId, agentId, start, end);
+    AgentIntervals agent = agents.get(agentId);
+    if (agent == null) {
+      agent = new AgentIntervals();
+      agents.put(agentId, agent);
+    }
+    agent.intervals.add(interval);
+    agent.longest = Math.max(agent.longest, end - start);
+    events.put(eventId, interval);
+  }
+
+  /**
+   * Removes the interval of an event.
+   *
+   * @param eventId
+   *          the event identifier
+   */
+  synchronized void remove(long eventId) {
+    Interval interval = events.remove(eventId);
+    if (interval == null)
+      return;
+    AgentIntervals agent = agents.get(interval.agentId);
+    agent.intervals.remove(interval);
+    if (agent.intervals.isEmpty())
+      agents.remove(interval.agentId);
+  }
+
+  /**
+   * Removes all intervals, e.g. before the index is rebuilt.
+   */
+  synchronized void clear() {
+    agents.clear();
+    events.clear();
+  }
+
+  /**
+   * Returns the events on a capture agent that overlap with at least one of the given periods. Like the search for
+   * conflicting events in the event index, an event that ends at the start of a period, or starts at its end, counts
+   * as overlapping.
+   *
+   * @param agentId
+   *          the capture agent
+   * @param periods
+   *          the periods to check
+   * @return the identifiers of the conflicting events, ordered by their start date
+   */
+  synchronized List<Long> findConflicts(String agentId, List<Period> periods) {
+    TreeSet<Interval> found = new TreeSet<Interval>();
+    AgentIntervals agent = agents.get(agentId);
+    if (agent != null) {
+      for (Period period : periods) {
+        collectOverlapping(agent, period.getStart().getTime(), period.getEnd().getTime(), found);
+      }
+    }
+    return toEventIds(found);
+  }
+
+  /**
+   * Returns the events on a capture agent that overlap with the given time range, including events that end at its
+   * start or start at its end.
+   *
+   * @param agentId
+   *          the capture agent
+   * @param start
+   *          the start of the range in milliseconds
+   * @param end
+   *          the end of the range in milliseconds
+   * @return the identifiers of the overlapping events, ordered by their start date
+   */
+  synchronized List<Long> findOverlapping(String agentId, long start, long end) {
+    TreeSet<Interval> found = new TreeSet<Interval>();
+    AgentIntervals agent = agents.get(agentId);
+    if (agent != null)
+      collectOverlapping(agent, start, end, found);
+    return toEventIds(found);
+  }
+
+  /**
+   * Returns the capture agent that an event is booked on.
+   *
+   * @param eventId
+   *          the event identifier
+   * @return the capture agent, or <code>null</code> if the event is not in the index
+   */
+  synchronized String getAgent(long eventId) {
+    Interval interval = events.get(eventId);
+    return interval == null ? null : interval.agentId;
+  }
+
+  /**
+   * Returns the number of events in the index.
+   *
+   * @return the number of events
+   */
+  synchronized int size() {
+    return events.size();
+  }
+
+  private static void collectOverlapping(AgentIntervals agent, long start, long end, TreeSet<Interval> found) {
+    // No interval that starts before this lower bound can reach into the range
+    long lowerBound = start - agent.longest;
+    Interval from = new Interval(Long.MIN_VALUE, null, lowerBound, lowerBound);
+    Interval to = new Interval(Long.MAX_VALUE, null, end, end);
+    for (Interval interval : agent.intervals.subSet(from, true, to, true)) {
+      if (interval.end >= start)
+        found.add(interval);
+    }
+  }
+
+  private static List<Long> toEventIds(TreeSet<Interval> intervals) {
+    List<Long> eventIds = new ArrayList<Long>(intervals.size());
+    for (Interval interval : intervals) {
+      eventIds.add(interval.eventId);
+    }
+    return eventIds;
+  }
+
+  /** The booked intervals of a capture agent. */
+  private static final class AgentIntervals {
+
+    private final TreeSet<Interval> intervals = new TreeSet<Interval>();
+
+    /** The duration of the longest interval that has been booked, never decreases */
+    private long longest = 0L;
+
+  }
+
+  /** The interval of a single event. */
+  private static final class Interval implements Comparable<Interval> {
+
+    private final long eventId;
+    private final String agentId;
+    private final long start;
+    private final long end;
+
+    Interval(long eventId, String agentId, long start, long end) {
+      this.eventId = eventId;
+      this.agentId = agentId;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public int compareTo(Interval o) {
+      if (start != o.start)
+        return start < o.start ? -1 : 1;
+      if (eventId != o.eventId)
+        return eventId < o.eventId ? -1 : 1;
+      return 0;
+    }
+
+  }
+
+}
@@ -111,6 +111,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -165,12 +166,25 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
   /** The Etag for an empty calendar */
   private static final String EMPTY_CALENDAR_ETAG = "mod0";
 
+  /** The maximum number of rendered calendars to keep */
+  private static final int CALENDAR_CACHE_SIZE = 1000;
+
+  /** The time in hours after which a rendered calendar that has not been requested is dropped */
+  private static final int CALENDAR_CACHE_EXPIRE = 1;
+
   private ComponentContext cc;
 
   /** The last modified cache */
   protected Cache<String, String> lastModifiedCache = CacheBuilder.newBuilder()
           .expireAfterWrite(DEFAULT_CACHE_EXPIRE, TimeUnit.SECONDS).build();
 
+  /** The rendered calendars by capture agent and filter */
+  private final Cache<String, CachedCalendar> calendarCache = CacheBuilder.newBuilder()
+          .maximumSize(CALENDAR_CACHE_SIZE).expireAfterAccess(CALENDAR_CACHE_EXPIRE, TimeUnit.HOURS).build();
+
+  /** The booked intervals per capture agent, used to find conflicts with recurring events */
+  protected final ScheduleIntervals scheduleIntervals = new ScheduleIntervals();
+
   /** Whether to immediate create and start a workflow for the event */
   protected boolean immediateWorkflowCreation = true;
 
@@ -355,10 +369,81 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
         throw new ServiceException(e.getMessage());
       }
     }
+
+    try {
+      populateScheduleIntervals();
+    } catch (Exception e) {
+      logger.warn("Unable to load the booked intervals of the capture agents: {}", e.getMessage());
+      throw new ServiceException(e.getMessage());
+    }
     this.cc = cc;
     super.activate();
   }
 
+  /**
+   * Loads the intervals of all events in the index into the in-memory schedule of the capture agents.
+   *
+   * @throws SchedulerServiceDatabaseException
+   *           if the events cannot be read from the index
+   */
+  private void populateScheduleIntervals() throws SchedulerServiceDatabaseException {
+    List<DublinCoreCatalog> events = index.search(new SchedulerQuery()).getCatalogList();
+    scheduleIntervals.clear();
+    for (DublinCoreCatalog event : events) {
+      updateScheduleInterval(getEventIdentifier(event), event);
+    }
+    logger.info("Loaded the booked intervals of {} scheduled events", scheduleIntervals.size());
+  }
+
+  /**
+   * Records the capture agent and the period of an event in the in-memory schedule of the capture agents.
+   *
+   * @param eventId
+   *          the event identifier
+   * @param event
+   *          the event catalog
+   */
+  private void updateScheduleInterval(long eventId, DublinCoreCatalog event) {
+    // The event may have been moved to another agent
+    invalidateCalendars(scheduleIntervals.getAgent(eventId));
+    String agentId = event.getFirst(DublinCore.PROPERTY_SPATIAL);
+    String temporal = event.getFirst(DublinCore.PROPERTY_TEMPORAL);
+    DCMIPeriod period = temporal == null ? null : EncodingSchemeUtils.decodePeriod(temporal);
+    if (isBlank(agentId) || period == null || !period.hasStart() || !period.hasEnd()) {
+      scheduleIntervals.remove(eventId);
+      return;
+    }
+    scheduleIntervals.put(eventId, agentId, period.getStart().getTime(), period.getEnd().getTime());
+    invalidateCalendars(agentId);
+  }
+
+  /**
+   * Removes an event from the in-memory schedule of the capture agents.
+   *
+   * @param eventId
+   *          the event identifier
+   */
+  private void removeScheduleInterval(long eventId) {
+    invalidateCalendars(scheduleIntervals.getAgent(eventId));
+    scheduleIntervals.remove(eventId);
+  }
+
+  /**
+   * Drops the last modified hash and the rendered calendars of a capture agent after one of its events has changed.
+   *
+   * @param agentId
+   *          the capture agent, may be <code>null</code>
+   */
+  private void invalidateCalendars(String agentId) {
+    if (agentId == null)
+      return;
+    lastModifiedCache.invalidate(agentId);
+    for (Iterator<CachedCalendar> i = calendarCache.asMap().values().iterator(); i.hasNext();) {
+      if (agentId.equals(i.next().agentId))
+        i.remove();
+    }
+  }
+
   @Override
   public void deactivate() {
     super.deactivate();
@@ -723,6 +808,7 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
       logger.warn("Unable to index event with ID '{}': {}", eventId, e.getMessage());
       throw new SchedulerException(e);
     }
+    updateScheduleInterval(eventId, event);
 
     // update with default CA properties
     try {
@@ -795,6 +881,7 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
         logger.warn("Unable to update capture agent properties for event with ID '{}': {}", eventId, ex.getMessage());
         throw new SchedulerException(ex);
       }
+      invalidateCalendars(scheduleIntervals.getAgent(eventId));
     }
   }
 
@@ -848,6 +935,7 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
       logger.warn("Unable to index event with ID '{}': {}", eventId, e.getMessage());
       throw new SchedulerException(e);
     }
+    updateScheduleInterval(eventId, event);
 
     // update workflow
     try {
@@ -1010,6 +1098,8 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
       }
     }
 
+    removeScheduleInterval(eventId);
+
     try {
       index.delete(eventId);
     } catch (Exception e) {
@@ -1058,6 +1148,8 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
       }
     }
 
+    removeScheduleInterval(eventId);
+
     try {
       index.delete(eventId);
     } catch (Exception e) {
@@ -1151,15 +1243,19 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
     TimeZone tz = TimeZone.getTimeZone(timezone);
 
     List<Period> periods = Util.calculatePeriods(startDate, endDate, duration, rule, tz);
-    List<DublinCoreCatalog> events = new ArrayList<DublinCoreCatalog>();
 
-    for (Period p : periods) {
-      List<DublinCoreCatalog> filterEvents = findConflictingEvents(captureDeviceID, p.getStart(), p.getEnd())
-              .getCatalogList();
-      events.addAll(filterEvents);
-    }
+    // Sweep over the booked intervals of the agent in memory and only load the conflicting events from the index
+    List<Long> conflicts = scheduleIntervals.findConflicts(captureDeviceID, periods);
+    if (conflicts.isEmpty())
+      return new DublinCoreCatalogList(new ArrayList<DublinCoreCatalog>(), 0);
 
-    return new DublinCoreCatalogList(events, events.size());
+    SchedulerQuery q = new SchedulerQuery().withIdInList(conflicts).withSort(Sort.EVENT_START);
+    try {
+      return index.search(q);
+    } catch (SchedulerServiceDatabaseException e) {
+      logger.error("Could not load conflicting events for device '{}': {}", captureDeviceID, e.getMessage());
+      throw new SchedulerException(e);
+    }
   }
 
   /*
@@ -1169,9 +1265,61 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
    */
   @Override
   public String getCalendar(SchedulerQuery filter) throws SchedulerException {
+    filter.setOptOut(false).setBlacklisted(false);
+    String cacheKey = getCalendarCacheKey(filter);
+    if (cacheKey == null)
+      return renderCalendar(filter);
+
+    // The calendar is still valid if no event of the agent has changed and no event has entered or left the time range
+    String agentId = filter.getSpatial();
+    String lastModified = getScheduleLastModified(agentId);
+    long from = filter.getEndsFrom() == null ? 0L : filter.getEndsFrom().getTime();
+    long to = filter.getStartsTo() == null ? Long.MAX_VALUE : filter.getStartsTo().getTime();
+    List<Long> eventIds = scheduleIntervals.findOverlapping(agentId, from, to);
+
+    CachedCalendar cached = calendarCache.getIfPresent(cacheKey);
+    if (cached != null && cached.lastModified.equals(lastModified) && cached.eventIds.equals(eventIds))
+      return cached.calendar;
+
+    String calendar = renderCalendar(filter);
+    calendarCache.put(cacheKey, new CachedCalendar(agentId, lastModified, eventIds, calendar));
+    return calendar;
+  }
+
+  /**
+   * Returns the key of the rendered calendar for a filter. Only calendars of a single capture agent that are filtered by
+   * nothing but the series and the time range are cached.
+   *
+   * @param filter
+   *          the calendar filter
+   * @return the cache key, or <code>null</code> if the calendar is not cached
+   */
+  private static String getCalendarCacheKey(SchedulerQuery filter) {
+    if (isBlank(filter.getSpatial()))
+      return null;
+    if (filter.getText() != null || filter.getIdentifier() != null || filter.getIdsList() != null
+            || filter.getTitle() != null || filter.getCreator() != null || filter.getContributor() != null
+            || filter.getLanguage() != null || filter.getLicense() != null || filter.getSubject() != null
+            || filter.getPublisher() != null || filter.getAbstract() != null || filter.getDescription() != null
+            || filter.getRightsHolder() != null || filter.getCreatedFrom() != null || filter.getCreatedTo() != null
+            || filter.getStartsFrom() != null || filter.getEndsTo() != null)
+      return null;
+    return filter.getSpatial() + "/" + filter.getSeriesId() + "/" + filter.getSort() + "/" + filter.isSortAscending();
+  }
+
+  /**
+   * Renders the iCalendar of the events matching a filter.
+   *
+   * @param filter
+   *          the calendar filter
+   * @return the iCalendar
+   * @throws SchedulerException
+   *           if the events cannot be read from the index
+   */
+  private String renderCalendar(SchedulerQuery filter) throws SchedulerException {
     List<Tuple<String, String>> eventList;
     try {
-      eventList = index.calendarSearch(filter.setOptOut(false).setBlacklisted(false));
+      eventList = index.calendarSearch(filter);
     } catch (SchedulerServiceDatabaseException e) {
       logger.error("Failed to retrieve events for capture agent '{}'", filter);
       throw new SchedulerException(e);
@@ -1420,7 +1568,9 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
       persistence.updateEventOptOutStatus(mediapackageId, optOut);
       messageSender.sendObjectMessage(SchedulerItem.SCHEDULER_QUEUE, MessageSender.DestinationType.Queue,
               SchedulerItem.updateOptOut(mediapackageId, optOut));
-      index.indexOptOut(persistence.getEventId(mediapackageId), optOut);
+      long eventId = persistence.getEventId(mediapackageId);
+      index.indexOptOut(eventId, optOut);
+      invalidateCalendars(scheduleIntervals.getAgent(eventId));
     } catch (SchedulerServiceDatabaseException e) {
       logger.error("Failed to update opt out status of event with mediapackage '{}': {}", mediapackageId,
               ExceptionUtils.getStackTrace(e));
@@ -1502,7 +1652,9 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
       persistence.updateEventBlacklistStatus(mediapackageId, blacklisted);
       messageSender.sendObjectMessage(SchedulerItem.SCHEDULER_QUEUE, MessageSender.DestinationType.Queue,
               SchedulerItem.updateBlacklist(mediapackageId, blacklisted));
-      index.indexBlacklisted(persistence.getEventId(mediapackageId), blacklisted);
+      long eventId = persistence.getEventId(mediapackageId);
+      index.indexBlacklisted(eventId, blacklisted);
+      invalidateCalendars(scheduleIntervals.getAgent(eventId));
     } catch (SchedulerServiceDatabaseException e) {
       logger.error("Failed to update opt out status of event with mediapackage '{}': {}", mediapackageId,
               ExceptionUtils.getStackTrace(e));
@@ -1574,4 +1726,21 @@ public class SchedulerServiceImpl extends AbstractIndexProducer implements Sched
     return SchedulerServiceImpl.class.getName();
   }
 
+  /** A rendered calendar along with the state of the schedule it has been rendered from. */
+  private static final class CachedCalendar {
+
+    private final String agentId;
+    private final String lastModified;
+    private final List<Long> eventIds;
+    private final String calendar;
+
+    CachedCalendar(String agentId, String lastModified, List<Long> eventIds, String calendar) {
+      this.agentId = agentId;
+      this.lastModified = lastModified;
+      this.eventIds = eventIds;
+      this.calendar = calendar;
+    }
+
+  }
+
 }
@@ -0,0 +1,110 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.scheduler.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Period;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ScheduleIntervalsTest {
+
+  private static final long HOUR = 60 * 60 * 1000L;
+  private static final long DAY = 24 * HOUR;
+
+  private ScheduleIntervals intervals;
+
+  @Before
+  public void setUp() {
+    intervals = new ScheduleIntervals();
+  }
+
+  private static List<Period> periods(long duration, long... starts) {
+    List<Period> periods = new ArrayList<Period>();
+    for (long start : starts) {
+      periods.add(new Period(new DateTime(start), new DateTime(start + duration)));
+    }
+    return periods;
+  }
+
+  @Test
+  public void testConflictsAcrossRecurrences() {
+    intervals.put(1L, "agent-a", DAY + 10 * HOUR, DAY + 11 * HOUR);
+    intervals.put(2L, "agent-a", 3 * DAY + 9 * HOUR, 3 * DAY + 12 * HOUR);
+    intervals.put(3L, "agent-a", 2 * DAY + 14 * HOUR, 2 * DAY + 15 * HOUR);
+    intervals.put(4L, "agent-b", DAY + 10 * HOUR, DAY + 11 * HOUR);
+
+    List<Period> periods = periods(2 * HOUR, 10 * HOUR, DAY + 10 * HOUR, 2 * DAY + 10 * HOUR, 3 * DAY + 10 * HOUR);
+    assertEquals(Arrays.asList(1L, 2L), intervals.findConflicts("agent-a", periods));
+    assertEquals(Arrays.asList(4L), intervals.findConflicts("agent-b", periods));
+    assertTrue(intervals.findConflicts("agent-c", periods).isEmpty());
+  }
+
+  @Test
+  public void testLongEventStartingBeforePeriod() {
+    intervals.put(1L, "agent-a", 0L, 5 * DAY);
+    intervals.put(2L, "agent-a", 6 * HOUR, 7 * HOUR);
+
+    assertEquals(Arrays.asList(1L), intervals.findConflicts("agent-a", periods(HOUR, 2 * DAY)));
+  }
+
+  @Test
+  public void testAdjacentEventsConflict() {
+    intervals.put(1L, "agent-a", 0L, HOUR);
+    intervals.put(2L, "agent-a", 2 * HOUR, 3 * HOUR);
+
+    assertEquals(Arrays.asList(1L, 2L), intervals.findConflicts("agent-a", periods(HOUR, HOUR)));
+  }
+
+  @Test
+  public void testEventReportedOnceForSeveralPeriods() {
+    intervals.put(1L, "agent-a", 0L, DAY);
+
+    assertEquals(Arrays.asList(1L), intervals.findConflicts("agent-a", periods(HOUR, HOUR, 3 * HOUR, 5 * HOUR)));
+  }
+
+  @Test
+  public void testUpdateAndRemove() {
+    intervals.put(1L, "agent-a", 0L, HOUR);
+    intervals.put(1L, "agent-b", 0L, HOUR);
+    assertEquals(1, intervals.size());
+    assertTrue(intervals.findConflicts("agent-a", periods(HOUR, 0L)).isEmpty());
+    assertEquals(Arrays.asList(1L), intervals.findConflicts("agent-b", periods(HOUR, 0L)));
+
+    intervals.put(1L, "agent-b", 5 * HOUR, 6 * HOUR);
+    assertTrue(intervals.findConflicts("agent-b", periods(HOUR, 0L)).isEmpty());
+
+    intervals.remove(1L);
+    assertEquals(0, intervals.size());
+    assertTrue(intervals.findConflicts("agent-b", periods(HOUR, 5 * HOUR)).isEmpty());
+  }
+
+}
@@ -579,6 +579,34 @@ public class SchedulerServiceImplTest {
     Assert.assertFalse(etag.equals(secondEtag));
   }
 
+  @Test
+  public void testCalendarIsCachedUntilEventsChange() throws Exception {
+    final long currentTime = System.currentTimeMillis();
+    final String device = "Cached Device";
+    final DublinCoreCatalog event = generateEvent(device, none(0L), some("Recording 1"), new Date(
+            currentTime + 10 * 1000), new Date(currentTime + 3610000));
+    final long eventId = schedSvc.addEvent(event, wfProperties);
+
+    // A calendar that is requested again is served from the cache
+    String calendar = schedSvc.getCalendar(new SchedulerQuery().setSpatial(device).setEndsFrom(
+            new Date(currentTime - 3600000)));
+    Assert.assertTrue(calendar.contains("Recording 1"));
+    Assert.assertSame(calendar, schedSvc.getCalendar(new SchedulerQuery().setSpatial(device).setEndsFrom(
+            new Date(currentTime - 3500000))));
+
+    // Updating an event renders the calendar again
+    final DublinCoreCatalog updatedEvent = generateEvent(device, some(eventId), some("Recording 2"), new Date(
+            currentTime + 10 * 1000), new Date(currentTime + 3610000));
+    schedSvc.updateEvent(eventId, updatedEvent, wfPropertiesUpdated);
+    String updatedCalendar = schedSvc.getCalendar(new SchedulerQuery().setSpatial(device));
+    Assert.assertTrue(updatedCalendar.contains("Recording 2"));
+
+    // An event that has left the time range is no longer part of the cached calendar
+    String laterCalendar = schedSvc.getCalendar(new SchedulerQuery().setSpatial(device).setEndsFrom(
+            new Date(currentTime + 3620000)));
+    Assert.assertFalse(laterCalendar.contains("Recording 2"));
+  }
+
   @Test
   public void testUpdateEvent() throws Exception {
     final long currentTime = System.currentTimeMillis();
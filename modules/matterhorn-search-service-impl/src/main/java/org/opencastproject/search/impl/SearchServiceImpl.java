@@ -61,6 +61,7 @@ import org.opencastproject.workspace.api.Workspace;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.SolrServerException;
@@ -81,8 +82,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Dictionary;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A Solr-based {@link SearchService} implementation.
@@ -113,12 +116,27 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   /** The key to look for in the service configuration file to override the {@link DEFAULT_DELETE_JOB_LOAD} */
   public static final String DELETE_JOB_LOAD_KEY = "job.load.delete";
 
+  /** The key to look for in the service configuration file for the maximum time changes stay uncommitted */
+  public static final String COMMIT_WITHIN_KEY = "solr.commit.within";
+
+  /** The key to look for in the service configuration file to enable soft commits */
+  public static final String SOFT_COMMIT_KEY = "solr.commit.soft";
+
+  /** The number of media packages that are posted to the index at once when populating the index */
+  private static final int POPULATE_BATCH_SIZE = 100;
+
   /** The load introduced on the system by creating an add job */
   private float addJobLoad = DEFAULT_ADD_JOB_LOAD;
 
   /** The load introduced on the system by creating a delete job */
   private float deleteJobLoad = DEFAULT_DELETE_JOB_LOAD;
 
+  /** The maximum time in milliseconds that changes to the index stay uncommitted, 0 to commit right away */
+  private long commitWithin = 0L;
+
+  /** Whether commits return before the index has been flushed and a new searcher has been registered */
+  private boolean softCommit = false;
+
   /** counter how often the index has already been tried to populate */
   private int retriesToPopulateIndex = 0;
 
@@ -231,6 +249,7 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
     solrRequester = new SolrRequester(solrServer, securityService, serializer);
     indexManager = new SolrIndexManager(solrServer, workspace, mdServices, seriesService, mpeg7CatalogService,
             securityService);
+    indexManager.setCommitPolicy(commitWithin, softCommit);
 
     String systemUserName = cc.getBundleContext().getProperty(SecurityUtil.PROPERTY_KEY_SYS_USER);
     populateIndex(systemUserName);
@@ -240,6 +259,8 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
    * Service deactivator, called via declarative services configuration.
    */
   public void deactivate() {
+    if (indexManager != null)
+      indexManager.close();
     SolrServerFactory.shutdown(solrServer);
   }
 
@@ -516,21 +537,32 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
         throw new ServiceException(e.getMessage());
       }
       int errors = 0;
-      while (mediaPackages.hasNext()) {
+      // Media packages are posted in batches of the same organization, since they are indexed in its security context
+      List<SolrIndexManager.IndexEntry> batch = new ArrayList<SolrIndexManager.IndexEntry>(POPULATE_BATCH_SIZE);
+      Map<String, Organization> organizations = new HashMap<String, Organization>();
+      String batchOrganization = null;
+      while (mediaPackages.hasNext() || !batch.isEmpty()) {
+        Tuple<MediaPackage, String> mediaPackage = mediaPackages.hasNext() ? mediaPackages.next() : null;
         try {
-          Tuple<MediaPackage, String> mediaPackage = mediaPackages.next();
+          if (!batch.isEmpty() && (mediaPackage == null || !mediaPackage.getB().equals(batchOrganization)
+                  || batch.size() >= POPULATE_BATCH_SIZE)) {
+            setSystemUser(batchOrganization, systemUserName, organizations);
+            List<SolrIndexManager.IndexEntry> posted = new ArrayList<SolrIndexManager.IndexEntry>(batch);
+            batch.clear();
+            errors += posted.size() - indexManager.add(posted);
+          }
+          if (mediaPackage == null)
+            break;
 
+          // The persistence lookups authorize against the security context as well
+          setSystemUser(mediaPackage.getB(), systemUserName, organizations);
           String mediaPackageId = mediaPackage.getA().getIdentifier().toString();
-
-          Organization organization = organizationDirectory.getOrganization(mediaPackage.getB());
-          securityService.setOrganization(organization);
-          securityService.setUser(SecurityUtil.createSystemUser(systemUserName, organization));
-
           AccessControlList acl = persistence.getAccessControlList(mediaPackageId);
           Date modificationDate = persistence.getModificationDate(mediaPackageId);
           Date deletionDate = persistence.getDeletionDate(mediaPackageId);
 
-          indexManager.add(mediaPackage.getA(), acl, deletionDate, modificationDate);
+          batchOrganization = mediaPackage.getB();
+          batch.add(new SolrIndexManager.IndexEntry(mediaPackage.getA(), acl, deletionDate, modificationDate));
         } catch (Exception e) {
           logger.error("Unable to index search instances: {}", e);
           if (retryToPopulateIndex(systemUserName)) {
@@ -543,12 +575,40 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
           securityService.setUser(null);
         }
       }
+      try {
+        indexManager.flush();
+      } catch (SolrServerException e) {
+        logger.error("Unable to commit the populated search index: {}", e.getMessage());
+      }
       if (errors > 0)
         logger.error("Skipped {} erroneous search entries while populating the search index", errors);
       logger.info("Finished populating search index");
     }
   }
 
+  /**
+   * Sets the system user of the given organization as the current user.
+   *
+   * @param organizationId
+   *          the organization identifier
+   * @param systemUserName
+   *          the name of the system user
+   * @param organizations
+   *          the organizations that have already been looked up, by identifier
+   * @throws NotFoundException
+   *           if the organization does not exist
+   */
+  private void setSystemUser(String organizationId, String systemUserName, Map<String, Organization> organizations)
+          throws NotFoundException {
+    Organization organization = organizations.get(organizationId);
+    if (organization == null) {
+      organization = organizationDirectory.getOrganization(organizationId);
+      organizations.put(organizationId, organization);
+    }
+    securityService.setOrganization(organization);
+    securityService.setUser(SecurityUtil.createSystemUser(systemUserName, organization));
+  }
+
   private boolean retryToPopulateIndex(final String systemUserName) {
     if (retriesToPopulateIndex > 0) {
       return false;
@@ -734,5 +794,17 @@ public final class SearchServiceImpl extends AbstractJobProducer implements Sear
   public void updated(@SuppressWarnings("rawtypes") Dictionary properties) throws ConfigurationException {
     addJobLoad = LoadUtil.getConfiguredLoadValue(properties, ADD_JOB_LOAD_KEY, DEFAULT_ADD_JOB_LOAD, serviceRegistry);
     deleteJobLoad = LoadUtil.getConfiguredLoadValue(properties, DELETE_JOB_LOAD_KEY, DEFAULT_DELETE_JOB_LOAD, serviceRegistry);
+
+    String commitWithinValue = StringUtils.trimToNull((String) properties.get(COMMIT_WITHIN_KEY));
+    try {
+      commitWithin = commitWithinValue == null ? 0L : Long.parseLong(commitWithinValue);
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException(COMMIT_WITHIN_KEY, "Not a number: " + commitWithinValue);
+    }
+    softCommit = BooleanUtils.toBoolean(StringUtils.trimToNull((String) properties.get(SOFT_COMMIT_KEY)));
+    logger.info("Committing changes to the search index {}{}", commitWithin > 0L ? "within " + commitWithin + " ms"
+            : "immediately", softCommit ? " without waiting for new searchers" : "");
+    if (indexManager != null)
+      indexManager.setCommitPolicy(commitWithin, softCommit);
   }
 }
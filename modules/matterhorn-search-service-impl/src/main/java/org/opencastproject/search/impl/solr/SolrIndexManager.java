@@ -102,11 +102,16 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class used to manage the search index.
@@ -119,6 +124,27 @@ public class SolrIndexManager {
   /** Connection to the database */
   private SolrServer solrServer = null;
 
+  /** The maximum time in milliseconds that changes stay uncommitted, 0 to commit every change right away */
+  private long commitWithin = 0L;
+
+  /** Whether commits return without waiting for the index to be flushed and a new searcher to be registered */
+  private boolean softCommit = false;
+
+  /** Whether there are changes that have not been committed yet */
+  private boolean uncommittedChanges = false;
+
+  /** The documents waiting for a deferred commit, by identifier, so that they survive a rollback */
+  private final Map<String, SolrInputDocument> uncommittedDocuments = new LinkedHashMap<String, SolrInputDocument>();
+
+  /** The next scheduled commit, if any */
+  private ScheduledFuture<?> scheduledCommit = null;
+
+  /** Executes the deferred commits, created on demand */
+  private ScheduledExecutorService commitScheduler = null;
+
+  /** Guards the commit state */
+  private final Object commitLock = new Object();
+
   /**
    * Factor multiplied to fine tune relevance and confidence impact on important keyword decision. importance =
    * RELEVANCE_BOOST * relevance + confidence
@@ -201,6 +227,119 @@ public class SolrIndexManager {
     setStaticMetadataServices(notNull(mdServices, "metadata service"));
   }
 
+  /**
+   * Sets the commit policy of the index manager. By default, every change to the index is committed immediately.
+   * <p>
+   * If <code>commitWithin</code> is greater than zero, changes are committed at most that many milliseconds after the
+   * first uncommitted change, so that all changes made in the meantime share a single commit. The visibility of changes
+   * in search results is delayed by the same amount of time.
+   *
+   * @param commitWithin
+   *          the maximum time in milliseconds that changes stay uncommitted, 0 to commit every change right away
+   * @param softCommit
+   *          <code>true</code> to not wait for the index to be flushed and a new searcher to be registered on commit
+   */
+  public void setCommitPolicy(long commitWithin, boolean softCommit) {
+    synchronized (commitLock) {
+      this.commitWithin = Math.max(0L, commitWithin);
+      this.softCommit = softCommit;
+    }
+    // Don't leave changes waiting for longer than newly configured
+    if (commitWithin <= 0L) {
+      try {
+        flush();
+      } catch (SolrServerException e) {
+        logger.warn("Unable to commit pending changes to the search index: {}", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Commits all changes that are waiting for a deferred commit.
+   *
+   * @throws SolrServerException
+   *           if an errors occurs while talking to solr
+   */
+  public void flush() throws SolrServerException {
+    synchronized (commitLock) {
+      cancelScheduledCommit();
+      if (!uncommittedChanges)
+        return;
+      uncommittedChanges = false;
+      uncommittedDocuments.clear();
+    }
+    commitNow();
+  }
+
+  /**
+   * Commits pending changes and stops the deferred commits.
+   */
+  public void close() {
+    try {
+      flush();
+    } catch (SolrServerException e) {
+      logger.warn("Unable to commit pending changes to the search index: {}", e.getMessage());
+    }
+    synchronized (commitLock) {
+      if (commitScheduler != null) {
+        commitScheduler.shutdown();
+        commitScheduler = null;
+      }
+    }
+  }
+
+  /**
+   * Commits the changes made to the index according to the commit policy, either right away or with a deferred commit.
+   *
+   * @param documents
+   *          the documents that have been posted
+   */
+  private void commit(Collection<SolrInputDocument> documents) throws SolrServerException {
+    synchronized (commitLock) {
+      if (commitWithin > 0L) {
+        uncommittedChanges = true;
+        for (SolrInputDocument document : documents) {
+          uncommittedDocuments.put((String) document.getFieldValue(Schema.ID), document);
+        }
+        if (scheduledCommit == null) {
+          if (commitScheduler == null)
+            commitScheduler = Executors.newSingleThreadScheduledExecutor();
+          scheduledCommit = commitScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                flush();
+              } catch (SolrServerException e) {
+                logger.warn("Unable to commit changes to the search index: {}", e.getMessage());
+              }
+            }
+          }, commitWithin, TimeUnit.MILLISECONDS);
+        }
+        return;
+      }
+    }
+    commitNow();
+  }
+
+  /** Commits to solr right away. */
+  private void commitNow() throws SolrServerException {
+    try {
+      if (softCommit)
+        solrServer.commit(false, false);
+      else
+        solrServer.commit();
+    } catch (IOException e) {
+      throw new SolrServerException(e);
+    }
+  }
+
+  private void cancelScheduledCommit() {
+    if (scheduledCommit != null) {
+      scheduledCommit.cancel(false);
+      scheduledCommit = null;
+    }
+  }
+
   /**
    * Clears the search index. Make sure you know what you are doing.
    *
@@ -209,8 +348,13 @@ public class SolrIndexManager {
    */
   public void clear() throws SolrServerException {
     try {
+      synchronized (commitLock) {
+        cancelScheduledCommit();
+        uncommittedChanges = false;
+        uncommittedDocuments.clear();
+      }
       solrServer.deleteByQuery("*:*");
-      solrServer.commit();
+      commitNow();
     } catch (IOException e) {
       throw new SolrServerException(e);
     }
@@ -228,6 +372,9 @@ public class SolrIndexManager {
    */
   public boolean delete(String id, Date deletionDate) throws SolrServerException {
     try {
+      // The episode may have been added with a deferred commit
+      flush();
+
       // Load the existing episode
       QueryResponse solrResponse = null;
       try {
@@ -254,7 +401,7 @@ public class SolrIndexManager {
       // Set the oc_deleted field to the current date, then update
       Schema.setOcDeleted(inputDocument, deletionDate);
       solrServer.add(inputDocument);
-      solrServer.commit();
+      commit(Collections.singletonList(inputDocument));
       return true;
     } catch (IOException e) {
       throw new SolrServerException(e);
@@ -293,11 +440,13 @@ public class SolrIndexManager {
       }
 
       // Post everything to the search index
+      List<SolrInputDocument> documents = new ArrayList<SolrInputDocument>(2);
       if (episodeDocument != null)
-        solrServer.add(episodeDocument);
+        documents.add(episodeDocument);
       if (seriesDocument != null)
-        solrServer.add(seriesDocument);
-      solrServer.commit();
+        documents.add(seriesDocument);
+      solrServer.add(documents);
+      commit(documents);
       return true;
     } catch (Exception e) {
       throw new SolrServerException(e);
@@ -325,27 +474,92 @@ public class SolrIndexManager {
   public boolean add(MediaPackage sourceMediaPackage, AccessControlList acl, Date deletionDate, Date modificationDate)
           throws SolrServerException {
     try {
-      SolrInputDocument episodeDocument = createEpisodeInputDocument(sourceMediaPackage, acl);
+      List<SolrInputDocument> documents = createInputDocuments(sourceMediaPackage, acl, deletionDate,
+              modificationDate);
+      solrServer.add(documents);
+      commit(documents);
+      return true;
+    } catch (Exception e) {
+      rollback();
+      throw new SolrServerException(e);
+    }
+  }
 
-      SolrInputDocument seriesDocument = createSeriesInputDocument(sourceMediaPackage.getSeries(), acl);
-      if (seriesDocument != null)
-        Schema.enrich(episodeDocument, seriesDocument);
+  /**
+   * Posts a batch of media packages to solr using a single update request and a single commit. Media packages that
+   * cannot be turned into solr documents are skipped, see
+   * {@link #add(MediaPackage, AccessControlList, Date, Date)} for how each media package is indexed.
+   * <p>
+   * All media packages are indexed in the current security context, so they need to belong to the same organization.
+   *
+   * @param mediaPackages
+   *          the media packages to post, along with their access control list, deletion date and modification date
+   * @return the number of media packages that have been posted
+   * @throws SolrServerException
+   *           if an errors occurs while talking to solr
+   */
+  public int add(Collection<IndexEntry> mediaPackages) throws SolrServerException {
+    List<SolrInputDocument> documents = new ArrayList<SolrInputDocument>(mediaPackages.size() * 2);
+    int added = 0;
+    for (IndexEntry entry : mediaPackages) {
+      try {
+        documents.addAll(createInputDocuments(entry.mediaPackage, entry.acl, entry.deletionDate,
+                entry.modificationDate));
+        added++;
+      } catch (Exception e) {
+        logger.error("Unable to create the search index documents for media package {}: {}",
+                entry.mediaPackage.getIdentifier(), e);
+      }
+    }
+    if (documents.isEmpty())
+      return 0;
+    try {
+      solrServer.add(documents);
+      commit(documents);
+      return added;
+    } catch (Exception e) {
+      rollback();
+      throw new SolrServerException(e);
+    }
+  }
 
-      Schema.setOcModified(episodeDocument, modificationDate);
-      if (deletionDate != null)
-        Schema.setOcDeleted(episodeDocument, deletionDate);
+  /**
+   * Creates the solr input documents for the episode and, if the media package belongs to a series, the series.
+   */
+  private List<SolrInputDocument> createInputDocuments(MediaPackage mediaPackage, AccessControlList acl,
+          Date deletionDate, Date modificationDate) throws Exception {
+    SolrInputDocument episodeDocument = createEpisodeInputDocument(mediaPackage, acl);
+
+    SolrInputDocument seriesDocument = createSeriesInputDocument(mediaPackage.getSeries(), acl);
+    if (seriesDocument != null)
+      Schema.enrich(episodeDocument, seriesDocument);
+
+    Schema.setOcModified(episodeDocument, modificationDate);
+    if (deletionDate != null)
+      Schema.setOcDeleted(episodeDocument, deletionDate);
+
+    List<SolrInputDocument> documents = new ArrayList<SolrInputDocument>(2);
+    documents.add(episodeDocument);
+    if (seriesDocument != null)
+      documents.add(seriesDocument);
+    return documents;
+  }
 
-      solrServer.add(episodeDocument);
-      solrServer.add(seriesDocument);
-      solrServer.commit();
-      return true;
-    } catch (Exception e) {
+  /**
+   * Rolls back uncommitted changes after a failed update. The changes that are waiting for a deferred commit are lost
+   * along with the failed update, so they are posted again afterwards.
+   */
+  private void rollback() throws SolrServerException {
+    synchronized (commitLock) {
       try {
         solrServer.rollback();
-      } catch (IOException e1) {
-        throw new SolrServerException(e1);
+        if (!uncommittedDocuments.isEmpty()) {
+          logger.debug("Posting {} documents again that are waiting for a deferred commit", uncommittedDocuments.size());
+          solrServer.add(new ArrayList<SolrInputDocument>(uncommittedDocuments.values()));
+        }
+      } catch (IOException e) {
+        throw new SolrServerException(e);
       }
-      throw new SolrServerException(e);
     }
   }
 
@@ -1272,4 +1486,34 @@ public class SolrIndexManager {
       throw new SearchServiceDatabaseException(e);
     }
   }
+
+  /** A media package to be posted to solr with {@link SolrIndexManager#add(Collection)}. */
+  public static final class IndexEntry {
+
+    private final MediaPackage mediaPackage;
+    private final AccessControlList acl;
+    private final Date deletionDate;
+    private final Date modificationDate;
+
+    /**
+     * Creates an entry for a media package.
+     *
+     * @param mediaPackage
+     *          the media package
+     * @param acl
+     *          the access control list for this media package
+     * @param deletionDate
+     *          the deletion date, may be <code>null</code>
+     * @param modificationDate
+     *          the modification date
+     */
+    public IndexEntry(MediaPackage mediaPackage, AccessControlList acl, Date deletionDate, Date modificationDate) {
+      this.mediaPackage = notNull(mediaPackage, "mediaPackage");
+      this.acl = acl;
+      this.deletionDate = deletionDate;
+      this.modificationDate = modificationDate;
+    }
+
+  }
+
 }
@@ -24,6 +24,7 @@ package org.opencastproject.search.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.opencastproject.security.api.Permissions.Action.READ;
 import static org.opencastproject.security.api.Permissions.Action.WRITE;
 import static org.opencastproject.util.persistence.PersistenceUtil.newTestEntityManagerFactory;
@@ -510,6 +511,34 @@ public class SearchServiceImplTest {
     assertEquals(1, service.getByQuery(q).size());
   }
 
+  /**
+   * Test that changes are only visible once they have been committed when commits are deferred.
+   */
+  @Test
+  public void testDeferredCommit() throws Exception {
+    MediaPackage mediaPackage = getMediaPackage("/manifest-simple.xml");
+    acl.getEntries().add(new AccessControlEntry(ROLE_STUDENT, READ.toString(), true));
+    acl.getEntries().add(new AccessControlEntry(ROLE_STUDENT, WRITE.toString(), true));
+
+    SolrIndexManager indexManager = service.getSolrIndexManager();
+    indexManager.setCommitPolicy(60L * 60L * 1000L, false);
+    try {
+      SearchQuery q = new SearchQuery().withId("10.0000/1");
+      service.addSynchronously(mediaPackage);
+      assertEquals(0, service.getByQuery(q).size());
+      indexManager.flush();
+      assertEquals(1, service.getByQuery(q).size());
+
+      // Deleting a media package that is waiting for its commit must find it
+      service.addSynchronously(getMediaPackage("/manifest-full.xml"));
+      assertTrue(indexManager.delete("10.0000/2", new Date()));
+      indexManager.flush();
+      assertEquals(0, service.getByQuery(new SearchQuery().withId("10.0000/2")).size());
+    } finally {
+      indexManager.setCommitPolicy(0L, false);
+    }
+  }
+
   /**
    * Test removal from the search index.
    */
@@ -648,4 +677,49 @@ public class SearchServiceImplTest {
     // This time we should have 10 results
     assertEquals(10, service.getByQuery(new SearchQuery()).size());
   }
+
+  /**
+   * Populates an empty index from the database with a security service that only knows the user and organization it
+   * was given, so the persistence lookups fail unless they run in the system user's context.
+   */
+  @Test
+  public void testPopulateIndexFromDatabase() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      MediaPackage mediaPackage = MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew();
+      mediaPackage.setIdentifier(IdBuilderFactory.newInstance().newIdBuilder().createNew());
+      searchDatabase.storeMediaPackage(mediaPackage, acl, new Date());
+    }
+
+    SecurityService securityService = EasyMock.createNiceMock(SecurityService.class);
+    EasyMock.expect(securityService.getUser()).andAnswer(userResponder).anyTimes();
+    EasyMock.expect(securityService.getOrganization()).andAnswer(organizationResponder).anyTimes();
+    securityService.setUser((User) EasyMock.anyObject());
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() throws Throwable {
+        userResponder.setResponse((User) EasyMock.getCurrentArguments()[0]);
+        return null;
+      }
+    }).anyTimes();
+    securityService.setOrganization((Organization) EasyMock.anyObject());
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Void>() {
+      @Override
+      public Void answer() throws Throwable {
+        organizationResponder.setResponse((Organization) EasyMock.getCurrentArguments()[0]);
+        return null;
+      }
+    }).anyTimes();
+    EasyMock.replay(securityService);
+    service.setSecurityService(securityService);
+    searchDatabase.setSecurityService(securityService);
+
+    // Start without a security context, as the service does on activation
+    userResponder.setResponse(null);
+    organizationResponder.setResponse(null);
+    service.populateIndex("System Admin");
+
+    userResponder.setResponse(defaultUser);
+    organizationResponder.setResponse(defaultOrganization);
+    assertEquals(3, service.getByQuery(new SearchQuery()).size());
+  }
 }
@@ -36,6 +36,8 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesResponse;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
@@ -53,15 +55,19 @@ import org.elasticsearch.action.get.GetRequestBuilder;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.IndicesAdminClient;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.indices.IndexAlreadyExistsException;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.node.NodeBuilder;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.sort.SortOrder;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.service.component.ComponentException;
@@ -74,6 +80,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -98,6 +105,9 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   /** Type of the document containing the index version information */
   private static final String VERSION_TYPE = "version";
 
+  /** The number of documents copied at once when an index is moved */
+  private static final int COPY_BATCH_SIZE = 500;
+
   /** The index identifier */
   private String index = null;
 
@@ -110,6 +120,12 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   /** Client for talking to elastic search */
   private Client nodeClient = null;
 
+  /** The physical index that is being rebuilt and receives a copy of every write, if any */
+  private volatile String rebuildIndex = null;
+
+  /** The index that the queries and updates of the current thread are restricted to, if any */
+  private final ThreadLocal<String> restrictedIndex = new ThreadLocal<String>();
+
   /** List of sites with prepared index */
   private final List<String> preparedIndices = new ArrayList<String>();
 
@@ -169,7 +185,9 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
       IndicesExistsResponse indicesExistsResponse = nodeClient.admin().indices()
               .exists(new IndicesExistsRequest(getIndexName())).actionGet();
       if (indicesExistsResponse.isExists()) {
-        DeleteIndexResponse delete = nodeClient.admin().indices().delete(new DeleteIndexRequest(getIndexName()))
+        List<String> physicalIndices = getPhysicalIndices(getIndexName());
+        DeleteIndexResponse delete = nodeClient.admin().indices()
+                .delete(new DeleteIndexRequest(physicalIndices.toArray(new String[physicalIndices.size()])))
                 .actionGet();
         if (!delete.isAcknowledged())
           logger.error("Index '{}' could not be deleted", getIndexName());
@@ -183,7 +201,7 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     preparedIndices.remove(getIndexName());
     // Create the index
     try {
-      createIndex(index);
+      prepareIndex();
     } catch (SearchIndexException e) {
       logger.error("Unable to re-create the index after a clear: {}", ExceptionUtils.getStackTrace(e));
     }
@@ -204,7 +222,7 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
 
     if (!preparedIndices.contains(index)) {
       try {
-        createIndex(index);
+        prepareIndex();
       } catch (IOException e) {
         throw new SearchIndexException(e);
       }
@@ -212,9 +230,10 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
 
     logger.debug("Removing element with id '{}' from searching index", uid);
 
-    DeleteRequestBuilder deleteRequest = nodeClient.prepareDelete(index, type, uid);
+    DeleteRequestBuilder deleteRequest = nodeClient.prepareDelete(getQueryIndex(), type, uid);
     deleteRequest.setRefresh(true);
     DeleteResponse delete = deleteRequest.execute().actionGet();
+    deleteFromRebuildIndex(type, uid);
     if (!delete.isFound()) {
       logger.trace("Document {} to delete was not found", uid);
       return false;
@@ -224,7 +243,23 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   }
 
   /**
-   * Posts the input document to the search index.
+   * Removes the given document from the index that is being rebuilt, if there is one and if the current thread is not
+   * restricted to a single index.
+   *
+   * @param type
+   *          the document type
+   * @param uid
+   *          the identifier
+   */
+  protected void deleteFromRebuildIndex(String type, String uid) {
+    String target = rebuildIndex;
+    if (target == null || restrictedIndex.get() != null)
+      return;
+    nodeClient.prepareDelete(target, type, uid).setRefresh(true).execute().actionGet();
+  }
+
+  /**
+   * Posts the input documents to the search index and makes them searchable immediately.
    *
    * @param documents
    *          the input documents
@@ -233,36 +268,180 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
    *           if posting to the index fails
    */
   protected BulkResponse update(ElasticsearchDocument... documents) throws SearchIndexException {
+    return update(true, documents);
+  }
+
+  /**
+   * Posts the input documents to the search index in a single bulk request.
+   *
+   * @param refresh
+   *          whether to refresh the index after the update, so the documents are searchable immediately
+   * @param documents
+   *          the input documents
+   * @return the query response
+   * @throws SearchIndexException
+   *           if posting to the index fails
+   */
+  protected BulkResponse update(boolean refresh, ElasticsearchDocument... documents) throws SearchIndexException {
+    BulkResponse bulkResponse = post(restrictedIndex.get(), refresh, documents);
+
+    // Check for errors
+    if (bulkResponse.hasFailures()) {
+      for (BulkItemResponse item : bulkResponse.getItems()) {
+        if (item.isFailed()) {
+          logger.warn("Error updating {}: {}", item, item.getFailureMessage());
+          throw new SearchIndexException("Cannot update documents in index " + index + ": " + item.getFailureMessage());
+        }
+      }
+    }
+
+    return bulkResponse;
+  }
+
+  /**
+   * Posts the input documents to the search index in a single bulk request. Unlike
+   * {@link #update(boolean, ElasticsearchDocument...)}, documents that have been rejected by the index are not treated
+   * as an error but are reported in the response.
+   *
+   * @param idx
+   *          the index to write to, or <code>null</code> to write to this index and to the index that is being rebuilt
+   * @param refresh
+   *          whether to refresh the index after the update, so the documents are searchable immediately
+   * @param documents
+   *          the input documents
+   * @return the bulk response
+   * @throws SearchIndexException
+   *           if the bulk request fails as a whole
+   */
+  protected BulkResponse post(String idx, boolean refresh, ElasticsearchDocument... documents)
+          throws SearchIndexException {
 
+    String target = idx == null ? rebuildIndex : null;
     BulkRequestBuilder bulkRequest = nodeClient.prepareBulk();
     for (ElasticsearchDocument doc : documents) {
       String type = doc.getType();
       String uid = doc.getUID();
-      bulkRequest.add(nodeClient.prepareIndex(index, type, uid).setSource(doc));
+      bulkRequest.add(nodeClient.prepareIndex(idx == null ? index : idx, type, uid).setSource(doc));
+      if (target != null)
+        bulkRequest.add(nodeClient.prepareIndex(target, type, uid).setSource(doc));
     }
 
-    // Make sure the operations are searchable immediately
-    bulkRequest.setRefresh(true);
+    // Make sure the operations are searchable immediately if requested
+    bulkRequest.setRefresh(refresh);
 
     try {
-      BulkResponse bulkResponse = bulkRequest.execute().actionGet();
-
-      // Check for errors
-      if (bulkResponse.hasFailures()) {
-        for (BulkItemResponse item : bulkResponse.getItems()) {
-          if (item.isFailed()) {
-            logger.warn("Error updating {}: {}", item, item.getFailureMessage());
-            throw new SearchIndexException(item.getFailureMessage());
-          }
-        }
-      }
-
-      return bulkResponse;
+      return bulkRequest.execute().actionGet();
     } catch (Throwable t) {
       throw new SearchIndexException("Cannot update documents in index " + index, t);
     }
   }
 
+  /**
+   * Starts to rebuild the index into a new physical index. Until the rebuild is finished, every document that is
+   * written to the index is written to the new index as well, while queries are still answered by the current one.
+   *
+   * @param resumeIndex
+   *          the physical index of a previous, unfinished rebuild to resume, or <code>null</code> to start from scratch
+   * @return the name of the physical index that is being rebuilt
+   * @throws SearchIndexException
+   *           if the new index cannot be created
+   * @throws IOException
+   *           if loading of the type definitions fails
+   */
+  protected String startRebuild(String resumeIndex) throws SearchIndexException, IOException {
+    String target = resumeIndex;
+    if (target == null || !nodeClient.admin().indices().prepareExists(target).execute().actionGet().isExists()) {
+      target = index + "_" + System.currentTimeMillis();
+      logger.info("Creating index '{}' to rebuild index '{}'", target, index);
+    } else {
+      logger.info("Resuming to rebuild index '{}' into '{}'", index, target);
+    }
+    createIndex(target);
+    rebuildIndex = target;
+    return target;
+  }
+
+  /**
+   * Finishes the rebuild by atomically pointing the index alias to the rebuilt physical index. The physical indices
+   * that have been serving queries before are deleted.
+   *
+   * @throws SearchIndexException
+   *           if there is no rebuild in progress or if the alias cannot be switched
+   */
+  protected void finishRebuild() throws SearchIndexException {
+    String target = rebuildIndex;
+    if (target == null)
+      throw new SearchIndexException("Index '" + index + "' is not being rebuilt");
+
+    // The index has been turned into an alias when it was initialized, so that the switch is a single request
+    IndicesAdminClient indexAdmin = nodeClient.admin().indices();
+    if (!indexAdmin.prepareAliasesExist(index).execute().actionGet().exists())
+      throw new SearchIndexException("Index '" + index + "' is not served by an alias");
+
+    List<String> previous = getPhysicalIndices(index);
+    previous.remove(target);
+    IndicesAliasesRequestBuilder aliasRequest = indexAdmin.prepareAliases();
+    for (String physicalIndex : previous) {
+      aliasRequest.removeAlias(physicalIndex, index);
+    }
+    aliasRequest.addAlias(target, index);
+    if (!aliasRequest.execute().actionGet().isAcknowledged())
+      throw new SearchIndexException("Unable to point alias '" + index + "' to index '" + target + "'");
+    rebuildIndex = null;
+    logger.info("Index '{}' is now served by '{}'", index, target);
+
+    for (String physicalIndex : previous) {
+      try {
+        indexAdmin.prepareDelete(physicalIndex).execute().actionGet();
+      } catch (Throwable t) {
+        logger.warn("Unable to delete previous index '{}': {}", physicalIndex, ExceptionUtils.getMessage(t));
+      }
+    }
+  }
+
+  /**
+   * Restricts the queries and updates of the current thread to a single physical index or alias. Updates that depend
+   * on the current state of a document use this while the index is being rebuilt, so that they are applied to the
+   * live and to the rebuilt index separately, each based on the document found in that index.
+   *
+   * @param idx
+   *          the index, or <code>null</code> to lift the restriction
+   */
+  public void restrictTo(String idx) {
+    if (idx == null)
+      restrictedIndex.remove();
+    else
+      restrictedIndex.set(idx);
+  }
+
+  /**
+   * Returns the index that the current thread has been restricted to.
+   *
+   * @return the index, or <code>null</code> if the current thread is not restricted
+   */
+  protected String getRestrictedIndex() {
+    return restrictedIndex.get();
+  }
+
+  /**
+   * Returns the index that queries and deletions of the current thread go to.
+   *
+   * @return the index that the current thread has been restricted to, or this index
+   */
+  protected String getQueryIndex() {
+    String idx = restrictedIndex.get();
+    return idx == null ? getIndexName() : idx;
+  }
+
+  /**
+   * Returns the physical index that is being rebuilt.
+   *
+   * @return the index name, or <code>null</code> if the index is not being rebuilt
+   */
+  public String getRebuildIndex() {
+    return rebuildIndex;
+  }
+
   /**
    * Initializes an Elasticsearch node for the given index.
    *
@@ -308,7 +487,7 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     }
 
     // Create the index
-    createIndex(index);
+    prepareIndex();
   }
 
   /**
@@ -339,6 +518,91 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
     }
   }
 
+  /**
+   * Makes sure that the index is an alias to a physical index, so that it can be rebuilt and switched to the rebuilt
+   * index in a single request. An index that has been created as a physical index by an earlier version is copied to
+   * a new physical index and replaced by an alias to it. This is done while the index is being initialized, so nobody
+   * reads or writes the index in the meantime. The old index is only deleted once its documents have been copied.
+   *
+   * @throws SearchIndexException
+   *           if the index cannot be created or replaced
+   * @throws IOException
+   *           if loading of the type definitions fails
+   */
+  private void prepareIndex() throws SearchIndexException, IOException {
+    IndicesAdminClient indexAdmin = nodeClient.admin().indices();
+    if (!indexAdmin.prepareAliasesExist(index).execute().actionGet().exists()) {
+      String target = index + "_" + System.currentTimeMillis();
+      createIndex(target);
+      if (indexAdmin.prepareExists(index).execute().actionGet().isExists()) {
+        logger.info("Moving the documents of index '{}' to '{}' to serve it by an alias", index, target);
+        copyDocuments(index, target);
+        if (!indexAdmin.prepareDelete(index).execute().actionGet().isAcknowledged())
+          throw new SearchIndexException("Unable to delete index '" + index + "', its documents are in '" + target
+                  + "'");
+      }
+      if (!indexAdmin.prepareAliases().addAlias(target, index).execute().actionGet().isAcknowledged())
+        throw new SearchIndexException("Unable to point alias '" + index + "' to index '" + target + "'");
+      logger.info("Index '{}' is served by '{}'", index, target);
+    }
+    createIndex(index);
+  }
+
+  /**
+   * Copies all documents from one index to another.
+   *
+   * @param source
+   *          the index to copy from
+   * @param target
+   *          the index to copy to
+   * @throws SearchIndexException
+   *           if some of the documents cannot be copied
+   */
+  private void copyDocuments(String source, String target) throws SearchIndexException {
+    TimeValue keepAlive = TimeValue.timeValueMinutes(5);
+    SearchResponse scroll = nodeClient.prepareSearch(source).setSearchType(SearchType.SCAN).setScroll(keepAlive)
+            .setQuery(QueryBuilders.matchAllQuery()).setSize(COPY_BATCH_SIZE).execute().actionGet();
+    long copied = 0;
+    while (true) {
+      scroll = nodeClient.prepareSearchScroll(scroll.getScrollId()).setScroll(keepAlive).execute().actionGet();
+      SearchHit[] hits = scroll.getHits().getHits();
+      if (hits.length == 0)
+        break;
+      BulkRequestBuilder bulkRequest = nodeClient.prepareBulk();
+      for (SearchHit hit : hits) {
+        bulkRequest.add(nodeClient.prepareIndex(target, hit.getType(), hit.getId()).setSource(hit.getSourceRef()));
+      }
+      BulkResponse bulkResponse = bulkRequest.execute().actionGet();
+      if (bulkResponse.hasFailures())
+        throw new SearchIndexException("Unable to copy documents from index '" + source + "' to '" + target + "': "
+                + bulkResponse.buildFailureMessage());
+      copied += hits.length;
+    }
+    nodeClient.admin().indices().prepareRefresh(target).execute().actionGet();
+    logger.info("Copied {} documents from index '{}' to '{}'", new Object[] { copied, source, target });
+  }
+
+  /**
+   * Returns the physical indices behind an alias.
+   *
+   * @param alias
+   *          the alias, or the name of a physical index
+   * @return the physical indices, which is just the given one if it is not an alias
+   */
+  private List<String> getPhysicalIndices(String alias) {
+    List<String> physicalIndices = new ArrayList<String>();
+    IndicesAdminClient indexAdmin = nodeClient.admin().indices();
+    if (indexAdmin.prepareAliasesExist(alias).execute().actionGet().exists()) {
+      GetAliasesResponse aliases = indexAdmin.prepareGetAliases(alias).execute().actionGet();
+      for (Iterator<String> i = aliases.getAliases().keysIt(); i.hasNext();) {
+        physicalIndices.add(i.next());
+      }
+    } else {
+      physicalIndices.add(alias);
+    }
+    return physicalIndices;
+  }
+
   /**
    * Prepares Elasticsearch index to store data for the types (or mappings) as returned by {@link #getDocumenTypes()}.
    *
@@ -352,23 +616,27 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
    */
   private void createIndex(String idx) throws SearchIndexException, IOException {
 
-    // Make sure the site index exists
-    try {
-      IndicesAdminClient indexAdmin = nodeClient.admin().indices();
-      CreateIndexRequestBuilder siteIdxRequest = indexAdmin.prepareCreate(idx);
-      logger.debug("Trying to create index for '{}'", idx);
-      CreateIndexResponse siteidxResponse = siteIdxRequest.execute().actionGet();
-      if (!siteidxResponse.isAcknowledged()) {
-        throw new SearchIndexException("Unable to create index for '" + idx + "'");
+    // Make sure the site index exists, either as an index or as an alias to a rebuilt index
+    IndicesAdminClient indexAdmin = nodeClient.admin().indices();
+    if (indexAdmin.prepareAliasesExist(idx).execute().actionGet().exists()) {
+      logger.info("Detected existing alias '{}'", idx);
+    } else {
+      try {
+        CreateIndexRequestBuilder siteIdxRequest = indexAdmin.prepareCreate(idx);
+        logger.debug("Trying to create index for '{}'", idx);
+        CreateIndexResponse siteidxResponse = siteIdxRequest.execute().actionGet();
+        if (!siteidxResponse.isAcknowledged()) {
+          throw new SearchIndexException("Unable to create index for '" + idx + "'");
+        }
+      } catch (IndexAlreadyExistsException e) {
+        logger.info("Detected existing index '{}'", idx);
       }
-    } catch (IndexAlreadyExistsException e) {
-      logger.info("Detected existing index '{}'", idx);
     }
 
     // Store the correct mapping
     for (String type : getDocumenTypes()) {
       PutMappingRequest siteMappingRequest = new PutMappingRequest(idx);
-      siteMappingRequest.source(getIndexTypeDefinition(idx, type));
+      siteMappingRequest.source(getIndexTypeDefinition(index, type));
       siteMappingRequest.type(type);
       PutMappingResponse siteMappingResponse = nodeClient.admin().indices().putMapping(siteMappingRequest).actionGet();
       if (!siteMappingResponse.isAcknowledged()) {
@@ -504,7 +772,7 @@ public abstract class AbstractElasticsearchIndex implements SearchIndex {
   protected SearchRequestBuilder getSearchRequestBuilder(SearchQuery query, QueryBuilder queryBuilder) {
 
     SearchRequestBuilder requestBuilder = new SearchRequestBuilder(getSearchClient());
-    requestBuilder.setIndices(getIndexName());
+    requestBuilder.setIndices(getQueryIndex());
     requestBuilder.setSearchType(SearchType.QUERY_THEN_FETCH);
     requestBuilder.setPreference("_local");
 
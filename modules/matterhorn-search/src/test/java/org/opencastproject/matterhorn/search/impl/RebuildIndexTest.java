@@ -0,0 +1,173 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.matterhorn.search.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.opencastproject.matterhorn.search.impl.SearchIndexImplStub.CONTENT_TYPE;
+
+import org.opencastproject.matterhorn.search.SearchMetadata;
+import org.opencastproject.util.PathSupport;
+
+import org.apache.commons.io.FileUtils;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Test case for rebuilding an {@link AbstractElasticsearchIndex} into a new physical index.
+ */
+public class RebuildIndexTest {
+
+  /** The name of the index */
+  private static final String INDEX_NAME = "test";
+
+  /** The index version */
+  private static final int INDEX_VERSION = 12345;
+
+  /** The search index */
+  private SearchIndexImplStub idx = null;
+
+  /** The index root directory */
+  private File idxRoot = null;
+
+  @Before
+  public void setUp() throws Exception {
+    String rootPath = PathSupport.concat(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+    System.setProperty("matterhorn.home", rootPath);
+    idxRoot = new File(rootPath);
+    ElasticsearchUtils.createIndexConfigurationAt(idxRoot, INDEX_NAME);
+    idx = new SearchIndexImplStub(INDEX_NAME, INDEX_VERSION, rootPath);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    idx.clear();
+    idx.close();
+    FileUtils.deleteQuietly(idxRoot);
+  }
+
+  @Test
+  public void testIndexIsServedByAlias() throws Exception {
+    Set<String> physicalIndices = getPhysicalIndices(idx.getSearchClient());
+    assertEquals(1, physicalIndices.size());
+    assertNotEquals(INDEX_NAME, physicalIndices.iterator().next());
+  }
+
+  @Test
+  public void testFinishRebuildSwitchesAlias() throws Exception {
+    Client client = idx.getSearchClient();
+    idx.update(newDocument("1"), newDocument("2"));
+    String previous = getPhysicalIndices(client).iterator().next();
+
+    String target = idx.startRebuild(null);
+    assertEquals(target, idx.getRebuildIndex());
+    idx.update(newDocument("3"));
+
+    // Updates go to both indices, while queries are still answered by the previous one
+    assertTrue(client.prepareGet(previous, CONTENT_TYPE, "3").execute().actionGet().isExists());
+    assertTrue(client.prepareGet(target, CONTENT_TYPE, "3").execute().actionGet().isExists());
+    assertTrue(client.prepareGet(INDEX_NAME, CONTENT_TYPE, "1").execute().actionGet().isExists());
+
+    idx.finishRebuild();
+    assertEquals(null, idx.getRebuildIndex());
+    Set<String> physicalIndices = getPhysicalIndices(client);
+    assertEquals(1, physicalIndices.size());
+    assertEquals(target, physicalIndices.iterator().next());
+    assertFalse(client.admin().indices().prepareExists(previous).execute().actionGet().isExists());
+    assertTrue(client.prepareGet(INDEX_NAME, CONTENT_TYPE, "3").execute().actionGet().isExists());
+    assertFalse(client.prepareGet(INDEX_NAME, CONTENT_TYPE, "1").execute().actionGet().isExists());
+  }
+
+  @Test
+  public void testRestrictedUpdatesGoToOneIndex() throws Exception {
+    Client client = idx.getSearchClient();
+    String previous = getPhysicalIndices(client).iterator().next();
+    String target = idx.startRebuild(null);
+
+    idx.restrictTo(target);
+    try {
+      idx.update(newDocument("1"));
+    } finally {
+      idx.restrictTo(null);
+    }
+    assertFalse(client.prepareGet(previous, CONTENT_TYPE, "1").execute().actionGet().isExists());
+    assertTrue(client.prepareGet(target, CONTENT_TYPE, "1").execute().actionGet().isExists());
+    idx.finishRebuild();
+  }
+
+  @Test
+  public void testConcreteIndexIsMovedBehindAlias() throws Exception {
+    Client client = idx.getSearchClient();
+
+    // Replace the index by a concrete one, as created by earlier versions
+    for (String physicalIndex : getPhysicalIndices(client)) {
+      client.admin().indices().prepareDelete(physicalIndex).execute().actionGet();
+    }
+    client.admin().indices().prepareCreate(INDEX_NAME).execute().actionGet();
+    client.prepareIndex(INDEX_NAME, CONTENT_TYPE, "1").setSource("title", "Test entry").setRefresh(true).execute()
+            .actionGet();
+
+    SearchIndexImplStub migrated = new SearchIndexImplStub(INDEX_NAME, INDEX_VERSION, idxRoot.getAbsolutePath());
+    try {
+      Set<String> physicalIndices = getPhysicalIndices(client);
+      assertEquals(1, physicalIndices.size());
+      assertNotEquals(INDEX_NAME, physicalIndices.iterator().next());
+      assertTrue(client.prepareGet(INDEX_NAME, CONTENT_TYPE, "1").execute().actionGet().isExists());
+      assertEquals(INDEX_VERSION, migrated.getIndexVersion());
+    } finally {
+      migrated.close();
+    }
+  }
+
+  private static ElasticsearchDocument newDocument(String id) {
+    List<SearchMetadata<?>> metadata = new ArrayList<SearchMetadata<?>>();
+    SearchMetadata<String> title = new SearchMetadataImpl<String>("title");
+    title.addValue("Test entry " + id);
+    metadata.add(title);
+    return new ElasticsearchDocument(id, CONTENT_TYPE, metadata);
+  }
+
+  private static Set<String> getPhysicalIndices(Client client) {
+    ImmutableOpenMap<String, List<AliasMetaData>> aliases = client.admin().indices().prepareGetAliases(INDEX_NAME)
+            .execute().actionGet().getAliases();
+    Set<String> physicalIndices = new HashSet<String>();
+    for (Iterator<String> i = aliases.keysIt(); i.hasNext();) {
+      physicalIndices.add(i.next());
+    }
+    return physicalIndices;
+  }
+
+}
@@ -26,9 +26,11 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import org.opencastproject.job.api.JaxbJob;
 import org.opencastproject.job.api.JaxbJobList;
+import org.opencastproject.job.api.JaxbJobSpecList;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
 import org.opencastproject.job.api.JobParser;
+import org.opencastproject.job.api.JobSpec;
 import org.opencastproject.security.api.TrustedHttpClient;
 import org.opencastproject.security.api.TrustedHttpClientException;
 import org.opencastproject.serviceregistry.api.HostRegistration;
@@ -425,6 +427,37 @@ public abstract class ServiceRegistryRemoteBase implements ServiceRegistry {
     throw new ServiceRegistryException("Unable to create a job of type '" + type + " (" + responseStatusCode + ")");
   }
 
+  @Override
+  public List<Job> createJobs(List<JobSpec> jobSpecs) throws ServiceRegistryException {
+    final HttpPost post = post("jobs");
+    try {
+      List<BasicNameValuePair> params = new ArrayList<BasicNameValuePair>();
+      params.add(new BasicNameValuePair("host", getServerUrl()));
+      params.add(new BasicNameValuePair("jobs", JobParser.toXml(new JaxbJobSpecList(jobSpecs))));
+      post.setEntity(new UrlEncodedFormEntity(params, "UTF-8"));
+    } catch (UnsupportedEncodingException e) {
+      throw new ServiceRegistryException("Can not url encode post parameters", e);
+    } catch (IOException e) {
+      throw new ServiceRegistryException("Can not serialize job specifications " + jobSpecs, e);
+    }
+    HttpResponse response = null;
+    int responseStatusCode;
+    try {
+      response = getHttpClient().execute(post);
+      responseStatusCode = response.getStatusLine().getStatusCode();
+      if (responseStatusCode == HttpStatus.SC_CREATED) {
+        final JaxbJobList jaxbJobList = JobParser.parseJobList(response.getEntity().getContent());
+        logger.debug("Created {} new jobs", jaxbJobList.getJobs().size());
+        return $(jaxbJobList.getJobs()).map(JaxbJob.fnToJob()).toList();
+      }
+    } catch (Exception e) {
+      throw new ServiceRegistryException("Unable to create " + jobSpecs.size() + " jobs", e);
+    } finally {
+      getHttpClient().close(response);
+    }
+    throw new ServiceRegistryException("Unable to create " + jobSpecs.size() + " jobs (" + responseStatusCode + ")");
+  }
+
   @Override
   public Job updateJob(Job job) throws ServiceRegistryException, NotFoundException {
     final HttpPut put = put("job/" + job.getId() + ".xml");
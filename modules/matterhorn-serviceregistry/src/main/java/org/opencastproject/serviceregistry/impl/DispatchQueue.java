@@ -0,0 +1,321 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import static org.opencastproject.serviceregistry.impl.ServiceRegistryJpaImpl.TYPE_WORKFLOW;
+
+import org.opencastproject.job.api.Job.Status;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * In-memory queue of the jobs that are waiting to be dispatched, kept as one priority queue per job type.
+ * <p>
+ * The queue is fed by the service registry whenever a dispatchable job is created or changes its status, and it is
+ * periodically reconciled with the database to pick up jobs that have been queued by other nodes. Jobs are ordered the
+ * same way as in {@link ServiceRegistryJpaImpl.DispatchableComparator}: restarted jobs first, workflow jobs last, and
+ * by creation date otherwise.
+ */
+final class DispatchQueue {
+
+  /** Orders entries by dispatching priority */
+  static final Comparator<Entry> PRIORITY = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry entryA, Entry entryB) {
+      // Jobs that are in "restart" mode should be handled first
+      if (entryA.restart != entryB.restart)
+        return entryA.restart ? -1 : 1;
+
+      // Regular jobs should be processed prior to workflow and workflow operation jobs
+      if (entryA.isWorkflow() != entryB.isWorkflow())
+        return entryA.isWorkflow() ? 1 : -1;
+
+      // Use created date, then the job identifier to keep entries distinct
+      if (entryA.created != entryB.created)
+        return entryA.created < entryB.created ? -1 : 1;
+      return Long.compare(entryA.jobId, entryB.jobId);
+    }
+  };
+
+  /** The queued jobs, per job type */
+  private final Map<String, TreeSet<Entry>> queues = new HashMap<String, TreeSet<Entry>>();
+
+  /** The queued jobs, by job identifier */
+  private final Map<Long, Entry> entries = new HashMap<Long, Entry>();
+
+  /** The jobs that have been removed from the queue since the last reconciliation, with their removal sequence */
+  private final Map<Long, Long> removed = new HashMap<Long, Long>();
+
+  /** Sequence number handed out to every change, used to tell apart changes made during a reconciliation */
+  private long sequence = 0;
+
+  /**
+   * Returns <code>true</code> if jobs with the given status are waiting to be dispatched.
+   *
+   * @param status
+   *          the job status
+   * @return whether the status is dispatchable
+   */
+  static boolean isDispatchable(Status status) {
+    return Status.QUEUED.equals(status) || Status.RESTART.equals(status);
+  }
+
+  /**
+   * Adds or updates a job in the queue. Jobs whose status is not dispatchable are removed from the queue.
+   *
+   * @param jobId
+   *          the job identifier
+   * @param jobType
+   *          the job type
+   * @param operation
+   *          the job operation
+   * @param status
+   *          the job status
+   * @param dateCreated
+   *          the creation date, may be <code>null</code> for jobs that have just been created
+   * @return <code>true</code> if the job was not in the queue before
+   */
+  synchronized boolean offer(long jobId, String jobType, String operation, Status status, Date dateCreated) {
+    if (!isDispatchable(status)) {
+      remove(jobId);
+      return false;
+    }
+    removed.remove(jobId);
+    Entry existing = entries.get(jobId);
+    long created = dateCreated != null ? dateCreated.getTime() : existing != null ? existing.created : System
+            .currentTimeMillis();
+    Entry entry = new Entry(jobId, jobType, operation, Status.RESTART.equals(status), created, ++sequence);
+    if (existing != null) {
+      if (existing.restart == entry.restart && existing.created == entry.created)
+        return false;
+      removeEntry(existing);
+    }
+    addEntry(entry);
+    return existing == null;
+  }
+
+  /**
+   * Removes a job from the queue.
+   *
+   * @param jobId
+   *          the job identifier
+   * @return <code>true</code> if the job was queued
+   */
+  synchronized boolean remove(long jobId) {
+    // Remember the removal even if the job is not queued here, it may be part of a reconciliation in progress
+    removed.put(jobId, ++sequence);
+    Entry entry = entries.get(jobId);
+    if (entry == null)
+      return false;
+    removeEntry(entry);
+    return true;
+  }
+
+  /**
+   * Returns a marker to be passed to {@link #reconcile(List, long)} once the dispatchable jobs have been read from the
+   * database.
+   *
+   * @return the current sequence number
+   */
+  synchronized long mark() {
+    return sequence;
+  }
+
+  /**
+   * Replaces the queue content with the dispatchable jobs found in the database. Entries that have been offered after
+   * the given marker was taken are kept, since the database query may have been executed before they were committed.
+   * For the same reason, jobs that have been removed after the marker was taken are not added back.
+   *
+   * @param fromDatabase
+   *          the dispatchable jobs found in the database
+   * @param mark
+   *          the marker taken before querying the database
+   */
+  synchronized void reconcile(List<Entry> fromDatabase, long mark) {
+    List<Entry> recent = new ArrayList<Entry>();
+    for (Entry entry : entries.values()) {
+      if (entry.sequence > mark)
+        recent.add(entry);
+    }
+    queues.clear();
+    entries.clear();
+    for (Entry entry : fromDatabase) {
+      Long removal = removed.get(entry.jobId);
+      if (removal != null && removal > mark)
+        continue;
+      addEntry(new Entry(entry.jobId, entry.jobType, entry.operation, entry.restart, entry.created, ++sequence));
+    }
+    for (Entry entry : recent) {
+      Entry stale = entries.get(entry.jobId);
+      if (stale != null)
+        removeEntry(stale);
+      addEntry(entry);
+    }
+
+    // Removals up to the marker are reflected by the database from now on
+    for (Iterator<Long> i = removed.values().iterator(); i.hasNext();) {
+      if (i.next() <= mark)
+        i.remove();
+    }
+  }
+
+  /**
+   * Removes all jobs from the queue and forgets about the removals since the last reconciliation.
+   */
+  synchronized void clear() {
+    queues.clear();
+    entries.clear();
+    removed.clear();
+  }
+
+  /**
+   * Returns <code>true</code> if the queue neither holds jobs nor remembers any removals.
+   *
+   * @return whether the queue is empty
+   */
+  synchronized boolean isEmpty() {
+    return entries.isEmpty() && removed.isEmpty();
+  }
+
+  /**
+   * Returns the queued jobs in dispatching order.
+   *
+   * @return the queued jobs
+   */
+  synchronized List<Entry> snapshot() {
+    List<Entry> snapshot = new ArrayList<Entry>(entries.size());
+    for (TreeSet<Entry> queue : queues.values()) {
+      snapshot.addAll(queue);
+    }
+    Collections.sort(snapshot, PRIORITY);
+    return snapshot;
+  }
+
+  /**
+   * Returns the number of jobs of the given type that are waiting to be dispatched.
+   *
+   * @param jobType
+   *          the job type
+   * @return the number of queued jobs
+   */
+  synchronized int size(String jobType) {
+    TreeSet<Entry> queue = queues.get(jobType);
+    return queue == null ? 0 : queue.size();
+  }
+
+  /**
+   * Returns the total number of jobs waiting to be dispatched.
+   *
+   * @return the number of queued jobs
+   */
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private void addEntry(Entry entry) {
+    TreeSet<Entry> queue = queues.get(entry.jobType);
+    if (queue == null) {
+      queue = new TreeSet<Entry>(PRIORITY);
+      queues.put(entry.jobType, queue);
+    }
+    queue.add(entry);
+    entries.put(entry.jobId, entry);
+  }
+
+  private void removeEntry(Entry entry) {
+    entries.remove(entry.jobId);
+    TreeSet<Entry> queue = queues.get(entry.jobType);
+    if (queue != null && queue.remove(entry) && queue.isEmpty())
+      queues.remove(entry.jobType);
+  }
+
+  /** A job waiting to be dispatched. */
+  static final class Entry {
+
+    private final long jobId;
+    private final String jobType;
+    private final String operation;
+    private final boolean restart;
+    private final long created;
+    private final long sequence;
+
+    Entry(long jobId, String jobType, String operation, boolean restart, long created, long sequence) {
+      this.jobId = jobId;
+      this.jobType = jobType;
+      this.operation = operation;
+      this.restart = restart;
+      this.created = created;
+      this.sequence = sequence;
+    }
+
+    /**
+     * Creates an entry from the result of a database query.
+     *
+     * @param jobId
+     *          the job identifier
+     * @param jobType
+     *          the job type
+     * @param operation
+     *          the job operation
+     * @param status
+     *          the job status
+     * @param dateCreated
+     *          the creation date
+     */
+    Entry(long jobId, String jobType, String operation, Status status, Date dateCreated) {
+      this(jobId, jobType, operation, Status.RESTART.equals(status), dateCreated == null ? 0L : dateCreated.getTime(),
+              0L);
+    }
+
+    long getJobId() {
+      return jobId;
+    }
+
+    String getJobType() {
+      return jobType;
+    }
+
+    /** Returns the signature used to remember the job types that can't be dispatched during a round of dispatching */
+    String getSignature() {
+      return new StringBuilder(jobType).append('@').append(operation).toString();
+    }
+
+    boolean isWorkflow() {
+      return TYPE_WORKFLOW.equals(jobType);
+    }
+
+    @Override
+    public String toString() {
+      return "Queued job " + jobId + " (" + getSignature() + ")";
+    }
+
+  }
+
+}
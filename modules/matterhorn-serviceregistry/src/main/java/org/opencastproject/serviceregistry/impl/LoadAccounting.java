@@ -0,0 +1,267 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import static org.opencastproject.serviceregistry.impl.ServiceRegistryJpaImpl.JOB_STATUSES_INFLUENCING_LOAD_BALANCING;
+import static org.opencastproject.serviceregistry.impl.ServiceRegistryJpaImpl.TYPE_WORKFLOW;
+
+import org.opencastproject.job.api.Job.Status;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory accounting of the load that jobs put on the services and hosts of the cluster.
+ * <p>
+ * The service registry reports every job status transition that it persists, so that the load per service and per host
+ * can be read without aggregating over the job table. Since jobs may also be updated by other nodes or by bulk
+ * operations, the accounting is periodically reconciled with the database. Updates that are reported while a
+ * reconciliation is in progress take precedence over what has been read from the database.
+ */
+final class LoadAccounting {
+
+  /** The load of each job that is currently loading a service, by job identifier */
+  private final Map<Long, Contribution> jobs = new HashMap<Long, Contribution>();
+
+  /** The accumulated load per host and service type */
+  private final Map<String, Map<String, ServiceLoad>> loads = new HashMap<String, Map<String, ServiceLoad>>();
+
+  /** Jobs that have been updated while a reconciliation is in progress, <code>null</code> if there is none */
+  private Map<Long, Contribution> pendingChanges = null;
+
+  /**
+   * Returns <code>true</code> if jobs with the given status and type add to the load of the service processing them.
+   *
+   * @param jobType
+   *          the job type
+   * @param status
+   *          the job status
+   * @return whether the job is adding to the load
+   */
+  static boolean isLoading(String jobType, Status status) {
+    // Workflow related jobs are not counting. Workflows are load balanced by the workflow service directly
+    return !TYPE_WORKFLOW.equals(jobType) && JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(status);
+  }
+
+  /**
+   * Records the current state of a job.
+   *
+   * @param jobId
+   *          the job identifier
+   * @param host
+   *          the host processing the job, may be <code>null</code> if the job has not been dispatched
+   * @param jobType
+   *          the job type
+   * @param status
+   *          the job status
+   * @param jobLoad
+   *          the job load, may be <code>null</code>
+   */
+  synchronized void update(long jobId, String host, String jobType, Status status, Float jobLoad) {
+    Contribution contribution = null;
+    if (host != null && isLoading(jobType, status))
+      contribution = new Contribution(host, jobType, jobLoad == null ? 0.0f : jobLoad);
+    apply(jobId, contribution);
+    if (pendingChanges != null)
+      pendingChanges.put(jobId, contribution);
+  }
+
+  /**
+   * Removes a job that has been deleted.
+   *
+   * @param jobId
+   *          the job identifier
+   */
+  synchronized void remove(long jobId) {
+    apply(jobId, null);
+    if (pendingChanges != null)
+      pendingChanges.put(jobId, null);
+  }
+
+  /**
+   * Starts recording the updates that are reported until {@link #reconcile(List)} is called. This method must be called
+   * before the loading jobs are read from the database.
+   */
+  synchronized void beginReconciliation() {
+    pendingChanges = new HashMap<Long, Contribution>();
+  }
+
+  /**
+   * Stops recording the updates after the loading jobs could not be read from the database.
+   */
+  synchronized void cancelReconciliation() {
+    pendingChanges = null;
+  }
+
+  /**
+   * Replaces the accounted load with the loading jobs found in the database, followed by the updates that have been
+   * reported since {@link #beginReconciliation()}.
+   *
+   * @param fromDatabase
+   *          the loading jobs found in the database
+   */
+  synchronized void reconcile(List<LoadingJob> fromDatabase) {
+    jobs.clear();
+    loads.clear();
+    for (LoadingJob job : fromDatabase) {
+      if (isLoading(job.jobType, job.status))
+        apply(job.jobId, new Contribution(job.host, job.jobType, job.jobLoad));
+    }
+    if (pendingChanges != null) {
+      for (Map.Entry<Long, Contribution> change : pendingChanges.entrySet()) {
+        apply(change.getKey(), change.getValue());
+      }
+    }
+    pendingChanges = null;
+  }
+
+  /**
+   * Returns the accounted load of a service.
+   *
+   * @param host
+   *          the host
+   * @param serviceType
+   *          the service type
+   * @return the load
+   */
+  synchronized float getLoad(String host, String serviceType) {
+    Map<String, ServiceLoad> hostLoads = loads.get(host);
+    if (hostLoads == null)
+      return 0.0f;
+    ServiceLoad serviceLoad = hostLoads.get(serviceType);
+    return serviceLoad == null ? 0.0f : serviceLoad.load;
+  }
+
+  /**
+   * Returns the accounted load of a host, including all of its services.
+   *
+   * @param host
+   *          the host
+   * @return the load
+   */
+  synchronized float getLoad(String host) {
+    Map<String, ServiceLoad> hostLoads = loads.get(host);
+    if (hostLoads == null)
+      return 0.0f;
+    float load = 0.0f;
+    for (ServiceLoad serviceLoad : hostLoads.values()) {
+      load += serviceLoad.load;
+    }
+    return load;
+  }
+
+  /**
+   * Returns the number of jobs that are currently adding to the load.
+   *
+   * @return the number of jobs
+   */
+  synchronized int size() {
+    return jobs.size();
+  }
+
+  private void apply(long jobId, Contribution contribution) {
+    Contribution previous = contribution == null ? jobs.remove(jobId) : jobs.put(jobId, contribution);
+    if (previous != null)
+      add(previous.host, previous.serviceType, -1, -previous.load);
+    if (contribution != null)
+      add(contribution.host, contribution.serviceType, 1, contribution.load);
+  }
+
+  private void add(String host, String serviceType, int jobCount, float load) {
+    Map<String, ServiceLoad> hostLoads = loads.get(host);
+    if (hostLoads == null) {
+      hostLoads = new HashMap<String, ServiceLoad>();
+      loads.put(host, hostLoads);
+    }
+    ServiceLoad serviceLoad = hostLoads.get(serviceType);
+    if (serviceLoad == null) {
+      serviceLoad = new ServiceLoad();
+      hostLoads.put(serviceType, serviceLoad);
+    }
+    serviceLoad.jobs += jobCount;
+    serviceLoad.load += load;
+    // Don't keep rounding errors around once a service is idle
+    if (serviceLoad.jobs <= 0) {
+      hostLoads.remove(serviceType);
+      if (hostLoads.isEmpty())
+        loads.remove(host);
+    }
+  }
+
+  /** The accumulated load of a service. */
+  private static final class ServiceLoad {
+
+    private int jobs = 0;
+    private float load = 0.0f;
+
+  }
+
+  /** The load that a single job puts on a service. */
+  private static final class Contribution {
+
+    private final String host;
+    private final String serviceType;
+    private final float load;
+
+    Contribution(String host, String serviceType, float load) {
+      this.host = host;
+      this.serviceType = serviceType;
+      this.load = load;
+    }
+
+  }
+
+  /** A job adding to the load of a service, as read from the database. */
+  static final class LoadingJob {
+
+    private final long jobId;
+    private final String host;
+    private final String jobType;
+    private final Status status;
+    private final float jobLoad;
+
+    /**
+     * Creates a loading job from the result of a database query.
+     *
+     * @param jobId
+     *          the job identifier
+     * @param host
+     *          the host processing the job
+     * @param jobType
+     *          the job type
+     * @param status
+     *          the job status
+     * @param jobLoad
+     *          the job load, may be <code>null</code>
+     */
+    LoadingJob(long jobId, String host, String jobType, Status status, Float jobLoad) {
+      this.jobId = jobId;
+      this.host = host;
+      this.jobType = jobType;
+      this.status = status;
+      this.jobLoad = jobLoad == null ? 0.0f : jobLoad;
+    }
+
+  }
+
+}
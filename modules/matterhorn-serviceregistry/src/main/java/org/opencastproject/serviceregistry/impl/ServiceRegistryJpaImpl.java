@@ -38,6 +38,7 @@ import static org.opencastproject.util.OsgiUtil.getOptContextProperty;
 
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
+import org.opencastproject.job.api.JobSpec;
 import org.opencastproject.job.jpa.JpaJob;
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.security.api.Organization;
@@ -101,13 +102,22 @@ import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.management.ObjectInstance;
 import javax.persistence.EntityManager;
@@ -174,6 +184,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Configuration key for the interval to check whether the hosts in the service registry are still alive [sec] * */
   protected static final String OPT_HEARTBEATINTERVAL = "heartbeat.interval";
 
+  /** Configuration key for the interval to reconcile the job load accounting with the database [sec] */
+  protected static final String OPT_LOADRECONCILIATIONINTERVAL = "load.reconciliation.interval";
+
   /** Configuration key for the collection of job statistics */
   protected static final String OPT_JOBSTATISTICS = "jobstats.collect";
 
@@ -211,6 +224,15 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Default delay between checking if hosts are still alive in seconds * */
   static final long DEFAULT_HEART_BEAT = 60;
 
+  /** Maximum number of hosts that are checked concurrently by the heartbeat */
+  static final int HEARTBEAT_MAX_THREADS = 8;
+
+  /** Deadline of a single heartbeat request in milliseconds */
+  static final int HEARTBEAT_REQUEST_TIMEOUT = 10000;
+
+  /** Default delay between reconciliations of the job load accounting with the database in seconds */
+  static final long DEFAULT_LOAD_RECONCILIATION_INTERVAL = 60;
+
   /** This host's base URL */
   protected String hostName;
 
@@ -226,6 +248,12 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** The thread pool to use for dispatching queued jobs and checking on phantom services. */
   protected ScheduledExecutorService scheduledExecutor = Executors.newScheduledThreadPool(2);
 
+  /** The thread pool used by the heartbeat to check several hosts at the same time */
+  protected ExecutorService heartbeatExecutor = null;
+
+  /** The deadline of a single heartbeat request in milliseconds */
+  protected long heartbeatRequestTimeout = HEARTBEAT_REQUEST_TIMEOUT;
+
   /** The security service */
   protected SecurityService securityService = null;
 
@@ -259,6 +287,33 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   /** Whether to accept a job whose load exceeds the host’s max load */
   protected Boolean acceptJobLoadsExeedingMaxLoad = true;
 
+  /** The in-memory queue of jobs waiting to be dispatched */
+  protected final DispatchQueue dispatchQueue = new DispatchQueue();
+
+  /** The job dispatcher, which is run periodically and whenever jobs or capacity change */
+  protected final JobDispatcher jobDispatcher = new JobDispatcher();
+
+  /** Whether a round of dispatching has been requested but not yet started */
+  private final AtomicBoolean dispatchRequested = new AtomicBoolean(false);
+
+  /** The delay between two rounds of dispatching in milliseconds, 0 if dispatching is disabled */
+  private volatile long dispatchInterval = DEFAULT_DISPATCH_INTERVAL;
+
+  /** The last time the dispatch queue has been reconciled with the database */
+  private volatile long lastDispatchQueueReconciliation = 0L;
+
+  /** The in-memory accounting of the load on each host and service */
+  protected final LoadAccounting loadAccounting = new LoadAccounting();
+
+  /** Makes sure that there is only one reconciliation of the load accounting at any given time */
+  private final ReentrantLock loadReconciliationLock = new ReentrantLock();
+
+  /** The delay between two reconciliations of the load accounting in milliseconds */
+  private volatile long loadReconciliationInterval = DEFAULT_LOAD_RECONCILIATION_INTERVAL * 1000;
+
+  /** The last time the load accounting has been reconciled with the database, 0 to force a reconciliation */
+  private volatile long lastLoadReconciliation = 0L;
+
   /** OSGi DI */
   void setEntityManagerFactory(EntityManagerFactory emf) {
     this.emf = emf;
@@ -338,12 +393,17 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
               .getOrElse(DEFAULT_ACCEPT_JOB_LOADS_EXCEEDING);
     }
 
+    // Set up the threads checking the hosts during a heartbeat
+    if (heartbeatExecutor != null)
+      heartbeatExecutor.shutdownNow();
+    heartbeatExecutor = Executors.newFixedThreadPool(HEARTBEAT_MAX_THREADS);
+
     // Schedule the heartbeat with the default interval
     scheduledExecutor.scheduleWithFixedDelay(new JobProducerHeartbeat(), DEFAULT_HEART_BEAT, DEFAULT_HEART_BEAT,
             TimeUnit.SECONDS);
 
     // Schedule the job dispatching with the default interval
-    scheduledExecutor.scheduleWithFixedDelay(new JobDispatcher(), DEFAULT_DISPATCH_INTERVAL, DEFAULT_DISPATCH_INTERVAL,
+    scheduledExecutor.scheduleWithFixedDelay(jobDispatcher, DEFAULT_DISPATCH_INTERVAL, DEFAULT_DISPATCH_INTERVAL,
             TimeUnit.MILLISECONDS);
   }
 
@@ -352,6 +412,29 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     return hostName;
   }
 
+  /**
+   * Requests a round of dispatching as soon as possible, unless dispatching is disabled on this node. Requests that
+   * come in while a round of dispatching is already pending are coalesced.
+   */
+  protected void triggerDispatch() {
+    if (!isDispatching())
+      return;
+    if (dispatchRequested.compareAndSet(false, true))
+      submitDispatch();
+  }
+
+  /** Hands the job dispatcher over to the executor. */
+  private void submitDispatch() {
+    ScheduledExecutorService executor = scheduledExecutor;
+    if (executor == null || executor.isShutdown())
+      return;
+    try {
+      executor.execute(jobDispatcher);
+    } catch (RejectedExecutionException e) {
+      logger.debug("Unable to trigger job dispatching: {}", e.getMessage());
+    }
+  }
+
   public void deactivate() {
     logger.debug("deactivate");
 
@@ -372,6 +455,11 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     if (scheduledExecutor != null) {
       scheduledExecutor.shutdownNow();
     }
+
+    // Stop the heartbeat requests that are still running
+    if (heartbeatExecutor != null) {
+      heartbeatExecutor.shutdownNow();
+    }
   }
 
   /**
@@ -516,72 +604,247 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       em = emf.createEntityManager();
       tx = em.getTransaction();
       tx.begin();
-      ServiceRegistrationJpaImpl creatingService = getServiceRegistration(em, serviceType, host);
-      if (creatingService == null) {
-        throw new ServiceRegistryException("No service registration exists for type '" + serviceType + "' on host '"
-                + host + "'");
+      ServiceRegistrationJpaImpl creatingService = getCreatingService(em, serviceType, host);
+      JpaJob jpaJob = newJob(creatingService, operation, arguments, payload, dispatchable, parentJob, jobLoad,
+              new HashMap<Long, JpaJob>());
+      em.persist(jpaJob);
+      tx.commit();
+      accountLoad(jpaJob);
+
+      // Hand the new job over to the dispatcher right away
+      if (enqueue(jpaJob, serviceType))
+        triggerDispatch();
+
+      setJobUri(jpaJob);
+      Job job = jpaJob.toJob();
+      return job;
+    } catch (RollbackException e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      throw e;
+    } finally {
+      if (em != null)
+        em.close();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.serviceregistry.api.ServiceRegistry#createJobs(java.util.List)
+   */
+  @Override
+  public List<Job> createJobs(List<JobSpec> jobSpecs) throws ServiceRegistryException {
+    return createJobs(this.hostName, jobSpecs);
+  }
+
+  /**
+   * Creates a batch of jobs in a single transaction. The jobs are created by the services of the given type that are
+   * registered on <code>host</code>, which is the node asking for the jobs to be created, not the node that will be
+   * processing them.
+   * <p>
+   * JDBC batch writing is not enabled for the persistence unit, so each job is still inserted by a statement of its
+   * own. What the batch saves are the commits and the lookups of the creating services and parent jobs.
+   *
+   * @param host
+   *          the base URL of the host creating the jobs
+   * @param jobSpecs
+   *          the specifications of the jobs to create
+   * @return the jobs, in the order of the specifications
+   * @throws ServiceRegistryException
+   *           if there is a problem creating the jobs
+   */
+  public List<Job> createJobs(String host, List<JobSpec> jobSpecs) throws ServiceRegistryException {
+    if (StringUtils.isBlank(host)) {
+      throw new IllegalArgumentException("Host can't be null");
+    }
+    if (jobSpecs == null) {
+      throw new IllegalArgumentException("Job specifications can't be null");
+    }
+    if (jobSpecs.isEmpty())
+      return new ArrayList<Job>();
+
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+
+      // Fan-out jobs usually share their type and parent, so look those up once only
+      Map<String, ServiceRegistrationJpaImpl> creatingServices = new HashMap<String, ServiceRegistrationJpaImpl>();
+      Map<Long, JpaJob> parentJobs = new HashMap<Long, JpaJob>();
+      List<JpaJob> jpaJobs = new ArrayList<JpaJob>(jobSpecs.size());
+      for (JobSpec jobSpec : jobSpecs) {
+        ServiceRegistrationJpaImpl creatingService = creatingServices.get(jobSpec.getJobType());
+        if (creatingService == null) {
+          creatingService = getCreatingService(em, jobSpec.getJobType(), host);
+          creatingServices.put(jobSpec.getJobType(), creatingService);
+        }
+        Job parentJob = jobSpec.getParentJob() != null ? jobSpec.getParentJob() : getCurrentJob();
+        float jobLoad = jobSpec.getJobLoad() != null ? jobSpec.getJobLoad() : 1.0f;
+        JpaJob jpaJob = newJob(creatingService, jobSpec.getOperation(), jobSpec.getArguments(), jobSpec.getPayload(),
+                jobSpec.isDispatchable(), parentJob, jobLoad, parentJobs);
+        em.persist(jpaJob);
+        jpaJobs.add(jpaJob);
       }
-      if (creatingService.getHostRegistration().isMaintenanceMode()) {
-        logger.warn("Creating a job from {}, which is currently in maintenance mode.", creatingService.getHost());
-      } else if (!creatingService.getHostRegistration().isActive()) {
-        logger.warn("Creating a job from {}, which is currently inactive.", creatingService.getHost());
+      tx.commit();
+
+      boolean queued = false;
+      List<Job> jobs = new ArrayList<Job>(jpaJobs.size());
+      for (int i = 0; i < jpaJobs.size(); i++) {
+        JpaJob jpaJob = jpaJobs.get(i);
+        accountLoad(jpaJob);
+        queued |= enqueue(jpaJob, jobSpecs.get(i).getJobType());
+        setJobUri(jpaJob);
+        jobs.add(jpaJob.toJob());
       }
+      if (queued)
+        triggerDispatch();
 
-      User currentUser = securityService.getUser();
-      Organization currentOrganization = securityService.getOrganization();
+      logger.debug("Created {} jobs in one batch", jobs.size());
+      return jobs;
+    } catch (RollbackException e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      throw e;
+    } finally {
+      if (em != null) {
+        if (tx != null && tx.isActive())
+          tx.rollback();
+        em.close();
+      }
+    }
+  }
+
+  /**
+   * Looks up the service registration that is creating a job.
+   *
+   * @param em
+   *          the entity manager
+   * @param serviceType
+   *          the job type
+   * @param host
+   *          the creating host
+   * @return the service registration
+   * @throws ServiceRegistryException
+   *           if there is no such service registration
+   */
+  private ServiceRegistrationJpaImpl getCreatingService(EntityManager em, String serviceType, String host)
+          throws ServiceRegistryException {
+    ServiceRegistrationJpaImpl creatingService = getServiceRegistration(em, serviceType, host);
+    if (creatingService == null) {
+      throw new ServiceRegistryException("No service registration exists for type '" + serviceType + "' on host '"
+              + host + "'");
+    }
+    if (creatingService.getHostRegistration().isMaintenanceMode()) {
+      logger.warn("Creating a job from {}, which is currently in maintenance mode.", creatingService.getHost());
+    } else if (!creatingService.getHostRegistration().isActive()) {
+      logger.warn("Creating a job from {}, which is currently inactive.", creatingService.getHost());
+    }
+    return creatingService;
+  }
+
+  /**
+   * Creates a new job, owned by the current user and organization, which is ready to be persisted.
+   *
+   * @param creatingService
+   *          the service registration creating the job
+   * @param operation
+   *          the operation
+   * @param arguments
+   *          the arguments
+   * @param payload
+   *          the initial payload
+   * @param dispatchable
+   *          whether the job is queued for dispatching
+   * @param parentJob
+   *          the parent job, may be <code>null</code>
+   * @param jobLoad
+   *          the job load
+   * @param parentJobs
+   *          the parent and root jobs that have already been loaded, by identifier
+   * @return the new job
+   * @throws ServiceRegistryException
+   *           if the parent or root job can't be found
+   */
+  private JpaJob newJob(ServiceRegistrationJpaImpl creatingService, String operation, List<String> arguments,
+          String payload, boolean dispatchable, Job parentJob, float jobLoad, Map<Long, JpaJob> parentJobs)
+          throws ServiceRegistryException {
+    User currentUser = securityService.getUser();
+    Organization currentOrganization = securityService.getOrganization();
 
-      JpaJob jpaJob = new JpaJob(currentUser, currentOrganization, creatingService, operation, arguments, payload,
-              dispatchable, jobLoad);
+    JpaJob jpaJob = new JpaJob(currentUser, currentOrganization, creatingService, operation, arguments, payload,
+            dispatchable, jobLoad);
 
-      // Bind the given parent job to the new job
-      if (parentJob != null) {
+    // Bind the given parent job to the new job
+    if (parentJob != null) {
 
-        // Get the JPA instance of the parent job
-        JpaJob jpaParentJob;
+      // Get the JPA instance of the parent job
+      JpaJob jpaParentJob = parentJobs.get(parentJob.getId());
+      if (jpaParentJob == null) {
         try {
           jpaParentJob = getJpaJob(parentJob.getId());
         } catch (NotFoundException e) {
           logger.error("{} not found in the persistence context", parentJob);
           throw new ServiceRegistryException(e);
         }
+        parentJobs.put(parentJob.getId(), jpaParentJob);
+      }
 
-        jpaJob.setParentJob(jpaParentJob);
+      jpaJob.setParentJob(jpaParentJob);
 
-        // Get the JPA instance of the root job
-        JpaJob jpaRootJob = jpaParentJob;
-        if (parentJob.getRootJobId() != null) {
+      // Get the JPA instance of the root job
+      JpaJob jpaRootJob = jpaParentJob;
+      if (parentJob.getRootJobId() != null) {
+        jpaRootJob = parentJobs.get(parentJob.getRootJobId());
+        if (jpaRootJob == null) {
           try {
             jpaRootJob = getJpaJob(parentJob.getRootJobId());
           } catch (NotFoundException e) {
             logger.error("job with id {} not found in the persistence context", parentJob.getRootJobId());
             throw new ServiceRegistryException(e);
           }
+          parentJobs.put(parentJob.getRootJobId(), jpaRootJob);
         }
-        jpaJob.setRootJob(jpaRootJob);
       }
+      jpaJob.setRootJob(jpaRootJob);
+    }
 
-      // if this job is not dispatchable, it must be handled by the host that has created it
-      if (dispatchable) {
-        jpaJob.setStatus(Status.QUEUED);
-      } else {
-        jpaJob.setProcessorServiceRegistration(creatingService);
-      }
+    // if this job is not dispatchable, it must be handled by the host that has created it
+    if (dispatchable) {
+      jpaJob.setStatus(Status.QUEUED);
+    } else {
+      jpaJob.setProcessorServiceRegistration(creatingService);
+    }
+    return jpaJob;
+  }
 
-      em.persist(jpaJob);
-      tx.commit();
+  /**
+   * Returns <code>true</code> if this node dispatches jobs. Nodes that don't dispatch jobs don't maintain the dispatch
+   * queue either, since nothing would ever take jobs out of it.
+   *
+   * @return whether dispatching is enabled
+   */
+  private boolean isDispatching() {
+    return dispatchInterval > 0;
+  }
 
-      setJobUri(jpaJob);
-      Job job = jpaJob.toJob();
-      return job;
-    } catch (RollbackException e) {
-      if (tx != null && tx.isActive()) {
-        tx.rollback();
-      }
-      throw e;
-    } finally {
-      if (em != null)
-        em.close();
-    }
+  /**
+   * Adds a newly created job to the dispatch queue if it is dispatchable and if this node dispatches jobs.
+   *
+   * @param jpaJob
+   *          the persisted job
+   * @param jobType
+   *          the job type, which is not populated on jobs that have not been loaded from the database
+   * @return <code>true</code> if the job has been queued
+   */
+  private boolean enqueue(JpaJob jpaJob, String jobType) {
+    return isDispatching() && jpaJob.isDispatchable()
+            && dispatchQueue.offer(jpaJob.getId(), jobType, jpaJob.getOperation(), Status.QUEUED,
+                    jpaJob.getDateCreated());
   }
 
   @Override
@@ -607,6 +870,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       tx.begin();
       em.remove(job);
       tx.commit();
+      if (isDispatching())
+        dispatchQueue.remove(jobId);
+      loadAccounting.remove(jobId);
       logger.debug("Job with ID '{}' deleted", jobId);
     } catch (NotFoundException e) {
       throw e;
@@ -642,6 +908,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         tx.begin();
         em.remove(jobToDelete);
         tx.commit();
+        loadAccounting.remove(job.getId());
         logger.debug("Job '{}' deleted", job.getId());
       }
       logger.debug("Deleted all child jobs of job '{}'", jobId);
@@ -724,7 +991,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
-    long dispatchInterval = DEFAULT_DISPATCH_INTERVAL;
+    dispatchInterval = DEFAULT_DISPATCH_INTERVAL;
     String dispatchIntervalString = StringUtils.trimToNull((String) properties.get(OPT_DISPATCHINTERVAL));
     if (StringUtils.isNotBlank(dispatchIntervalString)) {
       try {
@@ -743,6 +1010,11 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    // The queue is not maintained while dispatching is disabled, so it is rebuilt from the database when re-enabled
+    if (!isDispatching())
+      dispatchQueue.clear();
+    lastDispatchQueueReconciliation = 0L;
+
     long heartbeatInterval = DEFAULT_HEART_BEAT;
     String heartbeatIntervalString = StringUtils.trimToNull((String) properties.get(OPT_HEARTBEATINTERVAL));
     if (StringUtils.isNotBlank(heartbeatIntervalString)) {
@@ -762,6 +1034,27 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
       }
     }
 
+    long reconciliationInterval = DEFAULT_LOAD_RECONCILIATION_INTERVAL;
+    String reconciliationIntervalString = StringUtils.trimToNull((String) properties
+            .get(OPT_LOADRECONCILIATIONINTERVAL));
+    if (StringUtils.isNotBlank(reconciliationIntervalString)) {
+      try {
+        reconciliationInterval = Long.parseLong(reconciliationIntervalString);
+      } catch (Exception e) {
+        logger.warn("Load reconciliation interval '{}' is malformed, setting to {}", reconciliationIntervalString,
+                DEFAULT_LOAD_RECONCILIATION_INTERVAL);
+        reconciliationInterval = DEFAULT_LOAD_RECONCILIATION_INTERVAL;
+      }
+      if (reconciliationInterval < 0) {
+        logger.warn("Load reconciliation interval {} seconds too low, adjusting to {}", reconciliationInterval,
+                DEFAULT_LOAD_RECONCILIATION_INTERVAL);
+        reconciliationInterval = DEFAULT_LOAD_RECONCILIATION_INTERVAL;
+      } else {
+        logger.info("Load reconciliation interval set to {} seconds", reconciliationInterval);
+      }
+    }
+    loadReconciliationInterval = reconciliationInterval * 1000;
+
     String jobStatsString = StringUtils.trimToNull((String) properties.get(OPT_JOBSTATISTICS));
     if (StringUtils.isNotBlank(jobStatsString)) {
       try {
@@ -800,7 +1093,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     // Schedule the job dispatching.
     if (dispatchInterval > 0) {
       logger.debug("Starting job dispatching at a custom interval of {}s", DEFAULT_DISPATCH_INTERVAL / 1000);
-      scheduledExecutor.scheduleWithFixedDelay(new JobDispatcher(), dispatchInterval, dispatchInterval,
+      scheduledExecutor.scheduleWithFixedDelay(jobDispatcher, dispatchInterval, dispatchInterval,
               TimeUnit.MILLISECONDS);
     }
   }
@@ -867,6 +1160,17 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         updateServiceForFailover(job);
       }
 
+      // Keep the dispatch queue up to date and wake up the dispatcher if there is new work or new capacity
+      boolean queued = false;
+      if (isDispatching() && jpaJob.isDispatchable()) {
+        queued = dispatchQueue.offer(jpaJob.getId(), jpaJob.getJobType(), jpaJob.getOperation(), jpaJob.getStatus(),
+                jpaJob.getDateCreated());
+      }
+      boolean capacityReleased = JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(oldJob.getStatus())
+              && !JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(jpaJob.getStatus());
+      if (queued || capacityReleased)
+        triggerDispatch();
+
       return jpaJob;
     } catch (PersistenceException e) {
       throw new ServiceRegistryException(e);
@@ -928,6 +1232,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
 
       em.merge(fromDb);
       tx.commit();
+      accountLoad(fromDb);
       job.setVersion(fromDb.toJob().getVersion());
       setJobUri(job);
       return job;
@@ -1376,6 +1681,8 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         }
       }
       tx.commit();
+      // Jobs may have been changed in bulk, so have the load accounting reconciled with the database
+      lastLoadReconciliation = 0L;
     } catch (Exception e) {
       logger.error("Unable to clean undispatchable jobs! {}", e.getMessage());
       if (tx != null && tx.isActive()) {
@@ -1442,6 +1749,8 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         em.merge(job);
       }
       tx.commit();
+      // Jobs may have been changed in bulk, so have the load accounting reconciled with the database
+      lastLoadReconciliation = 0L;
     } catch (Exception e) {
       if (tx != null && tx.isActive()) {
         tx.rollback();
@@ -1727,37 +2036,113 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   }
 
   /**
-   * Gets jobs of all types that are in the given state.
+   * Replaces the content of the dispatch queue with the dispatchable jobs that are found in the database.
    *
-   * @param em the entity manager
-   * @param offset apply offset to the db query if offset &gt; 0
-   * @param limit apply limit to the db query if limit &gt; 0
-   * @param statuses the job status should be one from the given statuses
-   * @return the list of jobs waiting for dispatch
-   * @throws ServiceRegistryException if there is a problem communicating with the jobs database
+   * @param em
+   *          the entity manager
+   * @throws ServiceRegistryException
+   *           if there is a problem communicating with the jobs database
+   */
+  protected void reconcileDispatchQueue(EntityManager em) throws ServiceRegistryException {
+    long mark = dispatchQueue.mark();
+    List<DispatchQueue.Entry> dispatchableJobs = new ArrayList<DispatchQueue.Entry>();
+    try {
+      Query query = em.createNamedQuery("Job.dispatchable.status.summary");
+      query.setParameter("statuses", Arrays.asList(Status.RESTART.ordinal(), Status.QUEUED.ordinal()));
+      for (Object result : query.getResultList()) {
+        Object[] row = (Object[]) result;
+        dispatchableJobs.add(new DispatchQueue.Entry(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                Status.values()[((Number) row[3]).intValue()], (Date) row[4]));
+      }
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
+    }
+    dispatchQueue.reconcile(dispatchableJobs, mark);
+    logger.debug("Found {} dispatchable jobs in the database", dispatchableJobs.size());
+  }
+
+  /**
+   * Loads the given queued jobs in the order of the queue. Jobs which are no longer dispatchable are removed from the
+   * dispatch queue.
+   *
+   * @param em
+   *          the entity manager
+   * @param entries
+   *          the queued jobs
+   * @return the dispatchable jobs
+   * @throws ServiceRegistryException
+   *           if there is a problem communicating with the jobs database
    */
-  protected List<JpaJob> getDispatchableJobsWithStatus(EntityManager em, int offset, int limit, Status... statuses)
+  protected List<JpaJob> getQueuedJobs(EntityManager em, List<DispatchQueue.Entry> entries)
           throws ServiceRegistryException {
-    if (statuses == null)
-      return Collections.EMPTY_LIST;
+    List<Long> jobIds = new ArrayList<Long>(entries.size());
+    for (DispatchQueue.Entry entry : entries) {
+      jobIds.add(entry.getJobId());
+    }
 
-    List<Integer> statusesOrdinal = new ArrayList<>(statuses.length);
-    for (Status status : statuses) {
-      statusesOrdinal.add(status.ordinal());
+    Map<Long, JpaJob> jobsById = new HashMap<Long, JpaJob>();
+    try {
+      TypedQuery<JpaJob> query = em.createNamedQuery("Job.dispatchable.status.byIds", JpaJob.class);
+      query.setParameter("jobids", jobIds);
+      query.setParameter("statuses", Arrays.asList(Status.RESTART.ordinal(), Status.QUEUED.ordinal()));
+      for (JpaJob job : query.getResultList()) {
+        jobsById.put(job.getId(), job);
+      }
+    } catch (Exception e) {
+      throw new ServiceRegistryException(e);
     }
 
-    TypedQuery<JpaJob> query = null;
+    List<JpaJob> jobs = new ArrayList<JpaJob>(entries.size());
+    for (Long jobId : jobIds) {
+      JpaJob job = jobsById.get(jobId);
+      if (job == null) {
+        logger.debug("Job {} is no longer dispatchable", jobId);
+        dispatchQueue.remove(jobId);
+      } else {
+        jobs.add(job);
+      }
+    }
+    return jobs;
+  }
+
+  /**
+   * Returns the identifiers of the jobs that currently have running descendants. This is the set based equivalent of
+   * looking for a running job in {@link #getChildJobs(long)} of every parent job, which is how dispatching used to
+   * decide whether child jobs may use the full list of services.
+   *
+   * @param em
+   *          the entity manager
+   * @return the set of job identifiers
+   * @throws ServiceRegistryException
+   *           if there is a problem communicating with the jobs database
+   */
+  protected Set<Long> getParentsWithRunningChildren(EntityManager em) throws ServiceRegistryException {
+    Set<Long> parents = new HashSet<Long>();
     try {
-      query = em.createNamedQuery("Job.dispatchable.status", JpaJob.class);
-      query.setParameter("statuses", statusesOrdinal);
-      if (offset > 0)
-        query.setFirstResult(offset);
-      if (limit > 0)
-        query.setMaxResults(limit);
-      return query.getResultList();
+      Query query = em.createNamedQuery("Job.parent.withStatus");
+      query.setParameter("status", Status.RUNNING.ordinal());
+      Set<Long> level = toIds(query.getResultList());
+
+      // Walk up the job hierarchy, one query per level
+      while (!level.isEmpty()) {
+        parents.addAll(level);
+        query = em.createNamedQuery("Job.parent.byIds");
+        query.setParameter("ids", level);
+        level = toIds(query.getResultList());
+        level.removeAll(parents);
+      }
     } catch (Exception e) {
       throw new ServiceRegistryException(e);
     }
+    return parents;
+  }
+
+  private static Set<Long> toIds(List<?> result) {
+    Set<Long> ids = new HashSet<Long>();
+    for (Object id : result) {
+      ids.add(((Number) id).longValue());
+    }
+    return ids;
   }
 
   /**
@@ -2088,37 +2473,44 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
    * @return the map of hosts to job counts
    */
   SystemLoad getHostLoads(EntityManager em, boolean activeOnly) {
-    final SystemLoad systemLoad = new SystemLoad();
-
-    // Find all jobs that are currently running on any given host, or get all of them
-    Query q = em.createNamedQuery("ServiceRegistration.hostloads");
-    List<Integer> statuses = new LinkedList<Integer>();
-    for (Status status : JOB_STATUSES_INFLUENCING_LOAD_BALANCING) {
-      statuses.add(status.ordinal());
+    try {
+      reconcileLoadAccounting(em, loadReconciliationInterval);
+    } catch (ServiceRegistryException e) {
+      logger.warn("Unable to reconcile the job load accounting, using the accounted load: {}", e.getMessage());
     }
-    q.setParameter("statuses", statuses);
+    return getHostLoads(getServiceRegistrations(em), getHostRegistrations(em), activeOnly);
+  }
+
+  /**
+   * Gets a map of hosts to the load of the jobs currently loading that host, based on the in-memory load accounting.
+   *
+   * @param serviceRegistrations
+   *          the complete list of service registrations
+   * @param hostRegistrations
+   *          the complete list of host registrations
+   * @param activeOnly
+   *          if true, the map will include only hosts that are online and have non-maintenance mode services
+   * @return the map of hosts to job counts
+   */
+  SystemLoad getHostLoads(List<ServiceRegistration> serviceRegistrations, List<HostRegistration> hostRegistrations,
+          boolean activeOnly) {
+    final SystemLoad systemLoad = new SystemLoad();
 
-    // Accumulate the numbers for relevant job statuses per host
-    for (Object result : q.getResultList()) {
-      Object[] resultArray = (Object[]) result;
-      ServiceRegistrationJpaImpl service = (ServiceRegistrationJpaImpl) resultArray[0];
+    // Accumulate the load of the services per host
+    for (ServiceRegistration service : serviceRegistrations) {
 
       // Workflow related jobs are not counting. Workflows are load balanced by the workflow service directly
       if (TYPE_WORKFLOW.equals(service.getServiceType()))
         continue;
 
-      Status status = Status.values()[(int) resultArray[1]];
-      float load = ((Number) resultArray[2]).floatValue();
+      if (!service.isActive())
+        continue;
 
       if (activeOnly && (service.isInMaintenanceMode() || !service.isOnline())) {
         continue;
       }
 
-      // Only queued, running and dispatching jobs are adding to the load, so every other status is discarded
-      if (status == null || !JOB_STATUSES_INFLUENCING_LOAD_BALANCING.contains(status)) {
-        load = 0.0f;
-      }
-
+      float load = loadAccounting.getLoad(service.getHost(), service.getServiceType());
       String host = service.getHost();
 
       // Add the service registration
@@ -2134,7 +2526,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     }
 
     // This is important, otherwise services which have no current load are not listed in the output!
-    for (HostRegistration h : getHostRegistrations(em)) {
+    for (HostRegistration h : hostRegistrations) {
       if (!systemLoad.containsHost(h.getBaseUrl())) {
         systemLoad.addNodeLoad(new NodeLoad(h.getBaseUrl(), 0.0f));
       }
@@ -2143,6 +2535,75 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     return systemLoad;
   }
 
+  /**
+   * Records the current state of a job that has just been persisted in the load accounting.
+   *
+   * @param job
+   *          the persisted job
+   */
+  private void accountLoad(JpaJob job) {
+    ServiceRegistrationJpaImpl processor = job.getProcessorServiceRegistration();
+    if (processor == null) {
+      loadAccounting.update(job.getId(), null, job.getJobType(), job.getStatus(), job.getJobLoad());
+      return;
+    }
+    // The host is only populated once the registration has been loaded from the database
+    String host = processor.getHost();
+    if (host == null && processor.getHostRegistration() != null)
+      host = processor.getHostRegistration().getBaseUrl();
+    loadAccounting.update(job.getId(), host, processor.getServiceType(), job.getStatus(), job.getJobLoad());
+  }
+
+  /**
+   * Replaces the content of the load accounting with the jobs loading the services that are found in the database,
+   * unless the accounting has been reconciled more recently than the given age.
+   *
+   * @param em
+   *          the entity manager
+   * @param maxAge
+   *          the maximum time in milliseconds since the last reconciliation
+   * @throws ServiceRegistryException
+   *           if there is a problem communicating with the jobs database
+   */
+  protected void reconcileLoadAccounting(EntityManager em, long maxAge) throws ServiceRegistryException {
+    if (lastLoadReconciliation > 0 && System.currentTimeMillis() - lastLoadReconciliation < maxAge)
+      return;
+
+    loadReconciliationLock.lock();
+    try {
+      // Another thread may have reconciled the accounting in the meantime
+      long now = System.currentTimeMillis();
+      if (lastLoadReconciliation > 0 && now - lastLoadReconciliation < maxAge)
+        return;
+
+      List<Integer> statuses = new LinkedList<Integer>();
+      for (Status status : JOB_STATUSES_INFLUENCING_LOAD_BALANCING) {
+        statuses.add(status.ordinal());
+      }
+
+      List<LoadAccounting.LoadingJob> loadingJobs = new ArrayList<LoadAccounting.LoadingJob>();
+      loadAccounting.beginReconciliation();
+      try {
+        Query query = em.createNamedQuery("Job.load.summary");
+        query.setParameter("statuses", statuses);
+        for (Object result : query.getResultList()) {
+          Object[] row = (Object[]) result;
+          loadingJobs.add(new LoadAccounting.LoadingJob(((Number) row[0]).longValue(), (String) row[1],
+                  (String) row[2], Status.values()[((Number) row[3]).intValue()],
+                  row[4] == null ? null : ((Number) row[4]).floatValue()));
+        }
+      } catch (Exception e) {
+        loadAccounting.cancelReconciliation();
+        throw new ServiceRegistryException(e);
+      }
+      loadAccounting.reconcile(loadingJobs);
+      lastLoadReconciliation = now;
+      logger.debug("Found {} jobs adding to the load in the database", loadingJobs.size());
+    } finally {
+      loadReconciliationLock.unlock();
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -2779,14 +3240,25 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
   };
 
   /**
-   * This dispatcher implementation will check for jobs in the QUEUED {@link Status}. If
-   * new jobs are found, the dispatcher will attempt to dispatch each job to the least loaded service.
+   * This dispatcher implementation will check for jobs in the QUEUED and RESTART {@link Status}. If new jobs are found,
+   * the dispatcher will attempt to dispatch each job to the least loaded service.
+   * <p>
+   * The jobs to dispatch are taken from the in-memory {@link DispatchQueue}, which is reconciled with the database once
+   * per dispatch interval. Host loads and registrations are read once per round of dispatching and then maintained in
+   * memory while jobs are being dispatched, so the number of database queries doesn't depend on the number of queued
+   * jobs.
    */
   class JobDispatcher implements Runnable {
 
+    /** Makes sure that there is only one round of dispatching at any given time */
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+
     /** A list with job types that cannot be dispatched in each interation */
     private List<String> undispatchableJobTypes = null;
 
+    /** Whether the last round of dispatching has run out of capacity for some of the jobs */
+    private boolean capacityExhausted = false;
+
     /**
      * {@inheritDoc}
      *
@@ -2794,6 +3266,28 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
      */
     @Override
     public void run() {
+      if (!dispatchLock.tryLock()) {
+        // The round of dispatching that is currently running will pick up the request
+        return;
+      }
+      try {
+        do {
+          dispatchRequested.set(false);
+          dispatch();
+        } while (dispatchRequested.get());
+      } finally {
+        dispatchLock.unlock();
+      }
+
+      // Dispatching may have been requested after the last round but before the lock has been released
+      if (dispatchRequested.get())
+        submitDispatch();
+    }
+
+    /**
+     * Runs one round of dispatching.
+     */
+    private void dispatch() {
       undispatchableJobTypes = new ArrayList<String>();
       EntityManager em = null;
       try {
@@ -2806,6 +3300,16 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           jobsStatistics.updateJobCount(getCountPerHostService(em));
         }
 
+        // Pick up the jobs that have been queued by other nodes or that have been restarted in the database
+        long now = System.currentTimeMillis();
+        if (now - lastDispatchQueueReconciliation >= dispatchInterval) {
+          reconcileDispatchQueue(em);
+          lastDispatchQueueReconciliation = now;
+        }
+
+        // Pick up load changes made by other nodes, and more eagerly so if the cluster seemed to be out of capacity
+        reconcileLoadAccounting(em, capacityExhausted ? dispatchInterval : loadReconciliationInterval);
+
         if (!dispatchPriorityList.isEmpty()) {
           // Remove outdated jobs from priority list
           List<Long> jobIds = getDispatchableJobsWithIdFilter(em, dispatchPriorityList.keySet());
@@ -2816,54 +3320,35 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           }
         }
 
-        int jobsOffset = 0;
-        List<JpaJob> dispatchableJobs = null;
-        List<JpaJob> workflowJobs = new ArrayList();
-        boolean jobsFound = false;
-        do {
-          // dispatch all dispatchable jobs with status restarted
-          dispatchableJobs = getDispatchableJobsWithStatus(em, jobsOffset, DEFAULT_DISPATCH_JOBS_LIMIT, Status.RESTART);
-          jobsOffset += DEFAULT_DISPATCH_JOBS_LIMIT;
-          jobsFound = !dispatchableJobs.isEmpty();
-
-          // skip all jobs of type workflow, we will handle them next
-          for (JpaJob job : dispatchableJobs) {
-            if (TYPE_WORKFLOW.equals(job.getJobType())) {
-              workflowJobs.add(job);
-            }
-          }
-          if (dispatchableJobs.removeAll(workflowJobs) && dispatchableJobs.isEmpty())
+        List<DispatchQueue.Entry> queuedJobs = dispatchQueue.snapshot();
+        if (queuedJobs.isEmpty())
+          return;
+
+        logger.debug("Dispatching {} queued jobs", queuedJobs.size());
+        List<ServiceRegistration> services = getServiceRegistrations(em);
+        List<HostRegistration> hosts = getHostRegistrations(em);
+        DispatchContext context = new DispatchContext(getHostLoads(services, hosts, true), services, hosts,
+                getParentsWithRunningChildren(em));
+
+        // Load and dispatch the queued jobs in batches, skipping those that we already know can't be dispatched
+        List<DispatchQueue.Entry> batch = new ArrayList<DispatchQueue.Entry>(DEFAULT_DISPATCH_JOBS_LIMIT);
+        for (DispatchQueue.Entry entry : queuedJobs) {
+          if (undispatchableJobTypes.contains(entry.getSignature())
+                  && !dispatchPriorityList.containsKey(entry.getJobId()))
             continue;
-
-          dispatchDispatchableJobs(em, dispatchableJobs);
-        } while (jobsFound);
-
-        jobsOffset = 0;
-        jobsFound = false;
-        do {
-          // dispatch all dispatchable jobs with status queued
-          dispatchableJobs = getDispatchableJobsWithStatus(em, jobsOffset, DEFAULT_DISPATCH_JOBS_LIMIT, Status.QUEUED);
-          jobsOffset += DEFAULT_DISPATCH_JOBS_LIMIT;
-          jobsFound = !dispatchableJobs.isEmpty();
-
-          // skip all jobs of type workflow, we will handle them next
-          for (JpaJob job : dispatchableJobs) {
-            if (TYPE_WORKFLOW.equals(job.getJobType())) {
-              workflowJobs.add(job);
-            }
+          batch.add(entry);
+          if (batch.size() == DEFAULT_DISPATCH_JOBS_LIMIT) {
+            dispatchDispatchableJobs(em, getQueuedJobs(em, batch), context);
+            batch.clear();
           }
-          if (dispatchableJobs.removeAll(workflowJobs) && dispatchableJobs.isEmpty())
-            continue;
-
-          dispatchDispatchableJobs(em, dispatchableJobs);
-        } while (jobsFound);
-
-        if (!workflowJobs.isEmpty())
-          dispatchDispatchableJobs(em, workflowJobs);
+        }
+        if (!batch.isEmpty())
+          dispatchDispatchableJobs(em, getQueuedJobs(em, batch), context);
 
       } catch (Throwable t) {
         logger.warn("Error dispatching jobs", t);
       } finally {
+        capacityExhausted = !undispatchableJobTypes.isEmpty();
         undispatchableJobTypes = null;
         if (em != null)
           em.close();
@@ -2873,10 +3358,14 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
     /**
      * Dispatch the given jobs.
      *
-     * @param em the entity manager
-     * @param jobsToDispatch list with dispatchable jobs to dispatch
+     * @param em
+     *          the entity manager
+     * @param jobsToDispatch
+     *          list with dispatchable jobs to dispatch
+     * @param context
+     *          the state of the cluster for the current round of dispatching
      */
-    private void dispatchDispatchableJobs(EntityManager em, List<JpaJob> jobsToDispatch) {
+    private void dispatchDispatchableJobs(EntityManager em, List<JpaJob> jobsToDispatch, DispatchContext context) {
       for (JpaJob job : jobsToDispatch) {
 
         // Remember the job type
@@ -2895,9 +3384,12 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         String creatorOrganization = job.getOrganization();
 
         // Try to load the organization.
-        Organization organization = null;
+        Organization organization = context.organizations.get(creatorOrganization);
         try {
-          organization = organizationDirectoryService.getOrganization(creatorOrganization);
+          if (organization == null) {
+            organization = organizationDirectoryService.getOrganization(creatorOrganization);
+            context.organizations.put(creatorOrganization, organization);
+          }
           securityService.setOrganization(organization);
         } catch (NotFoundException e) {
           logger.debug("Skipping dispatching of job for non-existing organization '{}'", creatorOrganization);
@@ -2905,53 +3397,43 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
         }
 
         // Try to load the user
-        User user = userDirectoryService.loadUser(creator);
+        String userKey = creatorOrganization + "/" + creator;
+        User user = context.users.get(userKey);
         if (user == null) {
-          logger.warn("Unable to dispatch job {}: creator '{}' is not available", job.getId(), creator);
-          continue;
+          user = userDirectoryService.loadUser(creator);
+          if (user == null) {
+            logger.warn("Unable to dispatch job {}: creator '{}' is not available", job.getId(), creator);
+            continue;
+          }
+          context.users.put(userKey, user);
         }
         securityService.setUser(user);
 
         // Start dispatching
         try {
-          SystemLoad systemLoad = getHostLoads(em, true);
-          List<ServiceRegistration> services = getServiceRegistrations(em);
-          List<HostRegistration> hosts = $(getHostRegistrations(em)).filter(filterOutPriorityHosts._2(job.getId()))
-                  .toList();
+          List<HostRegistration> hosts = $(context.hosts).filter(filterOutPriorityHosts._2(job.getId())).toList();
           List<ServiceRegistration> candidateServices = null;
 
           // Depending on whether this running job is trying to reach out to other services or whether this is an
           // attempt to execute the next operation in a workflow, choose either from a limited or from the full list
           // of services
-          Job parentJob = null;
-          try {
-            if (job.getParentJob() != null)
-              parentJob = getJob(job.getParentJob().getId());
-          } catch (NotFoundException e) {
-            // That's ok
-          }
+          Long parentJobId = job.getParentJob() != null ? job.getParentJob().getId() : null;
 
           // When a job A starts a series of child jobs, then those child jobs should only be dispatched at the
           // same time if there is processing capacity available.
-          boolean parentHasRunningChildren = false;
-          if (parentJob != null) {
-            for (Job child : getChildJobs(parentJob.getId())) {
-              if (Status.RUNNING.equals(child.getStatus())) {
-                parentHasRunningChildren = true;
-                break;
-              }
-            }
-          }
+          boolean parentHasRunningChildren = parentJobId != null
+                  && context.parentsWithRunningChildren.contains(parentJobId);
 
           // If this is a root job (a new workflow or a new workflow operation), then only dispatch if there is
           // capacity, i. e. the workflow service is ok dispatching the next workflow or the next workflow operation.
-          if (parentJob == null || TYPE_WORKFLOW.equals(jobType) || parentHasRunningChildren) {
+          if (parentJobId == null || TYPE_WORKFLOW.equals(jobType) || parentHasRunningChildren) {
             logger.trace("Using available capacity only for dispatching of {} to a service of type '{}'", job,
                     jobType);
-            candidateServices = getServiceRegistrationsWithCapacity(jobType, services, hosts, systemLoad);
+            candidateServices = getServiceRegistrationsWithCapacity(jobType, context.services, hosts,
+                    context.systemLoad);
           } else {
             logger.trace("Using full list of services for dispatching of {} to a service of type '{}'", job, jobType);
-            candidateServices = getServiceRegistrationsByLoad(jobType, services, hosts, systemLoad);
+            candidateServices = getServiceRegistrationsByLoad(jobType, context.services, hosts, context.systemLoad);
           }
 
           // Try to dispatch the job
@@ -2959,6 +3441,7 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           try {
             hostAcceptingJob = dispatchJob(em, job, candidateServices);
             dispatchPriorityList.remove(job.getId());
+            dispatchQueue.remove(job.getId());
           } catch (ServiceUnavailableException e) {
             logger.debug("Jobs of type {} currently cannot be dispatched", job.getOperation());
             // Don't mark workflow jobs as undispatchable to not impact worklfow operations
@@ -2970,6 +3453,9 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
             continue;
           }
 
+          // Account for the new job in this round's view of the cluster
+          context.addLoad(hostAcceptingJob, job.getJobLoad());
+
           logger.debug("Job {} dispatched to {}", job.getId(), hostAcceptingJob);
         } catch (ServiceRegistryException e) {
           Throwable cause = (e.getCause() != null) ? e.getCause() : e;
@@ -3161,9 +3647,16 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
      */
     @Override
     public void run() {
+      ExecutorService executor = heartbeatExecutor;
+      if (executor == null)
+        return;
+
       logger.debug("Checking for unresponsive services");
+      long start = System.currentTimeMillis();
       List<ServiceRegistration> serviceRegistrations = getOnlineServiceRegistrations();
 
+      // Group the services by host, so that an unreachable host is detected with a single request
+      Map<String, List<ServiceRegistration>> servicesByHost = new LinkedHashMap<String, List<ServiceRegistration>>();
       for (ServiceRegistration service : serviceRegistrations) {
         hostsStatistics.updateHost(((ServiceRegistrationJpaImpl) service).getHostRegistration());
         servicesStatistics.updateService(service);
@@ -3171,63 +3664,298 @@ public class ServiceRegistryJpaImpl implements ServiceRegistry, ManagedService {
           continue;
         if (service.isInMaintenanceMode())
           continue;
+        List<ServiceRegistration> hostServices = servicesByHost.get(service.getHost());
+        if (hostServices == null) {
+          hostServices = new ArrayList<ServiceRegistration>();
+          servicesByHost.put(service.getHost(), hostServices);
+        }
+        hostServices.add(service);
+      }
 
-        // We think this service is online and available. Prove it.
-        String serviceUrl = UrlSupport.concat(service.getHost(), service.getPath(), "dispatch");
-        HttpHead options = new HttpHead(serviceUrl);
-        HttpResponse response = null;
+      // Check the hosts concurrently
+      List<HostHeartbeat> hostHeartbeats = new ArrayList<HostHeartbeat>();
+      for (List<ServiceRegistration> hostServices : servicesByHost.values()) {
+        hostHeartbeats.add(new HostHeartbeat(hostServices));
+      }
+      List<Future<Map<ServiceRegistration, Heartbeat>>> results = new ArrayList<>();
+      try {
+        for (HostHeartbeat hostHeartbeat : hostHeartbeats) {
+          results.add(executor.submit(hostHeartbeat));
+        }
+      } catch (RejectedExecutionException e) {
+        logger.debug("Checking for unresponsive services has been stopped");
+        cancel(results);
+        return;
+      }
+
+      // Act on the results one after the other
+      int unreachableHosts = 0;
+      for (int i = 0; i < hostHeartbeats.size(); i++) {
+        Map<ServiceRegistration, Heartbeat> heartbeats;
         try {
-          try {
-            response = client.execute(options);
-            if (response != null) {
-              switch (response.getStatusLine().getStatusCode()) {
-                case HttpStatus.SC_OK:
-                  // this service is reachable, continue checking other services
-                  logger.trace("Service " + service.toString() + " is responsive: " + response.getStatusLine());
-                  if (unresponsive.remove(service)) {
-                    logger.info("Service {} is still online", service);
-                  } else if (!service.isOnline()) {
-                    try {
-                      setOnlineStatus(service.getServiceType(), service.getHost(), service.getPath(), true, true);
-                      logger.info("Service {} is back online", service);
-                    } catch (ServiceRegistryException e) {
-                      logger.warn("Error setting online status for {}", service);
-                    }
-                  }
-                  continue;
-                default:
-                  if (!service.isOnline())
-                    continue;
-                  logger.warn("Service {} is not working as expected: {}", service, response.getStatusLine());
-              }
-            } else {
-              logger.warn("Service {} does not respond: {}", service.toString());
-            }
-          } catch (TrustedHttpClientException e) {
-            if (!service.isOnline())
-              continue;
-            logger.warn("Unable to reach {} : {}", service, e);
-          }
+          heartbeats = hostHeartbeats.get(i).await(results.get(i));
+        } catch (InterruptedException e) {
+          logger.debug("Checking for unresponsive services has been interrupted");
+          cancel(results);
+          Thread.currentThread().interrupt();
+          return;
+        } catch (Exception e) {
+          logger.warn("Unable to check services on {}: {}", hostHeartbeats.get(i).getHost(), e.getMessage());
+          continue;
+        }
+        boolean hostReachable = false;
+        for (Map.Entry<ServiceRegistration, Heartbeat> heartbeat : heartbeats.entrySet()) {
+          hostReachable |= heartbeat.getValue().reachable;
+          handleHeartbeat(heartbeat.getKey(), heartbeat.getValue());
+        }
+        if (!hostReachable)
+          unreachableHosts++;
+      }
+
+      long duration = System.currentTimeMillis() - start;
+      hostsStatistics.updateHeartbeat(duration, unreachableHosts);
+      logger.debug("Finished checking for unresponsive services on {} hosts in {} ms", servicesByHost.size(), duration);
+    }
 
-          // If we get here, the service did not respond as expected
+    /** Stops the heartbeat requests that are still running */
+    private void cancel(List<Future<Map<ServiceRegistration, Heartbeat>>> results) {
+      for (Future<Map<ServiceRegistration, Heartbeat>> result : results) {
+        result.cancel(true);
+      }
+    }
+
+    /**
+     * Updates the service registration according to the outcome of its heartbeat.
+     *
+     * @param service
+     *          the service registration
+     * @param heartbeat
+     *          the outcome of the heartbeat request
+     */
+    private void handleHeartbeat(ServiceRegistration service, Heartbeat heartbeat) {
+      if (heartbeat.responsive) {
+        // this service is reachable, continue checking other services
+        logger.trace("Service " + service.toString() + " is responsive: " + heartbeat.message);
+        if (unresponsive.remove(service)) {
+          logger.info("Service {} is still online", service);
+        } else if (!service.isOnline()) {
           try {
-            if (unresponsive.contains(service)) {
-              unRegisterService(service.getServiceType(), service.getHost());
-              unresponsive.remove(service);
-              logger.warn("Marking {} as offline", service);
-            } else {
-              unresponsive.add(service);
-              logger.warn("Added {} to the watch list", service);
-            }
+            setOnlineStatus(service.getServiceType(), service.getHost(), service.getPath(), true, true);
+            logger.info("Service {} is back online", service);
           } catch (ServiceRegistryException e) {
-            logger.warn("Unable to unregister unreachable service: {} : {}", service, e);
+            logger.warn("Error setting online status for {}", service);
           }
-        } finally {
-          client.close(response);
+        }
+        return;
+      }
+
+      if (!service.isOnline())
+        return;
+      if (heartbeat.reachable) {
+        logger.warn("Service {} is not working as expected: {}", service, heartbeat.message);
+      } else {
+        logger.warn("Unable to reach {} : {}", service, heartbeat.message);
+      }
+
+      // If we get here, the service did not respond as expected
+      try {
+        if (unresponsive.contains(service)) {
+          unRegisterService(service.getServiceType(), service.getHost());
+          unresponsive.remove(service);
+          logger.warn("Marking {} as offline", service);
+        } else {
+          unresponsive.add(service);
+          logger.warn("Added {} to the watch list", service);
+        }
+      } catch (ServiceRegistryException e) {
+        logger.warn("Unable to unregister unreachable service: {} : {}", service, e);
+      }
+    }
+
+  }
+
+  /**
+   * Sends the heartbeat requests to the services of one host. Once the host turns out to be unreachable, the remaining
+   * services are reported as unreachable without sending further requests. A request that doesn't complete within
+   * {@link #heartbeatRequestTimeout} is aborted by {@link #await(Future)}, which counts as the host being unreachable.
+   */
+  private final class HostHeartbeat implements Callable<Map<ServiceRegistration, Heartbeat>> {
+
+    private final List<ServiceRegistration> services;
+
+    /** The outcome of the requests that have completed so far */
+    private final Map<ServiceRegistration, Heartbeat> heartbeats = new LinkedHashMap<ServiceRegistration, Heartbeat>();
+
+    /** The request in progress, if any */
+    private HttpHead request = null;
+
+    /** The time the request in progress has been sent */
+    private long requestStarted = 0L;
+
+    HostHeartbeat(List<ServiceRegistration> services) {
+      this.services = services;
+    }
+
+    String getHost() {
+      return services.get(0).getHost();
+    }
+
+    @Override
+    public Map<ServiceRegistration, Heartbeat> call() {
+      Heartbeat hostUnreachable = null;
+      for (ServiceRegistration service : services) {
+        if (Thread.currentThread().isInterrupted())
+          break;
+        Heartbeat heartbeat = hostUnreachable != null ? hostUnreachable : check(service);
+        if (!heartbeat.reachable)
+          hostUnreachable = heartbeat;
+        synchronized (this) {
+          heartbeats.put(service, heartbeat);
+        }
+      }
+      return results(null);
+    }
+
+    /**
+     * Waits for the heartbeat requests to complete. A request that takes longer than the deadline is aborted, and the
+     * services that have not been checked at that point are reported as unreachable.
+     *
+     * @param future
+     *          the future of this heartbeat
+     * @return the outcome of the heartbeat requests, by service
+     * @throws InterruptedException
+     *           if the current thread has been interrupted while waiting
+     * @throws ExecutionException
+     *           if checking the services failed
+     */
+    Map<ServiceRegistration, Heartbeat> await(Future<Map<ServiceRegistration, Heartbeat>> future)
+            throws InterruptedException, ExecutionException {
+      while (true) {
+        try {
+          return future.get(getRemainingTime(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+          if (abortIfOverdue()) {
+            future.cancel(true);
+            return results(new Heartbeat(false, false, "no response within " + heartbeatRequestTimeout + " ms"));
+          }
+        }
+      }
+    }
+
+    /** Returns the time left until the request in progress is overdue, or the deadline if no request has been sent */
+    private synchronized long getRemainingTime() {
+      if (request == null)
+        return heartbeatRequestTimeout;
+      return Math.max(1L, requestStarted + heartbeatRequestTimeout - System.currentTimeMillis());
+    }
+
+    /** Aborts the request in progress if it has exceeded its deadline, and stops checking further services */
+    private synchronized boolean abortIfOverdue() {
+      if (request == null || System.currentTimeMillis() - requestStarted < heartbeatRequestTimeout)
+        return false;
+      request.abort();
+      request = null;
+      return true;
+    }
+
+    /** Returns the outcome of the requests so far, reporting the services that haven't been checked as given */
+    private synchronized Map<ServiceRegistration, Heartbeat> results(Heartbeat unchecked) {
+      Map<ServiceRegistration, Heartbeat> results = new LinkedHashMap<ServiceRegistration, Heartbeat>(heartbeats);
+      if (unchecked != null) {
+        for (ServiceRegistration service : services) {
+          if (!results.containsKey(service))
+            results.put(service, unchecked);
         }
       }
+      return results;
+    }
 
-      logger.debug("Finished checking for unresponsive services");
+    private Heartbeat check(ServiceRegistration service) {
+      // We think this service is online and available. Prove it.
+      String serviceUrl = UrlSupport.concat(service.getHost(), service.getPath(), "dispatch");
+      HttpHead options = new HttpHead(serviceUrl);
+      synchronized (this) {
+        request = options;
+        requestStarted = System.currentTimeMillis();
+      }
+      HttpResponse response = null;
+      int timeout = (int) heartbeatRequestTimeout;
+      try {
+        response = client.execute(options, timeout, timeout);
+        if (response == null)
+          return new Heartbeat(false, false, "no response");
+        boolean responsive = response.getStatusLine().getStatusCode() == HttpStatus.SC_OK;
+        return new Heartbeat(true, responsive, response.getStatusLine().toString());
+      } catch (TrustedHttpClientException e) {
+        return new Heartbeat(false, false, e.toString());
+      } finally {
+        synchronized (this) {
+          request = null;
+        }
+        client.close(response);
+      }
+    }
+
+  }
+
+  /** The outcome of a heartbeat request. */
+  private static final class Heartbeat {
+
+    /** Whether the host answered the request */
+    private final boolean reachable;
+
+    /** Whether the service answered as expected */
+    private final boolean responsive;
+
+    /** The response status or the error */
+    private final String message;
+
+    Heartbeat(boolean reachable, boolean responsive, String message) {
+      this.reachable = reachable;
+      this.responsive = responsive;
+      this.message = message;
+    }
+
+  }
+
+  /**
+   * The state of the cluster as seen by one round of dispatching. It is read from the database at the beginning of the
+   * round and updated in memory as jobs are being dispatched.
+   */
+  private static final class DispatchContext {
+
+    private final SystemLoad systemLoad;
+    private final List<ServiceRegistration> services;
+    private final List<HostRegistration> hosts;
+    private final Set<Long> parentsWithRunningChildren;
+    private final Map<String, Organization> organizations = new HashMap<String, Organization>();
+    private final Map<String, User> users = new HashMap<String, User>();
+
+    DispatchContext(SystemLoad systemLoad, List<ServiceRegistration> services, List<HostRegistration> hosts,
+            Set<Long> parentsWithRunningChildren) {
+      this.systemLoad = systemLoad;
+      this.services = services;
+      this.hosts = hosts;
+      this.parentsWithRunningChildren = parentsWithRunningChildren;
+    }
+
+    /**
+     * Adds the load of a newly dispatched job to the host that accepted it.
+     *
+     * @param host
+     *          the host
+     * @param load
+     *          the job load
+     */
+    void addLoad(String host, Float load) {
+      if (host == null || load == null)
+        return;
+      NodeLoad nodeLoad = systemLoad.get(host);
+      if (nodeLoad == null) {
+        systemLoad.addNodeLoad(new NodeLoad(host, load));
+      } else {
+        nodeLoad.setLoadFactor(nodeLoad.getLoadFactor() + load);
+      }
     }
 
   }
@@ -32,8 +32,10 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import org.opencastproject.job.api.JaxbJob;
 import org.opencastproject.job.api.JaxbJobList;
+import org.opencastproject.job.api.JaxbJobSpec;
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.JobParser;
+import org.opencastproject.job.api.JobSpec;
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.serviceregistry.api.HostRegistration;
 import org.opencastproject.serviceregistry.api.JaxbHostRegistration;
@@ -59,8 +61,12 @@ import org.opencastproject.util.doc.rest.RestService;
 import org.apache.commons.lang3.StringUtils;
 import org.osgi.service.component.ComponentContext;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -456,6 +462,53 @@ public class ServiceRegistryEndpoint {
     }
   }
 
+  @POST
+  @Path("jobs")
+  @Produces(MediaType.TEXT_XML)
+  @RestQuery(name = "createjobs", description = "Creates a batch of new jobs in a single transaction.", returnDescription = "An XML representation of the jobs, in the order of the job specifications.", restParameters = {
+          @RestParameter(name = "host", isRequired = true, type = Type.STRING, description = "The creating host, including the http(s) protocol"),
+          @RestParameter(name = "jobs", isRequired = true, type = Type.TEXT, description = "The job specifications as XML") }, reponses = {
+          @RestResponse(responseCode = SC_CREATED, description = "Jobs created."),
+          @RestResponse(responseCode = SC_BAD_REQUEST, description = "The required parameters were not supplied, bad request.") })
+  public Response createJobs(@FormParam("host") String host, @FormParam("jobs") String jobSpecsXml) {
+    if (isBlank(host) || isBlank(jobSpecsXml))
+      return Response.status(Status.BAD_REQUEST).build();
+
+    List<JobSpec> jobSpecs = new ArrayList<JobSpec>();
+    try {
+      Map<Long, Job> parentJobs = new HashMap<Long, Job>();
+      for (JaxbJobSpec jaxbJobSpec : JobParser.parseJobSpecList(jobSpecsXml).getJobSpecs()) {
+        Long parentJobId = jaxbJobSpec.getParentJobId();
+        Job parentJob = null;
+        if (parentJobId != null) {
+          parentJob = parentJobs.get(parentJobId);
+          if (parentJob == null) {
+            parentJob = serviceRegistry.getJob(parentJobId);
+            parentJobs.put(parentJobId, parentJob);
+          }
+        }
+        jobSpecs.add(jaxbJobSpec.toJobSpec(parentJob));
+      }
+    } catch (IOException e) {
+      return Response.status(Status.BAD_REQUEST).build();
+    } catch (IllegalArgumentException e) {
+      return Response.status(Status.BAD_REQUEST).build();
+    } catch (NotFoundException e) {
+      return Response.status(Status.BAD_REQUEST).build();
+    } catch (ServiceRegistryException e) {
+      throw new WebApplicationException(e);
+    }
+
+    try {
+      List<Job> jobs = ((ServiceRegistryJpaImpl) serviceRegistry).createJobs(host, jobSpecs);
+      return Response.status(Status.CREATED).entity(new JaxbJobList(jobs)).build();
+    } catch (IllegalArgumentException e) {
+      throw new WebApplicationException(Status.BAD_REQUEST);
+    } catch (Exception e) {
+      throw new WebApplicationException(e);
+    }
+  }
+
   @PUT
   @Path("job/{id}.xml")
   @Produces(MediaType.TEXT_XML)
@@ -51,6 +51,9 @@ public class HostsStatistics extends NotificationBroadcasterSupport implements H
 
   private Map<String, Integer> hosts = new HashMap<String, Integer>();
 
+  private volatile long lastHeartbeatDuration = 0L;
+  private volatile int lastHeartbeatUnreachableCount = 0;
+
   public HostsStatistics(List<ServiceStatistics> statistics) {
     for (ServiceStatistics stats : statistics) {
       String host = stats.getServiceRegistration().getHost();
@@ -89,6 +92,12 @@ public class HostsStatistics extends NotificationBroadcasterSupport implements H
     sendNotification(JmxUtil.createUpdateNotification(this, sequenceNumber++, "Host updated"));
   }
 
+  public void updateHeartbeat(long duration, int unreachableCount) {
+    lastHeartbeatDuration = duration;
+    lastHeartbeatUnreachableCount = unreachableCount;
+    sendNotification(JmxUtil.createUpdateNotification(this, sequenceNumber++, "Heartbeat finished"));
+  }
+
   @Override
   public MBeanNotificationInfo[] getNotificationInfo() {
     String[] types = new String[] { JmxUtil.MATTERHORN_UPDATE_NOTIFICATION };
@@ -178,4 +187,20 @@ public class HostsStatistics extends NotificationBroadcasterSupport implements H
     return maintenanceHosts.toArray(new String[maintenanceHosts.size()]);
   }
 
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostsStatisticsMXBean#getLastHeartbeatDuration()
+   */
+  @Override
+  public long getLastHeartbeatDuration() {
+    return lastHeartbeatDuration;
+  }
+
+  /**
+   * @see org.opencastproject.serviceregistry.impl.jmx.HostsStatisticsMXBean#getLastHeartbeatUnreachableCount()
+   */
+  @Override
+  public int getLastHeartbeatUnreachableCount() {
+    return lastHeartbeatUnreachableCount;
+  }
+
 }
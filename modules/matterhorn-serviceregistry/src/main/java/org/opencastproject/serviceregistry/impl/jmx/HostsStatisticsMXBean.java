@@ -82,4 +82,18 @@ public interface HostsStatisticsMXBean {
    */
   int getInMaintenanceCount();
 
+  /**
+   * Gets the time it took to check all hosts during the last heartbeat
+   *
+   * @return the duration of the last heartbeat in milliseconds
+   */
+  long getLastHeartbeatDuration();
+
+  /**
+   * Gets the number of hosts that could not be reached during the last heartbeat
+   *
+   * @return the number of unreachable hosts
+   */
+  int getLastHeartbeatUnreachableCount();
+
 }
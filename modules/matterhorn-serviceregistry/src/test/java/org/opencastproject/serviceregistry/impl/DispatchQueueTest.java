@@ -0,0 +1,132 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.job.api.Job.Status;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class DispatchQueueTest {
+
+  private DispatchQueue queue;
+  private Date dt;
+  private Date dtPlusOneHour;
+
+  @Before
+  public void setUp() {
+    queue = new DispatchQueue();
+    dt = new Date(1454288400000L);
+    dtPlusOneHour = new Date(dt.getTime() + 3600000L);
+  }
+
+  @Test
+  public void testOrdering() {
+    queue.offer(1L, ServiceRegistryJpaImpl.TYPE_WORKFLOW, "START_OPERATION", Status.QUEUED, dt);
+    queue.offer(2L, "non-wf", "encode", Status.QUEUED, dtPlusOneHour);
+    queue.offer(3L, "non-wf", "encode", Status.QUEUED, dt);
+    queue.offer(4L, "other", "image", Status.RESTART, dtPlusOneHour);
+
+    assertEquals(4, queue.size());
+    assertEquals(2, queue.size("non-wf"));
+    assertEquals(jobIds(4L, 3L, 2L, 1L), jobIds(queue.snapshot()));
+  }
+
+  @Test
+  public void testOfferRemovesJobsThatAreNotDispatchable() {
+    assertTrue(queue.offer(1L, "non-wf", "encode", Status.QUEUED, dt));
+    assertFalse("Jobs must only be reported as new once", queue.offer(1L, "non-wf", "encode", Status.QUEUED, dt));
+    assertFalse(queue.offer(1L, "non-wf", "encode", Status.RUNNING, dt));
+    assertEquals(0, queue.size());
+    assertEquals(0, queue.size("non-wf"));
+    assertFalse(queue.remove(1L));
+  }
+
+  @Test
+  public void testStatusChangeUpdatesPriority() {
+    queue.offer(1L, "non-wf", "encode", Status.QUEUED, dt);
+    queue.offer(2L, "non-wf", "encode", Status.QUEUED, dtPlusOneHour);
+    queue.offer(2L, "non-wf", "encode", Status.RESTART, null);
+    assertEquals(jobIds(2L, 1L), jobIds(queue.snapshot()));
+  }
+
+  @Test
+  public void testReconcileKeepsRecentlyOfferedJobs() {
+    queue.offer(1L, "non-wf", "encode", Status.QUEUED, dt);
+    long mark = queue.mark();
+    queue.offer(2L, "non-wf", "encode", Status.QUEUED, dtPlusOneHour);
+
+    List<DispatchQueue.Entry> fromDatabase = new ArrayList<DispatchQueue.Entry>();
+    fromDatabase.add(new DispatchQueue.Entry(3L, "other", "image", Status.QUEUED, dt));
+    queue.reconcile(fromDatabase, mark);
+
+    assertEquals(jobIds(3L, 2L), jobIds(queue.snapshot()));
+  }
+
+  @Test
+  public void testReconcileIgnoresRecentlyRemovedJobs() {
+    queue.offer(1L, "non-wf", "encode", Status.QUEUED, dt);
+    long mark = queue.mark();
+    // Dispatched by this node while the database was being queried
+    queue.remove(1L);
+    // Finished on another node, never queued on this one
+    queue.offer(2L, "non-wf", "encode", Status.FINISHED, dt);
+
+    List<DispatchQueue.Entry> fromDatabase = new ArrayList<DispatchQueue.Entry>();
+    fromDatabase.add(new DispatchQueue.Entry(1L, "non-wf", "encode", Status.QUEUED, dt));
+    fromDatabase.add(new DispatchQueue.Entry(2L, "non-wf", "encode", Status.QUEUED, dt));
+    fromDatabase.add(new DispatchQueue.Entry(3L, "other", "image", Status.QUEUED, dt));
+    queue.reconcile(fromDatabase, mark);
+    assertEquals(jobIds(3L), jobIds(queue.snapshot()));
+
+    // Once the database reflects the removal, a job that is queued again is picked up
+    mark = queue.mark();
+    fromDatabase.remove(1);
+    queue.reconcile(fromDatabase, mark);
+    assertEquals(jobIds(1L, 3L), jobIds(queue.snapshot()));
+  }
+
+  private static List<Long> jobIds(Long... ids) {
+    List<Long> jobIds = new ArrayList<Long>();
+    for (Long id : ids) {
+      jobIds.add(id);
+    }
+    return jobIds;
+  }
+
+  private static List<Long> jobIds(List<DispatchQueue.Entry> entries) {
+    List<Long> jobIds = new ArrayList<Long>();
+    for (DispatchQueue.Entry entry : entries) {
+      jobIds.add(entry.getJobId());
+    }
+    return jobIds;
+  }
+
+}
@@ -0,0 +1,100 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+package org.opencastproject.serviceregistry.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.opencastproject.job.api.Job.Status;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LoadAccountingTest {
+
+  private static final String HOST_1 = "http://host1:8080";
+  private static final String HOST_2 = "http://host2:8080";
+
+  private LoadAccounting accounting;
+
+  @Before
+  public void setUp() {
+    accounting = new LoadAccounting();
+  }
+
+  @Test
+  public void testStatusTransitions() {
+    accounting.update(1L, null, "encode", Status.QUEUED, 2.0f);
+    assertEquals(0.0f, accounting.getLoad(HOST_1), 0.0001f);
+
+    accounting.update(1L, HOST_1, "encode", Status.DISPATCHING, 2.0f);
+    accounting.update(2L, HOST_1, "image", Status.RUNNING, 0.5f);
+    accounting.update(3L, HOST_2, "encode", Status.RUNNING, 1.0f);
+    assertEquals(2.5f, accounting.getLoad(HOST_1), 0.0001f);
+    assertEquals(2.0f, accounting.getLoad(HOST_1, "encode"), 0.0001f);
+    assertEquals(1.0f, accounting.getLoad(HOST_2), 0.0001f);
+
+    accounting.update(1L, HOST_1, "encode", Status.RUNNING, 2.0f);
+    assertEquals(2.5f, accounting.getLoad(HOST_1), 0.0001f);
+
+    accounting.update(1L, HOST_1, "encode", Status.FINISHED, 2.0f);
+    accounting.remove(2L);
+    assertEquals(0.0f, accounting.getLoad(HOST_1), 0.0001f);
+    assertEquals(1, accounting.size());
+  }
+
+  @Test
+  public void testWorkflowJobsAreNotCounted() {
+    accounting.update(1L, HOST_1, ServiceRegistryJpaImpl.TYPE_WORKFLOW, Status.RUNNING, 1.0f);
+    assertEquals(0.0f, accounting.getLoad(HOST_1), 0.0001f);
+    assertEquals(0, accounting.size());
+  }
+
+  @Test
+  public void testReconcileKeepsPendingChanges() {
+    accounting.update(1L, HOST_1, "encode", Status.RUNNING, 1.0f);
+    accounting.update(2L, HOST_1, "encode", Status.RUNNING, 1.0f);
+
+    accounting.beginReconciliation();
+    accounting.update(3L, HOST_2, "encode", Status.RUNNING, 1.0f);
+    accounting.update(2L, HOST_1, "encode", Status.FINISHED, 1.0f);
+
+    // The database has been read before the jobs have been updated
+    List<LoadAccounting.LoadingJob> fromDatabase = new ArrayList<LoadAccounting.LoadingJob>();
+    fromDatabase.add(new LoadAccounting.LoadingJob(2L, HOST_1, "encode", Status.RUNNING, 1.0f));
+    fromDatabase.add(new LoadAccounting.LoadingJob(4L, HOST_2, "image", Status.QUEUED, null));
+    fromDatabase.add(new LoadAccounting.LoadingJob(5L, HOST_2, "image", Status.RUNNING, 3.0f));
+    accounting.reconcile(fromDatabase);
+
+    assertEquals(0.0f, accounting.getLoad(HOST_1), 0.0001f);
+    assertEquals(4.0f, accounting.getLoad(HOST_2), 0.0001f);
+    assertEquals(3, accounting.size());
+
+    // Updates after the reconciliation are no longer recorded
+    accounting.update(3L, HOST_2, "encode", Status.FINISHED, 1.0f);
+    accounting.reconcile(new ArrayList<LoadAccounting.LoadingJob>());
+    assertEquals(0, accounting.size());
+  }
+
+}
@@ -22,10 +22,12 @@
 package org.opencastproject.serviceregistry.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.Job.Status;
 import org.opencastproject.job.api.JobBarrier;
+import org.opencastproject.job.api.JobSpec;
 import org.opencastproject.security.api.DefaultOrganization;
 import org.opencastproject.security.api.JaxbOrganization;
 import org.opencastproject.security.api.JaxbRole;
@@ -66,11 +68,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.beans.PropertyVetoException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.ObjectInstance;
+import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 
 public class ServiceRegistryJpaImplTest {
@@ -220,6 +230,164 @@ public class ServiceRegistryJpaImplTest {
     serviceRegistryJpaImpl.removeJob(-1L);
   }
 
+  @Test
+  public void testCreateJobs() throws Exception {
+    serviceRegistryJpaImpl.activate(null);
+    registerTestHostAndService();
+    Job parent = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false, null);
+
+    List<JobSpec> jobSpecs = new ArrayList<JobSpec>();
+    jobSpecs.add(new JobSpec(TEST_SERVICE_2, "encode", Arrays.asList("a"), null, false, parent, 2.0f));
+    jobSpecs.add(new JobSpec(TEST_SERVICE_2, "encode", Arrays.asList("b"), null, false, parent, 1.0f));
+    jobSpecs.add(new JobSpec(TEST_SERVICE, TEST_OPERATION, null, "payload", false, parent, 0.5f));
+    List<Job> jobs = serviceRegistryJpaImpl.createJobs(TEST_HOST, jobSpecs);
+
+    assertEquals(3, jobs.size());
+    for (int i = 0; i < jobs.size(); i++) {
+      Job job = serviceRegistryJpaImpl.getJob(jobs.get(i).getId());
+      assertEquals(jobSpecs.get(i).getJobType(), job.getJobType());
+      assertEquals(jobSpecs.get(i).getOperation(), job.getOperation());
+      assertEquals(jobSpecs.get(i).getJobLoad(), job.getJobLoad());
+      assertEquals(parent.getId(), job.getParentJobId().longValue());
+      assertEquals(parent.getId(), job.getRootJobId().longValue());
+      assertEquals(Status.INSTANTIATED, job.getStatus());
+    }
+    assertEquals(Arrays.asList("b"), serviceRegistryJpaImpl.getJob(jobs.get(1).getId()).getArguments());
+    assertEquals("payload", serviceRegistryJpaImpl.getJob(jobs.get(2).getId()).getPayload());
+  }
+
+  @Test
+  public void testCreateDispatchableJobs() throws Exception {
+    serviceRegistryJpaImpl.activate(null);
+    // Enable dispatching but keep the jobs in the dispatch queue
+    Hashtable<String, String> properties = new Hashtable<>();
+    properties.put("dispatchinterval", "60000");
+    serviceRegistryJpaImpl.updated(properties);
+    serviceRegistryJpaImpl.scheduledExecutor.shutdownNow();
+    registerTestHostAndService();
+
+    List<JobSpec> jobSpecs = new ArrayList<JobSpec>();
+    jobSpecs.add(new JobSpec(TEST_SERVICE_2, "encode", Arrays.asList("a"), null, true, null, 2.0f));
+    jobSpecs.add(new JobSpec(TEST_SERVICE_2, "encode", Arrays.asList("b"), null, true, null, 1.0f));
+    jobSpecs.add(new JobSpec(TEST_SERVICE, TEST_OPERATION, null, null, false, null, 1.0f));
+    List<Job> jobs = serviceRegistryJpaImpl.createJobs(TEST_HOST, jobSpecs);
+
+    assertEquals(3, jobs.size());
+    assertEquals(Status.QUEUED, serviceRegistryJpaImpl.getJob(jobs.get(0).getId()).getStatus());
+    assertEquals(Status.QUEUED, serviceRegistryJpaImpl.getJob(jobs.get(1).getId()).getStatus());
+    assertEquals(Status.INSTANTIATED, serviceRegistryJpaImpl.getJob(jobs.get(2).getId()).getStatus());
+    assertEquals(2, serviceRegistryJpaImpl.dispatchQueue.size());
+    assertEquals(2, serviceRegistryJpaImpl.dispatchQueue.size(TEST_SERVICE_2));
+  }
+
+  @Test
+  public void testDispatchQueueIsNotMaintainedWithoutDispatching() throws Exception {
+    serviceRegistryJpaImpl.activate(null);
+    Hashtable<String, String> properties = new Hashtable<>();
+    properties.put("dispatchinterval", "60000");
+    serviceRegistryJpaImpl.updated(properties);
+    serviceRegistryJpaImpl.scheduledExecutor.shutdownNow();
+    registerTestHostAndService();
+    serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_2, TEST_OPERATION, null, null, true, null);
+    assertEquals(1, serviceRegistryJpaImpl.dispatchQueue.size());
+
+    // Turning dispatching off drops the queue
+    properties.put("dispatchinterval", "0");
+    serviceRegistryJpaImpl.updated(properties);
+    assertTrue(serviceRegistryJpaImpl.dispatchQueue.isEmpty());
+
+    // Jobs that are created, run and removed on a node that doesn't dispatch leave nothing behind
+    List<Job> jobs = new ArrayList<Job>();
+    for (int i = 0; i < 3; i++) {
+      jobs.add(serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_2, TEST_OPERATION, null, null, true, null));
+    }
+    for (Job job : jobs) {
+      job = serviceRegistryJpaImpl.getJob(job.getId());
+      job.setStatus(Status.RUNNING);
+      job = serviceRegistryJpaImpl.updateJob(job);
+      job.setStatus(Status.FINISHED);
+      serviceRegistryJpaImpl.updateJob(job);
+    }
+    serviceRegistryJpaImpl.removeJob(jobs.get(0).getId());
+    assertTrue(serviceRegistryJpaImpl.dispatchQueue.isEmpty());
+  }
+
+  @Test
+  public void testParentsWithRunningChildren() throws Exception {
+    serviceRegistryJpaImpl.activate(null);
+    registerTestHostAndService();
+    Job root = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false, null);
+    Job operation = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false, root);
+    Job child = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_2, TEST_OPERATION, null, null, false,
+            operation);
+    Job otherRoot = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, false, null);
+    Job otherChild = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_2, TEST_OPERATION, null, null, false,
+            otherRoot);
+    child.setStatus(Status.RUNNING);
+    serviceRegistryJpaImpl.updateJob(child);
+
+    EntityManager em = emf.createEntityManager();
+    try {
+      Set<Long> parents = serviceRegistryJpaImpl.getParentsWithRunningChildren(em);
+      assertEquals(new HashSet<Long>(Arrays.asList(root.getId(), operation.getId())), parents);
+
+      // Same answer as looking for running jobs among the child jobs of each job
+      for (Job job : Arrays.asList(root, operation, child, otherRoot, otherChild)) {
+        boolean hasRunningChildren = false;
+        for (Job childJob : serviceRegistryJpaImpl.getChildJobs(job.getId())) {
+          hasRunningChildren |= Status.RUNNING.equals(childJob.getStatus());
+        }
+        assertEquals(hasRunningChildren, parents.contains(job.getId()));
+      }
+    } finally {
+      em.close();
+    }
+  }
+
+  @Test
+  public void testHeartbeatAbortsOverdueRequests() throws Exception {
+    serviceRegistryJpaImpl.activate(null);
+    serviceRegistryJpaImpl.heartbeatRequestTimeout = 200;
+    serviceRegistryJpaImpl.registerService(TEST_SERVICE, TEST_HOST, TEST_PATH, true);
+    serviceRegistryJpaImpl.registerService(TEST_SERVICE_2, TEST_HOST, TEST_PATH_2, true);
+    serviceRegistryJpaImpl.registerHost(TEST_HOST_OTHER, "127.0.0.1", 1024, 1, 1);
+    serviceRegistryJpaImpl.registerService(TEST_SERVICE, TEST_HOST_OTHER, TEST_PATH, true);
+
+    // The other host accepts the connection but never answers
+    final CountDownLatch aborted = new CountDownLatch(1);
+    final Capture<HttpUriRequest> request = EasyMock.newCapture();
+    TrustedHttpClient trustedHttpClient = EasyMock.createNiceMock(TrustedHttpClient.class);
+    EasyMock.expect(trustedHttpClient.execute(EasyMock.capture(request), EasyMock.anyInt(), EasyMock.anyInt()))
+            .andAnswer(new IAnswer<HttpResponse>() {
+              @Override
+              public HttpResponse answer() throws Throwable {
+                if (request.getValue().getURI().toString().startsWith(TEST_HOST_OTHER)) {
+                  try {
+                    new CountDownLatch(1).await();
+                  } catch (InterruptedException e) {
+                    aborted.countDown();
+                    throw new TrustedHttpClientException(e);
+                  }
+                }
+                return new BasicHttpResponse(new BasicStatusLine(new HttpVersion(1, 1), HttpStatus.SC_OK, "OK"));
+              }
+            }).anyTimes();
+    EasyMock.replay(trustedHttpClient);
+    serviceRegistryJpaImpl.setTrustedHttpClient(trustedHttpClient);
+
+    // The first heartbeat puts the service on the watch list, the second one takes it offline
+    ServiceRegistryJpaImpl.JobProducerHeartbeat heartbeat = serviceRegistryJpaImpl.new JobProducerHeartbeat();
+    long start = System.currentTimeMillis();
+    heartbeat.run();
+    heartbeat.run();
+    Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+    Assert.assertTrue(aborted.await(1, TimeUnit.SECONDS));
+
+    Assert.assertFalse(serviceRegistryJpaImpl.getServiceRegistration(TEST_SERVICE, TEST_HOST_OTHER).isOnline());
+    Assert.assertTrue(serviceRegistryJpaImpl.getServiceRegistration(TEST_SERVICE, TEST_HOST).isOnline());
+    Assert.assertTrue(serviceRegistryJpaImpl.getServiceRegistration(TEST_SERVICE_2, TEST_HOST).isOnline());
+  }
+
   @Test
   public void testCancelUndispatchablesOrphanedByActivatingNode() throws Exception {
     serviceRegistryJpaImpl.activate(null);
@@ -310,24 +478,21 @@ public class ServiceRegistryJpaImplTest {
     serviceRegistryJpaImpl.scheduledExecutor.shutdown();
     serviceRegistryJpaImpl.scheduledExecutor = Executors.newScheduledThreadPool(1);
     serviceRegistryJpaImpl.activate(null);
+    // Disable dispatching in the background and run a round of dispatching once the jobs are in place
     Hashtable<String, String> properties = new Hashtable<>();
-    properties.put("dispatchinterval", "1000");
+    properties.put("dispatchinterval", "0");
     serviceRegistryJpaImpl.updated(properties);
     registerTestHostAndService();
     Job testJob = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE_2, TEST_OPERATION, null, null, true, null);
     Job testJob2 = serviceRegistryJpaImpl.createJob(TEST_HOST, TEST_SERVICE, TEST_OPERATION, null, null, true, null);
     serviceRegistryJpaImpl.dispatchPriorityList.put(testJob2.getId(), TEST_HOST);
-    JobBarrier barrier = new JobBarrier(null, serviceRegistryJpaImpl, testJob, testJob2);
-    try {
-      barrier.waitForJobs(2000);
-      Assert.fail();
-    } catch (Exception e) {
-      Assert.assertTrue(StringUtils.isBlank(serviceRegistryJpaImpl.getJob(testJob.getId()).getProcessingHost()));
-      Assert.assertTrue(StringUtils.isNotBlank(serviceRegistryJpaImpl.getJob(testJob2.getId()).getProcessingHost()));
-      Assert.assertEquals(1, serviceRegistryJpaImpl.dispatchPriorityList.size());
-      String blockingHost = serviceRegistryJpaImpl.dispatchPriorityList.get(testJob2.getId());
-      Assert.assertEquals(TEST_HOST, blockingHost);
-    }
+    serviceRegistryJpaImpl.jobDispatcher.run();
+
+    Assert.assertTrue(StringUtils.isBlank(serviceRegistryJpaImpl.getJob(testJob.getId()).getProcessingHost()));
+    Assert.assertTrue(StringUtils.isNotBlank(serviceRegistryJpaImpl.getJob(testJob2.getId()).getProcessingHost()));
+    Assert.assertEquals(1, serviceRegistryJpaImpl.dispatchPriorityList.size());
+    String blockingHost = serviceRegistryJpaImpl.dispatchPriorityList.get(testJob2.getId());
+    Assert.assertEquals(TEST_HOST, blockingHost);
   }
 
   @Test
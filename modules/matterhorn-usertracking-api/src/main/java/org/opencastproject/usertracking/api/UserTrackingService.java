@@ -60,6 +60,21 @@ public interface UserTrackingService {
    */
   UserAction addUserTrackingEvent(UserAction a, UserSession session) throws UserTrackingException;
 
+  /**
+   * Queues a user action to be added to the database asynchronously. Actions of type <code>FOOTPRINT</code> are
+   * treated like {@link #addUserFootprint(UserAction, UserSession)}, all other actions like
+   * {@link #addUserTrackingEvent(UserAction, UserSession)}. Since the action is stored later on, it has no identifier
+   * yet.
+   *
+   * @param a
+   *          The UserAction that will be added to the database
+   * @param session
+   *          The UserSession associated with this action
+   * @return <code>true</code> if the action has been queued, <code>false</code> if the queue is full and the action
+   *         should be sent again later on
+   */
+  boolean queueUserAction(UserAction a, UserSession session);
+
   /**
    * Returns annotations
    *
@@ -21,8 +21,9 @@
 
 package org.opencastproject.usertracking.endpoint;
 
-import static javax.servlet.http.HttpServletResponse.SC_CREATED;
+import static javax.servlet.http.HttpServletResponse.SC_ACCEPTED;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
 
 import org.opencastproject.rest.RestConstants;
 import org.opencastproject.security.api.SecurityService;
@@ -46,8 +47,6 @@ import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.text.ParseException;
 
 import javax.servlet.http.HttpServletRequest;
@@ -80,6 +79,9 @@ public class UserTrackingRestService {
 
   private static final Logger logger = LoggerFactory.getLogger(UserTrackingRestService.class);
 
+  /** Number of seconds after which rejected user actions should be sent again */
+  private static final String RETRY_AFTER = "5";
+
   private UserTrackingService usertrackingService;
 
   protected SecurityService securityService;
@@ -257,7 +259,9 @@ public class UserTrackingRestService {
           @RestParameter(name = "type", description = "The episode identifier", isRequired = true, type = Type.STRING),
           @RestParameter(name = "in", description = "The beginning of the time range", isRequired = true, type = Type.STRING),
           @RestParameter(name = "out", description = "The end of the time range", isRequired = false, type = Type.STRING),
-          @RestParameter(name = "playing", description = "Whether the player is currently playing", isRequired = false, type = Type.STRING)}, reponses = { @RestResponse(responseCode = SC_CREATED, description = "An XML representation of the user action") })
+          @RestParameter(name = "playing", description = "Whether the player is currently playing", isRequired = false, type = Type.STRING)}, reponses = {
+          @RestResponse(responseCode = SC_ACCEPTED, description = "An XML representation of the user action, which is stored asynchronously"),
+          @RestResponse(responseCode = SC_SERVICE_UNAVAILABLE, description = "Too many user actions are waiting to be stored, the action should be sent again later on") })
   public Response addFootprint(@FormParam("id") String mediapackageId, @FormParam("in") String inString,
           @FormParam("out") String outString, @FormParam("type") String type, @FormParam("playing") String isPlaying,
           @Context HttpServletRequest request) {
@@ -316,23 +320,11 @@ public class UserTrackingRestService {
     a.setType(type);
     a.setIsPlaying(Boolean.valueOf(isPlaying));
 
-    try {
-      if ("FOOTPRINT".equals(type)) {
-        a = (UserActionImpl) usertrackingService.addUserFootprint(a, s);
-      } else {
-        a = (UserActionImpl) usertrackingService.addUserTrackingEvent(a, s);
-      }
-    } catch (UserTrackingException e) {
-      throw new WebApplicationException(e);
-    }
-
-    URI uri;
-    try {
-      uri = new URI(UrlSupport.concat(new String[] { serverUrl, serviceUrl, "action", a.getId().toString(), ".xml" }));
-    } catch (URISyntaxException e) {
-      throw new WebApplicationException(e);
+    if (!usertrackingService.queueUserAction(a, s)) {
+      logger.debug("User action queue is full, rejecting action of session {}", sessionId);
+      return Response.status(Status.SERVICE_UNAVAILABLE).header("Retry-After", RETRY_AFTER).build();
     }
-    return Response.created(uri).entity(a).build();
+    return Response.status(Status.ACCEPTED).entity(a).build();
   }
 
   @GET
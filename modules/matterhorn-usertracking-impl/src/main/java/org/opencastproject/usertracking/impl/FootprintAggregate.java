@@ -0,0 +1,72 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+/**
+ * The precomputed viewing histogram of a media package. Footprints that have been recorded since the histogram was last
+ * compacted are kept as {@link FootprintDelta}s.
+ */
+@Entity(name = "FootprintAggregate")
+@Access(AccessType.FIELD)
+@Table(name = "mh_user_footprint_aggregate")
+public class FootprintAggregate {
+
+  @Id
+  @Column(name = "mediapackage", length = 128)
+  private String mediapackageId;
+
+  @Lob
+  @Column(name = "histogram", length = 16777215)
+  private byte[] histogram;
+
+  /**
+   * A no-arg constructor needed by JPA
+   */
+  public FootprintAggregate() {
+  }
+
+  public FootprintAggregate(String mediapackageId) {
+    this.mediapackageId = mediapackageId;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  FootprintHistogram getHistogram() {
+    return FootprintHistogram.decode(histogram);
+  }
+
+  void setHistogram(FootprintHistogram histogram) {
+    this.histogram = histogram.encode();
+  }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * A range that has been viewed since the {@link FootprintAggregate} of its media package was last compacted.
+ */
+@Entity(name = "FootprintDelta")
+@Access(AccessType.FIELD)
+@Table(name = "mh_user_footprint_delta")
+@NamedQueries({
+        @NamedQuery(name = "findFootprintDeltasByMediapackageId", query = "SELECT d FROM FootprintDelta d WHERE d.mediapackageId = :mediapackageId"),
+        @NamedQuery(name = "findMediapackagesWithFootprintDeltas", query = "SELECT DISTINCT d.mediapackageId FROM FootprintDelta d"),
+        @NamedQuery(name = "deleteFootprintDeltas", query = "DELETE FROM FootprintDelta d WHERE d.id IN :ids") })
+public class FootprintDelta {
+
+  @Id
+  @Column(name = "id")
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private Long id;
+
+  @Column(name = "mediapackage", length = 128, nullable = false)
+  private String mediapackageId;
+
+  @Column(name = "inpoint")
+  private int inpoint;
+
+  @Column(name = "outpoint")
+  private int outpoint;
+
+  /**
+   * A no-arg constructor needed by JPA
+   */
+  public FootprintDelta() {
+  }
+
+  public FootprintDelta(String mediapackageId, int inpoint, int outpoint) {
+    this.mediapackageId = mediapackageId;
+    this.inpoint = inpoint;
+    this.outpoint = outpoint;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getMediapackageId() {
+    return mediapackageId;
+  }
+
+  public int getInpoint() {
+    return inpoint;
+  }
+
+  public int getOutpoint() {
+    return outpoint;
+  }
+
+}
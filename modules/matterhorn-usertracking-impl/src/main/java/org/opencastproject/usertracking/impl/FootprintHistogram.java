@@ -0,0 +1,165 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import org.opencastproject.usertracking.api.Footprint;
+import org.opencastproject.usertracking.api.FootprintList;
+import org.opencastproject.usertracking.endpoint.FootprintImpl;
+import org.opencastproject.usertracking.endpoint.FootprintsListImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Viewing histogram of a media package, stored as the positions at which the number of views changes.
+ * <p>
+ * Adding a footprint only touches its inpoint and outpoint, which allows the histogram to be maintained incrementally
+ * regardless of the length of the footprints. The encoded form is a sequence of variable length integers, alternating
+ * the distance to the previous position and the (zigzag encoded) change in views at that position.
+ */
+final class FootprintHistogram {
+
+  /** The change in views, by position. Positions without a change are not kept. */
+  private final TreeMap<Integer, Integer> deltas = new TreeMap<Integer, Integer>();
+
+  /**
+   * Decodes a histogram that has been encoded using {@link #encode()}.
+   *
+   * @param data
+   *          the encoded histogram, may be <code>null</code>
+   * @return the histogram
+   * @throws IllegalArgumentException
+   *           if the data is truncated
+   */
+  static FootprintHistogram decode(byte[] data) {
+    FootprintHistogram histogram = new FootprintHistogram();
+    if (data == null)
+      return histogram;
+    int[] offset = new int[1];
+    int position = 0;
+    while (offset[0] < data.length) {
+      position += readVarInt(data, offset);
+      int delta = readVarInt(data, offset);
+      histogram.change(position, (delta >>> 1) ^ -(delta & 1));
+    }
+    return histogram;
+  }
+
+  /**
+   * Encodes the histogram.
+   *
+   * @return the encoded histogram
+   */
+  byte[] encode() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(deltas.size() * 3);
+    int previous = 0;
+    for (Map.Entry<Integer, Integer> entry : deltas.entrySet()) {
+      int delta = entry.getValue();
+      writeVarInt(out, entry.getKey() - previous);
+      writeVarInt(out, (delta << 1) ^ (delta >> 31));
+      previous = entry.getKey();
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Adds a view to all positions in <code>[inpoint, outpoint)</code>. Empty and negative ranges are ignored.
+   *
+   * @param inpoint
+   *          the first position that has been viewed
+   * @param outpoint
+   *          the position at which viewing stopped
+   */
+  void add(int inpoint, int outpoint) {
+    if (inpoint < 0 || outpoint <= inpoint)
+      return;
+    change(inpoint, 1);
+    change(outpoint, -1);
+  }
+
+  /**
+   * Returns <code>true</code> if no position has been viewed.
+   *
+   * @return whether the histogram is empty
+   */
+  boolean isEmpty() {
+    return deltas.isEmpty();
+  }
+
+  /**
+   * Returns the histogram as a list of footprints, one for the first position and one for every position at which the
+   * number of views changes. The last footprint is the end of the last viewed range, with 0 views.
+   *
+   * @return the footprints
+   */
+  FootprintList toFootprintList() {
+    FootprintList list = new FootprintsListImpl();
+    Integer first = deltas.get(0);
+    int views = first == null ? 0 : first;
+    list.add(footprint(0, views));
+    for (Map.Entry<Integer, Integer> entry : deltas.tailMap(0, false).entrySet()) {
+      views += entry.getValue();
+      list.add(footprint(entry.getKey(), views));
+    }
+    return list;
+  }
+
+  private void change(int position, int delta) {
+    Integer current = deltas.get(position);
+    int value = current == null ? delta : current + delta;
+    if (value == 0)
+      deltas.remove(position);
+    else
+      deltas.put(position, value);
+  }
+
+  private static Footprint footprint(int position, int views) {
+    Footprint footprint = new FootprintImpl();
+    footprint.setPosition(position);
+    footprint.setViews(views);
+    return footprint;
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7f) != 0) {
+      out.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static int readVarInt(byte[] data, int[] offset) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      if (offset[0] >= data.length)
+        throw new IllegalArgumentException("Truncated footprint histogram");
+      byte b = data[offset[0]++];
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0)
+        return value;
+    }
+    throw new IllegalArgumentException("Malformed footprint histogram");
+  }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of user actions that are written to the database in batches by a background thread.
+ * <p>
+ * Actions are offered without blocking, so that a full queue can be reported back to the player instead of tying up
+ * request threads. Whatever has been queued while the previous batch was being written makes up the next batch, which
+ * keeps the latency low when the load is low and the batches large when it is high.
+ */
+final class UserActionQueue implements Runnable {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(UserActionQueue.class);
+
+  /** Number of milliseconds to wait for the writer thread to finish the current batch on shutdown */
+  private static final long SHUTDOWN_TIMEOUT = 30000L;
+
+  /** The service storing the actions */
+  private final UserTrackingServiceImpl service;
+
+  /** The queued actions */
+  private final BlockingQueue<UserActionImpl> queue;
+
+  /** The maximum number of actions written in a single transaction */
+  private final int batchSize;
+
+  /** The writer thread */
+  private final Thread writer;
+
+  /** Whether the writer thread should keep running */
+  private volatile boolean running = true;
+
+  /**
+   * Creates a queue for the given service.
+   *
+   * @param service
+   *          the service storing the actions
+   * @param capacity
+   *          the maximum number of queued actions
+   * @param batchSize
+   *          the maximum number of actions written in a single transaction
+   */
+  UserActionQueue(UserTrackingServiceImpl service, int capacity, int batchSize) {
+    this.service = service;
+    this.queue = new ArrayBlockingQueue<UserActionImpl>(capacity);
+    this.batchSize = batchSize;
+    this.writer = new Thread(this, "usertracking-writer");
+    this.writer.setDaemon(true);
+  }
+
+  /**
+   * Starts the writer thread.
+   */
+  void start() {
+    writer.start();
+  }
+
+  /**
+   * Stops the writer thread and writes the actions that are still queued.
+   */
+  void stop() {
+    running = false;
+    try {
+      writer.join(SHUTDOWN_TIMEOUT);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    List<UserActionImpl> batch = new ArrayList<UserActionImpl>(batchSize);
+    while (queue.drainTo(batch, batchSize) > 0) {
+      write(batch);
+      batch.clear();
+    }
+  }
+
+  /**
+   * Queues an action, unless the queue is full.
+   *
+   * @param action
+   *          the action
+   * @return <code>true</code> if the action has been queued
+   */
+  boolean offer(UserActionImpl action) {
+    return queue.offer(action);
+  }
+
+  /**
+   * Returns the number of queued actions.
+   *
+   * @return the queue size
+   */
+  int size() {
+    return queue.size();
+  }
+
+  @Override
+  public void run() {
+    List<UserActionImpl> batch = new ArrayList<UserActionImpl>(batchSize);
+    while (running) {
+      try {
+        UserActionImpl first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null)
+          continue;
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        write(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Throwable t) {
+        logger.error("Unable to write user actions", t);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Writes a batch of actions in a single transaction. If that fails, the actions are written one by one, so that a
+   * single faulty action doesn't cause the whole batch to be lost.
+   */
+  private void write(List<UserActionImpl> batch) {
+    List<UserActionImpl> actions = merge(batch);
+    try {
+      service.storeUserActions(actions);
+      return;
+    } catch (Exception e) {
+      logger.warn("Unable to write {} user actions in a batch, writing them one by one: {}", actions.size(),
+              e.getMessage());
+    }
+    for (UserActionImpl action : actions) {
+      try {
+        action.setId(null);
+        if (UserTrackingServiceImpl.FOOTPRINT_KEY.equals(action.getType()))
+          service.addUserFootprint(action, action.getSession());
+        else
+          service.addUserTrackingEvent(action, action.getSession());
+      } catch (Exception e) {
+        logger.warn("Unable to write user action of media package {}: {}", action.getMediapackageId(),
+                e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Merges every footprint into the previous footprint of the same session, if it continues where the previous one
+   * ended. This is what {@link UserTrackingServiceImpl#addUserFootprint} does as well, but without a round trip to the
+   * database for each footprint.
+   *
+   * @param actions
+   *          the actions in the order they have been queued
+   * @return the merged actions, in the same order
+   */
+  static List<UserActionImpl> merge(List<UserActionImpl> actions) {
+    List<UserActionImpl> merged = new ArrayList<UserActionImpl>(actions.size());
+    Map<String, UserActionImpl> lastFootprints = new HashMap<String, UserActionImpl>();
+    for (UserActionImpl action : actions) {
+      if (!UserTrackingServiceImpl.FOOTPRINT_KEY.equals(action.getType())) {
+        merged.add(action);
+        continue;
+      }
+      String sessionId = action.getSession().getSessionId();
+      UserActionImpl last = lastFootprints.get(sessionId);
+      if (last != null && last.getMediapackageId().equals(action.getMediapackageId())
+              && last.getOutpoint() == action.getInpoint()) {
+        last.setOutpoint(action.getOutpoint());
+      } else {
+        merged.add(action);
+        lastFootprints.put(sessionId, action);
+      }
+    }
+    return merged;
+  }
+
+}
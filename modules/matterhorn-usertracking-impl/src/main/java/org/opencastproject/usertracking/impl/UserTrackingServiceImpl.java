@@ -21,7 +21,6 @@
 
 package org.opencastproject.usertracking.impl;
 
-import org.opencastproject.usertracking.api.Footprint;
 import org.opencastproject.usertracking.api.FootprintList;
 import org.opencastproject.usertracking.api.Report;
 import org.opencastproject.usertracking.api.ReportItem;
@@ -30,8 +29,6 @@ import org.opencastproject.usertracking.api.UserActionList;
 import org.opencastproject.usertracking.api.UserSession;
 import org.opencastproject.usertracking.api.UserTrackingException;
 import org.opencastproject.usertracking.api.UserTrackingService;
-import org.opencastproject.usertracking.endpoint.FootprintImpl;
-import org.opencastproject.usertracking.endpoint.FootprintsListImpl;
 import org.opencastproject.usertracking.endpoint.ReportImpl;
 import org.opencastproject.usertracking.endpoint.ReportItemImpl;
 import org.opencastproject.util.NotFoundException;
@@ -44,15 +41,25 @@ import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
+import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
@@ -74,12 +81,60 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public static final String USER_LOGGING = "org.opencastproject.usertracking.log.user";
   public static final String SESSION_LOGGING = "org.opencastproject.usertracking.log.session";
 
+  /** Configuration key for the number of seconds between two compactions of the footprint aggregates */
+  public static final String FOOTPRINT_COMPACTION_INTERVAL = "org.opencastproject.usertracking.footprint.compaction.interval";
+
+  /** Default number of seconds between two compactions of the footprint aggregates */
+  public static final int DEFAULT_FOOTPRINT_COMPACTION_INTERVAL = 60;
+
+  /** Maximum number of footprint deltas that are removed with a single statement */
+  private static final int DELETE_BATCH_SIZE = 500;
+
+  /** Configuration key for the maximum number of user actions waiting to be written to the database */
+  public static final String QUEUE_CAPACITY = "org.opencastproject.usertracking.queue.capacity";
+
+  /** Default maximum number of user actions waiting to be written to the database */
+  public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+  /** Configuration key for the maximum number of user actions written in a single transaction */
+  public static final String QUEUE_BATCH_SIZE = "org.opencastproject.usertracking.queue.batch.size";
+
+  /** Default maximum number of user actions written in a single transaction */
+  public static final int DEFAULT_QUEUE_BATCH_SIZE = 200;
+
+  /** Maximum number of sessions whose state is kept in memory */
+  private static final int SESSION_CACHE_SIZE = 10000;
+
   private static final Logger logger = LoggerFactory.getLogger(UserTrackingServiceImpl.class);
 
   private boolean detailedTracking = false;
   private boolean logIp = true;
   private boolean logUser = true;
   private boolean logSession = true;
+  private int compactionInterval = DEFAULT_FOOTPRINT_COMPACTION_INTERVAL;
+
+  /** Runs the background compaction of the footprint aggregates */
+  private ScheduledExecutorService compactionScheduler = null;
+
+  /** The scheduled compaction, <code>null</code> if compaction is disabled */
+  private ScheduledFuture<?> compaction = null;
+
+  private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+  private int queueBatchSize = DEFAULT_QUEUE_BATCH_SIZE;
+
+  /** The queue of user actions waiting to be written, <code>null</code> if the service is not active */
+  private volatile UserActionQueue ingestQueue = null;
+
+  /** The sessions that have recently been written by the ingest queue, by session identifier */
+  private final Map<String, CachedSession> sessionCache = Collections
+          .synchronizedMap(new LinkedHashMap<String, CachedSession>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSession> eldest) {
+              return size() > SESSION_CACHE_SIZE;
+            }
+          });
 
   /** The factory used to generate the entity manager */
   protected EntityManagerFactory emf = null;
@@ -96,6 +151,31 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
    */
   public void activate() {
     logger.debug("activate()");
+    synchronized (this) {
+      compactionScheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+    scheduleCompaction();
+    startIngestQueue();
+  }
+
+  /**
+   * Callback from OSGi on service deactivation.
+   */
+  public void deactivate() {
+    UserActionQueue queue;
+    synchronized (this) {
+      queue = ingestQueue;
+      ingestQueue = null;
+    }
+    if (queue != null)
+      queue.stop();
+    synchronized (this) {
+      if (compactionScheduler != null) {
+        compactionScheduler.shutdownNow();
+        compactionScheduler = null;
+        compaction = null;
+      }
+    }
   }
 
   @Override
@@ -121,7 +201,86 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (val != null && String.class.isInstance(val)) {
       logSession = Boolean.valueOf((String) val);
     }
+    val = props.get(FOOTPRINT_COMPACTION_INTERVAL);
+    if (val != null && String.class.isInstance(val)) {
+      try {
+        int interval = Integer.parseInt(StringUtils.trim((String) val));
+        if (interval != compactionInterval) {
+          compactionInterval = interval;
+          scheduleCompaction();
+        }
+      } catch (NumberFormatException e) {
+        throw new ConfigurationException(FOOTPRINT_COMPACTION_INTERVAL, "Not an integer: " + val);
+      }
+    }
+    int capacity = getPositiveInt(props, QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+    int batchSize = getPositiveInt(props, QUEUE_BATCH_SIZE, DEFAULT_QUEUE_BATCH_SIZE);
+    if (capacity != queueCapacity || batchSize != queueBatchSize) {
+      queueCapacity = capacity;
+      queueBatchSize = batchSize;
+      restartIngestQueue();
+    }
+
+  }
+
+  private static int getPositiveInt(Dictionary props, String key, int defaultValue) throws ConfigurationException {
+    Object val = props.get(key);
+    if (val == null || !String.class.isInstance(val))
+      return defaultValue;
+    try {
+      int value = Integer.parseInt(StringUtils.trim((String) val));
+      if (value <= 0)
+        throw new ConfigurationException(key, "Must be positive: " + val);
+      return value;
+    } catch (NumberFormatException e) {
+      throw new ConfigurationException(key, "Not an integer: " + val);
+    }
+  }
+
+  /**
+   * Starts the queue of user actions waiting to be written.
+   */
+  private synchronized void startIngestQueue() {
+    ingestQueue = new UserActionQueue(this, queueCapacity, queueBatchSize);
+    ingestQueue.start();
+  }
 
+  /**
+   * Replaces the running queue of user actions with one using the current configuration. The actions still waiting in
+   * the previous queue are written before this method returns.
+   */
+  private void restartIngestQueue() {
+    UserActionQueue previous;
+    synchronized (this) {
+      previous = ingestQueue;
+      if (previous == null)
+        return;
+      startIngestQueue();
+    }
+    previous.stop();
+  }
+
+  /**
+   * (Re)schedules the compaction of the footprint aggregates using the configured interval. Compaction is disabled if
+   * the interval is not positive.
+   */
+  private synchronized void scheduleCompaction() {
+    if (compactionScheduler == null)
+      return;
+    if (compaction != null) {
+      compaction.cancel(false);
+      compaction = null;
+    }
+    if (compactionInterval <= 0) {
+      logger.info("Compaction of the footprint aggregates is disabled");
+      return;
+    }
+    compaction = compactionScheduler.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        compactFootprints();
+      }
+    }, compactionInterval, compactionInterval, TimeUnit.SECONDS);
   }
 
   public int getViews(String mediapackageId) {
@@ -146,6 +305,8 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     if (!logIp) session.setUserIp("-omitted-");
     if (!logUser) session.setUserId("-omitted-");
     if (!logSession) session.setSessionId("-omitted-");
+    // The last footprint of the session is about to change
+    sessionCache.remove(session.getSessionId());
     try {
       em = emf.createEntityManager();
       tx = em.getTransaction();
@@ -162,16 +323,19 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
         if (last.getMediapackageId().equals(a.getMediapackageId()) && last.getType().equals(a.getType())
                 && last.getOutpoint() == a.getInpoint()) {
           //We are assuming in this case that the sessions match and are unchanged (IP wise, for example)
+          addFootprintDelta(em, a.getMediapackageId(), last.getOutpoint(), a.getOutpoint());
           last.setOutpoint(a.getOutpoint());
           a = last;
           a.setId(last.getId());
         } else {
           a.setSession(userSession);
           em.persist(a);
+          addFootprintDelta(em, a.getMediapackageId(), a.getInpoint(), a.getOutpoint());
         }
       } else {
         a.setSession(userSession);
         em.persist(a);
+        addFootprintDelta(em, a.getMediapackageId(), a.getInpoint(), a.getOutpoint());
       }
       tx.commit();
       return a;
@@ -187,6 +351,16 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
+  /**
+   * Records a viewed range to be added to the footprint aggregate of the media package on its next compaction. Deltas
+   * are only ever inserted, so that concurrent viewers of the same media package don't contend for the aggregate.
+   */
+  private void addFootprintDelta(EntityManager em, String mediapackageId, int inpoint, int outpoint) {
+    if (mediapackageId == null || outpoint <= inpoint)
+      return;
+    em.persist(new FootprintDelta(mediapackageId, inpoint, outpoint));
+  }
+
   public UserAction addUserTrackingEvent(UserAction a, UserSession session) throws UserTrackingException {
     EntityManager em = null;
     EntityTransaction tx = null;
@@ -214,6 +388,127 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
+  @Override
+  public boolean queueUserAction(UserAction a, UserSession session) {
+    if (!(a instanceof UserActionImpl))
+      throw new IllegalArgumentException("Unsupported user action implementation " + a.getClass().getName());
+    if (!logIp) session.setUserIp("-omitted-");
+    if (!logUser) session.setUserId("-omitted-");
+    if (!logSession) session.setSessionId("-omitted-");
+    a.setSession(session);
+
+    UserActionQueue queue = ingestQueue;
+    if (queue != null)
+      return queue.offer((UserActionImpl) a);
+
+    // Not active, there is nobody to write queued actions
+    try {
+      if (FOOTPRINT_KEY.equals(a.getType()))
+        addUserFootprint(a, session);
+      else
+        addUserTrackingEvent(a, session);
+      return true;
+    } catch (UserTrackingException e) {
+      logger.warn("Unable to add user action: {}", e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Writes a batch of user actions in a single transaction. Sessions and the last footprint of every session are
+   * looked up in the session cache first, so that the database is only queried for sessions that haven't been seen
+   * recently.
+   *
+   * @param actions
+   *          the actions, with their sessions
+   * @throws UserTrackingException
+   *           if the actions could not be written
+   */
+  void storeUserActions(List<UserActionImpl> actions) throws UserTrackingException {
+    Map<String, UserSession> sessions = new HashMap<String, UserSession>();
+    Map<String, UserActionImpl> lastFootprints = new HashMap<String, UserActionImpl>();
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      for (UserActionImpl a : actions) {
+        String sessionId = a.getSession().getSessionId();
+        CachedSession cached = sessionCache.get(sessionId);
+        UserSession userSession = sessions.get(sessionId);
+        if (userSession == null) {
+          if (cached != null)
+            userSession = em.getReference(UserSessionImpl.class, sessionId);
+          else
+            userSession = populateSession(em, a.getSession());
+          sessions.put(sessionId, userSession);
+        }
+
+        if (!FOOTPRINT_KEY.equals(a.getType())) {
+          a.setSession(userSession);
+          em.persist(a);
+          continue;
+        }
+
+        UserActionImpl last = lastFootprints.get(sessionId);
+        if (last == null)
+          last = findLastFootprint(em, userSession, cached, a);
+        if (last != null && last.getMediapackageId().equals(a.getMediapackageId())
+                && last.getOutpoint() == a.getInpoint()) {
+          addFootprintDelta(em, a.getMediapackageId(), last.getOutpoint(), a.getOutpoint());
+          last.setOutpoint(a.getOutpoint());
+        } else {
+          a.setSession(userSession);
+          em.persist(a);
+          addFootprintDelta(em, a.getMediapackageId(), a.getInpoint(), a.getOutpoint());
+          last = a;
+        }
+        lastFootprints.put(sessionId, last);
+      }
+      tx.commit();
+    } catch (Exception e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      for (String sessionId : sessions.keySet()) {
+        sessionCache.remove(sessionId);
+      }
+      throw new UserTrackingException(e);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+
+    for (String sessionId : sessions.keySet()) {
+      UserActionImpl last = lastFootprints.get(sessionId);
+      if (last != null)
+        sessionCache.put(sessionId, new CachedSession(last.getId(), last.getMediapackageId(), last.getOutpoint()));
+      else if (!sessionCache.containsKey(sessionId))
+        sessionCache.put(sessionId, new CachedSession(null, null, 0));
+    }
+  }
+
+  /**
+   * Returns the last footprint of a session if it may be continued by the given footprint. The footprint is only loaded
+   * if the session cache doesn't tell otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  private UserActionImpl findLastFootprint(EntityManager em, UserSession session, CachedSession cached,
+          UserActionImpl footprint) {
+    if (cached != null && cached.footprintId != null) {
+      if (!cached.mediapackageId.equals(footprint.getMediapackageId()) || cached.outpoint != footprint.getInpoint())
+        return null;
+      return em.find(UserActionImpl.class, cached.footprintId);
+    }
+    Query q = em.createNamedQuery("findLastUserFootprintOfSession");
+    q.setMaxResults(1);
+    q.setParameter("session", session);
+    List<UserActionImpl> userActions = q.getResultList();
+    return userActions.isEmpty() ? null : userActions.get(0);
+  }
+
   private UserSession populateSession(EntityManager em, UserSession session) {
     //Try and find the session.  If not found, persist it
     Query q = em.createNamedQuery("findUserSessionBySessionId");
@@ -616,49 +911,161 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   }
 
   public FootprintList getFootprints(String mediapackageId, String userId) {
-    EntityManager em = null;
     if (! logUser) userId = null;
+    if (StringUtils.trimToNull(userId) != null)
+      return getUserFootprints(mediapackageId, userId).toFootprintList();
+
+    EntityManager em = null;
     try {
       em = emf.createEntityManager();
-      Query q = null;
-      if (StringUtils.trimToNull(userId) == null) {
-        q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdOrderByOutpointDESC");
-      } else {
-        q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdByUserOrderByOutpointDESC");
-        q.setParameter("userid", userId);
+      FootprintAggregate aggregate = em.find(FootprintAggregate.class, mediapackageId);
+      if (aggregate != null) {
+        FootprintHistogram histogram = aggregate.getHistogram();
+        for (FootprintDelta delta : getFootprintDeltas(em, mediapackageId)) {
+          histogram.add(delta.getInpoint(), delta.getOutpoint());
+        }
+        return histogram.toFootprintList();
       }
-      q.setParameter("type", FOOTPRINT_KEY);
-      q.setParameter("mediapackageId", mediapackageId);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+
+    // The aggregate is created from the footprints that have been recorded so far
+    try {
+      return compactFootprints(mediapackageId).toFootprintList();
+    } catch (Exception e) {
+      logger.warn("Unable to create the footprint aggregate of media package {}: {}", mediapackageId, e.getMessage());
+      return getUserFootprints(mediapackageId, null).toFootprintList();
+    }
+  }
+
+  /**
+   * Builds the viewing histogram of a media package from the footprints, optionally restricted to a single user.
+   */
+  private FootprintHistogram getUserFootprints(String mediapackageId, String userId) {
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      return buildFootprintHistogram(em, mediapackageId, userId);
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
+  }
+
+  private FootprintHistogram buildFootprintHistogram(EntityManager em, String mediapackageId, String userId) {
+    Query q = null;
+    if (StringUtils.trimToNull(userId) == null) {
+      q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdOrderByOutpointDESC");
+    } else {
+      q = em.createNamedQuery("findUserActionsByTypeAndMediapackageIdByUserOrderByOutpointDESC");
+      q.setParameter("userid", userId);
+    }
+    q.setParameter("type", FOOTPRINT_KEY);
+    q.setParameter("mediapackageId", mediapackageId);
+    @SuppressWarnings("unchecked")
+    Collection<UserAction> userActions = q.getResultList();
+
+    FootprintHistogram histogram = new FootprintHistogram();
+    for (UserAction a : userActions) {
+      histogram.add(a.getInpoint(), a.getOutpoint());
+    }
+    return histogram;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<FootprintDelta> getFootprintDeltas(EntityManager em, String mediapackageId) {
+    Query q = em.createNamedQuery("findFootprintDeltasByMediapackageId");
+    q.setParameter("mediapackageId", mediapackageId);
+    return q.getResultList();
+  }
+
+  /**
+   * Folds the footprint deltas of all media packages into their aggregates.
+   */
+  void compactFootprints() {
+    List<String> mediapackageIds;
+    EntityManager em = null;
+    try {
+      em = emf.createEntityManager();
+      Query q = em.createNamedQuery("findMediapackagesWithFootprintDeltas");
       @SuppressWarnings("unchecked")
-      Collection<UserAction> userActions = q.getResultList();
+      List<String> result = q.getResultList();
+      mediapackageIds = result;
+    } catch (Exception e) {
+      logger.warn("Unable to find the footprint aggregates to compact: {}", e.getMessage());
+      return;
+    } finally {
+      if (em != null && em.isOpen()) {
+        em.close();
+      }
+    }
 
-      int[] resultArray = new int[1];
-      boolean first = true;
+    for (String mediapackageId : mediapackageIds) {
+      try {
+        compactFootprints(mediapackageId);
+      } catch (Exception e) {
+        logger.warn("Unable to compact the footprint aggregate of media package {}: {}", mediapackageId,
+                e.getMessage());
+      }
+    }
+  }
 
-      for (UserAction a : userActions) {
-        if (first) {
-          // Get one more item than the known outpoint to append a footprint of 0 views at the end of the result set
-          resultArray = new int[a.getOutpoint() + 1];
-          first = false;
-        }
-        for (int i = a.getInpoint(); i < a.getOutpoint(); i++) {
-          resultArray[i]++;
+  /**
+   * Folds the footprint deltas of a media package into its aggregate. If there is no aggregate yet, it is created from
+   * the footprints instead, which already include the deltas.
+   *
+   * @param mediapackageId
+   *          the media package identifier
+   * @return the compacted histogram
+   * @throws UserTrackingException
+   *           if the aggregate could not be updated
+   */
+  FootprintHistogram compactFootprints(String mediapackageId) throws UserTrackingException {
+    EntityManager em = null;
+    EntityTransaction tx = null;
+    try {
+      em = emf.createEntityManager();
+      tx = em.getTransaction();
+      tx.begin();
+      FootprintAggregate aggregate = em.find(FootprintAggregate.class, mediapackageId, LockModeType.PESSIMISTIC_WRITE);
+      // Deltas have to be read first, since every delta is committed along with the footprint it has been created from
+      List<FootprintDelta> deltas = getFootprintDeltas(em, mediapackageId);
+      FootprintHistogram histogram;
+      if (aggregate == null) {
+        histogram = buildFootprintHistogram(em, mediapackageId, null);
+        aggregate = new FootprintAggregate(mediapackageId);
+        aggregate.setHistogram(histogram);
+        em.persist(aggregate);
+      } else {
+        histogram = aggregate.getHistogram();
+        for (FootprintDelta delta : deltas) {
+          histogram.add(delta.getInpoint(), delta.getOutpoint());
         }
+        aggregate.setHistogram(histogram);
       }
-      FootprintList list = new FootprintsListImpl();
-      int current = -1;
-      int last = -1;
-      for (int i = 0; i < resultArray.length; i++) {
-        current = resultArray[i];
-        if (last != current) {
-          Footprint footprint = new FootprintImpl();
-          footprint.setPosition(i);
-          footprint.setViews(current);
-          list.add(footprint);
+
+      List<Long> ids = new ArrayList<Long>(DELETE_BATCH_SIZE);
+      for (FootprintDelta delta : deltas) {
+        ids.add(delta.getId());
+        if (ids.size() == DELETE_BATCH_SIZE) {
+          deleteFootprintDeltas(em, ids);
+          ids.clear();
         }
-        last = current;
       }
-      return list;
+      if (!ids.isEmpty())
+        deleteFootprintDeltas(em, ids);
+      tx.commit();
+      logger.debug("Compacted {} footprint deltas of media package {}", deltas.size(), mediapackageId);
+      return histogram;
+    } catch (Exception e) {
+      if (tx != null && tx.isActive()) {
+        tx.rollback();
+      }
+      throw new UserTrackingException(e);
     } finally {
       if (em != null && em.isOpen()) {
         em.close();
@@ -666,6 +1073,12 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
     }
   }
 
+  private void deleteFootprintDeltas(EntityManager em, List<Long> ids) {
+    Query q = em.createNamedQuery("deleteFootprintDeltas");
+    q.setParameter("ids", ids);
+    q.executeUpdate();
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -701,4 +1114,20 @@ public class UserTrackingServiceImpl implements UserTrackingService, ManagedServ
   public boolean getUserTrackingEnabled() {
     return detailedTracking;
   }
+
+  /** The state of a session that has been written by the ingest queue */
+  private static final class CachedSession {
+
+    /** The identifier of the last footprint, <code>null</code> if the last footprint needs to be looked up */
+    private final Long footprintId;
+    private final String mediapackageId;
+    private final int outpoint;
+
+    CachedSession(Long footprintId, String mediapackageId, int outpoint) {
+      this.footprintId = footprintId;
+      this.mediapackageId = mediapackageId;
+      this.outpoint = outpoint;
+    }
+
+  }
 }
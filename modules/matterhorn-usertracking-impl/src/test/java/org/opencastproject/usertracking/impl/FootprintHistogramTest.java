@@ -0,0 +1,92 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.opencastproject.usertracking.api.Footprint;
+import org.opencastproject.usertracking.api.FootprintList;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class FootprintHistogramTest {
+
+  @Test
+  public void testFootprints() {
+    FootprintHistogram histogram = new FootprintHistogram();
+    assertFootprints(histogram, 0, 0);
+
+    histogram.add(10, 20);
+    histogram.add(20, 30);
+    histogram.add(15, 25);
+    histogram.add(0, 5);
+    // Empty and negative ranges are ignored
+    histogram.add(40, 40);
+    histogram.add(50, 45);
+    histogram.add(-5, 5);
+    assertFootprints(histogram, 0, 1, 5, 0, 10, 1, 15, 2, 25, 1, 30, 0);
+  }
+
+  @Test
+  public void testEncoding() {
+    FootprintHistogram histogram = new FootprintHistogram();
+    assertTrue(FootprintHistogram.decode(histogram.encode()).isEmpty());
+    assertTrue(FootprintHistogram.decode(null).isEmpty());
+
+    for (int i = 0; i < 1000; i++) {
+      histogram.add(i % 7, 100000 + i);
+    }
+    histogram.add(3, Integer.MAX_VALUE);
+    FootprintHistogram decoded = FootprintHistogram.decode(histogram.encode());
+    List<? extends Footprint> expected = histogram.toFootprintList().getFootprints();
+    List<? extends Footprint> actual = decoded.toFootprintList().getFootprints();
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getPosition(), actual.get(i).getPosition());
+      assertEquals(expected.get(i).getViews(), actual.get(i).getViews());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTruncatedData() {
+    FootprintHistogram histogram = new FootprintHistogram();
+    histogram.add(1000, 2000);
+    byte[] data = histogram.encode();
+    byte[] truncated = new byte[data.length - 1];
+    System.arraycopy(data, 0, truncated, 0, truncated.length);
+    FootprintHistogram.decode(truncated);
+  }
+
+  private static void assertFootprints(FootprintHistogram histogram, int... positionsAndViews) {
+    FootprintList list = histogram.toFootprintList();
+    assertEquals(positionsAndViews.length / 2, list.getFootprints().size());
+    for (int i = 0; i < positionsAndViews.length / 2; i++) {
+      assertEquals(positionsAndViews[2 * i], list.getFootprints().get(i).getPosition());
+      assertEquals(positionsAndViews[2 * i + 1], list.getFootprints().get(i).getViews());
+    }
+  }
+
+}
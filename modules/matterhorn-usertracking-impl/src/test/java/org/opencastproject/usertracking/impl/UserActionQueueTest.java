@@ -0,0 +1,76 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.usertracking.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserActionQueueTest {
+
+  @Test
+  public void testMergeConsecutiveFootprints() {
+    List<UserActionImpl> actions = new ArrayList<UserActionImpl>();
+    UserActionImpl first = action("session1", "mp", UserTrackingServiceImpl.FOOTPRINT_KEY, 0, 10);
+    actions.add(first);
+    UserActionImpl other = action("session2", "mp", UserTrackingServiceImpl.FOOTPRINT_KEY, 0, 10);
+    actions.add(other);
+    UserActionImpl event = action("session1", "mp", "PAUSE", 10, 10);
+    actions.add(event);
+    actions.add(action("session1", "mp", UserTrackingServiceImpl.FOOTPRINT_KEY, 10, 20));
+    // Skipping to another position starts a new footprint
+    UserActionImpl skipped = action("session1", "mp", UserTrackingServiceImpl.FOOTPRINT_KEY, 50, 60);
+    actions.add(skipped);
+    UserActionImpl otherMediapackage = action("session2", "other", UserTrackingServiceImpl.FOOTPRINT_KEY, 10, 20);
+    actions.add(otherMediapackage);
+
+    List<UserActionImpl> merged = UserActionQueue.merge(actions);
+    assertEquals(5, merged.size());
+    assertSame(first, merged.get(0));
+    assertEquals(20, first.getOutpoint());
+    assertEquals(20, first.getLength());
+    assertSame(other, merged.get(1));
+    assertEquals(10, other.getOutpoint());
+    assertSame(event, merged.get(2));
+    assertSame(skipped, merged.get(3));
+    assertSame(otherMediapackage, merged.get(4));
+  }
+
+  private static UserActionImpl action(String sessionId, String mediapackageId, String type, int inpoint,
+          int outpoint) {
+    UserSessionImpl session = new UserSessionImpl();
+    session.setSessionId(sessionId);
+    UserActionImpl action = new UserActionImpl();
+    action.setSession(session);
+    action.setMediapackageId(mediapackageId);
+    action.setType(type);
+    action.setInpoint(inpoint);
+    action.setOutpoint(outpoint);
+    return action;
+  }
+
+}
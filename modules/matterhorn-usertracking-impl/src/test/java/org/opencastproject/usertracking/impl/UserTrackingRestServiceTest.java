@@ -81,6 +81,7 @@ public class UserTrackingRestServiceTest {
 
     UserTrackingService usertracking = EasyMock.createMock(UserTrackingService.class);
     EasyMock.expect(usertracking.addUserFootprint(EasyMock.isA(UserAction.class), EasyMock.isA(UserSession.class))).andReturn(ua).anyTimes();
+    EasyMock.expect(usertracking.queueUserAction(EasyMock.isA(UserAction.class), EasyMock.isA(UserSession.class))).andReturn(true).anyTimes();
 
     EasyMock.replay(security, bc, dict, context, ua, usertracking);
 
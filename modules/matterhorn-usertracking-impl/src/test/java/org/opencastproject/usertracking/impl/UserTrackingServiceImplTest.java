@@ -36,8 +36,10 @@ import org.junit.Test;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Properties;
 
 public class UserTrackingServiceImplTest {
@@ -178,6 +180,67 @@ public class UserTrackingServiceImplTest {
     verifyFootprintViewsAndPositions(list, 2, 30, 0);
   }
 
+  /**
+   * Test that footprints are kept when the footprint aggregates are compacted
+   * @throws Exception
+   */
+  @Test
+  public void testFootprintCompaction() throws Exception {
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session123", "mp", "me", "127.0.0.1", 10, 20);
+
+    //The aggregate is created from the existing footprints
+    FootprintList list = getFootprintList("mp", null, 3);
+    verifyFootprintViewsAndPositions(list, 1, 10, 1);
+    verifyFootprintViewsAndPositions(list, 2, 20, 0);
+
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session123", "mp", "me", "127.0.0.1", 20, 30);
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session456", "mp", "someone else", "127.0.0.1", 15, 25);
+    service.compactFootprints();
+
+    list = getFootprintList("mp", null, 5);
+    verifyFootprintViewsAndPositions(list, 0, 0, 0);
+    verifyFootprintViewsAndPositions(list, 1, 10, 1);
+    verifyFootprintViewsAndPositions(list, 2, 15, 2);
+    verifyFootprintViewsAndPositions(list, 3, 25, 1);
+    verifyFootprintViewsAndPositions(list, 4, 30, 0);
+
+    //Footprints recorded after the compaction are added to the aggregate
+    createAndVerifyUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "session456", "mp", "someone else", "127.0.0.1", 25, 40);
+    list = getFootprintList("mp", null, 5);
+    verifyFootprintViewsAndPositions(list, 2, 15, 2);
+    verifyFootprintViewsAndPositions(list, 3, 30, 1);
+    verifyFootprintViewsAndPositions(list, 4, 40, 0);
+  }
+
+  /**
+   * Test that batches of user actions are stored like single footprints
+   * @throws Exception
+   */
+  @Test
+  public void testStoreUserActions() throws Exception {
+    UserSession session = createUserSession("session123", "me", "127.0.0.1");
+    List<UserActionImpl> batch = new ArrayList<UserActionImpl>();
+    batch.add((UserActionImpl) createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 10, 20, new Date(), session));
+    batch.add((UserActionImpl) createUserAction("PAUSE", "mp", 20, 20, new Date(), session));
+    service.storeUserActions(batch);
+
+    //The next batch continues the footprint of the session
+    batch.clear();
+    batch.add((UserActionImpl) createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 20, 30, new Date(), createUserSession("session123", "me", "127.0.0.1")));
+    batch.add((UserActionImpl) createUserAction(UserTrackingServiceImpl.FOOTPRINT_KEY, "mp", 50, 60, new Date(), createUserSession("session456", "someone else", "127.0.0.1")));
+    service.storeUserActions(batch);
+
+    Assert.assertEquals(2, service.getViews("mp"));
+    verifyUserActionListsByType(UserTrackingServiceImpl.FOOTPRINT_KEY, 2, 0, 10, 2);
+    FootprintList list = getFootprintList("mp", "me", 3);
+    verifyFootprintViewsAndPositions(list, 1, 10, 1);
+    verifyFootprintViewsAndPositions(list, 2, 30, 0);
+    list = getFootprintList("mp", null, 5);
+    verifyFootprintViewsAndPositions(list, 2, 30, 0);
+    verifyFootprintViewsAndPositions(list, 3, 50, 1);
+    verifyFootprintViewsAndPositions(list, 4, 60, 0);
+  }
+
   /**
    * Tests basic user action lists and reports
    * @throws Exception
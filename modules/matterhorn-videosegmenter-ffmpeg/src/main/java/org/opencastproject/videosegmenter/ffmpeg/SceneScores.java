@@ -0,0 +1,181 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.videosegmenter.ffmpeg;
+
+import com.google.common.io.LineReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The scene change scores of a video track, as reported by a single FFmpeg run.
+ * <p>
+ * Only frames whose score exceeds a lower bound (the floor) are recorded, so the timeline can be used to find the scene
+ * changes for any changes threshold that is equal to or greater than the floor without decoding the video again.
+ */
+final class SceneScores {
+
+  /** Matches the presentation time of a frame as printed by the FFmpeg metadata filter */
+  private static final Pattern PTS_TIME = Pattern.compile("pts_time:(\\d+(\\.\\d+)?)");
+
+  /** Matches the scene score of a frame as printed by the FFmpeg metadata filter */
+  private static final Pattern SCENE_SCORE = Pattern.compile("lavfi\\.scene_score=(\\d+(\\.\\d+)?)");
+
+  /** The lowest changes threshold that the scores are complete for */
+  private final float floor;
+
+  /** The presentation times of the recorded frames in seconds */
+  private float[] times = new float[256];
+
+  /** The scene scores of the recorded frames */
+  private float[] scores = new float[256];
+
+  /** The number of recorded frames */
+  private int size = 0;
+
+  /**
+   * Creates an empty timeline.
+   *
+   * @param floor
+   *          the lowest changes threshold that the scores are complete for
+   */
+  SceneScores(float floor) {
+    this.floor = floor;
+  }
+
+  /**
+   * Reads the scene scores from the output of the FFmpeg metadata filter, which prints a line with the presentation
+   * time of each selected frame, followed by a line per metadata entry:
+   *
+   * <pre>
+   * [Parsed_metadata_1 @ 0x2c1c6a0] frame:0    pts:12      pts_time:12
+   * [Parsed_metadata_1 @ 0x2c1c6a0] lavfi.scene_score=0.563725
+   * </pre>
+   *
+   * @param reader
+   *          the FFmpeg output
+   * @param floor
+   *          the scene score threshold that FFmpeg has been selecting frames with
+   * @return the scene scores
+   * @throws IOException
+   *           if reading the output fails
+   */
+  static SceneScores read(Reader reader, float floor) throws IOException {
+    SceneScores sceneScores = new SceneScores(floor);
+    LineReader lr = new LineReader(reader);
+    float time = -1;
+    String line = lr.readLine();
+    while (null != line) {
+      if (line.startsWith("[Parsed_metadata")) {
+        Matcher matcher = PTS_TIME.matcher(line);
+        if (matcher.find()) {
+          time = Float.parseFloat(matcher.group(1));
+        } else {
+          matcher = SCENE_SCORE.matcher(line);
+          if (matcher.find() && time >= 0) {
+            sceneScores.add(time, Float.parseFloat(matcher.group(1)));
+            time = -1;
+          }
+        }
+      }
+      line = lr.readLine();
+    }
+    return sceneScores;
+  }
+
+  /**
+   * Records the scene score of a frame. Frames must be added in presentation order.
+   *
+   * @param time
+   *          the presentation time of the frame in seconds
+   * @param score
+   *          the scene score
+   */
+  void add(float time, float score) {
+    if (score <= floor)
+      return;
+    if (size == times.length) {
+      times = Arrays.copyOf(times, size * 2);
+      scores = Arrays.copyOf(scores, size * 2);
+    }
+    times[size] = time;
+    scores[size] = score;
+    size++;
+  }
+
+  /**
+   * Returns <code>true</code> if the scores are complete for the given changes threshold.
+   *
+   * @param changesThreshold
+   *          the changes threshold
+   * @return whether the scene changes can be computed from the recorded scores
+   */
+  boolean covers(float changesThreshold) {
+    return changesThreshold >= floor;
+  }
+
+  /**
+   * Returns the times of the scene changes for the given changes threshold, which are the frames whose score exceeds the
+   * threshold.
+   *
+   * @param changesThreshold
+   *          the changes threshold
+   * @return the times of the scene changes in milliseconds
+   * @throws IllegalArgumentException
+   *           if the threshold is lower than the floor
+   */
+  long[] getSceneChanges(float changesThreshold) {
+    if (!covers(changesThreshold))
+      throw new IllegalArgumentException("Scene scores are only complete down to " + floor + ", not "
+              + changesThreshold);
+    long[] changes = new long[size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (scores[i] > changesThreshold)
+        changes[count++] = (long) (times[i] * 1000);
+    }
+    return Arrays.copyOf(changes, count);
+  }
+
+  /**
+   * Returns the lowest changes threshold that the scores are complete for.
+   *
+   * @return the floor
+   */
+  float getFloor() {
+    return floor;
+  }
+
+  /**
+   * Returns the number of recorded frames.
+   *
+   * @return the number of frames
+   */
+  int size() {
+    return size;
+  }
+
+}
@@ -124,6 +124,9 @@ VideoSegmenterService, ManagedService {
   /** Default value for the maximum number of cycles */
   public static final int DEFAULT_MAX_CYCLES = 3;
 
+  /** Lowest scene score that is extracted up front, lower changes thresholds require decoding the track again */
+  private static final float MIN_SCENE_SCORE_FLOOR = 0.001f;
+
   /** Name of the constant used to retrieve the maximum tolerance for result */
   public static final String OPT_MAX_ERROR = "maxError";
 
@@ -416,6 +419,15 @@ VideoSegmenterService, ManagedService {
 
       logger.info("Starting video segmentation of {}", mediaUrl);
 
+      // decode the track only once and keep the scene scores of all frames that may become a scene change during the
+      // optimization. The changes threshold is at most halved per iteration, so the scores are complete down to the
+      // lowest threshold that the optimization can reach, unless there are too many cycles.
+      float floor = changesThreshold;
+      for (int i = 1; i < maxCycles && floor > MIN_SCENE_SCORE_FLOOR; i++) {
+        floor /= 2;
+      }
+      SceneScores scores = extractSceneScores(mediaFile, floor);
+
 
       // optimization loop to get a segmentation with a number of segments close
       // to the desired number of segments
@@ -426,8 +438,17 @@ VideoSegmenterService, ManagedService {
             contentTime, contentLocator);
 
 
-        // run the segmentation with FFmpeg
-        segments = runSegmentationFFmpeg(track, videoContent, mediaFile, changesThresholdLocal);
+        // decode the track again only if the scene scores don't reach down to the current changes threshold
+        if (scores != null && !scores.covers(changesThresholdLocal)) {
+          scores = extractSceneScores(mediaFile, changesThresholdLocal / 2);
+        }
+
+        // run the segmentation on the scene scores, or with FFmpeg if they can't be extracted
+        if (scores != null) {
+          segments = runSegmentation(track, videoContent, scores, changesThresholdLocal);
+        } else {
+          segments = runSegmentationFFmpeg(track, videoContent, mediaFile, changesThresholdLocal);
+        }
 
 
         // calculate errors for "normal" and filtered segmentation
@@ -666,10 +687,108 @@ VideoSegmenterService, ManagedService {
     // fmt:rgb24 sar:0/1 s:320x240 i:P iskey:1 type:I checksum:8DF39EA9
     // plane_checksum:[8DF39EA9]
 
+    long[] sceneChanges = new long[segmentsStrings.size()];
+    int i = 0;
+    Pattern pattern = Pattern.compile("pts_time\\:\\d+(\\.\\d+)?");
+    for (String seginfo : segmentsStrings) {
+      Matcher matcher = pattern.matcher(seginfo);
+      String time = "0";
+      while (matcher.find()) {
+        time = matcher.group().substring(9);
+      }
+      sceneChanges[i++] = (long)(Float.parseFloat(time) * 1000);
+    }
+
+    LinkedList<Segment> segments = createSegments(track, videoContent, sceneChanges);
+
+   logger.info("Segmentation of {} yields {} segments",
+           mediaFile.toURI().toURL(), segments.size());
+
+    return segments;
+  }
+
+  /**
+   * Decodes the track once with FFmpeg and returns the scene scores of all frames whose score exceeds the given floor.
+   * This allows to evaluate any changes threshold equal to or greater than the floor without running FFmpeg again.
+   *
+   * @param mediaFile
+   *          the file of the track to analyze
+   * @param floor
+   *          the lowest changes threshold that should be evaluated
+   * @return the scene scores, or <code>null</code> if the FFmpeg binary does not support printing them
+   * @throws IOException
+   */
+  protected SceneScores extractSceneScores(File mediaFile, float floor) throws IOException {
+    String[] command = new String[] { binary, "-nostats", "-i",
+      mediaFile.getAbsolutePath().replaceAll(" ", "\\ "),
+      "-filter:v", "select=gt(scene\\," + floor + "),metadata=print:key=lavfi.scene_score",
+      "-f", "null", "-"
+    };
+    String commandline = StringUtils.join(command, " ");
+
+    logger.info("Running {}", commandline);
+
+    ProcessBuilder pbuilder = new ProcessBuilder(command);
+    Process process = pbuilder.start();
+    BufferedReader reader = new BufferedReader(
+            new InputStreamReader(process.getErrorStream()));
+    SceneScores scores;
+    try {
+      scores = SceneScores.read(reader, floor);
+    } finally {
+      reader.close();
+    }
+
+    int exitCode;
+    try {
+      exitCode = process.waitFor();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for ffmpeg", e);
+    }
+    // FFmpeg versions before 3.1 don't know the metadata filter
+    if (exitCode != 0) {
+      logger.warn("Unable to extract scene scores from {} (ffmpeg exited with {}), falling back to one ffmpeg run "
+              + "per changes threshold", mediaFile, exitCode);
+      return null;
+    }
+
+    logger.info("Extracted {} scene scores above {} from {}", scores.size(), floor, mediaFile);
+    return scores;
+  }
+
+  /**
+   * Creates the segmentation for the given changes threshold from previously extracted scene scores, adds the segments
+   * to the given videoContent of a catalog and returns a list with the resulting segments
+   *
+   * @param track the element to analyze
+   * @param videoContent the videoContent of the Mpeg7Catalog that the segments should be added to
+   * @param scores the scene scores of the track
+   * @param changesThreshold the changesThreshold, must be covered by the scene scores
+   * @return a list of the resulting segments
+   */
+  protected LinkedList<Segment> runSegmentation(Track track, Video videoContent, SceneScores scores,
+          float changesThreshold) {
+    LinkedList<Segment> segments = createSegments(track, videoContent, scores.getSceneChanges(changesThreshold));
+    logger.info("Segmentation with changes threshold {} yields {} segments", changesThreshold, segments.size());
+    return segments;
+  }
+
+  /**
+   * Creates the segments between the given scene changes, skipping changes that would yield segments that are not
+   * longer than the prefilter stability threshold, adds them to the given videoContent of a catalog and returns a list
+   * with the resulting segments
+   *
+   * @param track the element to analyze
+   * @param videoContent the videoContent of the Mpeg7Catalog that the segments should be added to
+   * @param sceneChanges the times of the scene changes in milliseconds, in ascending order
+   * @return a list of the resulting segments
+   */
+  private LinkedList<Segment> createSegments(Track track, Video videoContent, long[] sceneChanges) {
     int segmentcount = 1;
     LinkedList<Segment> segments = new LinkedList<Segment>();
 
-    if (segmentsStrings.size() == 0) {
+    if (sceneChanges.length == 0) {
       Segment s = videoContent.getTemporalDecomposition()
           .createSegment("segment-" + segmentcount);
       s.setMediaTime(new MediaRelTimeImpl(0, track.getDuration()));
@@ -677,14 +796,8 @@ VideoSegmenterService, ManagedService {
     } else {
       long starttime = 0;
       long endtime = 0;
-      Pattern pattern = Pattern.compile("pts_time\\:\\d+(\\.\\d+)?");
-      for (String seginfo : segmentsStrings) {
-        Matcher matcher = pattern.matcher(seginfo);
-        String time = "0";
-        while (matcher.find()) {
-          time = matcher.group().substring(9);
-        }
-        endtime = (long)(Float.parseFloat(time) * 1000);
+      for (long sceneChange : sceneChanges) {
+        endtime = sceneChange;
         long segmentLength = endtime - starttime;
         if (1000 * stabilityThresholdPrefilter < segmentLength) {
           Segment segment = videoContent.getTemporalDecomposition()
@@ -703,10 +816,6 @@ VideoSegmenterService, ManagedService {
           .getDuration() - endtime));
       segments.add(s);
     }
-
-   logger.info("Segmentation of {} yields {} segments",
-           mediaFile.toURI().toURL(), segments.size());
-
     return segments;
   }
 
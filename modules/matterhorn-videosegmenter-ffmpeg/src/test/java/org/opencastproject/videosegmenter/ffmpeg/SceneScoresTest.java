@@ -0,0 +1,76 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.videosegmenter.ffmpeg;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+/**
+ * Test class for the scene scores timeline.
+ */
+public class SceneScoresTest {
+
+  @Test
+  public void testRead() throws Exception {
+    String output = "Input #0, mov,mp4,m4a,3gp,3g2,mj2, from 'scene-change.mov':\n"
+            + "[Parsed_metadata_1 @ 0x2c1c6a0] frame:0    pts:3       pts_time:3\n"
+            + "[Parsed_metadata_1 @ 0x2c1c6a0] lavfi.scene_score=0.012000\n"
+            + "[Parsed_metadata_1 @ 0x2c1c6a0] frame:1    pts:12      pts_time:12\n"
+            + "[Parsed_metadata_1 @ 0x2c1c6a0] lavfi.scene_score=0.563725\n"
+            + "[Parsed_metadata_1 @ 0x2c1c6a0] frame:2    pts:451     pts_time:18.04\n"
+            + "[Parsed_metadata_1 @ 0x2c1c6a0] lavfi.scene_score=0.030000\n"
+            + "video:1kB audio:0kB subtitle:0kB other streams:0kB global headers:0kB muxing overhead: unknown\n";
+    SceneScores scores = SceneScores.read(new StringReader(output), 0.005f);
+
+    assertEquals(3, scores.size());
+    assertArrayEquals(new long[] { 3000L, 12000L, 18040L }, scores.getSceneChanges(0.005f));
+    assertArrayEquals(new long[] { 12000L, 18040L }, scores.getSceneChanges(0.025f));
+    assertArrayEquals(new long[] { 12000L }, scores.getSceneChanges(0.1f));
+    assertArrayEquals(new long[0], scores.getSceneChanges(0.6f));
+  }
+
+  @Test
+  public void testFloor() {
+    SceneScores scores = new SceneScores(0.01f);
+    for (int i = 0; i < 1000; i++) {
+      scores.add(i * 0.04f, i % 2 == 0 ? 0.005f : 0.5f);
+    }
+
+    assertEquals("Scores below the floor must not be recorded", 500, scores.size());
+    assertEquals(500, scores.getSceneChanges(0.01f).length);
+    assertTrue(scores.covers(0.01f));
+    assertFalse(scores.covers(0.005f));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testThresholdBelowFloor() {
+    new SceneScores(0.01f).getSceneChanges(0.005f);
+  }
+
+}
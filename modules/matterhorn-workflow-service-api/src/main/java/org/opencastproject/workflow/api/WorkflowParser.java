@@ -22,6 +22,7 @@
 package org.opencastproject.workflow.api;
 
 import org.opencastproject.util.IoSupport;
+import org.opencastproject.util.jaxb.JaxbPool;
 
 import org.apache.commons.io.IOUtils;
 
@@ -45,12 +46,16 @@ public final class WorkflowParser {
 
   private static final JAXBContext jaxbContext;
 
+  /** Pool of the marshallers and unmarshallers of the JAXB context */
+  private static final JaxbPool pool;
+
   static {
     StringBuilder sb = new StringBuilder();
     sb.append("org.opencastproject.mediapackage");
     sb.append(":org.opencastproject.workflow.api");
     try {
       jaxbContext = JAXBContext.newInstance(sb.toString(), WorkflowParser.class.getClassLoader());
+      pool = new JaxbPool(jaxbContext);
     } catch (JAXBException e) {
       throw new IllegalStateException(e);
     }
@@ -67,20 +72,12 @@ public final class WorkflowParser {
    * @return the list of workflow definitions
    */
   public static List<WorkflowDefinition> parseWorkflowDefinitions(InputStream in) throws WorkflowParsingException {
-    try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-      WorkflowDefinitionImpl[] impls = unmarshaller.unmarshal(new StreamSource(in), WorkflowDefinitionImpl[].class)
-              .getValue();
-      List<WorkflowDefinition> list = new ArrayList<WorkflowDefinition>();
-      for (WorkflowDefinitionImpl impl : impls) {
-        list.add(impl);
-      }
-      return list;
-    } catch (Exception e) {
-      throw new WorkflowParsingException(e);
-    } finally {
-      IoSupport.closeQuietly(in);
+    WorkflowDefinitionImpl[] impls = unmarshal(WorkflowDefinitionImpl[].class, in);
+    List<WorkflowDefinition> list = new ArrayList<WorkflowDefinition>();
+    for (WorkflowDefinitionImpl impl : impls) {
+      list.add(impl);
     }
+    return list;
   }
 
   /**
@@ -93,14 +90,7 @@ public final class WorkflowParser {
    *           if creating the workflow definition fails
    */
   public static WorkflowDefinition parseWorkflowDefinition(InputStream in) throws WorkflowParsingException {
-    try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-      return unmarshaller.unmarshal(new StreamSource(in), WorkflowDefinitionImpl.class).getValue();
-    } catch (Exception e) {
-      throw new WorkflowParsingException(e);
-    } finally {
-      IoSupport.closeQuietly(in);
-    }
+    return unmarshal(WorkflowDefinitionImpl.class, in);
   }
 
   /**
@@ -130,17 +120,13 @@ public final class WorkflowParser {
    *           if creating the workflow instance fails
    */
   public static WorkflowInstanceImpl parseWorkflowInstance(InputStream in) throws WorkflowParsingException {
+    WorkflowInstanceImpl workflow = unmarshal(WorkflowInstanceImpl.class, in);
     try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-      WorkflowInstanceImpl workflow = unmarshaller.unmarshal(new StreamSource(in), WorkflowInstanceImpl.class)
-              .getValue();
       workflow.init();
-      return workflow;
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
-    } finally {
-      IoSupport.closeQuietly(in);
     }
+    return workflow;
   }
 
   /**
@@ -170,14 +156,7 @@ public final class WorkflowParser {
    *           if creating the workflow statistics fails
    */
   public static WorkflowStatistics parseWorkflowStatistics(InputStream in) throws WorkflowParsingException {
-    try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-      return unmarshaller.unmarshal(new StreamSource(in), WorkflowStatistics.class).getValue();
-    } catch (Exception e) {
-      throw new WorkflowParsingException(e);
-    } finally {
-      IoSupport.closeQuietly(in);
-    }
+    return unmarshal(WorkflowStatistics.class, in);
   }
 
   /**
@@ -207,14 +186,7 @@ public final class WorkflowParser {
    *           if creating the workflow instance set fails
    */
   public static WorkflowSet parseWorkflowSet(InputStream in) throws WorkflowParsingException {
-    try {
-      Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-      return unmarshaller.unmarshal(new StreamSource(in), WorkflowSetImpl.class).getValue();
-    } catch (Exception e) {
-      throw new WorkflowParsingException(e);
-    } finally {
-      IoSupport.closeQuietly(in);
-    }
+    return unmarshal(WorkflowSetImpl.class, in);
   }
 
   /**
@@ -235,58 +207,69 @@ public final class WorkflowParser {
   }
 
   public static String toXml(WorkflowInstance workflowInstance) throws WorkflowParsingException {
-    try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
-      Writer writer = new StringWriter();
-      marshaller.marshal(workflowInstance, writer);
-      return writer.toString();
-    } catch (Exception e) {
-      throw new WorkflowParsingException(e);
-    }
-
+    return marshal(workflowInstance);
   }
 
   public static String toXml(WorkflowDefinition workflowDefinition) throws WorkflowParsingException {
-    try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
-      Writer writer = new StringWriter();
-      marshaller.marshal(workflowDefinition, writer);
-      return writer.toString();
-    } catch (Exception e) {
-      throw new WorkflowParsingException(e);
-    }
+    return marshal(workflowDefinition);
   }
 
   public static String toXml(List<WorkflowDefinition> list) throws WorkflowParsingException {
-    try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
-      Writer writer = new StringWriter();
-      marshaller.marshal(new WorkflowDefinitionSet(list), writer);
-      return writer.toString();
-    } catch (Exception e) {
-      throw new WorkflowParsingException(e);
-    }
+    return marshal(new WorkflowDefinitionSet(list));
   }
 
   public static String toXml(WorkflowSet set) throws WorkflowParsingException {
+    return marshal(set);
+  }
+
+  public static String toXml(WorkflowStatistics stats) throws WorkflowParsingException {
+    return marshal(stats);
+  }
+
+  /**
+   * Unmarshals an object using a pooled unmarshaller and closes the input stream.
+   *
+   * @param type
+   *          the type of the object
+   * @param in
+   *          the input stream
+   * @return the object
+   * @throws WorkflowParsingException
+   *           if unmarshalling fails
+   */
+  private static <T> T unmarshal(Class<T> type, InputStream in) throws WorkflowParsingException {
+    Unmarshaller unmarshaller = null;
     try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
-      Writer writer = new StringWriter();
-      marshaller.marshal(set, writer);
-      return writer.toString();
+      unmarshaller = pool.borrowUnmarshaller();
+      return unmarshaller.unmarshal(new StreamSource(in), type).getValue();
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
+    } finally {
+      pool.release(unmarshaller);
+      IoSupport.closeQuietly(in);
     }
   }
 
-  public static String toXml(WorkflowStatistics stats) throws WorkflowParsingException {
+  /**
+   * Marshals an object to xml using a pooled marshaller.
+   *
+   * @param o
+   *          the object
+   * @return the xml
+   * @throws WorkflowParsingException
+   *           if marshalling fails
+   */
+  private static String marshal(Object o) throws WorkflowParsingException {
+    Marshaller marshaller = null;
     try {
-      Marshaller marshaller = jaxbContext.createMarshaller();
+      marshaller = pool.borrowMarshaller();
       Writer writer = new StringWriter();
-      marshaller.marshal(stats, writer);
+      marshaller.marshal(o, writer);
       return writer.toString();
     } catch (Exception e) {
       throw new WorkflowParsingException(e);
+    } finally {
+      pool.release(marshaller);
     }
   }
 
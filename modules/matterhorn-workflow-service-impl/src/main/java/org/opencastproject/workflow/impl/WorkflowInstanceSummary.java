@@ -0,0 +1,132 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.workflow.impl;
+
+import org.opencastproject.workflow.api.WorkflowInstance;
+import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
+import org.opencastproject.workflow.api.WorkflowUtil;
+
+/**
+ * Lightweight projection of a workflow instance, built from the fields of the workflow index without materializing the
+ * whole instance.
+ */
+public final class WorkflowInstanceSummary {
+
+  /** The workflow identifier */
+  private final long id;
+
+  /** The workflow definition identifier */
+  private final String template;
+
+  /** The workflow state */
+  private final WorkflowState state;
+
+  /** The current operation, <code>null</code> if the workflow has none */
+  private final String currentOperation;
+
+  /** The media package identifier */
+  private final String mediaPackageId;
+
+  /** The series identifier, may be <code>null</code> */
+  private final String seriesId;
+
+  /**
+   * Creates a workflow instance summary.
+   *
+   * @param id
+   *          the workflow identifier
+   * @param template
+   *          the workflow definition identifier
+   * @param state
+   *          the workflow state
+   * @param currentOperation
+   *          the current operation, <code>null</code> if the workflow has none
+   * @param mediaPackageId
+   *          the media package identifier
+   * @param seriesId
+   *          the series identifier, may be <code>null</code>
+   */
+  public WorkflowInstanceSummary(long id, String template, WorkflowState state, String currentOperation,
+          String mediaPackageId, String seriesId) {
+    this.id = id;
+    this.template = template;
+    this.state = state;
+    this.currentOperation = currentOperation;
+    this.mediaPackageId = mediaPackageId;
+    this.seriesId = seriesId;
+  }
+
+  /**
+   * Creates the summary of a workflow instance.
+   *
+   * @param instance
+   *          the workflow instance
+   * @return the summary
+   */
+  public static WorkflowInstanceSummary fromWorkflowInstance(WorkflowInstance instance) {
+    String currentOperation = instance.getCurrentOperation() == null ? null : instance.getCurrentOperation()
+            .getTemplate();
+    return new WorkflowInstanceSummary(instance.getId(), instance.getTemplate(), instance.getState(),
+            currentOperation, instance.getMediaPackage().getIdentifier().compact(), instance.getMediaPackage()
+                    .getSeries());
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getTemplate() {
+    return template;
+  }
+
+  public WorkflowState getState() {
+    return state;
+  }
+
+  public String getCurrentOperation() {
+    return currentOperation;
+  }
+
+  public String getMediaPackageId() {
+    return mediaPackageId;
+  }
+
+  public String getSeriesId() {
+    return seriesId;
+  }
+
+  /**
+   * Returns <code>true</code> if the workflow is still being processed.
+   *
+   * @return whether the workflow is active
+   */
+  public boolean isActive() {
+    return WorkflowUtil.isActive(state);
+  }
+
+  @Override
+  public String toString() {
+    return "Workflow " + id + " (" + template + ", " + state + ")";
+  }
+
+}
@@ -642,9 +642,10 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
         }
       } else {
         WorkflowQuery wfq = new WorkflowQuery().withMediaPackage(sourceMediaPackage.getIdentifier().compact());
-        WorkflowSet mpWorkflowInstances = getWorkflowInstances(wfq);
+        List<WorkflowInstanceSummary> mpWorkflowInstances = index.getWorkflowInstanceSummaries(wfq,
+                Permissions.Action.WRITE.toString(), true);
         if (mpWorkflowInstances.size() > 0) {
-          for (WorkflowInstance wfInstance : mpWorkflowInstances.getItems()) {
+          for (WorkflowInstanceSummary wfInstance : mpWorkflowInstances) {
             if (wfInstance.isActive())
               throw new IllegalStateException(String.format(
                       "Can't start workflow '%s' for media package '%s' because another workflow is currently active.",
@@ -1821,16 +1822,16 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
     }
 
     WorkflowInstance workflow = null;
-    WorkflowSet workflowInstances = null;
+    List<WorkflowInstanceSummary> workflowInstances = null;
     String mediaPackageId = null;
 
     // Fetch all workflows that are running with the current mediapackage
     try {
       workflow = getWorkflowById(job.getId());
       mediaPackageId = workflow.getMediaPackage().getIdentifier().toString();
-      workflowInstances = getWorkflowInstances(new WorkflowQuery()
+      workflowInstances = index.getWorkflowInstanceSummaries(new WorkflowQuery()
               .withMediaPackage(workflow.getMediaPackage().getIdentifier().toString()).withState(RUNNING)
-              .withState(PAUSED).withState(FAILING));
+              .withState(PAUSED).withState(FAILING), Permissions.Action.WRITE.toString(), true);
 
     } catch (NotFoundException e) {
       logger.error(
@@ -1850,7 +1851,7 @@ public class WorkflowServiceImpl extends AbstractIndexProducer implements Workfl
     boolean toomany = workflowInstances.size() > 1;
 
     // Make sure we are not excluding ourselves
-    toomany |= workflowInstances.size() == 1 && workflow.getId() != workflowInstances.getItems()[0].getId();
+    toomany |= workflowInstances.size() == 1 && workflow.getId() != workflowInstances.get(0).getId();
 
     // Avoid running multiple workflows with same media package id at the same time
     if (toomany) {
@@ -29,6 +29,8 @@ import org.opencastproject.workflow.api.WorkflowQuery;
 import org.opencastproject.workflow.api.WorkflowSet;
 import org.opencastproject.workflow.api.WorkflowStatistics;
 
+import java.util.List;
+
 /**
  * Provides persistence services to the workflow service implementation.
  */
@@ -83,6 +85,23 @@ public interface WorkflowServiceIndex {
    */
   WorkflowSet getWorkflowInstances(WorkflowQuery query, String action, boolean applyPermissions) throws WorkflowDatabaseException;
 
+  /**
+   * Gets the summaries of the workflow instances matching a custom query. Other than
+   * {@link #getWorkflowInstances(WorkflowQuery, String, boolean)}, this method does not load the workflow instances.
+   *
+   * @param query
+   *          the query to use in the search for workflow instances
+   * @param action
+   *          the action that the current user needs to be allowed to perform
+   * @param applyPermissions
+   *          whether to restrict the results to the workflows the current user has access to
+   * @return the summaries of the matching workflow instances
+   * @throws WorkflowDatabaseException
+   *           if there is a problem retrieving the workflow instances from persistence
+   */
+  List<WorkflowInstanceSummary> getWorkflowInstanceSummaries(WorkflowQuery query, String action,
+          boolean applyPermissions) throws WorkflowDatabaseException;
+
   /**
    * Returns the workflow statistics.
    *
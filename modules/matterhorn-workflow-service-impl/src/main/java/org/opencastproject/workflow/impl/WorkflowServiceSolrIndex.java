@@ -51,6 +51,7 @@ import org.opencastproject.workflow.api.WorkflowInstance;
 import org.opencastproject.workflow.api.WorkflowInstance.WorkflowState;
 import org.opencastproject.workflow.api.WorkflowOperationInstance;
 import org.opencastproject.workflow.api.WorkflowParser;
+import org.opencastproject.workflow.api.WorkflowParsingException;
 import org.opencastproject.workflow.api.WorkflowQuery;
 import org.opencastproject.workflow.api.WorkflowQuery.QueryTerm;
 import org.opencastproject.workflow.api.WorkflowQuery.Sort;
@@ -89,7 +90,9 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -120,6 +123,9 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
   /** The URL to connect to a remote solr server */
   protected URL solrServerUrl = null;
 
+  /** The file marking that the statistics field has been added to the index, <code>null</code> if there is none */
+  protected File statisticsMarker = null;
+
   /** The key in solr documents representing the workflow's current operation */
   protected static final String OPERATION_KEY = "operation";
 
@@ -180,6 +186,18 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
   /** The key in solr documents representing the organization that owns this workflow instance */
   private static final String ORG_KEY = "oc_org";
 
+  /** The key in solr documents combining definition, current operation and state, used to compute statistics */
+  private static final String STATISTICS_KEY = "statistics";
+
+  /** The separator of the values making up the statistics field */
+  private static final char STATISTICS_SEPARATOR = '|';
+
+  /** The number of workflow instances re-indexed at once when adding the statistics field to an existing index */
+  private static final int STATISTICS_MIGRATION_BATCH_SIZE = 100;
+
+  /** The name of the file marking that the statistics field has been added to the existing index */
+  static final String STATISTICS_MIGRATION_MARKER = "statistics.indexed";
+
   /** The key in solr documents representing the prefix to an access control entry */
   private static final String ACL_KEY_PREFIX = "oc_acl_";
 
@@ -224,6 +242,8 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
       } catch (MalformedURLException e) {
         throw new IllegalStateException("Unable to connect to solr at " + solrServerUrlConfig, e);
       }
+      // The remote index is shared, so each node remembers on its own that it has been migrated
+      statisticsMarker = cc.getBundleContext().getDataFile(STATISTICS_MIGRATION_MARKER);
     } else {
       solrRoot = SolrServerFactory.getEmbeddedDir(cc, CONFIG_SOLR_ROOT, "workflow");
     }
@@ -258,6 +278,7 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
     if (solrServerUrl != null) {
       solrServer = SolrServerFactory.newRemoteInstance(solrServerUrl);
     } else {
+      statisticsMarker = new File(solrRoot, STATISTICS_MIGRATION_MARKER);
       try {
         setupSolr(new File(solrRoot));
       } catch (IOException e) {
@@ -329,7 +350,87 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
           logger.warn("Skipped {} erroneous workflows while populating the index", errors);
         logger.info("Finished populating the workflow search index");
       }
+      // Instances added from now on carry the statistics field
+      markStatisticsIndexed();
+    } else if (statisticsMarker == null || !statisticsMarker.exists()) {
+      try {
+        indexMissingStatistics(systemUserName);
+      } catch (WorkflowDatabaseException e) {
+        throw new IllegalStateException(e);
+      }
+      markStatisticsIndexed();
+    }
+  }
+
+  /**
+   * Remembers that all workflow instances in the index carry the statistics field, so that the index doesn't need to
+   * be looked at again on the next activation.
+   */
+  private void markStatisticsIndexed() {
+    if (statisticsMarker == null)
+      return;
+    try {
+      FileUtils.touch(statisticsMarker);
+    } catch (IOException e) {
+      logger.warn("Unable to create {}, the workflow statistics will be checked again on the next start: {}",
+              statisticsMarker, e.getMessage());
+    }
+  }
+
+  /**
+   * Re-indexes the workflow instances that have been added to the index before the statistics field was introduced,
+   * reading the instances from the index itself.
+   *
+   * @param systemUserName
+   *          the name of the system user
+   * @throws WorkflowDatabaseException
+   *           if the index can't be read or updated
+   */
+  private void indexMissingStatistics(String systemUserName) throws WorkflowDatabaseException {
+    SolrQuery solrQuery = new SolrQuery("*:* -" + STATISTICS_KEY + ":[* TO *]");
+    solrQuery.setFields(ID_KEY, XML_KEY);
+    solrQuery.setRows(STATISTICS_MIGRATION_BATCH_SIZE);
+    int errors = 0;
+    int indexed = 0;
+    try {
+      while (true) {
+        // Instances that could not be indexed are still matching the query, skip them
+        solrQuery.setStart(errors);
+        SolrDocumentList items = solrServer.query(solrQuery).getResults();
+        if (items.isEmpty())
+          break;
+        if (indexed == 0)
+          logger.info("Adding statistics to {} workflows in the index", items.getNumFound());
+        List<SolrInputDocument> docs = new ArrayList<SolrInputDocument>();
+        for (SolrDocument item : items) {
+          try {
+            WorkflowInstance instance = getWorkflowInstance(item);
+            Organization organization = orgDirectory.getOrganization(instance.getOrganization().getId());
+            securityService.setOrganization(organization);
+            securityService.setUser(SecurityUtil.createSystemUser(systemUserName, organization));
+            docs.add(createDocument(instance));
+          } catch (Throwable e) {
+            logger.warn("Skipping statistics of workflow {}: {}", item.get(ID_KEY), e.getMessage());
+            errors++;
+          }
+        }
+        if (!docs.isEmpty()) {
+          synchronized (solrServer) {
+            solrServer.add(docs);
+            solrServer.commit();
+          }
+          indexed += docs.size();
+        }
+      }
+    } catch (SolrServerException e) {
+      throw new WorkflowDatabaseException(e);
+    } catch (IOException e) {
+      throw new WorkflowDatabaseException(e);
     }
+    if (errors > 0)
+      logger.warn("Skipped {} erroneous workflows while adding statistics to the index", errors);
+    if (indexed > 0)
+      logger.info("Finished adding statistics to {} workflows in the index", indexed);
   }
 
   /**
@@ -450,11 +551,9 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
     // index the current operation if there is one. If the workflow is finished, there is no current operation, so use a
     // constant
     WorkflowOperationInstance op = instance.getCurrentOperation();
-    if (op == null) {
-      doc.addField(OPERATION_KEY, NO_OPERATION_KEY);
-    } else {
-      doc.addField(OPERATION_KEY, op.getTemplate());
-    }
+    String operation = op == null ? NO_OPERATION_KEY : op.getTemplate();
+    doc.addField(OPERATION_KEY, operation);
+    doc.addField(STATISTICS_KEY, getStatisticsKey(instance.getTemplate(), operation, instance.getState()));
 
     MediaPackage mp = instance.getMediaPackage();
     doc.addField(MEDIAPACKAGE_KEY, mp.getIdentifier().toString());
@@ -623,7 +722,7 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
 
     WorkflowStatistics stats = new WorkflowStatistics();
 
-    // Get all definitions and then query for the numbers and the current operation per definition
+    // Get all definitions and operations along with the number of instances per definition, operation and state
     try {
       String orgId = securityService.getOrganization().getId();
       StringBuilder queryString = new StringBuilder().append(ORG_KEY).append(":").append(escapeQueryChars(orgId));
@@ -631,12 +730,17 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
       SolrQuery solrQuery = new SolrQuery(queryString.toString());
       solrQuery.addFacetField(WORKFLOW_DEFINITION_KEY);
       solrQuery.addFacetField(OPERATION_KEY);
+      solrQuery.addFacetField(STATISTICS_KEY);
       solrQuery.setFacetMinCount(0);
+      solrQuery.set("f." + STATISTICS_KEY + ".facet.mincount", 1);
+      solrQuery.set("f." + STATISTICS_KEY + ".facet.limit", -1);
       solrQuery.setFacet(true);
+      solrQuery.setRows(0);
       QueryResponse response = solrServer.query(solrQuery);
 
       FacetField templateFacet = response.getFacetField(WORKFLOW_DEFINITION_KEY);
       FacetField operationFacet = response.getFacetField(OPERATION_KEY);
+      Map<String, Map<WorkflowState, Long>> stateCounts = getStateCounts(response.getFacetField(STATISTICS_KEY));
 
       // For every template and every operation
       if (templateFacet != null && templateFacet.getValues() != null) {
@@ -662,69 +766,54 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
               OperationReport operationReport = new OperationReport();
               operationReport.setId(operation.getName());
 
-              StringBuilder baseSolrQuery = new StringBuilder().append(ORG_KEY).append(":")
-                      .append(escapeQueryChars(orgId));
-              appendSolrAuthFragment(baseSolrQuery, Permissions.Action.WRITE.toString());
-              solrQuery = new SolrQuery(baseSolrQuery.toString());
-              solrQuery.addFacetField(STATE_KEY);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.FAILED);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.FAILING);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.INSTANTIATED);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.PAUSED);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.RUNNING);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.STOPPED);
-              solrQuery.addFacetQuery(STATE_KEY + ":" + WorkflowState.SUCCEEDED);
-              solrQuery.addFilterQuery(WORKFLOW_DEFINITION_KEY + ":" + template.getName());
-              solrQuery.addFilterQuery(OPERATION_KEY + ":" + operation.getName());
-              solrQuery.setFacetMinCount(0);
-              solrQuery.setFacet(true);
-
-              response = solrServer.query(solrQuery);
-
               // Add the states
-              FacetField stateFacet = response.getFacetField(STATE_KEY);
-              for (Count stateValue : stateFacet.getValues()) {
-                WorkflowState state = WorkflowState.valueOf(stateValue.getName().toUpperCase());
-                templateTotal += stateValue.getCount();
-                total += stateValue.getCount();
-                switch (state) {
-                  case FAILED:
-                    operationReport.setFailed(stateValue.getCount());
-                    templateFailed += stateValue.getCount();
-                    failed += stateValue.getCount();
-                    break;
-                  case FAILING:
-                    operationReport.setFailing(stateValue.getCount());
-                    templateFailing += stateValue.getCount();
-                    failing += stateValue.getCount();
-                    break;
-                  case INSTANTIATED:
-                    operationReport.setInstantiated(stateValue.getCount());
-                    templateInstantiated += stateValue.getCount();
-                    instantiated += stateValue.getCount();
-                    break;
-                  case PAUSED:
-                    operationReport.setPaused(stateValue.getCount());
-                    templatePaused += stateValue.getCount();
-                    paused += stateValue.getCount();
-                    break;
-                  case RUNNING:
-                    operationReport.setRunning(stateValue.getCount());
-                    templateRunning += stateValue.getCount();
-                    running += stateValue.getCount();
-                    break;
-                  case STOPPED:
-                    operationReport.setStopped(stateValue.getCount());
-                    templateStopped += stateValue.getCount();
-                    stopped += stateValue.getCount();
-                    break;
-                  case SUCCEEDED:
-                    operationReport.setFinished(stateValue.getCount());
-                    templateSucceeded += stateValue.getCount();
-                    succeeded += stateValue.getCount();
-                    break;
-                  default:
-                    throw new IllegalStateException("State '" + state + "' is not handled");
+              Map<WorkflowState, Long> operationStates = stateCounts.get(getStatisticsKey(template.getName(),
+                      operation.getName(), null));
+              if (operationStates != null) {
+                for (Map.Entry<WorkflowState, Long> stateValue : operationStates.entrySet()) {
+                  WorkflowState state = stateValue.getKey();
+                  long count = stateValue.getValue();
+                  templateTotal += count;
+                  total += count;
+                  switch (state) {
+                    case FAILED:
+                      operationReport.setFailed(count);
+                      templateFailed += count;
+                      failed += count;
+                      break;
+                    case FAILING:
+                      operationReport.setFailing(count);
+                      templateFailing += count;
+                      failing += count;
+                      break;
+                    case INSTANTIATED:
+                      operationReport.setInstantiated(count);
+                      templateInstantiated += count;
+                      instantiated += count;
+                      break;
+                    case PAUSED:
+                      operationReport.setPaused(count);
+                      templatePaused += count;
+                      paused += count;
+                      break;
+                    case RUNNING:
+                      operationReport.setRunning(count);
+                      templateRunning += count;
+                      running += count;
+                      break;
+                    case STOPPED:
+                      operationReport.setStopped(count);
+                      templateStopped += count;
+                      stopped += count;
+                      break;
+                    case SUCCEEDED:
+                      operationReport.setFinished(count);
+                      templateSucceeded += count;
+                      succeeded += count;
+                      break;
+                    default:
+                      throw new IllegalStateException("State '" + state + "' is not handled");
+                  }
                 }
               }
 
@@ -764,6 +853,58 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
     return stats;
   }
 
+  /**
+   * Returns the value of the statistics field, which combines the workflow definition, the current operation and the
+   * state of a workflow instance so that the number of instances per combination can be counted using a single facet.
+   *
+   * @param template
+   *          the workflow definition identifier
+   * @param operation
+   *          the current operation
+   * @param state
+   *          the workflow state, or <code>null</code> to get the prefix shared by all states
+   * @return the statistics field value
+   */
+  static String getStatisticsKey(String template, String operation, WorkflowState state) {
+    StringBuilder key = new StringBuilder().append(template).append(STATISTICS_SEPARATOR).append(operation)
+            .append(STATISTICS_SEPARATOR);
+    if (state != null)
+      key.append(state.toString());
+    return key.toString().toLowerCase();
+  }
+
+  /**
+   * Splits the values of the statistics facet into the number of workflow instances per state, keyed by the
+   * definition and operation prefix returned by {@link #getStatisticsKey(String, String, WorkflowState)}.
+   *
+   * @param statisticsFacet
+   *          the statistics facet
+   * @return the number of instances per state for each definition and operation
+   */
+  static Map<String, Map<WorkflowState, Long>> getStateCounts(FacetField statisticsFacet) {
+    Map<String, Map<WorkflowState, Long>> stateCounts = new HashMap<String, Map<WorkflowState, Long>>();
+    if (statisticsFacet == null || statisticsFacet.getValues() == null)
+      return stateCounts;
+    for (Count value : statisticsFacet.getValues()) {
+      if (value.getCount() == 0)
+        continue;
+      int stateIndex = value.getName().lastIndexOf(STATISTICS_SEPARATOR) + 1;
+      if (stateIndex == 0) {
+        logger.warn("Ignoring malformed workflow statistics value '{}'", value.getName());
+        continue;
+      }
+      String prefix = value.getName().substring(0, stateIndex);
+      WorkflowState state = WorkflowState.valueOf(value.getName().substring(stateIndex).toUpperCase());
+      Map<WorkflowState, Long> states = stateCounts.get(prefix);
+      if (states == null) {
+        states = new EnumMap<WorkflowState, Long>(WorkflowState.class);
+        stateCounts.put(prefix, states);
+      }
+      states.put(state, value.getCount());
+    }
+    return stateCounts;
+  }
+
   /**
    * Appends query parameters to a solr query
    *
@@ -996,23 +1137,8 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
   public WorkflowSet getWorkflowInstances(WorkflowQuery query, String action, boolean applyPermissions)
           throws WorkflowDatabaseException {
     int count = query.getCount() > 0 ? (int) query.getCount() : 20; // default to 20 items if not specified
-    int startIndex = query.getStartPage() > 0 ? (int) query.getStartPage() * count : (int) query.getStartIndex();
-
-    SolrQuery solrQuery = new SolrQuery();
-    solrQuery.setRows(count);
-    solrQuery.setStart(startIndex);
-
-    String solrQueryString = createQuery(query, action, applyPermissions);
-    solrQuery.setQuery(solrQueryString);
-
-    if (query.getSort() != null) {
-      ORDER order = query.isSortAscending() ? ORDER.asc : ORDER.desc;
-      solrQuery.addSortField(getSortField(query.getSort()) + "_sort", order);
-    }
-
-    if (!Sort.DATE_CREATED.equals(query.getSort())) {
-      solrQuery.addSortField(getSortField(Sort.DATE_CREATED) + "_sort", ORDER.desc);
-    }
+    SolrQuery solrQuery = createSolrQuery(query, count, action, applyPermissions);
+    solrQuery.setFields(ID_KEY, XML_KEY);
 
     long totalHits;
     long time = System.currentTimeMillis();
@@ -1031,11 +1157,10 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
 
       // Iterate through the results
       for (SolrDocument doc : items) {
-        String xml = (String) doc.get(XML_KEY);
         try {
-          set.addItem(WorkflowParser.parseWorkflowInstance(xml));
+          set.addItem(getWorkflowInstance(doc));
         } catch (Exception e) {
-          throw new IllegalStateException("can not parse workflow xml", e);
+          throw new IllegalStateException("can not parse workflow " + doc.get(ID_KEY), e);
         }
       }
     } catch (Exception e) {
@@ -1046,6 +1171,117 @@ public class WorkflowServiceSolrIndex implements WorkflowServiceIndex {
     return set;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * @see org.opencastproject.workflow.impl.WorkflowServiceIndex#getWorkflowInstanceSummaries(org.opencastproject.workflow.api.WorkflowQuery,
+   *      String, boolean)
+   */
+  @Override
+  public List<WorkflowInstanceSummary> getWorkflowInstanceSummaries(WorkflowQuery query, String action,
+          boolean applyPermissions) throws WorkflowDatabaseException {
+    int count = query.getCount() > 0 ? (int) query.getCount() : 20; // default to 20 items if not specified
+    SolrQuery solrQuery = createSolrQuery(query, count, action, applyPermissions);
+    solrQuery.setFields(ID_KEY, WORKFLOW_DEFINITION_KEY, STATE_KEY, OPERATION_KEY, MEDIAPACKAGE_KEY, SERIES_ID_KEY);
+
+    long time = System.currentTimeMillis();
+    List<WorkflowInstanceSummary> summaries = new ArrayList<WorkflowInstanceSummary>();
+    try {
+      SolrDocumentList items = solrServer.query(solrQuery).getResults();
+      Map<String, Integer> incomplete = new HashMap<String, Integer>();
+      for (SolrDocument doc : items) {
+        String id = (String) doc.get(ID_KEY);
+
+        // Documents of former versions don't store the media package, those instances are loaded below
+        if (doc.get(MEDIAPACKAGE_KEY) == null) {
+          incomplete.put(id, summaries.size());
+          summaries.add(null);
+          continue;
+        }
+
+        String operation = (String) doc.get(OPERATION_KEY);
+        summaries.add(new WorkflowInstanceSummary(Long.parseLong(id), (String) doc.get(WORKFLOW_DEFINITION_KEY),
+                WorkflowState.valueOf(((String) doc.get(STATE_KEY)).toUpperCase()),
+                NO_OPERATION_KEY.equals(operation) ? null : operation, (String) doc.get(MEDIAPACKAGE_KEY),
+                (String) doc.get(SERIES_ID_KEY)));
+      }
+
+      if (!incomplete.isEmpty()) {
+        StringBuilder ids = new StringBuilder();
+        for (String id : incomplete.keySet()) {
+          ids.append(ids.length() == 0 ? "" : " OR ").append(escapeQueryChars(id));
+        }
+        SolrQuery instanceQuery = new SolrQuery(ID_KEY + ":(" + ids + ")");
+        instanceQuery.setFields(ID_KEY, XML_KEY);
+        instanceQuery.setRows(incomplete.size());
+        for (SolrDocument doc : solrServer.query(instanceQuery).getResults()) {
+          Integer position = incomplete.get((String) doc.get(ID_KEY));
+          if (position != null)
+            summaries.set(position, WorkflowInstanceSummary.fromWorkflowInstance(getWorkflowInstance(doc)));
+        }
+        // Instances that have been removed in the meantime
+        summaries.removeAll(Collections.singleton(null));
+      }
+    } catch (Exception e) {
+      throw new WorkflowDatabaseException(e);
+    }
+    logger.debug("Workflow summary query took {} ms", System.currentTimeMillis() - time);
+    return summaries;
+  }
+
+  /**
+   * Creates the solr query for a workflow query, including paging and sorting.
+   *
+   * @param query
+   *          the workflow query
+   * @param count
+   *          the number of results to return
+   * @param action
+   *          the action that the current user needs to be allowed to perform
+   * @param applyPermissions
+   *          whether to restrict the results to the workflows the current user has access to
+   * @return the solr query
+   * @throws WorkflowDatabaseException
+   *           if the query can't be created
+   */
+  private SolrQuery createSolrQuery(WorkflowQuery query, int count, String action, boolean applyPermissions)
+          throws WorkflowDatabaseException {
+    int startIndex = query.getStartPage() > 0 ? (int) query.getStartPage() * count : (int) query.getStartIndex();
+
+    SolrQuery solrQuery = new SolrQuery();
+    solrQuery.setRows(count);
+    solrQuery.setStart(startIndex);
+
+    String solrQueryString = createQuery(query, action, applyPermissions);
+    solrQuery.setQuery(solrQueryString);
+
+    if (query.getSort() != null) {
+      ORDER order = query.isSortAscending() ? ORDER.asc : ORDER.desc;
+      solrQuery.addSortField(getSortField(query.getSort()) + "_sort", order);
+    }
+
+    if (!Sort.DATE_CREATED.equals(query.getSort())) {
+      solrQuery.addSortField(getSortField(Sort.DATE_CREATED) + "_sort", ORDER.desc);
+    }
+    return solrQuery;
+  }
+
+  /**
+   * Reads the workflow instance from a solr document.
+   *
+   * @param doc
+   *          the solr document
+   * @return the workflow instance
+   * @throws WorkflowParsingException
+   *           if the workflow instance can't be read
+   */
+  static WorkflowInstance getWorkflowInstance(SolrDocument doc) throws WorkflowParsingException {
+    String xml = (String) doc.get(XML_KEY);
+    if (xml == null)
+      throw new WorkflowParsingException("Workflow " + doc.get(ID_KEY) + " has not been stored in the index");
+    return WorkflowParser.parseWorkflowInstance(xml);
+  }
+
   /**
    * {@inheritDoc}
    *
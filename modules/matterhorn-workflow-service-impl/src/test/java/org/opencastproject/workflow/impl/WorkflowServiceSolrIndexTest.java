@@ -22,6 +22,8 @@
 package org.opencastproject.workflow.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.opencastproject.job.api.Job;
 import org.opencastproject.job.api.JobImpl;
@@ -43,6 +45,9 @@ import org.opencastproject.workflow.api.WorkflowQuery;
 import org.opencastproject.workflow.api.WorkflowService;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.FacetField;
+import org.apache.solr.common.SolrInputDocument;
 import org.easymock.EasyMock;
 import org.junit.After;
 import org.junit.Before;
@@ -51,6 +56,7 @@ import org.junit.Test;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Test cases for the implementation at {@link WorkflowServiceSolrIndex}.
@@ -182,4 +188,74 @@ public class WorkflowServiceSolrIndexTest {
     assertEquals(expected, solrQuery);
   }
 
+  /**
+   * Tests the values of the statistics field
+   */
+  @Test
+  public void testStatisticsKey() throws Exception {
+    assertEquals("full|encode|running", WorkflowServiceSolrIndex.getStatisticsKey("Full", "Encode",
+            WorkflowState.RUNNING));
+    assertEquals("full|encode|", WorkflowServiceSolrIndex.getStatisticsKey("Full", "Encode", null));
+  }
+
+  /**
+   * Tests whether the statistics facet is split into the number of instances per definition, operation and state
+   */
+  @Test
+  public void testStateCounts() throws Exception {
+    FacetField facet = new FacetField("statistics");
+    facet.add("full|encode|running", 2);
+    facet.add("full|encode|paused", 1);
+    facet.add("full|publish|succeeded", 0);
+    facet.add("schedule|capture|failed", 4);
+    facet.add("malformed", 3);
+
+    Map<String, Map<WorkflowState, Long>> stateCounts = WorkflowServiceSolrIndex.getStateCounts(facet);
+    assertEquals(2, stateCounts.size());
+    assertEquals(2, stateCounts.get("full|encode|").size());
+    assertEquals(2L, stateCounts.get("full|encode|").get(WorkflowState.RUNNING).longValue());
+    assertEquals(1L, stateCounts.get("full|encode|").get(WorkflowState.PAUSED).longValue());
+    assertEquals(4L, stateCounts.get("schedule|capture|").get(WorkflowState.FAILED).longValue());
+    assertFalse(stateCounts.containsKey("full|publish|"));
+    assertTrue(WorkflowServiceSolrIndex.getStateCounts(null).isEmpty());
+  }
+
+  /**
+   * Tests whether instances indexed without the statistics field are re-indexed once only
+   */
+  @Test
+  public void testStatisticsAreAddedOnce() throws Exception {
+    File marker = new File(dao.solrRoot, WorkflowServiceSolrIndex.STATISTICS_MIGRATION_MARKER);
+    assertTrue(marker.exists());
+
+    // Add an instance the way it was indexed before the statistics field existed
+    WorkflowInstanceImpl workflow = new WorkflowInstanceImpl();
+    workflow.setId(456);
+    workflow.setTemplate("full");
+    workflow.setCreator(SecurityServiceStub.DEFAULT_ORG_ADMIN);
+    workflow.setOrganization(new DefaultOrganization());
+    workflow.setState(WorkflowState.SUCCEEDED);
+    workflow.setMediaPackage(MediaPackageBuilderFactory.newInstance().newMediaPackageBuilder().createNew());
+    SolrInputDocument doc = dao.createDocument(workflow);
+    doc.removeField("statistics");
+    dao.solrServer.add(doc);
+    dao.solrServer.commit();
+    assertEquals(1, countWithoutStatistics());
+
+    // The index has been migrated already
+    dao.deactivate();
+    dao.activate("System Admin");
+    assertEquals(1, countWithoutStatistics());
+
+    FileUtils.forceDelete(marker);
+    dao.deactivate();
+    dao.activate("System Admin");
+    assertEquals(0, countWithoutStatistics());
+    assertTrue(marker.exists());
+  }
+
+  private long countWithoutStatistics() throws Exception {
+    return dao.solrServer.query(new SolrQuery("*:* -statistics:[* TO *]")).getResults().getNumFound();
+  }
+
 }
@@ -34,6 +34,7 @@ import org.opencastproject.util.data.Option;
 import org.opencastproject.util.jmx.JmxUtil;
 import org.opencastproject.workingfilerepository.api.PathMappable;
 import org.opencastproject.workingfilerepository.api.WorkingFileRepository;
+import org.opencastproject.workingfilerepository.impl.jmx.WriteStatistics;
 import org.opencastproject.workingfilerepository.jmx.WorkingFileRepositoryBean;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -52,9 +53,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.security.DigestInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
 import javax.management.ObjectInstance;
 
@@ -77,15 +83,30 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     }
   };
 
+  /** The extension of the temporary files that content is written to */
+  private static final String TMP_EXTENSION = ".part";
+
+  /** The size of the buffer used to write files */
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
   /** Working file repository JMX type */
   private static final String JMX_WORKING_FILE_REPOSITORY_TYPE = "WorkingFileRepository";
 
+  /** Write statistics JMX type */
+  private static final String JMX_WRITE_STATISTICS_TYPE = "WorkingFileRepositoryWriteStatistics";
+
   /** The JMX working file repository bean */
   private WorkingFileRepositoryBean workingFileRepositoryBean = new WorkingFileRepositoryBean(this);
 
   /** The JMX bean object instance */
   private ObjectInstance registeredMXBean;
 
+  /** The statistics about the files written to the repository */
+  private final WriteStatistics writeStatistics = new WriteStatistics();
+
+  /** The JMX write statistics object instance */
+  private ObjectInstance registeredWriteStatisticsMXBean;
+
   /** The remote service manager */
   protected ServiceRegistry remoteServiceManager;
 
@@ -145,6 +166,7 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     }
 
     registeredMXBean = JmxUtil.registerMXBean(workingFileRepositoryBean, JMX_WORKING_FILE_REPOSITORY_TYPE);
+    registeredWriteStatisticsMXBean = JmxUtil.registerMXBean(writeStatistics, JMX_WRITE_STATISTICS_TYPE);
 
     logger.info(getDiskSpace());
   }
@@ -154,6 +176,7 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
    */
   public void deactivate() {
     JmxUtil.unregisterMXBean(registeredMXBean);
+    JmxUtil.unregisterMXBean(registeredWriteStatisticsMXBean);
   }
 
   /**
@@ -261,64 +284,38 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
           throws IOException {
     checkPathSafe(mediaPackageID);
     checkPathSafe(mediaPackageElementID);
-    File f = null;
     File dir = getElementDirectory(mediaPackageID, mediaPackageElementID);
-    if (dir.exists()) {
-      // clear the directory
-      File[] filesToDelete = dir.listFiles();
-      if (filesToDelete != null && filesToDelete.length > 0) {
-        for (File fileToDelete : filesToDelete) {
-          if (!fileToDelete.delete()) {
-            throw new IllegalStateException("Unable to delete file: " + fileToDelete.getAbsolutePath());
-          }
-        }
-      }
-    } else {
+    boolean created = false;
+    if (!dir.exists()) {
       logger.debug("Attempting to create a new directory at {}", dir.getAbsolutePath());
       FileUtils.forceMkdir(dir);
+      created = true;
     }
-    f = new File(dir, PathSupport.toSafeName(filename));
+    File f = new File(dir, PathSupport.toSafeName(filename));
+    File md5File = getMd5File(f);
     logger.debug("Attempting to write a file to {}", f.getAbsolutePath());
-    FileOutputStream out = null;
     try {
-      if (!f.exists()) {
-        f.createNewFile();
-      } else {
-        logger.debug("Attempting to overwrite the file at {}", f.getAbsolutePath());
-      }
-      out = new FileOutputStream(f);
-
-      // Wrap the input stream and copy the input stream to the file
-      MessageDigest messageDigest = null;
-      DigestInputStream dis = null;
-      try {
-        messageDigest = MessageDigest.getInstance("MD5");
-        dis = new DigestInputStream(in, messageDigest);
-        IOUtils.copy(dis, out);
-      } catch (NoSuchAlgorithmException e1) {
-        logger.error("Unable to create md5 message digest");
-      }
-
-      // Store the hash
-      String md5 = Checksum.convertToHex(dis.getMessageDigest().digest());
-      File md5File = null;
-      try {
-        md5File = getMd5File(f);
-        FileUtils.writeStringToFile(md5File, md5);
-      } catch (IOException e) {
-        FileUtils.deleteQuietly(md5File);
-        throw e;
-      } finally {
-        IOUtils.closeQuietly(dis);
-      }
-
+      write(in, f);
     } catch (IOException e) {
-      FileUtils.deleteDirectory(dir);
+      // The previous version of the element, if any, is left untouched
+      if (created)
+        FileUtils.deleteQuietly(dir);
       throw e;
     } finally {
-      IOUtils.closeQuietly(out);
       IOUtils.closeQuietly(in);
     }
+
+    // The element has been replaced, remove what is left of its previous version
+    File[] filesToDelete = dir.listFiles();
+    if (filesToDelete != null) {
+      for (File fileToDelete : filesToDelete) {
+        if (fileToDelete.equals(f) || fileToDelete.equals(md5File) || fileToDelete.getName().endsWith(TMP_EXTENSION))
+          continue;
+        if (!fileToDelete.delete()) {
+          throw new IllegalStateException("Unable to delete file: " + fileToDelete.getAbsolutePath());
+        }
+      }
+    }
     return getURI(mediaPackageID, mediaPackageElementID, filename);
   }
 
@@ -565,53 +562,102 @@ public class WorkingFileRepositoryImpl implements WorkingFileRepository, PathMap
     File f = new File(PathSupport.concat(new String[]{rootDirectory, COLLECTION_PATH_PREFIX, collectionId,
             PathSupport.toSafeName(fileName)}));
     logger.debug("Attempting to write a file to {}", f.getAbsolutePath());
-    FileOutputStream out = null;
     try {
       if (!f.exists()) {
-        logger.debug("Attempting to create a new file at {}", f.getAbsolutePath());
         File collectionDirectory = getCollectionDirectory(collectionId, true);
         if (!collectionDirectory.exists()) {
           logger.debug("Attempting to create a new directory at {}", collectionDirectory.getAbsolutePath());
           FileUtils.forceMkdir(collectionDirectory);
         }
-        f.createNewFile();
       } else {
         logger.debug("Attempting to overwrite the file at {}", f.getAbsolutePath());
       }
-      out = new FileOutputStream(f);
+      write(in, f);
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+    return getCollectionURI(collectionId, fileName);
+  }
 
-      // Wrap the input stream and copy the input stream to the file
-      MessageDigest messageDigest = null;
-      DigestInputStream dis = null;
-      try {
-        messageDigest = MessageDigest.getInstance("MD5");
-        dis = new DigestInputStream(in, messageDigest);
-        IOUtils.copy(dis, out);
-      } catch (NoSuchAlgorithmException e1) {
-        logger.error("Unable to create md5 message digest");
+  /**
+   * Writes the content of a stream to a file and stores the md5 hash of the content next to it.
+   * <p>
+   * The content is copied through a buffer and hashed in the same pass. The content and its hash are written to
+   * temporary files in the target directory, which are then renamed, so that the file and its hash only show up once
+   * they are complete. An existing file is replaced, and left untouched if writing the new content fails.
+   *
+   * @param in
+   *         the content
+   * @param f
+   *         the target file
+   * @return the md5 hash of the content
+   * @throws IOException
+   *         if the file cannot be written
+   */
+  protected String write(InputStream in, File f) throws IOException {
+    final long start = System.nanoTime();
+    final File tmp = new File(f.getParentFile(), "." + f.getName() + TMP_EXTENSION);
+    final File md5File = getMd5File(f);
+    final File md5Tmp = new File(f.getParentFile(), "." + md5File.getName() + TMP_EXTENSION);
+    final MessageDigest digest = DigestUtils.getMd5Digest();
+    final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    long bytes = 0L;
+    ReadableByteChannel src = null;
+    FileOutputStream out = null;
+    try {
+      // Read directly from the channel of file streams, wrap any other stream
+      src = in instanceof FileInputStream ? ((FileInputStream) in).getChannel() : Channels.newChannel(in);
+      out = new FileOutputStream(tmp);
+      final FileChannel dst = out.getChannel();
+      buffer.clear();
+      while (src.read(buffer) >= 0) {
+        buffer.flip();
+        digest.update(buffer.array(), buffer.arrayOffset(), buffer.limit());
+        while (buffer.hasRemaining()) {
+          bytes += dst.write(buffer);
+        }
+        buffer.clear();
       }
+      out.close();
 
-      // Store the hash
-      String md5 = Checksum.convertToHex(dis.getMessageDigest().digest());
-      File md5File = null;
-      try {
-        md5File = getMd5File(f);
-        FileUtils.writeStringToFile(md5File, md5);
-      } catch (IOException e) {
-        FileUtils.deleteQuietly(md5File);
-        throw e;
-      } finally {
-        IOUtils.closeQuietly(dis);
-      }
+      final String md5 = Checksum.convertToHex(digest.digest());
+      FileUtils.writeStringToFile(md5Tmp, md5);
 
+      // Both files are complete, replace the previous version
+      moveIntoPlace(tmp, f);
+      moveIntoPlace(md5Tmp, md5File);
+
+      final long nanos = System.nanoTime() - start;
+      writeStatistics.successful(bytes, nanos);
+      logger.debug("Wrote {} bytes to {} in {} ms", new Object[] { bytes, f, nanos / 1000000L });
+      return md5;
     } catch (IOException e) {
-      FileUtils.deleteQuietly(f);
+      writeStatistics.failed();
+      FileUtils.deleteQuietly(tmp);
+      FileUtils.deleteQuietly(md5Tmp);
       throw e;
     } finally {
       IOUtils.closeQuietly(out);
-      IOUtils.closeQuietly(in);
+      IOUtils.closeQuietly(src);
+    }
+  }
+
+  /**
+   * Renames a temporary file to its final name, replacing the file of that name. The rename is atomic where supported.
+   *
+   * @param tmp
+   *         the temporary file
+   * @param f
+   *         the target file
+   * @throws IOException
+   *         if the file cannot be renamed
+   */
+  private static void moveIntoPlace(File tmp, File f) throws IOException {
+    try {
+      Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
     }
-    return getCollectionURI(collectionId, fileName);
   }
 
   /**
@@ -0,0 +1,109 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.workingfilerepository.impl.jmx;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WriteStatistics implements WriteStatisticsMXBean {
+
+  private final AtomicLong successful = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong totalBytes = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private volatile long lastThroughput = 0L;
+
+  /**
+   * @see org.opencastproject.workingfilerepository.impl.jmx.WriteStatisticsMXBean#getSuccessfulWrites()
+   */
+  @Override
+  public long getSuccessfulWrites() {
+    return successful.get();
+  }
+
+  /**
+   * @see org.opencastproject.workingfilerepository.impl.jmx.WriteStatisticsMXBean#getFailedWrites()
+   */
+  @Override
+  public long getFailedWrites() {
+    return failed.get();
+  }
+
+  /**
+   * @see org.opencastproject.workingfilerepository.impl.jmx.WriteStatisticsMXBean#getTotalBytes()
+   */
+  @Override
+  public long getTotalBytes() {
+    return totalBytes.get();
+  }
+
+  /**
+   * @see org.opencastproject.workingfilerepository.impl.jmx.WriteStatisticsMXBean#getTotalWriteTime()
+   */
+  @Override
+  public long getTotalWriteTime() {
+    return totalNanos.get() / 1000000L;
+  }
+
+  /**
+   * @see org.opencastproject.workingfilerepository.impl.jmx.WriteStatisticsMXBean#getAverageThroughput()
+   */
+  @Override
+  public long getAverageThroughput() {
+    return throughput(totalBytes.get(), totalNanos.get());
+  }
+
+  /**
+   * @see org.opencastproject.workingfilerepository.impl.jmx.WriteStatisticsMXBean#getLastThroughput()
+   */
+  @Override
+  public long getLastThroughput() {
+    return lastThroughput;
+  }
+
+  /**
+   * Records a file that has been written successfully.
+   *
+   * @param bytes
+   *          the size of the file
+   * @param nanos
+   *          the time it took to write the file, in nanoseconds
+   */
+  public void successful(long bytes, long nanos) {
+    successful.incrementAndGet();
+    totalBytes.addAndGet(bytes);
+    totalNanos.addAndGet(nanos);
+    lastThroughput = throughput(bytes, nanos);
+  }
+
+  /**
+   * Records a file that could not be written.
+   */
+  public void failed() {
+    failed.incrementAndGet();
+  }
+
+  private static long throughput(long bytes, long nanos) {
+    return nanos > 0 ? (long) (bytes * 1000000000.0 / nanos) : 0L;
+  }
+
+}
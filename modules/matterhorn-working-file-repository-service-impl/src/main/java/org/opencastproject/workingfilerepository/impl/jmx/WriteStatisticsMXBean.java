@@ -0,0 +1,72 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.workingfilerepository.impl.jmx;
+
+/**
+ * JMX Bean interface exposing statistics about the files written to the working file repository.
+ */
+public interface WriteStatisticsMXBean {
+
+  /**
+   * Gets the number of files that have been written successfully
+   *
+   * @return the number of files
+   */
+  long getSuccessfulWrites();
+
+  /**
+   * Gets the number of files that could not be written
+   *
+   * @return the number of files
+   */
+  long getFailedWrites();
+
+  /**
+   * Gets the total number of bytes written
+   *
+   * @return the number of bytes
+   */
+  long getTotalBytes();
+
+  /**
+   * Gets the total time spent writing files, including the time spent waiting for the incoming data
+   *
+   * @return the time in milliseconds
+   */
+  long getTotalWriteTime();
+
+  /**
+   * Gets the average throughput of all successful writes
+   *
+   * @return the throughput in bytes per second
+   */
+  long getAverageThroughput();
+
+  /**
+   * Gets the throughput of the last successful write
+   *
+   * @return the throughput in bytes per second
+   */
+  long getLastThroughput();
+
+}
@@ -25,18 +25,25 @@ package org.opencastproject.workingfilerepository.impl;
 import static org.junit.Assert.fail;
 
 import org.opencastproject.util.NotFoundException;
+import org.opencastproject.util.PathSupport;
 import org.opencastproject.util.UrlSupport;
+import org.opencastproject.workingfilerepository.api.WorkingFileRepository;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Random;
 
 import junit.framework.Assert;
 
@@ -189,4 +196,86 @@ public class WorkingFileRepositoryTest {
       IOUtils.closeQuietly(in);
     }
   }
+
+  @Test
+  public void testPutLargeFile() throws Exception {
+    // Larger than the write buffer and not a multiple of its size
+    byte[] content = new byte[3 * 1024 * 1024 + 17];
+    new Random(42).nextBytes(content);
+    repo.put(mediaPackageID, "large-element", "large.bin", new ByteArrayInputStream(content));
+
+    Assert.assertEquals(DigestUtils.md5Hex(content), repo.getMediaPackageElementDigest(mediaPackageID, "large-element"));
+    InputStream in = null;
+    try {
+      in = repo.get(mediaPackageID, "large-element");
+      Assert.assertTrue(Arrays.equals(content, IOUtils.toByteArray(in)));
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+
+    // Files are streamed from their channel
+    File source = new File(repo.rootDirectory, "source.bin");
+    FileUtils.writeByteArrayToFile(source, content);
+    repo.putInCollection(collectionId, "large.bin", new FileInputStream(source));
+    Assert.assertEquals(DigestUtils.md5Hex(content), repo.getCollectionElementDigest(collectionId, "large.bin"));
+  }
+
+  @Test
+  public void testFailedPutKeepsExistingFile() throws Exception {
+    InputStream failing = new InputStream() {
+      private int count = 0;
+
+      @Override
+      public int read() throws IOException {
+        if (++count > 1024)
+          throw new IOException("Connection reset");
+        return count & 0xff;
+      }
+    };
+    String digest = repo.getCollectionElementDigest(collectionId, filename);
+    try {
+      repo.putInCollection(collectionId, filename, failing);
+      fail("Writing a failing stream must fail");
+    } catch (IOException e) {
+      // expected
+    }
+    Assert.assertEquals(digest, repo.getCollectionElementDigest(collectionId, filename));
+    File collectionDirectory = new File(PathSupport.concat(new String[] { repo.rootDirectory,
+            WorkingFileRepository.COLLECTION_PATH_PREFIX, collectionId }));
+    Assert.assertEquals(2, collectionDirectory.list().length);
+  }
+
+  @Test
+  public void testFailedPutKeepsExistingElement() throws Exception {
+    InputStream failing = new InputStream() {
+      private int count = 0;
+
+      @Override
+      public int read() throws IOException {
+        if (++count > 1024)
+          throw new IOException("Connection reset");
+        return count & 0xff;
+      }
+    };
+    String digest = repo.getMediaPackageElementDigest(mediaPackageID, mediaPackageElementID);
+    try {
+      repo.put(mediaPackageID, mediaPackageElementID, "other.gif", failing);
+      fail("Writing a failing stream must fail");
+    } catch (IOException e) {
+      // expected
+    }
+    Assert.assertEquals(digest, repo.getMediaPackageElementDigest(mediaPackageID, mediaPackageElementID));
+    File elementDirectory = new File(PathSupport.concat(new String[] { repo.rootDirectory,
+            WorkingFileRepository.MEDIAPACKAGE_PATH_PREFIX, mediaPackageID, mediaPackageElementID }));
+    Assert.assertEquals(2, elementDirectory.list().length);
+    Assert.assertTrue(new File(elementDirectory, "opencast_header.gif").isFile());
+
+    // A successful put replaces the previous version
+    byte[] content = "new content".getBytes("UTF-8");
+    repo.put(mediaPackageID, mediaPackageElementID, "other.gif", new ByteArrayInputStream(content));
+    Assert.assertEquals(DigestUtils.md5Hex(content),
+            repo.getMediaPackageElementDigest(mediaPackageID, mediaPackageElementID));
+    Assert.assertEquals(2, elementDirectory.list().length);
+    Assert.assertTrue(new File(elementDirectory, "other.gif").isFile());
+  }
 }
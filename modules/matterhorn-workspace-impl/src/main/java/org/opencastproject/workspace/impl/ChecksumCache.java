@@ -0,0 +1,187 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.workspace.impl;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Keeps the md5 checksums of workspace files in sidecar files next to them, so that a file does not have to be read
+ * again every time its checksum is needed.
+ * <p>
+ * A sidecar records the size and the modification time of the file it has been computed for and is ignored as soon as
+ * either of them changes. Getting the checksum of a file that has not changed therefore only costs a stat call and the
+ * read of the small sidecar.
+ */
+final class ChecksumCache {
+
+  /** The logging facility */
+  private static final Logger logger = LoggerFactory.getLogger(ChecksumCache.class);
+
+  /** The extension of the sidecar files, same as the one used by the working file repository */
+  static final String MD5_EXTENSION = ".md5";
+
+  private ChecksumCache() {
+  }
+
+  /**
+   * Returns the md5 checksum of a file, either from its sidecar or by hashing the file and storing the result.
+   *
+   * @param file
+   *          the file
+   * @return the md5 checksum
+   * @throws IOException
+   *           if the file cannot be read
+   */
+  static String md5(File file) throws IOException {
+    String md5 = get(file);
+    if (md5 != null)
+      return md5;
+
+    InputStream in = null;
+    try {
+      in = new FileInputStream(file);
+      md5 = DigestUtils.md5Hex(in);
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+    put(file, md5);
+    return md5;
+  }
+
+  /**
+   * Returns the cached md5 checksum of a file.
+   *
+   * @param file
+   *          the file
+   * @return the checksum or <code>null</code> if there is no sidecar or if the file has changed since it was written
+   */
+  static String get(File file) {
+    return read(getSidecar(file), file);
+  }
+
+  /** Reads a sidecar and returns its checksum if it still matches the size and the modification time of the file. */
+  private static String read(File sidecar, File file) {
+    if (!sidecar.isFile())
+      return null;
+    try {
+      String[] fields = StringUtils.split(FileUtils.readFileToString(sidecar, "UTF-8").trim(), ' ');
+      if (fields.length != 3)
+        return null;
+      if (Long.parseLong(fields[1]) != file.length() || Long.parseLong(fields[2]) != file.lastModified())
+        return null;
+      return fields[0];
+    } catch (NumberFormatException e) {
+      logger.debug("Ignoring malformed checksum sidecar {}", sidecar);
+      return null;
+    } catch (IOException e) {
+      logger.debug("Unable to read checksum sidecar {}: {}", sidecar, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Stores the md5 checksum of a file in its sidecar. Failing to do so is not an error, the checksum will be computed
+   * again the next time it is needed.
+   *
+   * @param file
+   *          the file, which must not be modified after its checksum has been computed
+   * @param md5
+   *          the md5 checksum of the file, may be <code>null</code> to remove the sidecar
+   */
+  static void put(File file, String md5) {
+    if (md5 == null || !file.isFile()) {
+      delete(file);
+      return;
+    }
+    File sidecar = getSidecar(file);
+    try {
+      FileUtils.writeStringToFile(sidecar, md5 + " " + file.length() + " " + file.lastModified(), "UTF-8");
+    } catch (IOException e) {
+      logger.warn("Unable to write checksum sidecar {}: {}", sidecar, e.getMessage());
+      FileUtils.deleteQuietly(sidecar);
+    }
+  }
+
+  /**
+   * Stores the checksum that the working file repository keeps for a file in the sidecar of its workspace copy.
+   *
+   * @param repositoryFile
+   *          the file in the working file repository
+   * @param file
+   *          the workspace copy or link of the repository file
+   */
+  static void putFromRepository(File repositoryFile, File file) {
+    File repositorySidecar = getSidecar(repositoryFile);
+    String md5 = null;
+    // The repository writes the checksum after the file, an older checksum belongs to a previous version
+    if (repositorySidecar.isFile() && repositorySidecar.lastModified() >= repositoryFile.lastModified()) {
+      try {
+        md5 = StringUtils.trimToNull(FileUtils.readFileToString(repositorySidecar, "UTF-8"));
+      } catch (IOException e) {
+        logger.debug("Unable to read checksum of {}: {}", repositoryFile, e.getMessage());
+      }
+    }
+    put(file, md5);
+  }
+
+  /**
+   * Moves the sidecar of a file that has been moved.
+   *
+   * @param src
+   *          the former location of the file
+   * @param dst
+   *          the new location of the file
+   */
+  static void move(File src, File dst) {
+    // moving a file keeps its size and modification time, so the sidecar of the source is still valid
+    String md5 = read(getSidecar(src), dst);
+    delete(src);
+    put(dst, md5);
+  }
+
+  /**
+   * Removes the sidecar of a file.
+   *
+   * @param file
+   *          the file
+   */
+  static void delete(File file) {
+    FileUtils.deleteQuietly(getSidecar(file));
+  }
+
+  /** Returns the sidecar of a file. */
+  static File getSidecar(File file) {
+    return new File(file.getParentFile(), file.getName() + MD5_EXTENSION);
+  }
+
+}
@@ -55,6 +55,7 @@ import org.opencastproject.workingfilerepository.api.WorkingFileRepository;
 import org.opencastproject.workspace.api.Workspace;
 import org.opencastproject.workspace.impl.jmx.WorkspaceBean;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -69,12 +70,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.URI;
+import java.security.DigestOutputStream;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -291,6 +291,7 @@ public final class WorkspaceImpl implements Workspace {
     } else {
       FileSupport.copy(src, dst);
     }
+    ChecksumCache.putFromRepository(src, dst);
   }
 
   /** {@link #copyOrLink(java.io.File, java.io.File)} as an effect. <code>src -> dst -> ()</code> */
@@ -328,7 +329,7 @@ public final class WorkspaceImpl implements Workspace {
         return right(some(downloadTo(response, dst)));
       default:
         logger.warn(format("Received unexpected response status %s while trying to download from %s", status, url));
-        FileUtils.deleteQuietly(dst);
+        deleteQuietly(dst);
         return right(none(File.class));
     }
   }
@@ -350,7 +351,7 @@ public final class WorkspaceImpl implements Workspace {
   private HttpGet createGetRequest(final URI src, final File dst, Tuple<String, String>... params) throws IOException {
     final String url = src.toString();
     final HttpGet get = new HttpGet(url);
-    // if the destination file already exists add the If-None-Match header
+    // if the destination file already exists add the If-None-Match header, the checksum is usually cached
     if (dst.isFile() && dst.length() > 0) {
       get.setHeader("If-None-Match", md5(dst));
     }
@@ -380,7 +381,7 @@ public final class WorkspaceImpl implements Workspace {
           for (File f : ff) {
             return f;
           }
-          FileUtils.deleteQuietly(dst);
+          deleteQuietly(dst);
           // none
           throw new NotFoundException();
         }
@@ -393,7 +394,7 @@ public final class WorkspaceImpl implements Workspace {
       // left: an exception occurred
       for (Exception e : result.left()) {
         logger.warn(format("Could not copy %s to %s: %s", src.toString(), dst.getAbsolutePath(), e.getMessage()));
-        FileUtils.deleteQuietly(dst);
+        deleteQuietly(dst);
         throw new NotFoundException(e);
       }
     }
@@ -413,7 +414,8 @@ public final class WorkspaceImpl implements Workspace {
   }
 
   /**
-   * Download content of an HTTP response to a file.
+   * Download content of an HTTP response to a file. The md5 checksum of the content is computed while downloading and
+   * cached along with the file.
    *
    * @return the destination file
    */
@@ -421,20 +423,25 @@ public final class WorkspaceImpl implements Workspace {
     // ignore return value
     dst.createNewFile();
     InputStream in = null;
-    OutputStream out = null;
+    DigestOutputStream out = null;
     try {
       in = response.getEntity().getContent();
-      out = new FileOutputStream(dst);
+      out = new DigestOutputStream(new FileOutputStream(dst), DigestUtils.getMd5Digest());
       IOUtils.copyLarge(in, out);
+    } catch (IOException e) {
+      ChecksumCache.delete(dst);
+      throw e;
     } finally {
       IoSupport.closeQuietly(in);
       IoSupport.closeQuietly(out);
     }
+    ChecksumCache.put(dst, Hex.encodeHexString(out.getMessageDigest().digest()));
     return dst;
   }
 
   /**
-   * Returns the md5 of a file
+   * Returns the md5 of a file. The checksum is read from the cache if the file has not been modified since it was last
+   * computed.
    *
    * @param file
    *          the source file
@@ -452,13 +459,7 @@ public final class WorkspaceImpl implements Workspace {
     if (!file.isFile())
       throw new IllegalArgumentException("File " + file.getAbsolutePath() + " can not be read");
 
-    InputStream in = null;
-    try {
-      in = new FileInputStream(file);
-      return DigestUtils.md5Hex(in);
-    } finally {
-      IOUtils.closeQuietly(in);
-    }
+    return ChecksumCache.md5(file);
   }
 
   @Override
@@ -487,6 +488,7 @@ public final class WorkspaceImpl implements Workspace {
     if (f.isFile()) {
       synchronized (lock) {
         File mpElementDir = f.getParentFile();
+        ChecksumCache.delete(f);
         FileUtils.forceDelete(f);
         FileSupport.delete(mpElementDir);
         // Also delete mediapackage itself when empty
@@ -517,7 +519,7 @@ public final class WorkspaceImpl implements Workspace {
 
     // Determine the target location in the workspace
     File workspaceFile = null;
-    FileOutputStream out = null;
+    DigestOutputStream out = null;
     synchronized (lock) {
       workspaceFile = toWorkspaceFile(uri);
       FileUtils.touch(workspaceFile);
@@ -532,16 +534,21 @@ public final class WorkspaceImpl implements Workspace {
               mediaPackageID, mediaPackageElementID);
       File workingFileRepoCopy = new File(workingFileRepoDirectory, safeFileName);
       FileSupport.link(workingFileRepoCopy, workspaceFile, true);
+      ChecksumCache.putFromRepository(workingFileRepoCopy, workspaceFile);
     } else {
       InputStream tee = null;
       try {
-        out = new FileOutputStream(workspaceFile);
+        out = new DigestOutputStream(new FileOutputStream(workspaceFile), DigestUtils.getMd5Digest());
         tee = new TeeInputStream(in, out, true);
         wfr.put(mediaPackageID, mediaPackageElementID, fileName, tee);
+      } catch (IOException e) {
+        ChecksumCache.delete(workspaceFile);
+        throw e;
       } finally {
         IOUtils.closeQuietly(tee);
         IOUtils.closeQuietly(out);
       }
+      ChecksumCache.put(workspaceFile, Hex.encodeHexString(out.getMessageDigest().digest()));
     }
     // wait until the file appears on the WFR node
     waitForResource(uri, HttpServletResponse.SC_OK, "File %s does not appear in WFR");
@@ -556,12 +563,12 @@ public final class WorkspaceImpl implements Workspace {
     // Determine the target location in the workspace
     InputStream tee = null;
     File tempFile = null;
-    FileOutputStream out = null;
+    DigestOutputStream out = null;
     try {
       synchronized (lock) {
         tempFile = toWorkspaceFile(uri);
         FileUtils.touch(tempFile);
-        out = new FileOutputStream(tempFile);
+        out = new DigestOutputStream(new FileOutputStream(tempFile), DigestUtils.getMd5Digest());
       }
 
       // Try hard linking first and fall back to tee-ing to both the working file repository and the workspace
@@ -573,17 +580,20 @@ public final class WorkspaceImpl implements Workspace {
                 collectionId);
         File workingFileRepoCopy = new File(workingFileRepoDirectory, safeFileName);
         FileSupport.link(workingFileRepoCopy, tempFile, true);
+        ChecksumCache.putFromRepository(workingFileRepoCopy, tempFile);
       } else {
         tee = new TeeInputStream(in, out, true);
         wfr.putInCollection(collectionId, fileName, tee);
       }
     } catch (IOException e) {
-      FileUtils.deleteQuietly(tempFile);
+      deleteQuietly(tempFile);
       throw e;
     } finally {
       IoSupport.closeQuietly(tee);
       IoSupport.closeQuietly(out);
     }
+    if (!linkingEnabled)
+      ChecksumCache.put(tempFile, Hex.encodeHexString(out.getMessageDigest().digest()));
     waitForResource(uri, HttpServletResponse.SC_OK, "File %s does not appear in WFR");
     return uri;
   }
@@ -617,6 +627,7 @@ public final class WorkspaceImpl implements Workspace {
       File copy = toWorkspaceFile(copyURI);
       FileUtils.forceMkdir(copy.getParentFile());
       FileSupport.link(original, copy);
+      ChecksumCache.put(copy, ChecksumCache.get(original));
     }
 
     // Tell working file repository
@@ -640,8 +651,9 @@ public final class WorkspaceImpl implements Workspace {
       URI copyURI = wfr.getURI(toMediaPackage, toMediaPackageElement, toFileName);
       File copy = toWorkspaceFile(copyURI);
       FileUtils.forceMkdir(copy.getParentFile());
-      FileUtils.deleteQuietly(copy);
+      deleteQuietly(copy);
       FileUtils.moveFile(original, copy);
+      ChecksumCache.move(original, copy);
       FileSupport.delete(original.getParentFile());
     }
     // move in WFR
@@ -661,7 +673,7 @@ public final class WorkspaceImpl implements Workspace {
     // local delete
     final File f = workspaceFile(WorkingFileRepository.COLLECTION_PATH_PREFIX, collectionId,
             PathSupport.toSafeName(fileName));
-    FileUtils.deleteQuietly(f);
+    deleteQuietly(f);
     FileSupport.delete(f.getParentFile());
     // delete in WFR
     try {
@@ -713,6 +725,12 @@ public final class WorkspaceImpl implements Workspace {
     return new File(path(cons(String.class, wfrRoot, path)));
   }
 
+  /** Delete a workspace file along with its cached checksum. */
+  private static void deleteQuietly(File file) {
+    ChecksumCache.delete(file);
+    FileUtils.deleteQuietly(file);
+  }
+
   /**
    * Returns the working file repository collection.
    * <p>
@@ -829,6 +847,7 @@ public final class WorkspaceImpl implements Workspace {
     for (File file : filesToDelete) {
       logger.info("Workspace cleanup: Deleting {}", file);
       FileSupport.delete(file);
+      ChecksumCache.delete(file);
       FileSupport.deleteHierarchyIfEmpty(rootDirecotry, file.getParentFile());
     }
     logger.debug("Finished cleanup of workspace!");
@@ -0,0 +1,117 @@
+/**
+ * Licensed to The Apereo Foundation under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ *
+ * The Apereo Foundation licenses this file to you under the Educational
+ * Community License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License
+ * at:
+ *
+ *   http://opensource.org/licenses/ecl2.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+
+
+package org.opencastproject.workspace.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+public class ChecksumCacheTest {
+
+  private static final String CONTENT = "Opencast";
+
+  private File root;
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    root = new File("." + File.separator + "target" + File.separator + "junit-checksum-cache");
+    FileUtils.forceMkdir(root);
+    file = new File(root, "video.mp4");
+    FileUtils.writeStringToFile(file, CONTENT, "UTF-8");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileUtils.deleteDirectory(root);
+  }
+
+  @Test
+  public void testChecksumIsCached() throws Exception {
+    assertNull(ChecksumCache.get(file));
+    assertEquals(DigestUtils.md5Hex(CONTENT), ChecksumCache.md5(file));
+    assertTrue(ChecksumCache.getSidecar(file).isFile());
+    assertEquals(DigestUtils.md5Hex(CONTENT), ChecksumCache.get(file));
+
+    // A cached checksum is returned as long as size and modification time don't change
+    ChecksumCache.put(file, "cached");
+    assertEquals("cached", ChecksumCache.md5(file));
+  }
+
+  @Test
+  public void testModifiedFileIsHashedAgain() throws Exception {
+    ChecksumCache.md5(file);
+    FileUtils.writeStringToFile(file, CONTENT + CONTENT, "UTF-8");
+    assertNull(ChecksumCache.get(file));
+    assertEquals(DigestUtils.md5Hex(CONTENT + CONTENT), ChecksumCache.md5(file));
+
+    ChecksumCache.put(file, "cached");
+    assertTrue(file.setLastModified(file.lastModified() - 60000L));
+    assertNull(ChecksumCache.get(file));
+  }
+
+  @Test
+  public void testMalformedSidecarIsIgnored() throws Exception {
+    FileUtils.writeStringToFile(ChecksumCache.getSidecar(file), "garbage", "UTF-8");
+    assertNull(ChecksumCache.get(file));
+    assertEquals(DigestUtils.md5Hex(CONTENT), ChecksumCache.md5(file));
+  }
+
+  @Test
+  public void testMoveAndDelete() throws Exception {
+    ChecksumCache.md5(file);
+    File moved = new File(root, "moved.mp4");
+    FileUtils.moveFile(file, moved);
+    ChecksumCache.move(file, moved);
+    assertFalse(ChecksumCache.getSidecar(file).exists());
+    assertEquals(DigestUtils.md5Hex(CONTENT), ChecksumCache.get(moved));
+
+    ChecksumCache.delete(moved);
+    assertFalse(ChecksumCache.getSidecar(moved).exists());
+  }
+
+  @Test
+  public void testPutFromRepository() throws Exception {
+    File repositoryFile = new File(root, "repository.mp4");
+    FileUtils.copyFile(file, repositoryFile);
+    FileUtils.writeStringToFile(ChecksumCache.getSidecar(repositoryFile), DigestUtils.md5Hex(CONTENT), "UTF-8");
+    ChecksumCache.putFromRepository(repositoryFile, file);
+    assertEquals(DigestUtils.md5Hex(CONTENT), ChecksumCache.get(file));
+
+    // A repository checksum older than the file itself is outdated
+    assertTrue(ChecksumCache.getSidecar(repositoryFile).setLastModified(repositoryFile.lastModified() - 60000L));
+    ChecksumCache.putFromRepository(repositoryFile, file);
+    assertNull(ChecksumCache.get(file));
+    assertFalse(ChecksumCache.getSidecar(file).exists());
+  }
+
+}